@@ -96,7 +96,7 @@ public class ActivityHandler implements Bot {
                     // another one.
                     if (
                         invokeResponse != null && turnContext.getTurnState()
-                            .get(BotFrameworkAdapter.INVOKE_RESPONSE_KEY) == null
+                            .get(BotFrameworkAdapter.INVOKE_RESPONSE_STATE_KEY) == null
                     ) {
 
                         Activity activity = new Activity(ActivityTypes.INVOKE_RESPONSE);
@@ -455,7 +455,7 @@ public class ActivityHandler implements Bot {
      * @return A task that represents a HealthCheckResponse.
      */
     protected CompletableFuture<HealthCheckResponse> onHealthCheck(TurnContext turnContext) {
-        ConnectorClient client = turnContext.getTurnState().get(BotFrameworkAdapter.CONNECTOR_CLIENT_KEY);
+        ConnectorClient client = turnContext.getTurnState().get(BotFrameworkAdapter.CONNECTOR_CLIENT_STATE_KEY);
         return CompletableFuture.completedFuture(HealthCheck.createHealthCheckResponse(client));
     }
 
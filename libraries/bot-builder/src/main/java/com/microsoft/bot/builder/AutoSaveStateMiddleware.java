@@ -16,6 +16,11 @@ public class AutoSaveStateMiddleware implements Middleware {
      */
     private BotStateSet botStateSet;
 
+    /**
+     * Whether all managed state is loaded before the turn runs.
+     */
+    private boolean preload;
+
     /**
      * Initializes a new instance of the AutoSaveStateMiddleware class.
      *
@@ -52,6 +57,27 @@ public class AutoSaveStateMiddleware implements Middleware {
         botStateSet = withBotStateSet;
     }
 
+    /**
+     * Indicates whether all managed state is loaded before the turn runs.
+     *
+     * @return true if state is preloaded.
+     */
+    public boolean isPreload() {
+        return preload;
+    }
+
+    /**
+     * Sets whether all managed state is loaded before the turn runs. When
+     * enabled, the BotStates that share a storage layer are read with a single
+     * batched read at the start of the turn, instead of lazily one at a time as
+     * their properties are first accessed.
+     *
+     * @param withPreload true to load all state before the turn runs.
+     */
+    public void setPreload(boolean withPreload) {
+        preload = withPreload;
+    }
+
     /**
      * Add a BotState to the list of sources to load.
      *
@@ -78,6 +104,10 @@ public class AutoSaveStateMiddleware implements Middleware {
      */
     @Override
     public CompletableFuture<Void> onTurn(TurnContext turnContext, NextDelegate next) {
-        return next.next().thenCompose(result -> botStateSet.saveAllChanges(turnContext));
+        CompletableFuture<Void> turn = preload
+            ? botStateSet.loadAll(turnContext).thenCompose(result -> next.next())
+            : next.next();
+
+        return turn.thenCompose(result -> botStateSet.saveAllChanges(turnContext));
     }
 }
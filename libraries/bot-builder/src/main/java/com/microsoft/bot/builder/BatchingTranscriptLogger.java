@@ -0,0 +1,438 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.connector.Async;
+import com.microsoft.bot.schema.Activity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A transcript logger that queues activities and writes them to another logger
+ * in batches, on a background thread.
+ *
+ * <p>
+ * Logging an activity only adds it to a bounded queue, so transcript I/O is
+ * kept out of the turn. A flusher thread takes up to a batch of activities,
+ * waiting at most the linger time for a batch to fill, and writes them with
+ * {@link TranscriptLogger#logActivities(List)}. When the queue is full, the
+ * {@link OverflowPolicy} decides whether the caller waits or an activity is
+ * dropped. Dropped activities and failed writes are counted and logged.
+ * </p>
+ *
+ * <p>
+ * Call {@link #flush()} to wait for the activities queued so far, and
+ * {@link #close()} to drain the queue and stop the flusher.
+ * </p>
+ */
+public class BatchingTranscriptLogger implements TranscriptLogger, AutoCloseable {
+    /**
+     * The default maximum number of queued activities.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /**
+     * The default maximum number of activities written at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * The default time to wait for a batch to fill.
+     */
+    public static final Duration DEFAULT_LINGER = Duration.ofMillis(50);
+
+    /**
+     * How long the idle flusher waits before checking whether it was closed.
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    /**
+     * What to do with an activity when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for room in the queue.
+         */
+        BLOCK,
+
+        /**
+         * Drop the activity being logged.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Drop the oldest queued activity to make room.
+         */
+        DROP_OLDEST
+    }
+
+    /**
+     * The logger that activities are written to.
+     */
+    private final TranscriptLogger transcriptLogger;
+
+    /**
+     * The queued activities.
+     */
+    private final BlockingQueue<Activity> queue;
+
+    /**
+     * The maximum number of activities written at once.
+     */
+    private final int batchSize;
+
+    /**
+     * The time to wait for a batch to fill, in nanoseconds.
+     */
+    private final long linger;
+
+    /**
+     * What to do with an activity when the queue is full.
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Writes the queued activities.
+     */
+    private final Thread flusher;
+
+    /**
+     * The logger.
+     */
+    private Logger logger = LoggerFactory.getLogger(BatchingTranscriptLogger.class);
+
+    /**
+     * The number of activities queued.
+     */
+    private final AtomicLong queued = new AtomicLong();
+
+    /**
+     * The number of queued activities that were written, failed or dropped.
+     */
+    private final AtomicLong done = new AtomicLong();
+
+    /**
+     * The number of activities dropped because the queue was full.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The number of activities that could not be written.
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * The number of dropped activities last reported.
+     */
+    private long reportedDrops;
+
+    /**
+     * Pending flushes, with the number of activities each is waiting for.
+     * Guarded by its own monitor.
+     */
+    private final List<Map.Entry<Long, CompletableFuture<Void>>> flushes = new LinkedList<>();
+
+    /**
+     * Set once the logger is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Initializes a new instance of the BatchingTranscriptLogger class with
+     * default settings.
+     *
+     * @param withTranscriptLogger The logger to write activities to.
+     */
+    public BatchingTranscriptLogger(TranscriptLogger withTranscriptLogger) {
+        this(withTranscriptLogger, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_LINGER, OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * Initializes a new instance of the BatchingTranscriptLogger class.
+     *
+     * @param withTranscriptLogger The logger to write activities to.
+     * @param withCapacity         The maximum number of queued activities.
+     * @param withBatchSize        The maximum number of activities written at
+     *                             once.
+     * @param withLinger           How long to wait for a batch to fill before
+     *                             writing it.
+     * @param withOverflowPolicy   What to do with an activity when the queue is
+     *                             full.
+     */
+    public BatchingTranscriptLogger(
+        TranscriptLogger withTranscriptLogger,
+        int withCapacity,
+        int withBatchSize,
+        Duration withLinger,
+        OverflowPolicy withOverflowPolicy
+    ) {
+        if (withTranscriptLogger == null) {
+            throw new IllegalArgumentException("transcriptLogger cannot be null");
+        }
+        if (withCapacity <= 0 || withBatchSize <= 0) {
+            throw new IllegalArgumentException("capacity and batchSize must be greater than zero");
+        }
+        if (withLinger == null || withOverflowPolicy == null) {
+            throw new IllegalArgumentException("linger and overflowPolicy cannot be null");
+        }
+
+        transcriptLogger = withTranscriptLogger;
+        queue = new LinkedBlockingQueue<>(withCapacity);
+        batchSize = withBatchSize;
+        linger = withLinger.toNanos();
+        overflowPolicy = withOverflowPolicy;
+
+        flusher = new Thread(this::run, "BatchingTranscriptLogger-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queues an activity to be logged.
+     *
+     * @param activity The activity to transcribe.
+     * @return A task that completes once the activity is queued.
+     */
+    @Override
+    public CompletableFuture<Void> logActivity(Activity activity) {
+        if (activity == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("activity cannot be null"));
+        }
+
+        return logActivities(Collections.singletonList(activity));
+    }
+
+    /**
+     * Queues a batch of activities to be logged, in order.
+     *
+     * @param activities The activities to transcribe.
+     * @return A task that completes once the activities are queued.
+     */
+    @Override
+    public CompletableFuture<Void> logActivities(List<Activity> activities) {
+        if (activities == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("activities cannot be null"));
+        }
+
+        if (closed) {
+            // nothing left to batch with, so write straight through
+            return transcriptLogger.logActivities(activities);
+        }
+
+        for (Activity activity : activities) {
+            try {
+                enqueue(activity);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Async.completeExceptionally(e);
+            }
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Waits for the activities queued so far to be written.
+     *
+     * @return A task that completes once every activity queued before the call
+     *         has been written, failed or dropped.
+     */
+    public CompletableFuture<Void> flush() {
+        long target = queued.get();
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        synchronized (flushes) {
+            if (done.get() >= target) {
+                return CompletableFuture.completedFuture(null);
+            }
+            flushes.add(new AbstractMap.SimpleImmutableEntry<>(target, result));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of activities waiting to be written.
+     *
+     * @return The queue length.
+     */
+    public int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of activities dropped because the queue was full.
+     *
+     * @return The dropped activity count.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the number of activities that could not be written.
+     *
+     * @return The failed activity count.
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Writes the queued activities and stops the flusher. Activities logged
+     * afterwards are written straight through.
+     *
+     * @throws InterruptedException Interrupted while waiting for the flusher.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        flusher.join();
+
+        // anything queued while the flusher was exiting
+        List<Activity> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+    }
+
+    /**
+     * Adds an activity to the queue, applying the overflow policy if it is full.
+     *
+     * @param activity The activity.
+     * @throws InterruptedException Interrupted while waiting for room.
+     */
+    private void enqueue(Activity activity) throws InterruptedException {
+        switch (overflowPolicy) {
+            case BLOCK:
+                queued.incrementAndGet();
+                try {
+                    queue.put(activity);
+                } catch (InterruptedException e) {
+                    completed(1);
+                    throw e;
+                }
+                break;
+
+            case DROP_OLDEST:
+                queued.incrementAndGet();
+                while (!queue.offer(activity)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                        completed(1);
+                    }
+                }
+                break;
+
+            default:
+                if (queue.offer(activity)) {
+                    queued.incrementAndGet();
+                } else {
+                    dropped.incrementAndGet();
+                }
+                break;
+        }
+    }
+
+    /**
+     * The flusher loop. Exits once the logger is closed and the queue is empty.
+     */
+    private void run() {
+        while (true) {
+            List<Activity> batch = new ArrayList<>(batchSize);
+            try {
+                Activity first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    reportDrops();
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + linger;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Activity next = remaining > 0 && !closed
+                        ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                        : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            write(batch);
+            reportDrops();
+        }
+    }
+
+    /**
+     * Writes a batch to the underlying logger, waiting for it to complete.
+     *
+     * @param batch The activities.
+     */
+    private void write(List<Activity> batch) {
+        try {
+            transcriptLogger.logActivities(batch).join();
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            logger.error("Failed to log {} transcript activities: {}", batch.size(), e.toString());
+        }
+        completed(batch.size());
+    }
+
+    /**
+     * Records queued activities as done, and completes the flushes waiting for
+     * them.
+     *
+     * @param count The number of activities.
+     */
+    private void completed(int count) {
+        long total = done.addAndGet(count);
+        List<CompletableFuture<Void>> ready = new ArrayList<>();
+        synchronized (flushes) {
+            Iterator<Map.Entry<Long, CompletableFuture<Void>>> pending = flushes.iterator();
+            while (pending.hasNext()) {
+                Map.Entry<Long, CompletableFuture<Void>> flush = pending.next();
+                if (flush.getKey() <= total) {
+                    ready.add(flush.getValue());
+                    pending.remove();
+                }
+            }
+        }
+        ready.forEach(flush -> flush.complete(null));
+    }
+
+    /**
+     * Logs a warning if activities were dropped since the last report.
+     */
+    private void reportDrops() {
+        long total = dropped.get();
+        if (total > reportedDrops) {
+            logger.warn(
+                "Transcript queue full, dropped {} activities ({} total)", total - reportedDrops, total
+            );
+            reportedDrops = total;
+        }
+    }
+}
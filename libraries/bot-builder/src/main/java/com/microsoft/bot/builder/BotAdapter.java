@@ -4,6 +4,7 @@
 package com.microsoft.bot.builder;
 
 import com.microsoft.bot.connector.Async;
+import com.microsoft.bot.connector.OAuthClient;
 import com.microsoft.bot.connector.authentication.ClaimsIdentity;
 import com.microsoft.bot.schema.Activity;
 import com.microsoft.bot.schema.ConversationReference;
@@ -41,16 +42,31 @@ public abstract class BotAdapter {
      */
     public static final String BOT_IDENTITY_KEY = "BotIdentity";
 
+    /**
+     * Typed turn state key of the bot claims identity.
+     */
+    public static final TurnStateKey<ClaimsIdentity> BOT_IDENTITY_STATE_KEY = TurnStateKey.of(BOT_IDENTITY_KEY);
+
     /**
      * Key to store bot oauth scope.
      */
     public static final String OAUTH_SCOPE_KEY = "Microsoft.Bot.Builder.BotAdapter.OAuthScope";
 
+    /**
+     * Typed turn state key of the bot oauth scope.
+     */
+    public static final TurnStateKey<String> OAUTH_SCOPE_STATE_KEY = TurnStateKey.of(OAUTH_SCOPE_KEY);
+
     /**
      * Key to store bot oauth client.
      */
     public static final String OAUTH_CLIENT_KEY = "OAuthClient";
 
+    /**
+     * Typed turn state key of the bot oauth client.
+     */
+    public static final TurnStateKey<OAuthClient> OAUTH_CLIENT_STATE_KEY = TurnStateKey.of(OAUTH_CLIENT_KEY);
+
     /**
      * The collection of middleware in the adapter's pipeline.
      */
@@ -47,6 +47,7 @@ import com.microsoft.bot.schema.TokenExchangeState;
 import com.microsoft.bot.schema.TokenResponse;
 import com.microsoft.bot.schema.TokenStatus;
 import com.microsoft.bot.restclient.retry.RetryStrategy;
+import java.util.ArrayList;
 import java.util.Collections;
 import org.apache.commons.lang3.StringUtils;
 
@@ -89,11 +90,22 @@ public class BotFrameworkAdapter extends BotAdapter implements
      */
     public static final String INVOKE_RESPONSE_KEY = "BotFrameworkAdapter.InvokeResponse";
 
+    /**
+     * Typed turn state key of the InvokeResponse.
+     */
+    public static final TurnStateKey<Activity> INVOKE_RESPONSE_STATE_KEY = TurnStateKey.of(INVOKE_RESPONSE_KEY);
+
     /**
      * Key to store ConnectorClient.
      */
     public static final String CONNECTOR_CLIENT_KEY = "ConnectorClient";
 
+    /**
+     * Typed turn state key of the ConnectorClient.
+     */
+    public static final TurnStateKey<ConnectorClient> CONNECTOR_CLIENT_STATE_KEY =
+        TurnStateKey.of(CONNECTOR_CLIENT_KEY);
+
     /**
      * Key to store TeamsConnectorClient. For testing only.
      */
@@ -136,6 +148,17 @@ public class BotFrameworkAdapter extends BotAdapter implements
      */
     private Map<String, OAuthClient> oAuthClients = new ConcurrentHashMap<>();
 
+    /**
+     * The maximum number of sends a sendActivities call has in flight at once.
+     */
+    private volatile int maxPipelinedSends = 1;
+
+    /**
+     * Serializes the turns of each conversation, or null to run turns as they
+     * arrive.
+     */
+    private volatile TurnScheduler turnScheduler;
+
     /**
      * Initializes a new instance of the {@link BotFrameworkAdapter} class, using a
      * credential provider.
@@ -346,8 +369,8 @@ public class BotFrameworkAdapter extends BotAdapter implements
         CompletableFuture<Void> pipelineResult = new CompletableFuture<>();
 
         try (TurnContextImpl context = new TurnContextImpl(this, reference.getContinuationActivity())) {
-            context.getTurnState().add(BOT_IDENTITY_KEY, claimsIdentity);
-            context.getTurnState().add(OAUTH_SCOPE_KEY, audience);
+            context.getTurnState().add(BOT_IDENTITY_STATE_KEY, claimsIdentity);
+            context.getTurnState().add(OAUTH_SCOPE_STATE_KEY, audience);
 
             String appIdFromClaims = JwtTokenValidation.getAppIdFromClaims(claimsIdentity.claims());
             return credentialProvider.isValidAppId(appIdFromClaims).thenCompose(isValidAppId -> {
@@ -360,7 +383,7 @@ public class BotFrameworkAdapter extends BotAdapter implements
 
                 return createConnectorClient(reference.getServiceUrl(), claimsIdentity, audience)
                         .thenCompose(connectorClient -> {
-                            context.getTurnState().add(CONNECTOR_CLIENT_KEY, connectorClient);
+                            context.getTurnState().add(CONNECTOR_CLIENT_STATE_KEY, connectorClient);
                             return runPipeline(context, callback);
                         });
             });
@@ -385,6 +408,42 @@ public class BotFrameworkAdapter extends BotAdapter implements
         return this;
     }
 
+    /**
+     * Authenticates the HTTP authentication header of a request before its body
+     * is read. A request that fails can be rejected without parsing the activity.
+     * The checks that need the activity are made by
+     * {@link #authenticateActivity(ClaimsIdentity, String, Activity)}.
+     *
+     * @param authHeader The HTTP authentication header of the request.
+     * @return A task that completes with the identity of the caller, or
+     *         completes exceptionally with an AuthenticationException.
+     */
+    public CompletableFuture<ClaimsIdentity> authenticateHeader(String authHeader) {
+        return JwtTokenValidation.authenticateHeader(
+            authHeader, credentialProvider, channelProvider, authConfiguration
+        );
+    }
+
+    /**
+     * Runs the authentication checks that need the activity of a request whose
+     * header was authenticated by {@link #authenticateHeader(String)}. The
+     * returned identity can be passed to
+     * {@link #processActivity(ClaimsIdentity, Activity, BotCallbackHandler)}.
+     *
+     * @param identity   The identity from authenticateHeader.
+     * @param authHeader The HTTP authentication header of the request.
+     * @param activity   The incoming activity.
+     * @return A task that completes with the identity of the caller, or
+     *         completes exceptionally with an AuthenticationException.
+     */
+    public CompletableFuture<ClaimsIdentity> authenticateActivity(
+        ClaimsIdentity identity,
+        String authHeader,
+        Activity activity
+    ) {
+        return JwtTokenValidation.authenticateActivity(identity, authHeader, activity, channelProvider);
+    }
+
     /**
      * Creates a turn context and runs the middleware pipeline for an incoming
      * activity.
@@ -430,22 +489,36 @@ public class BotFrameworkAdapter extends BotAdapter implements
             return Async.completeExceptionally(new IllegalArgumentException("Activity"));
         }
 
+        TurnScheduler scheduler = turnScheduler;
+        if (scheduler != null && activity.getConversation() != null) {
+            String key = activity.getChannelId() + "/" + activity.getConversation().getId();
+            return scheduler.schedule(key, () -> runActivity(identity, activity, callback));
+        }
+
+        return runActivity(identity, activity, callback);
+    }
+
+    private CompletableFuture<InvokeResponse> runActivity(ClaimsIdentity identity, Activity activity,
+            BotCallbackHandler callback) {
         CompletableFuture<InvokeResponse> pipelineResult = new CompletableFuture<>();
 
         try (TurnContextImpl context = new TurnContextImpl(this, activity)) {
-            activity.setCallerId(generateCallerId(identity).join());
-            context.getTurnState().add(BOT_IDENTITY_KEY, identity);
+            context.getTurnState().add(BOT_IDENTITY_STATE_KEY, identity);
 
             // The OAuthScope is also stored on the TurnState to get the correct
             // AppCredentials if fetching a token is required.
             String scope = getBotFrameworkOAuthScope();
-            context.getTurnState().add(OAUTH_SCOPE_KEY, scope);
+            context.getTurnState().add(OAUTH_SCOPE_STATE_KEY, scope);
 
-            pipelineResult = createConnectorClient(activity.getServiceUrl(), identity, scope)
+            pipelineResult = generateCallerId(identity)
+                .thenCompose(callerId -> {
+                    activity.setCallerId(callerId);
+                    return createConnectorClient(activity.getServiceUrl(), identity, scope);
+                })
 
                 // run pipeline
                 .thenCompose(connectorClient -> {
-                    context.getTurnState().add(CONNECTOR_CLIENT_KEY, connectorClient);
+                    context.getTurnState().add(CONNECTOR_CLIENT_STATE_KEY, connectorClient);
                     return runPipeline(context, callback);
                 })
                 .thenCompose(result -> {
@@ -463,7 +536,7 @@ public class BotFrameworkAdapter extends BotAdapter implements
                     // Handle Invoke scenarios, which deviate from the request/response model in
                     // that the Bot will return a specific body and return code.
                     if (activity.isType(ActivityTypes.INVOKE)) {
-                        Activity invokeResponse = context.getTurnState().get(INVOKE_RESPONSE_KEY);
+                        Activity invokeResponse = context.getTurnState().get(INVOKE_RESPONSE_STATE_KEY);
                         if (invokeResponse == null) {
                             return CompletableFuture.completedFuture(
                                 new InvokeResponse(HttpURLConnection.HTTP_NOT_IMPLEMENTED, null)
@@ -508,9 +581,80 @@ public class BotFrameworkAdapter extends BotAdapter implements
         });
     }
 
+    /**
+     * Gets the maximum number of outbound activities that a single
+     * {@link #sendActivities(TurnContext, List)} call has in flight at once.
+     *
+     * @return The maximum number of pipelined sends. 1 means each activity is
+     *         sent once the previous one has been acknowledged.
+     */
+    public int getMaxPipelinedSends() {
+        return maxPipelinedSends;
+    }
+
+    /**
+     * Sets the maximum number of outbound activities that a single
+     * {@link #sendActivities(TurnContext, List)} call has in flight at once.
+     *
+     * <p>
+     * The default of 1 sends the activities strictly one after the other, which
+     * is what guarantees their order in the conversation. Larger values start
+     * the next send before the previous ones are acknowledged, which shortens
+     * turns that emit several activities but lets the channel receive them out
+     * of order. Only raise it for channels or activities where that is
+     * acceptable. Delay activities always wait for the sends before them.
+     * </p>
+     *
+     * @param withMaxPipelinedSends The maximum number of pipelined sends.
+     */
+    public void setMaxPipelinedSends(int withMaxPipelinedSends) {
+        if (withMaxPipelinedSends < 1) {
+            throw new IllegalArgumentException("maxPipelinedSends must be at least 1");
+        }
+        maxPipelinedSends = withMaxPipelinedSends;
+    }
+
+    /**
+     * Gets the scheduler that runs the turns of each conversation one at a time.
+     *
+     * @return The turn scheduler, or null if turns run as they arrive.
+     */
+    public TurnScheduler getTurnScheduler() {
+        return turnScheduler;
+    }
+
+    /**
+     * Sets the scheduler that runs the turns of each conversation one at a time.
+     *
+     * <p>
+     * By default, activities are processed as they arrive, so two activities of
+     * the same conversation can run at once and conflict when they save state.
+     * With a scheduler, {@link #processActivity(ClaimsIdentity, Activity,
+     * BotCallbackHandler)} runs each conversation's turns in order while
+     * different conversations still run in parallel.
+     * </p>
+     *
+     * @param withTurnScheduler The turn scheduler, or null to run turns as they
+     *                          arrive.
+     */
+    public void setTurnScheduler(TurnScheduler withTurnScheduler) {
+        turnScheduler = withTurnScheduler;
+    }
+
     /**
      * Sends activities to the conversation.
      *
+     * <p>
+     * The sends are chained without blocking a thread: each one starts when the
+     * activity before it has been acknowledged (or, with
+     * {@link #setMaxPipelinedSends(int)}, when a slot in the pipeline frees up),
+     * and delay activities are waited out on a timer. Each send, and the
+     * returned task, continues on the {@link ExecutorFactory#getExecutor()}
+     * pool rather than on the HTTP client thread that completed the previous
+     * send, so bot code that blocks on another request does not hold up the
+     * shared HTTP dispatcher.
+     * </p>
+     *
      * @param context    The context object for the turn.
      * @param activities The activities to send.
      * @return A task that represents the work queued to execute. If the activities
@@ -520,7 +664,6 @@ public class BotFrameworkAdapter extends BotAdapter implements
      *
      *         {@link TurnContext#onSendActivities(SendActivitiesHandler)}
      */
-    @SuppressWarnings("checkstyle:EmptyBlock, checkstyle:linelength")
     @Override
     public CompletableFuture<ResourceResponse[]> sendActivities(TurnContext context, List<Activity> activities) {
         if (context == null) {
@@ -536,49 +679,59 @@ public class BotFrameworkAdapter extends BotAdapter implements
                     new IllegalArgumentException("Expecting one or more activities, but the array was empty."));
         }
 
-        return CompletableFuture.supplyAsync(() -> {
-            ResourceResponse[] responses = new ResourceResponse[activities.size()];
-
-            /*
-             * NOTE: we're using for here (vs. foreach) because we want to simultaneously
-             * index into the activities array to get the activity to process as well as use
-             * that index to assign the response to the responses array and this is the most
-             * cost effective way to do that.
-             */
-            for (int index = 0; index < activities.size(); index++) {
-                Activity activity = activities.get(index);
-
-                // Clients and bots SHOULD NOT include an id field in activities they generate.
-                activity.setId(null);
-
-                ResourceResponse response;
-                if (activity.isType(ActivityTypes.DELAY)) {
-                    // The Activity Schema doesn't have a delay type build in, so it's simulated
-                    // here in the Bot. This matches the behavior in the Node connector.
-                    int delayMs = (int) activity.getValue();
-                    try {
-                        Thread.sleep(delayMs);
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
-                    }
-                    // No need to create a response. One will be created below.
-                    response = null;
-                } else if (activity.isType(ActivityTypes.INVOKE_RESPONSE)) {
-                    context.getTurnState().add(INVOKE_RESPONSE_KEY, activity);
-                    // No need to create a response. One will be created below.
-                    response = null;
-                } else if (activity.isType(ActivityTypes.TRACE)
-                        && !StringUtils.equals(activity.getChannelId(), Channels.EMULATOR)) {
-                    // if it is a Trace activity we only send to the channel if it's the emulator.
-                    response = null;
-                } else if (!StringUtils.isEmpty(activity.getReplyToId())) {
-                    ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_KEY);
-                    response = connectorClient.getConversations().replyToActivity(activity).join();
-                } else {
-                    ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_KEY);
-                    response = connectorClient.getConversations().sendToConversation(activity).join();
-                }
+        int pipelineDepth = maxPipelinedSends;
+        ResourceResponse[] responses = new ResourceResponse[activities.size()];
+
+        // Completes when the last delay has passed. Sends after a delay start from it.
+        CompletableFuture<Void> barrier = CompletableFuture.completedFuture(null);
+
+        // The sends started since the last delay, in order.
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+
+        // Completes once the last send has been started, so sends start in order.
+        CompletableFuture<Void> started = CompletableFuture.completedFuture(null);
+
+        for (int index = 0; index < activities.size(); index++) {
+            Activity activity = activities.get(index);
+
+            // Clients and bots SHOULD NOT include an id field in activities they generate.
+            activity.setId(null);
+
+            if (activity.isType(ActivityTypes.DELAY)) {
+                // The Activity Schema doesn't have a delay type build in, so it's simulated
+                // here in the Bot. This matches the behavior in the Node connector.
+                int delayMs = (int) activity.getValue();
+                sends.add(barrier);
+                barrier = CompletableFuture.allOf(sends.toArray(new CompletableFuture[0]))
+                    .thenCompose(sent -> Async.delay(delayMs));
+                sends.clear();
+            } else if (activity.isType(ActivityTypes.INVOKE_RESPONSE)) {
+                context.getTurnState().add(INVOKE_RESPONSE_STATE_KEY, activity);
+            } else if (activity.isType(ActivityTypes.TRACE)
+                    && !StringUtils.equals(activity.getChannelId(), Channels.EMULATOR)) {
+                // if it is a Trace activity we only send to the channel if it's the emulator.
+                continue;
+            } else {
+                // Wait for the send pipelineDepth places back, or the last delay.
+                CompletableFuture<Void> previous = sends.size() >= pipelineDepth
+                    ? sends.get(sends.size() - pipelineDepth)
+                    : barrier;
+                int responseIndex = index;
+                // Retrofit completes a send on the HTTP dispatcher thread, so
+                // continue on the SDK pool to keep bot code off it
+                CompletableFuture<CompletableFuture<ResourceResponse>> send = started.thenCombineAsync(
+                    previous, (startedBefore, ready) -> sendActivity(context, activity), ExecutorFactory.getExecutor()
+                );
+                started = send.thenApply(request -> null);
+                sends.add(send
+                    .thenCompose(request -> request)
+                    .thenAccept(response -> responses[responseIndex] = response));
+            }
+        }
 
+        sends.add(barrier);
+        return CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).thenApplyAsync(sent -> {
+            for (int index = 0; index < responses.length; index++) {
                 // If No response is set, then default to a "simple" response. This can't really
                 // be done above, as there are cases where the ReplyTo/SendTo methods will also
                 // return null (See below) so the check has to happen here.
@@ -590,17 +743,32 @@ public class BotFrameworkAdapter extends BotAdapter implements
                 //
                 // https://github.com/Microsoft/botbuilder-dotnet/issues/460
                 // bug report : https://github.com/Microsoft/botbuilder-dotnet/issues/465
-                if (response == null) {
-                    response = new ResourceResponse((activity.getId() == null) ? "" : activity.getId());
+                if (responses[index] == null) {
+                    String id = activities.get(index).getId();
+                    responses[index] = new ResourceResponse(id == null ? "" : id);
                 }
-
-                responses[index] = response;
             }
 
             return responses;
         }, ExecutorFactory.getExecutor());
     }
 
+    /**
+     * Sends a single activity with the turn's connector client, as a reply if it
+     * has a replyToId.
+     *
+     * @param context  The context object for the turn.
+     * @param activity The activity to send.
+     * @return The response from the channel.
+     */
+    private CompletableFuture<ResourceResponse> sendActivity(TurnContext context, Activity activity) {
+        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_STATE_KEY);
+        if (!StringUtils.isEmpty(activity.getReplyToId())) {
+            return connectorClient.getConversations().replyToActivity(activity);
+        }
+        return connectorClient.getConversations().sendToConversation(activity);
+    }
+
     /**
      * Replaces an existing activity in the conversation.
      *
@@ -618,7 +786,7 @@ public class BotFrameworkAdapter extends BotAdapter implements
      */
     @Override
     public CompletableFuture<ResourceResponse> updateActivity(TurnContext context, Activity activity) {
-        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_KEY);
+        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_STATE_KEY);
         return connectorClient.getConversations().updateActivity(activity);
     }
 
@@ -632,7 +800,7 @@ public class BotFrameworkAdapter extends BotAdapter implements
      */
     @Override
     public CompletableFuture<Void> deleteActivity(TurnContext context, ConversationReference reference) {
-        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_KEY);
+        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_STATE_KEY);
         return connectorClient.getConversations().deleteActivity(reference.getConversation().getId(),
                 reference.getActivityId());
     }
@@ -655,7 +823,7 @@ public class BotFrameworkAdapter extends BotAdapter implements
                     "BotFrameworkAdapter.deleteConversationMember(): missing conversation.id"));
         }
 
-        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_KEY);
+        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_STATE_KEY);
         String conversationId = context.getActivity().getConversation().getId();
         return connectorClient.getConversations().deleteConversationMember(conversationId, memberId);
     }
@@ -694,7 +862,7 @@ public class BotFrameworkAdapter extends BotAdapter implements
                     new IllegalArgumentException("BotFrameworkAdapter.GetActivityMembers(): missing conversation.id"));
         }
 
-        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_KEY);
+        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_STATE_KEY);
         String conversationId = context.getActivity().getConversation().getId();
 
         return connectorClient.getConversations().getActivityMembers(conversationId, activityId);
@@ -717,7 +885,7 @@ public class BotFrameworkAdapter extends BotAdapter implements
                     new IllegalArgumentException("BotFrameworkAdapter.GetActivityMembers(): missing conversation.id"));
         }
 
-        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_KEY);
+        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_STATE_KEY);
         String conversationId = context.getActivity().getConversation().getId();
 
         return connectorClient.getConversations().getConversationMembers(conversationId);
@@ -789,7 +957,7 @@ public class BotFrameworkAdapter extends BotAdapter implements
      * @return List of Members of the current conversation
      */
     public CompletableFuture<ConversationsResult> getConversations(TurnContextImpl context) {
-        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_KEY);
+        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_STATE_KEY);
         return connectorClient.getConversations().getConversations();
     }
 
@@ -809,7 +977,7 @@ public class BotFrameworkAdapter extends BotAdapter implements
      * @return List of Members of the current conversation
      */
     public CompletableFuture<ConversationsResult> getConversations(TurnContextImpl context, String continuationToken) {
-        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_KEY);
+        ConnectorClient connectorClient = context.getTurnState().get(CONNECTOR_CLIENT_STATE_KEY);
         return connectorClient.getConversations().getConversations(continuationToken);
     }
 
@@ -982,8 +1150,8 @@ public class BotFrameworkAdapter extends BotAdapter implements
                             };
                             ClaimsIdentity claimsIdentity = new ClaimsIdentity("anonymous", claims);
 
-                            context.getTurnState().add(BOT_IDENTITY_KEY, claimsIdentity);
-                            context.getTurnState().add(CONNECTOR_CLIENT_KEY, connectorClient);
+                            context.getTurnState().add(BOT_IDENTITY_STATE_KEY, claimsIdentity);
+                            context.getTurnState().add(CONNECTOR_CLIENT_STATE_KEY, connectorClient);
 
                             result = runPipeline(context, callback);
                         } catch (Exception e) {
@@ -1060,18 +1228,29 @@ public class BotFrameworkAdapter extends BotAdapter implements
      */
     protected CompletableFuture<OAuthClient> createOAuthAPIClient(TurnContext turnContext,
             AppCredentials oAuthAppCredentials) {
+        CompletableFuture<Void> emulateCheck = CompletableFuture.completedFuture(null);
         if (!OAuthClientConfig.emulateOAuthCards
-                && StringUtils.equalsIgnoreCase(turnContext.getActivity().getChannelId(), Channels.EMULATOR)
-                && credentialProvider.isAuthenticationDisabled().join()) {
-            OAuthClientConfig.emulateOAuthCards = true;
+                && StringUtils.equalsIgnoreCase(turnContext.getActivity().getChannelId(), Channels.EMULATOR)) {
+            emulateCheck = credentialProvider.isAuthenticationDisabled().thenAccept(authDisabled -> {
+                if (authDisabled) {
+                    OAuthClientConfig.emulateOAuthCards = true;
+                }
+            });
         }
 
         String appId = getBotAppId(turnContext);
         String cacheKey = appId + (oAuthAppCredentials != null ? oAuthAppCredentials.getAppId() : "");
         String oAuthScope = getBotFrameworkOAuthScope();
-        AppCredentials credentials = oAuthAppCredentials != null ? oAuthAppCredentials
-                : getAppCredentials(appId, oAuthScope).join();
 
+        return emulateCheck
+            .thenCompose(checked -> oAuthAppCredentials != null
+                ? CompletableFuture.completedFuture(oAuthAppCredentials)
+                : getAppCredentials(appId, oAuthScope))
+            .thenApply(credentials -> getOrCreateOAuthClient(turnContext, cacheKey, credentials));
+    }
+
+    private OAuthClient getOrCreateOAuthClient(TurnContext turnContext, String cacheKey,
+            AppCredentials credentials) {
         OAuthClient client = oAuthClients.computeIfAbsent(cacheKey, key -> {
             OAuthClient oAuthClient = new RestOAuthClient(
                     OAuthClientConfig.emulateOAuthCards ? turnContext.getActivity().getServiceUrl()
@@ -1089,11 +1268,11 @@ public class BotFrameworkAdapter extends BotAdapter implements
         // adding the oAuthClient into the TurnState
         // TokenResolver.cs will use it get the correct credentials to poll for
         // token for streaming scenario
-        if (turnContext.getTurnState().get(BotAdapter.OAUTH_CLIENT_KEY) == null) {
-            turnContext.getTurnState().add(BotAdapter.OAUTH_CLIENT_KEY, client);
+        if (turnContext.getTurnState().get(BotAdapter.OAUTH_CLIENT_STATE_KEY) == null) {
+            turnContext.getTurnState().add(BotAdapter.OAUTH_CLIENT_STATE_KEY, client);
         }
 
-        return CompletableFuture.completedFuture(client);
+        return client;
     }
 
     /**
@@ -1228,7 +1407,7 @@ public class BotFrameworkAdapter extends BotAdapter implements
     }
 
     private String getBotAppId(TurnContext turnContext) throws IllegalStateException {
-        ClaimsIdentity botIdentity = turnContext.getTurnState().get(BOT_IDENTITY_KEY);
+        ClaimsIdentity botIdentity = turnContext.getTurnState().get(BOT_IDENTITY_STATE_KEY);
         if (botIdentity == null) {
             throw new IllegalStateException("An IIdentity is required in TurnState for this operation.");
         }
@@ -1352,12 +1531,13 @@ public class BotFrameworkAdapter extends BotAdapter implements
             ));
         }
 
-        OAuthClient client =  createOAuthAPIClient(context, oAuthAppCredentials).join();
-        return client.getUserToken().getToken(
+        return createOAuthAPIClient(context, oAuthAppCredentials).thenCompose(oAuthClient -> {
+            return oAuthClient.getUserToken().getToken(
                 context.getActivity().getFrom().getId(),
                 connectionName,
                 context.getActivity().getChannelId(),
                 magicCode);
+        });
     }
 
     /**
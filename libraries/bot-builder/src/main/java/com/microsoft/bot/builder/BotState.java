@@ -3,14 +3,20 @@
 
 package com.microsoft.bot.builder;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microsoft.bot.connector.Async;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
@@ -26,18 +32,62 @@ import java.util.function.Supplier;
  * {@link PrivateConversationState}. You can define additional scopes for your
  * bot.
  * </p>
+ *
+ * <p>
+ * By default, changes are detected at save time by serializing the whole
+ * state cache and comparing it to the snapshot taken when it was loaded. When
+ * {@link #setDirtyTracking(boolean)} is enabled, property sets and deletes
+ * mark the cache as changed directly, so a turn that does not change state
+ * costs no serialization. Values that are read through a property accessor
+ * and mutated in place without a subsequent set are only detected when
+ * {@link #setDeepMutationCheck(boolean)} is also enabled.
+ * </p>
+ *
+ * <p>
+ * When {@link #setPropertyStorage(boolean)} is enabled, each property is kept
+ * under its own storage key instead of in one item for the whole scope, so a
+ * turn only reads the properties it accesses and only writes the ones that
+ * changed.
+ * </p>
  */
 public abstract class BotState implements PropertyManager {
     /**
      * The key for the state cache.
      */
-    private String contextServiceKey;
+    private TurnStateKey<CachedBotState> cachedStateKey;
 
     /**
      * The storage layer this state management object will use.
      */
     private Storage storage;
 
+    /**
+     * Whether property changes are tracked directly instead of by comparing
+     * serialized snapshots.
+     */
+    private boolean dirtyTracking;
+
+    /**
+     * Whether mutable values read in dirty tracking mode are checked for in
+     * place modifications.
+     */
+    private boolean deepMutationCheck;
+
+    /**
+     * Serializes state for change detection, or null to use JSON.
+     */
+    private StateSerializer stateSerializer;
+
+    /**
+     * Whether each property is stored under its own storage key.
+     */
+    private boolean propertyStorage;
+
+    /**
+     * The names of the properties created for this BotState.
+     */
+    private final Set<String> propertyNames = ConcurrentHashMap.newKeySet();
+
     /**
      * Initializes a new instance of the BotState class.
      *
@@ -54,7 +104,110 @@ public abstract class BotState implements PropertyManager {
         if (StringUtils.isEmpty(withContextServiceKey)) {
             throw new IllegalArgumentException("context service key cannot be empty");
         }
-        contextServiceKey = withContextServiceKey;
+        cachedStateKey = TurnStateKey.of(withContextServiceKey);
+    }
+
+    /**
+     * Indicates whether changes are tracked as properties are set and deleted.
+     *
+     * @return true if dirty tracking is enabled.
+     */
+    public boolean isDirtyTracking() {
+        return dirtyTracking;
+    }
+
+    /**
+     * Sets whether changes are tracked as properties are set and deleted,
+     * instead of comparing a JSON snapshot of the entire state on save.
+     *
+     * <p>
+     * This only affects state caches loaded after the call.
+     * </p>
+     *
+     * @param withDirtyTracking true to enable dirty tracking.
+     */
+    public void setDirtyTracking(boolean withDirtyTracking) {
+        dirtyTracking = withDirtyTracking;
+    }
+
+    /**
+     * Indicates whether mutable values read in dirty tracking mode are checked
+     * for in place modifications on save.
+     *
+     * @return true if the deep mutation check is enabled.
+     */
+    public boolean isDeepMutationCheck() {
+        return deepMutationCheck;
+    }
+
+    /**
+     * Sets whether mutable values read in dirty tracking mode are checked for
+     * in place modifications on save. Only the mutable properties that were
+     * read or set during the turn are serialized for the check.
+     *
+     * @param withDeepMutationCheck true to enable the deep mutation check.
+     */
+    public void setDeepMutationCheck(boolean withDeepMutationCheck) {
+        deepMutationCheck = withDeepMutationCheck;
+    }
+
+    /**
+     * Gets the serializer used to snapshot state for change detection.
+     *
+     * @return The serializer, or null if state is snapshotted as JSON.
+     */
+    public StateSerializer getStateSerializer() {
+        return stateSerializer;
+    }
+
+    /**
+     * Sets the serializer used to snapshot state for change detection. A binary
+     * serializer such as {@link SmileStateSerializer} makes the snapshots
+     * cheaper to take and compare.
+     *
+     * <p>
+     * This only affects state caches loaded after the call.
+     * </p>
+     *
+     * @param withStateSerializer The serializer, or null to snapshot state as
+     *                            JSON.
+     */
+    public void setStateSerializer(StateSerializer withStateSerializer) {
+        stateSerializer = withStateSerializer;
+    }
+
+    /**
+     * Indicates whether each property is stored under its own storage key.
+     *
+     * @return true if properties are stored individually.
+     */
+    public boolean isPropertyStorage() {
+        return propertyStorage;
+    }
+
+    /**
+     * Sets whether each property is stored under its own storage key, named
+     * {@code {storageKey}#{propertyName}}, instead of in one item for the whole
+     * scope.
+     *
+     * <p>
+     * In this mode {@link #load(TurnContext)} doesn't read storage. A property
+     * is read the first time it is accessed through a
+     * {@link StatePropertyAccessor}, and {@link #saveChanges(TurnContext)} only
+     * writes the properties whose value changed and deletes the ones that were
+     * removed. {@link #get(TurnContext)} only returns the properties read or
+     * set during the turn. The two layouts aren't compatible, so state written
+     * in one mode is not visible in the other.
+     * </p>
+     *
+     * <p>
+     * This only affects state caches loaded after the call.
+     * </p>
+     *
+     * @param withPropertyStorage true to store properties individually.
+     */
+    public void setPropertyStorage(boolean withPropertyStorage) {
+        propertyStorage = withPropertyStorage;
     }
 
     /**
@@ -71,6 +224,7 @@ public abstract class BotState implements PropertyManager {
             throw new IllegalArgumentException("name cannot be empty");
         }
 
+        propertyNames.add(name);
         return new BotStatePropertyAccessor<>(this, name);
     }
 
@@ -100,15 +254,16 @@ public abstract class BotState implements PropertyManager {
                 throw new IllegalArgumentException("turnContext cannot be null");
             }
 
-            CachedBotState cachedState = turnContext.getTurnState().get(contextServiceKey);
             String storageKey = getStorageKey(turnContext);
-            if (force || cachedState == null || cachedState.getState() == null) {
+            if (needsLoad(turnContext, force)) {
+                if (propertyStorage) {
+                    // properties are read as they are accessed
+                    setLoadedState(turnContext, null);
+                    return CompletableFuture.completedFuture(null);
+                }
+
                 return storage.read(new String[]{storageKey}).thenApply(val -> {
-                    turnContext.getTurnState()
-                        .replace(
-                            contextServiceKey,
-                            new CachedBotState((Map<String, Object>) val.get(storageKey))
-                        );
+                    setLoadedState(turnContext, val.get(storageKey));
                     return null;
                 });
             }
@@ -142,17 +297,22 @@ public abstract class BotState implements PropertyManager {
                 throw new IllegalArgumentException("turnContext cannot be null");
             }
 
-            CachedBotState cachedState = turnContext.getTurnState().get(contextServiceKey);
-            if (force || cachedState != null && cachedState.isChanged()) {
+            CachedBotState cachedState = turnContext.getTurnState().get(cachedStateKey);
+            if (cachedState != null && cachedState.isPropertyStorage()) {
+                return savePropertyChanges(turnContext, cachedState, force);
+            }
+
+            Map<String, Object> pending = getPendingChanges(turnContext, force);
+            if (pending != null) {
                 String storageKey = getStorageKey(turnContext);
                 Map<String, Object> changes = new HashMap<String, Object>() {
                     {
-                        put(storageKey, cachedState.state);
+                        put(storageKey, pending);
                     }
                 };
 
                 return storage.write(changes).thenApply(val -> {
-                    cachedState.setHash(cachedState.computeHash(cachedState.state));
+                    markSaved(turnContext);
                     return null;
                 });
             }
@@ -180,7 +340,17 @@ public abstract class BotState implements PropertyManager {
             ));
         }
 
-        turnContext.getTurnState().replace(contextServiceKey, new CachedBotState());
+        CachedBotState oldState = turnContext.getTurnState().get(cachedStateKey);
+        CachedBotState newState = createCachedState(null);
+        if (newState.isPropertyStorage()) {
+            // the stored properties are deleted on the next save
+            newState.markPropertiesUnknown(propertyNames);
+            if (oldState != null) {
+                newState.markPropertiesUnknown(oldState.getPropertyNames());
+            }
+        }
+
+        turnContext.getTurnState().replace(cachedStateKey, newState);
         return CompletableFuture.completedFuture(null);
     }
 
@@ -198,10 +368,23 @@ public abstract class BotState implements PropertyManager {
         }
 
         String storageKey = getStorageKey(turnContext);
-        return storage.delete(new String[] {storageKey}).thenApply(result -> {
-            CachedBotState cachedState = turnContext.getTurnState().get(contextServiceKey);
+        CachedBotState cachedState = turnContext.getTurnState().get(cachedStateKey);
+        Set<String> keys = new HashSet<>();
+        keys.add(storageKey);
+        if (propertyStorage || cachedState != null && cachedState.isPropertyStorage()) {
+            for (String name : propertyNames) {
+                keys.add(getPropertyStorageKey(turnContext, name));
+            }
+            if (cachedState != null) {
+                for (String name : cachedState.getPropertyNames()) {
+                    keys.add(getPropertyStorageKey(turnContext, name));
+                }
+            }
+        }
+
+        return storage.delete(keys.toArray(new String[keys.size()])).thenApply(result -> {
             if (cachedState != null) {
-                turnContext.getTurnState().remove(contextServiceKey);
+                turnContext.getTurnState().remove(cachedStateKey);
             }
 
             return null;
@@ -235,7 +418,7 @@ public abstract class BotState implements PropertyManager {
             throw new IllegalArgumentException("turnContext cannot be null");
         }
 
-        return turnContext.getTurnState().get(contextServiceKey);
+        return turnContext.getTurnState().get(cachedStateKey);
     }
 
     /**
@@ -248,6 +431,162 @@ public abstract class BotState implements PropertyManager {
      */
     public abstract String getStorageKey(TurnContext turnContext) throws IllegalArgumentException;
 
+    /**
+     * Gets the key to use when reading and writing a single property in
+     * property storage mode.
+     *
+     * @param turnContext  The context object for this turn.
+     * @param propertyName The property name.
+     * @return The storage key of the property.
+     */
+    String getPropertyStorageKey(TurnContext turnContext, String propertyName) {
+        return getStorageKey(turnContext) + "#" + propertyName;
+    }
+
+    /**
+     * Populates the state cache and, in property storage mode, reads a property
+     * from storage if it hasn't been read or set during this turn.
+     *
+     * @param turnContext  The context object for this turn.
+     * @param propertyName The property name.
+     * @return A task that represents the work queued to execute.
+     */
+    CompletableFuture<Void> loadProperty(TurnContext turnContext, String propertyName) {
+        return load(turnContext).thenCompose(loadResult -> {
+            CachedBotState cachedState = turnContext.getTurnState().get(cachedStateKey);
+            if (cachedState.isPropertyLoaded(propertyName)) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            String propertyKey = getPropertyStorageKey(turnContext, propertyName);
+            return storage.read(new String[] {propertyKey}).thenApply(items -> {
+                Map<String, Object> item = (Map<String, Object>) items.get(propertyKey);
+                cachedState.setLoadedProperty(propertyName, item != null ? item.get(propertyName) : null);
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Writes the changed properties of a state cache in property storage mode,
+     * and deletes the removed ones.
+     *
+     * @param turnContext The context object for this turn.
+     * @param cachedState The state cache.
+     * @param force       true to write every cached property, even if it hasn't
+     *                    changed.
+     * @return A task that represents the work queued to execute.
+     */
+    private CompletableFuture<Void> savePropertyChanges(
+        TurnContext turnContext,
+        CachedBotState cachedState,
+        boolean force
+    ) {
+        Map<String, byte[]> serialized = new HashMap<>();
+        Map<String, Object> changed = cachedState.getChangedProperties(force, serialized);
+        Set<String> deleted = cachedState.getDeletedProperties();
+
+        CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+        if (!changed.isEmpty()) {
+            Map<String, Object> changes = new HashMap<>();
+            for (Map.Entry<String, Object> property : changed.entrySet()) {
+                // wrapped, so the value is typed the same way as in a whole scope item
+                Map<String, Object> item = new HashMap<>();
+                item.put(property.getKey(), property.getValue());
+                changes.put(getPropertyStorageKey(turnContext, property.getKey()), item);
+            }
+            written = storage.write(changes);
+        }
+
+        CompletableFuture<Void> removed = CompletableFuture.completedFuture(null);
+        if (!deleted.isEmpty()) {
+            removed = storage.delete(
+                deleted.stream().map(name -> getPropertyStorageKey(turnContext, name)).toArray(String[]::new)
+            );
+        }
+
+        return CompletableFuture.allOf(written, removed).thenApply(result -> {
+            cachedState.markPropertiesSaved(changed, serialized, deleted);
+            return null;
+        });
+    }
+
+    /**
+     * Gets the storage layer this state management object uses.
+     *
+     * @return The storage provider.
+     */
+    Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Determines whether the state cache needs to be read from storage.
+     *
+     * @param turnContext The context object for this turn.
+     * @param force       true if the cache should be reloaded even if it exists.
+     * @return true if the state should be read.
+     */
+    boolean needsLoad(TurnContext turnContext, boolean force) {
+        CachedBotState cachedState = turnContext.getTurnState().get(cachedStateKey);
+        return force || cachedState == null || cachedState.state == null;
+    }
+
+    /**
+     * Replaces the state cache with a value read from storage.
+     *
+     * @param turnContext The context object for this turn.
+     * @param value       The state read from storage, or null if there was none.
+     */
+    void setLoadedState(TurnContext turnContext, Object value) {
+        turnContext.getTurnState()
+            .replace(cachedStateKey, createCachedState((Map<String, Object>) value));
+    }
+
+    /**
+     * Gets the cached state that should be written to storage.
+     *
+     * @param turnContext The context object for this turn.
+     * @param force       true to return the state even if it hasn't changed.
+     * @return The state to write, or null if there is nothing to save.
+     */
+    Map<String, Object> getPendingChanges(TurnContext turnContext, boolean force) {
+        CachedBotState cachedState = turnContext.getTurnState().get(cachedStateKey);
+        if (force || cachedState != null && cachedState.isChanged()) {
+            return cachedState.state;
+        }
+        return null;
+    }
+
+    /**
+     * Resets change tracking once the cached state has been written to storage.
+     *
+     * @param turnContext The context object for this turn.
+     */
+    void markSaved(TurnContext turnContext) {
+        CachedBotState cachedState = turnContext.getTurnState().get(cachedStateKey);
+        if (cachedState != null) {
+            cachedState.markSaved();
+        }
+    }
+
+    /**
+     * Creates the state cache wrapper using the change tracking settings of this
+     * BotState.
+     *
+     * @param withState The state loaded from storage, or null.
+     * @return A new cached bot state.
+     */
+    private CachedBotState createCachedState(Map<String, Object> withState) {
+        CachedBotState cachedState = new CachedBotState(
+            withState, dirtyTracking, dirtyTracking && deepMutationCheck, stateSerializer
+        );
+        if (propertyStorage) {
+            cachedState.enablePropertyStorage();
+        }
+        return cachedState;
+    }
+
     /**
      * Gets the value of a property from the state cache for this BotState.
      *
@@ -274,9 +613,9 @@ public abstract class BotState implements PropertyManager {
         }
 
         return Async.tryCompletable(() -> {
-            CachedBotState cachedState = turnContext.getTurnState().get(contextServiceKey);
+            CachedBotState cachedState = turnContext.getTurnState().get(cachedStateKey);
             return (CompletableFuture<T>) CompletableFuture
-                .completedFuture(cachedState.getState().get(propertyName));
+                .completedFuture(cachedState.readProperty(propertyName));
         });
     }
 
@@ -303,8 +642,8 @@ public abstract class BotState implements PropertyManager {
             ));
         }
 
-        CachedBotState cachedState = turnContext.getTurnState().get(contextServiceKey);
-        cachedState.getState().remove(propertyName);
+        CachedBotState cachedState = turnContext.getTurnState().get(cachedStateKey);
+        cachedState.removeProperty(propertyName);
         return CompletableFuture.completedFuture(null);
     }
 
@@ -333,8 +672,8 @@ public abstract class BotState implements PropertyManager {
             ));
         }
 
-        CachedBotState cachedState = turnContext.getTurnState().get(contextServiceKey);
-        cachedState.getState().put(propertyName, value);
+        CachedBotState cachedState = turnContext.getTurnState().get(cachedStateKey);
+        cachedState.writeProperty(propertyName, value);
         return CompletableFuture.completedFuture(null);
     }
 
@@ -342,6 +681,11 @@ public abstract class BotState implements PropertyManager {
      * Internal cached bot state.
      */
     public static class CachedBotState {
+        /**
+         * Object-JsonNode converter.
+         */
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+
         /**
          * In memory cache of BotState properties.
          */
@@ -350,12 +694,62 @@ public abstract class BotState implements PropertyManager {
         /**
          * Used to compute the hash of the state.
          */
-        private String hash;
+        private byte[] hash;
 
         /**
-         * Object-JsonNode converter.
+         * Serializes state for change detection, or null to use JSON.
+         */
+        private StateSerializer serializer;
+
+        /**
+         * Whether changes are tracked as properties are set and deleted.
+         */
+        private boolean dirtyTracking;
+
+        /**
+         * Whether mutable values read or set are checked for in place changes.
+         */
+        private boolean deepMutationCheck;
+
+        /**
+         * Set when a property has been set or deleted since the last save.
          */
-        private ObjectMapper mapper = new ObjectMapper();
+        private boolean dirty;
+
+        /**
+         * Set once the raw state map has been handed out in dirty tracking mode.
+         */
+        private boolean exposed;
+
+        /**
+         * Serialized snapshots of the mutable properties that were read, by name.
+         */
+        private Map<String, byte[]> snapshots;
+
+        /**
+         * Set when the last isChanged call compared every snapshot with the
+         * current value.
+         */
+        private boolean snapshotsChecked;
+
+        /**
+         * Names of the mutable properties that were set since the last save.
+         */
+        private Set<String> mutableWrites;
+
+        /**
+         * In property storage mode with dirty tracking, the names of the
+         * properties set since they were last saved.
+         */
+        private Set<String> writtenProperties;
+
+        /**
+         * In property storage mode, the serialized value of each property as it
+         * was last read from or written to storage, by name. An empty value
+         * means the property isn't stored, and null that it may be. Null when
+         * not in property storage mode.
+         */
+        private Map<String, byte[]> storedProperties;
 
         /**
          * Construct with empty state.
@@ -370,14 +764,63 @@ public abstract class BotState implements PropertyManager {
          * @param withState The initial state.
          */
         CachedBotState(Map<String, Object> withState) {
+            this(withState, false, false);
+        }
+
+        /**
+         * Construct with supplied state and change tracking settings.
+         *
+         * @param withState             The initial state.
+         * @param withDirtyTracking     true to track changes as properties are set
+         *                              and deleted.
+         * @param withDeepMutationCheck true to check mutable values for in place
+         *                              changes.
+         */
+        CachedBotState(Map<String, Object> withState, boolean withDirtyTracking, boolean withDeepMutationCheck) {
+            this(withState, withDirtyTracking, withDeepMutationCheck, null);
+        }
+
+        /**
+         * Construct with supplied state, change tracking settings and serializer.
+         *
+         * @param withState             The initial state.
+         * @param withDirtyTracking     true to track changes as properties are set
+         *                              and deleted.
+         * @param withDeepMutationCheck true to check mutable values for in place
+         *                              changes.
+         * @param withSerializer        Serializes state for change detection, or
+         *                              null to use JSON.
+         */
+        CachedBotState(
+            Map<String, Object> withState,
+            boolean withDirtyTracking,
+            boolean withDeepMutationCheck,
+            StateSerializer withSerializer
+        ) {
+            serializer = withSerializer;
             state = withState != null ? withState : new ConcurrentHashMap<>();
-            hash = computeHash(withState);
+            dirtyTracking = withDirtyTracking;
+            deepMutationCheck = withDeepMutationCheck;
+            if (!dirtyTracking) {
+                hash = computeHash(withState);
+            }
         }
 
         /**
+         * Gets the raw state.
+         *
+         * <p>
+         * In dirty tracking mode, callers may modify the returned map directly, so
+         * this falls back to comparing a snapshot of the entire state on save.
+         * </p>
+         *
          * @return The Map of key value pairs which are the state.
          */
         public Map<String, Object> getState() {
+            if (dirtyTracking && !exposed) {
+                exposed = true;
+                hash = computeHash(state);
+            }
             return state;
         }
 
@@ -386,45 +829,343 @@ public abstract class BotState implements PropertyManager {
          */
         void setState(Map<String, Object> withState) {
             state = withState;
+            dirty = true;
         }
 
         /**
          * @return The hash value for the state.
          */
-        String getHash() {
+        byte[] getHash() {
             return hash;
         }
 
         /**
          * @param witHashCode Set the hash value.
          */
-        void setHash(String witHashCode) {
+        void setHash(byte[] witHashCode) {
             hash = witHashCode;
         }
 
+        /**
+         * Gets a property value, taking a snapshot of it if it is mutable and
+         * the deep mutation check is enabled.
+         *
+         * @param name The property name.
+         * @return The property value, or null.
+         */
+        Object readProperty(String name) {
+            Object value = state.get(name);
+            if (dirtyTracking && deepMutationCheck && !isImmutable(value)) {
+                if (snapshots == null) {
+                    snapshots = new HashMap<>();
+                }
+                if (!snapshots.containsKey(name)) {
+                    // in property storage mode the stored value is the snapshot
+                    snapshots.put(name, storedProperties != null ? null : computeHash(value));
+                }
+            }
+            return value;
+        }
+
+        /**
+         * Sets a property value and marks the state as changed.
+         *
+         * @param name  The property name.
+         * @param value The value to set.
+         */
+        void writeProperty(String name, Object value) {
+            state.put(name, value);
+            dirty = true;
+            if (dirtyTracking && storedProperties != null) {
+                if (writtenProperties == null) {
+                    writtenProperties = new HashSet<>();
+                }
+                writtenProperties.add(name);
+            }
+            if (dirtyTracking && deepMutationCheck && !isImmutable(value)) {
+                if (mutableWrites == null) {
+                    mutableWrites = new HashSet<>();
+                }
+                mutableWrites.add(name);
+            }
+        }
+
+        /**
+         * Removes a property value and marks the state as changed.
+         *
+         * @param name The property name.
+         */
+        void removeProperty(String name) {
+            if (storedProperties != null && !storedProperties.containsKey(name) && !state.containsKey(name)) {
+                // never read, so it may still be stored
+                storedProperties.put(name, null);
+            }
+            state.remove(name);
+            dirty = true;
+            if (snapshots != null) {
+                snapshots.remove(name);
+            }
+            if (mutableWrites != null) {
+                mutableWrites.remove(name);
+            }
+        }
+
         /**
          *
          * @return Boolean to tell if the state has changed.
          */
         boolean isChanged() {
-            return !StringUtils.equals(hash, computeHash(state));
+            snapshotsChecked = false;
+            if (!dirtyTracking) {
+                return !Arrays.equals(hash, computeHash(state));
+            }
+
+            if (dirty) {
+                return true;
+            }
+
+            if (exposed) {
+                return !Arrays.equals(hash, computeHash(state));
+            }
+
+            if (snapshots != null) {
+                for (Map.Entry<String, byte[]> snapshot : snapshots.entrySet()) {
+                    byte[] current = computeHash(state.get(snapshot.getKey()));
+                    if (!Arrays.equals(snapshot.getValue(), current)) {
+                        // keep the serialized value so markSaved doesn't redo it
+                        snapshot.setValue(current);
+                        dirty = true;
+                    }
+                }
+                snapshotsChecked = true;
+            }
+
+            return dirty;
+        }
+
+        /**
+         * Resets change tracking after the state has been written to storage.
+         */
+        void markSaved() {
+            if (!dirtyTracking || exposed) {
+                hash = computeHash(state);
+            }
+
+            if (dirtyTracking && deepMutationCheck) {
+                if (snapshots != null && !snapshotsChecked) {
+                    // isChanged stopped at the first change, so the values read may
+                    // have changed in place as well; take them as saved
+                    for (Map.Entry<String, byte[]> snapshot : snapshots.entrySet()) {
+                        if (mutableWrites == null || !mutableWrites.contains(snapshot.getKey())) {
+                            snapshot.setValue(computeHash(state.get(snapshot.getKey())));
+                        }
+                    }
+                }
+                if (mutableWrites != null) {
+                    if (snapshots == null) {
+                        snapshots = new HashMap<>();
+                    }
+                    for (String name : mutableWrites) {
+                        snapshots.put(name, computeHash(state.get(name)));
+                    }
+                    mutableWrites.clear();
+                }
+            }
+
+            snapshotsChecked = false;
+            dirty = false;
+        }
+
+        /**
+         * Switches this cache to property storage mode.
+         */
+        void enablePropertyStorage() {
+            storedProperties = new HashMap<>();
+        }
+
+        /**
+         * Indicates whether this cache stores each property under its own key.
+         *
+         * @return true in property storage mode.
+         */
+        boolean isPropertyStorage() {
+            return storedProperties != null;
+        }
+
+        /**
+         * Gets the names of the properties that are cached or known to storage.
+         *
+         * @return The property names.
+         */
+        Set<String> getPropertyNames() {
+            Set<String> names = new HashSet<>(state.keySet());
+            if (storedProperties != null) {
+                names.addAll(storedProperties.keySet());
+            }
+            return names;
+        }
+
+        /**
+         * Indicates whether a property no longer needs to be read from storage,
+         * because it was already read, set or deleted.
+         *
+         * @param name The property name.
+         * @return true if the property doesn't need to be read.
+         */
+        boolean isPropertyLoaded(String name) {
+            return storedProperties == null || storedProperties.containsKey(name) || state.containsKey(name);
+        }
+
+        /**
+         * Caches a property read from storage, unless it was set or deleted
+         * while it was being read.
+         *
+         * @param name  The property name.
+         * @param value The stored value, or null if it isn't stored.
+         */
+        void setLoadedProperty(String name, Object value) {
+            if (isPropertyLoaded(name)) {
+                return;
+            }
+
+            if (value != null) {
+                state.put(name, value);
+            }
+            storedProperties.put(name, computeHash(value));
+        }
+
+        /**
+         * Marks properties as possibly stored, so they are deleted on save
+         * unless they are set again.
+         *
+         * @param names The property names.
+         */
+        void markPropertiesUnknown(Set<String> names) {
+            for (String name : names) {
+                if (!state.containsKey(name)) {
+                    storedProperties.put(name, null);
+                }
+            }
+        }
+
+        /**
+         * Gets the cached properties that differ from what was last stored. With
+         * dirty tracking, only the properties set, or read and checked for in
+         * place changes, are compared.
+         *
+         * @param force      true to return every cached property.
+         * @param serialized Receives the serialized value of each changed
+         *                   property, to pass to
+         *                   {@link #markPropertiesSaved(Map, Map, Set)}.
+         * @return The changed property values, by name.
+         */
+        Map<String, Object> getChangedProperties(boolean force, Map<String, byte[]> serialized) {
+            Map<String, Object> changed = new HashMap<>();
+            for (Map.Entry<String, Object> property : state.entrySet()) {
+                String name = property.getKey();
+                if (!force && dirtyTracking && !exposed && !isTouched(name)) {
+                    continue;
+                }
+
+                byte[] current = computeHash(property.getValue());
+                if (force || !Arrays.equals(storedProperties.get(name), current)) {
+                    changed.put(name, property.getValue());
+                    serialized.put(name, current);
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Indicates whether a property may have changed since it was last saved,
+         * in dirty tracking mode.
+         *
+         * @param name The property name.
+         * @return true if the property was set, or read with the deep mutation
+         *         check enabled.
+         */
+        private boolean isTouched(String name) {
+            return writtenProperties != null && writtenProperties.contains(name)
+                || snapshots != null && snapshots.containsKey(name);
+        }
+
+        /**
+         * Gets the properties that may be stored but are no longer cached.
+         *
+         * @return The names of the properties to delete.
+         */
+        Set<String> getDeletedProperties() {
+            Set<String> deleted = new HashSet<>();
+            for (Map.Entry<String, byte[]> stored : storedProperties.entrySet()) {
+                byte[] value = stored.getValue();
+                if ((value == null || value.length > 0) && !state.containsKey(stored.getKey())) {
+                    deleted.add(stored.getKey());
+                }
+            }
+            return deleted;
+        }
+
+        /**
+         * Records the properties written to and deleted from storage.
+         *
+         * @param written    The property values written, by name.
+         * @param serialized The serialized values from
+         *                   {@link #getChangedProperties(boolean, Map)}.
+         * @param deleted    The names of the properties deleted.
+         */
+        void markPropertiesSaved(Map<String, Object> written, Map<String, byte[]> serialized, Set<String> deleted) {
+            for (String name : written.keySet()) {
+                storedProperties.put(name, serialized.get(name));
+            }
+            for (String name : deleted) {
+                storedProperties.put(name, new byte[0]);
+            }
+            if (writtenProperties != null) {
+                writtenProperties.removeAll(written.keySet());
+                writtenProperties.removeAll(deleted);
+            }
+            dirty = false;
         }
 
         /**
          * @param obj The object to compute the hash for.
          * @return The computed has for the provided object.
          */
-        String computeHash(Object obj) {
+        byte[] computeHash(Object obj) {
             if (obj == null) {
-                return "";
+                return new byte[0];
             }
 
             try {
-                return mapper.writeValueAsString(obj);
-            } catch (JsonProcessingException e) {
+                return serializer != null ? serializer.serialize(obj) : MAPPER.writeValueAsBytes(obj);
+            } catch (IOException e) {
                 return null;
             }
         }
+
+        /**
+         * Determines whether a value can't be changed in place, and therefore
+         * never needs a deep mutation check.
+         *
+         * @param value The value to check.
+         * @return true if the value is null or of a known immutable type.
+         */
+        private static boolean isImmutable(Object value) {
+            return value == null
+                || value instanceof String
+                || value instanceof Boolean
+                || value instanceof Character
+                || value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte
+                || value instanceof Double
+                || value instanceof Float
+                || value instanceof BigInteger
+                || value instanceof BigDecimal
+                || value instanceof UUID
+                || value instanceof Enum;
+        }
     }
 
     /**
@@ -465,7 +1206,7 @@ public abstract class BotState implements PropertyManager {
 
         /**
          * Get the property value. The semantics are intended to be lazy, note the use
-         * of {@link BotState#load(TurnContext)} at the start.
+         * of {@link BotState#loadProperty(TurnContext, String)} at the start.
          *
          * @param turnContext         The context object for this turn.
          * @param defaultValueFactory Defines the default value. Invoked when no value
@@ -477,8 +1218,9 @@ public abstract class BotState implements PropertyManager {
          */
         @Override
         public CompletableFuture<T> get(TurnContext turnContext, Supplier<T> defaultValueFactory) {
-            return botState.load(turnContext)
-                .thenCombine(botState.getPropertyValue(turnContext, name), (loadResult, value) -> {
+            return botState.loadProperty(turnContext, name)
+                .thenCompose(loadResult -> botState.getPropertyValue(turnContext, name))
+                .thenApply(value -> {
                     if (value != null) {
                         return (T) value;
                     }
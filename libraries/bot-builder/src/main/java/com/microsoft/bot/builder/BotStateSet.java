@@ -3,21 +3,60 @@
 
 package com.microsoft.bot.builder;
 
+import com.microsoft.bot.connector.Async;
+
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * Manages a collection of botState and provides ability to load and save in
  * parallel.
+ *
+ * <p>
+ * By default, the BotState objects that share a {@link Storage} instance are
+ * loaded with a single {@link Storage#read(String[])} and saved with a single
+ * {@link Storage#write(Map)}, so a remote store costs one round trip per turn
+ * rather than one per state. A BotState whose class overrides
+ * {@link BotState#load(TurnContext, boolean)} or
+ * {@link BotState#saveChanges(TurnContext, boolean)} is always loaded and saved
+ * through them. Call {@link #setBatching(boolean)} with false to load and save
+ * every BotState on its own.
+ * </p>
  */
 public class BotStateSet {
+    /**
+     * Whether a BotState class keeps the load and save of BotState, and so can
+     * be batched.
+     */
+    private static final ClassValue<Boolean> BATCHABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("load", TurnContext.class, boolean.class).getDeclaringClass() == BotState.class
+                    && type.getMethod("saveChanges", TurnContext.class, boolean.class)
+                        .getDeclaringClass() == BotState.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
     /**
      * List of BotStates managed by this BotStateSet.
      */
     private List<BotState> botStates = new ArrayList<>();
 
+    /**
+     * Whether storage operations are coalesced across BotStates.
+     */
+    private boolean batching = true;
+
     /**
      * Initializes a new instance of the BotStateSet class.
      *
@@ -54,6 +93,27 @@ public class BotStateSet {
         botStates = withBotState;
     }
 
+    /**
+     * Indicates whether storage operations are coalesced across BotStates that
+     * share a storage layer.
+     *
+     * @return true if batching is enabled.
+     */
+    public boolean isBatching() {
+        return batching;
+    }
+
+    /**
+     * Sets whether storage operations are coalesced across BotStates that share
+     * a storage layer.
+     *
+     * @param withBatching true to batch reads and writes; false to load and save
+     *                     each BotState separately.
+     */
+    public void setBatching(boolean withBatching) {
+        batching = withBatching;
+    }
+
     /**
      * Adds a bot state object to the set.
      *
@@ -88,9 +148,34 @@ public class BotStateSet {
      * @return A task that represents the work queued to execute.
      */
     public CompletableFuture<Void> loadAll(TurnContext turnContext, boolean force) {
-        return CompletableFuture.allOf(
-            botStates.stream().map(future -> future.load(turnContext, force)).toArray(CompletableFuture[]::new)
-        );
+        if (!batching) {
+            return CompletableFuture.allOf(
+                botStates.stream().map(future -> future.load(turnContext, force)).toArray(CompletableFuture[]::new)
+            );
+        }
+
+        return Async.tryCompletable(() -> {
+            if (turnContext == null) {
+                throw new IllegalArgumentException("turnContext cannot be null");
+            }
+
+            List<CompletableFuture<Void>> loads = new ArrayList<>();
+            for (Map.Entry<Storage, Map<String, BotState>> batch
+                : groupByStorage(turnContext, true, force, loads).entrySet()) {
+
+                Map<String, BotState> statesByKey = batch.getValue();
+                loads.add(batch.getKey()
+                    .read(statesByKey.keySet().toArray(new String[statesByKey.size()]))
+                    .thenApply(items -> {
+                        for (Map.Entry<String, BotState> state : statesByKey.entrySet()) {
+                            state.getValue().setLoadedState(turnContext, items.get(state.getKey()));
+                        }
+                        return null;
+                    }));
+            }
+
+            return CompletableFuture.allOf(loads.toArray(new CompletableFuture[loads.size()]));
+        });
     }
 
     /**
@@ -112,9 +197,106 @@ public class BotStateSet {
      * @return A task that represents the work queued to execute.
      */
     public CompletableFuture<Void> saveAllChanges(TurnContext turnContext, boolean force) {
-        CompletableFuture<?>[] allSaves = botStates.stream()
-            .map(botState -> botState.saveChanges(turnContext, force))
-            .toArray(CompletableFuture[]::new);
-        return CompletableFuture.allOf(allSaves);
+        if (!batching) {
+            CompletableFuture<?>[] allSaves = botStates.stream()
+                .map(botState -> botState.saveChanges(turnContext, force))
+                .toArray(CompletableFuture[]::new);
+            return CompletableFuture.allOf(allSaves);
+        }
+
+        return Async.tryCompletable(() -> {
+            if (turnContext == null) {
+                throw new IllegalArgumentException("turnContext cannot be null");
+            }
+
+            List<CompletableFuture<Void>> saves = new ArrayList<>();
+            for (Map.Entry<Storage, Map<String, BotState>> batch
+                : groupByStorage(turnContext, false, force, saves).entrySet()) {
+
+                // grouping already left out the states without changes
+                Map<String, Object> changes = new HashMap<>();
+                for (Map.Entry<String, BotState> state : batch.getValue().entrySet()) {
+                    changes.put(state.getKey(), state.getValue().getPendingChanges(turnContext, true));
+                }
+
+                if (!changes.isEmpty()) {
+                    saves.add(batch.getKey().write(changes).thenApply(result -> {
+                        for (String key : changes.keySet()) {
+                            batch.getValue().get(key).markSaved(turnContext);
+                        }
+                        return null;
+                    }));
+                }
+            }
+
+            return CompletableFuture.allOf(saves.toArray(new CompletableFuture[saves.size()]));
+        });
+    }
+
+    /**
+     * Groups the managed BotStates by storage layer and storage key.
+     *
+     * <p>
+     * A BotState whose storage key is already taken in its group, that stores
+     * its properties individually, or whose class overrides its load or save,
+     * is handled on its own, through {@link BotState#load} or
+     * {@link BotState#saveChanges}, and its future is added to the supplied
+     * list. When saving, a BotState that wasn't loaded, or has no changes and
+     * isn't forced, is left out, so its storage key isn't needed.
+     * </p>
+     *
+     * @param turnContext The TurnContext.
+     * @param load        true when grouping for a load; false for a save.
+     * @param force       Whether data should be forced into cache or saved even
+     *                    if unchanged.
+     * @param fallbacks   Receives the futures of BotStates handled on their own.
+     * @return The BotStates to batch, by storage layer and then storage key.
+     */
+    private Map<Storage, Map<String, BotState>> groupByStorage(
+        TurnContext turnContext,
+        boolean load,
+        boolean force,
+        List<CompletableFuture<Void>> fallbacks
+    ) {
+        Map<Storage, Map<String, BotState>> batches = new IdentityHashMap<>();
+        for (BotState botState : botStates) {
+            if (load && !botState.needsLoad(turnContext, force)) {
+                continue;
+            }
+
+            BotState.CachedBotState cachedState = botState.getCachedState(turnContext);
+            if (!BATCHABLE.get(botState.getClass())) {
+                fallbacks.add(
+                    load ? botState.load(turnContext, force) : botState.saveChanges(turnContext, force)
+                );
+                continue;
+            }
+
+            if (botState.isPropertyStorage() || cachedState != null && cachedState.isPropertyStorage()) {
+                // each property has its own key, so it can't share the batch
+                fallbacks.add(
+                    load ? botState.load(turnContext, force) : botState.saveChanges(turnContext, force)
+                );
+                continue;
+            }
+
+            if (!load && (cachedState == null || !force && !cachedState.isChanged())) {
+                continue;
+            }
+
+            String storageKey = botState.getStorageKey(turnContext);
+            Map<String, BotState> batch = batches.computeIfAbsent(
+                botState.getStorage(), storage -> new LinkedHashMap<>()
+            );
+
+            if (batch.containsKey(storageKey)) {
+                fallbacks.add(
+                    load ? botState.load(turnContext, force) : botState.saveChanges(turnContext, force)
+                );
+            } else {
+                batch.put(storageKey, botState);
+            }
+        }
+        return batches;
     }
 }
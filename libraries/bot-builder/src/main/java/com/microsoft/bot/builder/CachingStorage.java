@@ -0,0 +1,740 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.connector.Async;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Storage} decorator that keeps recently used items in memory and
+ * writes changes to the backing storage asynchronously.
+ *
+ * <p>
+ * Reads are served from a bounded, least recently used cache whose entries
+ * expire after a time to live. Writes and deletes are applied to the cache
+ * immediately, checked against the cached ETag, and flushed to the backing
+ * storage in coalesced batches on a background schedule, so only the latest
+ * change to a key is sent.
+ * </p>
+ *
+ * <p>
+ * Because changes reach the backing storage after the write completes, this
+ * decorator should be the only writer for the keys it caches, for example a
+ * single node or one with conversation affinity. Items are flushed with the
+ * ETag last read from or written to the backing storage, so a change made by
+ * another writer in the meantime is still detected: the cached item is then
+ * dropped, so the next read loads the other writer's version, and the flush
+ * fails with the conflict. Written items are read back to learn their new
+ * ETags.
+ * </p>
+ *
+ * <p>
+ * About {@code maxEntries} changes can be pending. Further writes wait for a
+ * flush, and fail if it fails, so a backing storage that is down doesn't let
+ * changes pile up. Call {@link #flush()} or {@link #close()} to push pending
+ * changes before shutting down; changes made after {@link #close()} are
+ * written through.
+ * </p>
+ */
+public class CachingStorage implements Storage, AutoCloseable {
+    /**
+     * The default maximum number of cached items.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * The default time an item stays cached after it was loaded or written.
+     */
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    /**
+     * The default interval between flushes to the backing storage.
+     */
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * Initial capacity of the cache map.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Load factor of the cache map.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The storage layer being cached.
+     */
+    private final Storage storage;
+
+    /**
+     * The maximum number of cached items.
+     */
+    private final int maxEntries;
+
+    /**
+     * The time to live of a cached item, in nanoseconds.
+     */
+    private final long timeToLive;
+
+    /**
+     * Recently used items, in access order. Guarded by its own monitor.
+     */
+    private final LinkedHashMap<String, Entry> cache;
+
+    /**
+     * Changes not yet written to the backing storage, by key.
+     */
+    private final Map<String, Entry> pending = new ConcurrentHashMap<>();
+
+    /**
+     * The ETag of each StoreItem as last read from or written to the backing
+     * storage, by key.
+     */
+    private final Map<String, String> backingETags = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the periodic flush.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Serializes cached values.
+     */
+    private final StateSerializer serializer;
+
+    /**
+     * The logger.
+     */
+    private Logger logger = LoggerFactory.getLogger(CachingStorage.class);
+
+    /**
+     * eTag counter.
+     */
+    private final AtomicLong eTag = new AtomicLong();
+
+    /**
+     * The last flush started, so flushes run one after the other.
+     */
+    private CompletableFuture<Void> lastFlush = CompletableFuture.completedFuture(null);
+
+    /**
+     * Set once the storage is closed, after which changes are written through.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Initializes a new instance of the CachingStorage class with default
+     * limits.
+     *
+     * @param withStorage The storage layer to cache.
+     */
+    public CachingStorage(Storage withStorage) {
+        this(withStorage, DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Initializes a new instance of the CachingStorage class.
+     *
+     * @param withStorage       The storage layer to cache.
+     * @param withMaxEntries    The maximum number of cached items.
+     * @param withTimeToLive    How long an item stays cached after it was loaded
+     *                          or written.
+     * @param withFlushInterval The interval between flushes to the backing
+     *                          storage.
+     */
+    public CachingStorage(
+        Storage withStorage,
+        int withMaxEntries,
+        Duration withTimeToLive,
+        Duration withFlushInterval
+    ) {
+        this(withStorage, withMaxEntries, withTimeToLive, withFlushInterval, new JsonStateSerializer());
+    }
+
+    /**
+     * Initializes a new instance of the CachingStorage class with the given
+     * serializer for cached values.
+     *
+     * @param withStorage       The storage layer to cache.
+     * @param withMaxEntries    The maximum number of cached items.
+     * @param withTimeToLive    How long an item stays cached after it was loaded
+     *                          or written.
+     * @param withFlushInterval The interval between flushes to the backing
+     *                          storage.
+     * @param withSerializer    Serializes cached values.
+     */
+    public CachingStorage(
+        Storage withStorage,
+        int withMaxEntries,
+        Duration withTimeToLive,
+        Duration withFlushInterval,
+        StateSerializer withSerializer
+    ) {
+        if (withStorage == null) {
+            throw new IllegalArgumentException("Storage cannot be null");
+        }
+        if (withMaxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be greater than zero");
+        }
+        if (withTimeToLive == null || withFlushInterval == null) {
+            throw new IllegalArgumentException("timeToLive and flushInterval cannot be null");
+        }
+        if (withSerializer == null) {
+            throw new IllegalArgumentException("Serializer cannot be null");
+        }
+
+        storage = withStorage;
+        maxEntries = withMaxEntries;
+        timeToLive = withTimeToLive.toNanos();
+        cache = new LinkedHashMap<String, Entry>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        serializer = withSerializer;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CachingStorage-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = withFlushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads storage items, from the cache where possible.
+     *
+     * @param keys keys of the items to read
+     * @return A task that represents the work queued to execute. If the activities
+     *         are successfully sent, the task result contains the items read,
+     *         indexed by key.
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> read(String[] keys) {
+        if (keys == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("keys cannot be null"));
+        }
+
+        Map<String, Object> storeItems = new ConcurrentHashMap<>(keys.length);
+        List<String> misses = new ArrayList<>();
+        long now = System.nanoTime();
+        for (String key : keys) {
+            Entry entry = pending.get(key);
+            if (entry == null) {
+                synchronized (cache) {
+                    entry = cache.get(key);
+                    if (entry != null && entry.isExpired(now)) {
+                        cache.remove(key);
+                        entry = null;
+                    }
+                }
+            }
+
+            if (entry == null) {
+                misses.add(key);
+            } else if (!entry.deleted) {
+                try {
+                    storeItems.put(key, toValue(entry));
+                } catch (IOException e) {
+                    logger.error("Read failed: {}", e.toString());
+                    return Async.completeExceptionally(new RuntimeException(
+                        String.format("Read failed: %s", e.toString())
+                    ));
+                }
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(storeItems);
+        }
+
+        return storage.read(misses.toArray(new String[misses.size()])).thenApply(items -> {
+            long loaded = System.nanoTime();
+            for (String key : misses) {
+                Object value = items.get(key);
+                if (value != null) {
+                    storeItems.put(key, value);
+                }
+
+                try {
+                    Entry entry = value != null
+                        ? createEntry(value, value instanceof StoreItem ? ((StoreItem) value).getETag() : null)
+                        : Entry.missing();
+                    entry.expiresAt = loaded + timeToLive;
+                    synchronized (cache) {
+                        // a write that raced with the read is newer
+                        Entry current = cache.get(key);
+                        if (!pending.containsKey(key) && (current == null || current.isExpired(loaded))) {
+                            cache.put(key, entry);
+                            setBackingETag(key, value);
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.warn("Could not cache {}: {}", key, e.toString());
+                }
+            }
+            return storeItems;
+        });
+    }
+
+    /**
+     * Writes storage items to the cache and queues them for the backing storage.
+     *
+     * @param changes The items to write, indexed by key.
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public CompletableFuture<Void> write(Map<String, Object> changes) {
+        if (changes == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("changes cannot be null"));
+        }
+
+        if (closed) {
+            invalidate(changes.keySet());
+            return storage.write(changes);
+        }
+
+        if (pending.size() >= maxEntries) {
+            // the backing storage is behind, so wait for it
+            return flush().thenCompose(flushed -> cacheWrites(changes));
+        }
+
+        return cacheWrites(changes);
+    }
+
+    /**
+     * Writes storage items to the cache and queues them for the backing storage.
+     *
+     * @param changes The items to write, indexed by key.
+     * @return A task that represents the work queued to execute.
+     */
+    private CompletableFuture<Void> cacheWrites(Map<String, Object> changes) {
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            Object newValue = change.getValue();
+            Entry newEntry;
+            try {
+                newEntry = createEntry(
+                    newValue,
+                    newValue instanceof StoreItem ? Long.toString(eTag.getAndIncrement()) : null
+                );
+            } catch (IOException e) {
+                logger.error("Write failed: {}", e.toString());
+                return Async.completeExceptionally(new RuntimeException(
+                    String.format("Write failed: %s", e.toString())
+                ));
+            }
+
+            synchronized (cache) {
+                Entry oldEntry = pending.get(change.getKey());
+                if (oldEntry == null) {
+                    oldEntry = cache.get(change.getKey());
+                }
+
+                if (newValue instanceof StoreItem && oldEntry != null && oldEntry.eTag != null) {
+                    String newETag = ((StoreItem) newValue).getETag();
+                    if (!StringUtils.equals(newETag, "*") && !StringUtils.equals(newETag, oldEntry.eTag)) {
+                        String msg = String.format(
+                            "eTag conflict. Original: %s, Current: %s", newETag, oldEntry.eTag
+                        );
+                        logger.error(msg);
+                        return Async.completeExceptionally(new RuntimeException(msg));
+                    }
+                }
+
+                newEntry.expiresAt = System.nanoTime() + timeToLive;
+                cache.put(change.getKey(), newEntry);
+                pending.put(change.getKey(), newEntry);
+            }
+        }
+
+        if (pending.size() >= maxEntries) {
+            flush();
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Deletes storage items from the cache and queues the deletes for the
+     * backing storage.
+     *
+     * @param keys keys of the items to delete
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public CompletableFuture<Void> delete(String[] keys) {
+        if (keys == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("keys cannot be null"));
+        }
+
+        if (closed) {
+            invalidate(Arrays.asList(keys));
+            return storage.delete(keys);
+        }
+
+        Entry tombstone = Entry.missing();
+        tombstone.expiresAt = System.nanoTime() + timeToLive;
+        synchronized (cache) {
+            for (String key : keys) {
+                cache.put(key, tombstone);
+                pending.put(key, tombstone);
+            }
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Writes all pending changes to the backing storage.
+     *
+     * <p>
+     * Changes that fail to write stay pending and are retried on the next flush,
+     * unless the key has been changed again in the meantime. A change that
+     * conflicts with another writer is dropped along with the cached item.
+     * </p>
+     *
+     * @return A task that completes when the pending changes have been written,
+     *         or completes exceptionally if a change conflicted or could not be
+     *         written.
+     */
+    public synchronized CompletableFuture<Void> flush() {
+        lastFlush = lastFlush.handle((result, ex) -> null).thenCompose(result -> flushPending());
+        return lastFlush;
+    }
+
+    /**
+     * Flushes pending changes and stops the background flush. Later changes are
+     * written through to the backing storage.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        flush().join();
+    }
+
+    /**
+     * Gets the number of changes not yet written to the backing storage.
+     *
+     * @return The number of pending changes.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Takes the current pending changes and writes them to the backing storage.
+     *
+     * @return A task that represents the work queued to execute.
+     */
+    private CompletableFuture<Void> flushPending() {
+        Map<String, Entry> batch = new HashMap<>(pending);
+        if (batch.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Map<String, Object> writes = new HashMap<>();
+        List<String> deletes = new ArrayList<>();
+        for (Map.Entry<String, Entry> change : batch.entrySet()) {
+            if (change.getValue().deleted) {
+                deletes.add(change.getKey());
+                continue;
+            }
+
+            try {
+                Object value = toValue(change.getValue());
+                if (value instanceof StoreItem) {
+                    // expect the version the change was made to
+                    ((StoreItem) value).setETag(backingETags.getOrDefault(change.getKey(), "*"));
+                }
+                writes.put(change.getKey(), value);
+            } catch (IOException e) {
+                // can't be written, so don't retry it
+                logger.error("Flush failed for {}: {}", change.getKey(), e.toString());
+                pending.remove(change.getKey(), change.getValue());
+            }
+        }
+
+        Set<String> conflicts = ConcurrentHashMap.newKeySet();
+        CompletableFuture<Void> deleted = deletes.isEmpty()
+            ? CompletableFuture.completedFuture(null)
+            : storage.delete(deletes.toArray(new String[deletes.size()]));
+        CompletableFuture<Set<String>> written = writes.isEmpty()
+            ? CompletableFuture.completedFuture(Collections.emptySet())
+            : storage.write(writes).handle((result, ex) -> ex).thenCompose(ex -> {
+                if (ex == null) {
+                    return CompletableFuture.completedFuture(writes.keySet());
+                }
+                logger.warn("Flush failed, writing items one by one: {}", ex.toString());
+                return writeEach(writes, conflicts);
+            }).thenCompose(this::readBackETags);
+
+        return CompletableFuture.allOf(deleted, written).handle((result, ex) -> {
+            if (deleted.isCompletedExceptionally()) {
+                logger.error("Flush failed: {}", ex.toString());
+            }
+
+            Set<String> writtenKeys = written.join();
+            List<String> failed = new ArrayList<>();
+            for (Map.Entry<String, Entry> change : batch.entrySet()) {
+                String key = change.getKey();
+                if (conflicts.contains(key)) {
+                    // drop the change, so the next read loads the other writer's version
+                    synchronized (cache) {
+                        pending.remove(key, change.getValue());
+                        cache.remove(key, change.getValue());
+                    }
+                } else if (change.getValue().deleted
+                    ? !deleted.isCompletedExceptionally()
+                    : writtenKeys.contains(key)) {
+                    if (change.getValue().deleted) {
+                        backingETags.remove(key);
+                    }
+                    // only if it wasn't changed again while being written
+                    pending.remove(key, change.getValue());
+                } else if (pending.get(key) == change.getValue()) {
+                    failed.add(key);
+                }
+            }
+
+            if (!conflicts.isEmpty()) {
+                String msg = String.format("eTag conflict flushing %s", conflicts);
+                logger.error(msg);
+                throw new RuntimeException(msg);
+            }
+            if (!failed.isEmpty()) {
+                throw new RuntimeException(String.format("Flush failed for %s", failed));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Writes items one at a time, to find the ones that can't be written.
+     *
+     * <p>
+     * An item whose write fails while the backing storage can still be read
+     * conflicts with another writer. Otherwise the storage is taken to be
+     * unavailable, and the item is retried on the next flush.
+     * </p>
+     *
+     * @param writes    The items to write, by key.
+     * @param conflicts Receives the keys of the items that conflict.
+     * @return A task whose result is the keys of the items written.
+     */
+    private CompletableFuture<Set<String>> writeEach(Map<String, Object> writes, Set<String> conflicts) {
+        Set<String> writtenKeys = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (Map.Entry<String, Object> write : writes.entrySet()) {
+            String key = write.getKey();
+            results.add(storage.write(Collections.singletonMap(key, write.getValue()))
+                .handle((result, ex) -> ex)
+                .thenCompose(ex -> {
+                    if (ex == null) {
+                        writtenKeys.add(key);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return storage.read(new String[] {key}).handle((items, readEx) -> {
+                        if (readEx == null) {
+                            conflicts.add(key);
+                        }
+                        return null;
+                    });
+                }));
+        }
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[results.size()]))
+            .thenApply(result -> writtenKeys);
+    }
+
+    /**
+     * Reads back the written items that have an ETag, to learn the ETags the
+     * backing storage gave them.
+     *
+     * @param writtenKeys The keys of the items written.
+     * @return A task whose result is the keys of the items written.
+     */
+    private CompletableFuture<Set<String>> readBackETags(Set<String> writtenKeys) {
+        List<String> keys = new ArrayList<>();
+        for (String key : writtenKeys) {
+            Entry entry = pending.get(key);
+            if (entry != null && entry.eTag != null) {
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(writtenKeys);
+        }
+
+        return storage.read(keys.toArray(new String[keys.size()])).handle((items, ex) -> {
+            for (String key : keys) {
+                if (ex == null) {
+                    setBackingETag(key, items.get(key));
+                } else {
+                    // unknown, so the next flush can't expect a version
+                    backingETags.remove(key);
+                }
+            }
+            if (ex != null) {
+                logger.warn("Could not read back flushed items: {}", ex.toString());
+            }
+            return writtenKeys;
+        });
+    }
+
+    /**
+     * Records the ETag of an item read from or written to the backing storage.
+     *
+     * @param key   The key.
+     * @param value The item, or null if it isn't stored.
+     */
+    private void setBackingETag(String key, Object value) {
+        String backingETag = value instanceof StoreItem ? ((StoreItem) value).getETag() : null;
+        if (backingETag != null) {
+            backingETags.put(key, backingETag);
+        } else {
+            backingETags.remove(key);
+        }
+    }
+
+    /**
+     * Removes items from the cache.
+     *
+     * @param keys The keys of the items.
+     */
+    private void invalidate(Collection<String> keys) {
+        synchronized (cache) {
+            for (String key : keys) {
+                cache.remove(key);
+                pending.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Converts a value to its cached form.
+     *
+     * @param value    The value.
+     * @param withETag The ETag of the value, or null.
+     * @return The cache entry.
+     * @throws IOException The value could not be serialized.
+     */
+    private Entry createEntry(Object value, String withETag) throws IOException {
+        return new Entry(value.getClass(), serializer.serialize(value), withETag);
+    }
+
+    /**
+     * Creates a new instance of a cached value.
+     *
+     * @param entry The cache entry.
+     * @return The value.
+     * @throws IOException The value could not be deserialized.
+     */
+    private Object toValue(Entry entry) throws IOException {
+        Object value = serializer.deserialize(entry.data, entry.type);
+        if (value instanceof StoreItem) {
+            ((StoreItem) value).setETag(entry.eTag);
+        }
+        return value;
+    }
+
+    /**
+     * A cached item.
+     */
+    private static final class Entry {
+        /**
+         * The type of the value.
+         */
+        private final Class<?> type;
+
+        /**
+         * The serialized value.
+         */
+        private final byte[] data;
+
+        /**
+         * The ETag of the value, or null.
+         */
+        private final String eTag;
+
+        /**
+         * True if the key has been deleted or doesn't exist.
+         */
+        private final boolean deleted;
+
+        /**
+         * The System.nanoTime() after which the entry is stale.
+         */
+        private long expiresAt;
+
+        /**
+         * Creates an entry for a value.
+         *
+         * @param withType The type of the value.
+         * @param withData The serialized value.
+         * @param withETag The ETag, or null.
+         */
+        Entry(Class<?> withType, byte[] withData, String withETag) {
+            this(withType, withData, withETag, false);
+        }
+
+        /**
+         * Creates an entry.
+         *
+         * @param withType    The type of the value.
+         * @param withData    The serialized value.
+         * @param withETag    The ETag, or null.
+         * @param withDeleted True if the key has been deleted.
+         */
+        private Entry(Class<?> withType, byte[] withData, String withETag, boolean withDeleted) {
+            type = withType;
+            data = withData;
+            eTag = withETag;
+            deleted = withDeleted;
+        }
+
+        /**
+         * Creates an entry for a key that has been deleted or doesn't exist in
+         * the backing storage.
+         *
+         * @return The entry.
+         */
+        static Entry missing() {
+            return new Entry(null, null, null, true);
+        }
+
+        /**
+         * Checks whether the entry is stale.
+         *
+         * @param now The current System.nanoTime().
+         * @return true if the entry has expired.
+         */
+        boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
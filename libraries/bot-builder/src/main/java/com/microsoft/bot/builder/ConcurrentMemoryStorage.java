@@ -0,0 +1,330 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microsoft.bot.connector.Async;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A storage layer that uses an in-memory concurrent dictionary.
+ *
+ * <p>
+ * Unlike {@link MemoryStorage}, reads and writes don't share a lock. Each key
+ * is updated with a compare-and-set on its own entry, so operations on
+ * different keys never contend, and ETag checks on the same key are atomic.
+ * Values are kept either as JSON trees or, optionally, as bytes produced by a
+ * {@link StateSerializer}, and each stored type is resolved once and cached.
+ * </p>
+ */
+public class ConcurrentMemoryStorage implements Storage {
+    /**
+     * To/From JSON.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The internal map for storage.
+     */
+    private final ConcurrentMap<String, Entry> memory = new ConcurrentHashMap<>();
+
+    /**
+     * Cached types, by stored type name.
+     */
+    private final ConcurrentMap<String, Class<?>> types = new ConcurrentHashMap<>();
+
+    /**
+     * Cached JSON tree readers, by stored type name.
+     */
+    private final ConcurrentMap<String, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes values kept as bytes, or null to keep JSON trees.
+     */
+    private final StateSerializer serializer;
+
+    /**
+     * The logger.
+     */
+    private Logger logger = LoggerFactory.getLogger(ConcurrentMemoryStorage.class);
+
+    /**
+     * eTag counter.
+     */
+    private final AtomicLong eTag = new AtomicLong();
+
+    /**
+     * Initializes a new instance of the ConcurrentMemoryStorage class that keeps
+     * values as JSON trees.
+     */
+    public ConcurrentMemoryStorage() {
+        this((StateSerializer) null);
+    }
+
+    /**
+     * Initializes a new instance of the ConcurrentMemoryStorage class.
+     *
+     * @param withSerializedBytes true to keep values as serialized bytes, which
+     *                            uses less memory for large state objects; false
+     *                            to keep them as JSON trees.
+     */
+    public ConcurrentMemoryStorage(boolean withSerializedBytes) {
+        this(withSerializedBytes ? new JsonStateSerializer() : null);
+    }
+
+    /**
+     * Initializes a new instance of the ConcurrentMemoryStorage class that keeps
+     * values as serialized bytes.
+     *
+     * @param withSerializer The serializer for stored values, or null to keep
+     *                       values as JSON trees.
+     */
+    public ConcurrentMemoryStorage(StateSerializer withSerializer) {
+        objectMapper = JsonStateSerializer.configure(new ObjectMapper());
+        serializer = withSerializer;
+    }
+
+    /**
+     * Reads storage items from storage.
+     *
+     * @param keys keys of the items to read
+     * @return A task that represents the work queued to execute. If the activities
+     *         are successfully sent, the task result contains the items read,
+     *         indexed by key.
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> read(String[] keys) {
+        if (keys == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("keys cannot be null"));
+        }
+
+        Map<String, Object> storeItems = new ConcurrentHashMap<>(keys.length);
+        for (String key : keys) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                try {
+                    storeItems.put(key, toValue(entry));
+                } catch (ClassNotFoundException e) {
+                    logger.error("Read failed: Could not load class {}", entry.typeName);
+                    return Async.completeExceptionally(new RuntimeException(
+                        String.format("Read failed: Could not load class %s", entry.typeName)
+                    ));
+                } catch (IOException e) {
+                    logger.error("Read failed: {}", e.toString());
+                    return Async.completeExceptionally(new RuntimeException(
+                        String.format("Read failed: %s", e.toString())
+                    ));
+                }
+            }
+        }
+
+        return CompletableFuture.completedFuture(storeItems);
+    }
+
+    /**
+     * Writes storage items to storage.
+     *
+     * <p>
+     * Each item is written atomically. If an item fails its ETag check, the
+     * returned future completes exceptionally and the items after it are not
+     * written.
+     * </p>
+     *
+     * @param changes The items to write, indexed by key.
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public CompletableFuture<Void> write(Map<String, Object> changes) {
+        if (changes == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("changes cannot be null"));
+        }
+
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            Object newValue = change.getValue();
+            String newTag = null;
+            String expectedTag = null;
+            boolean checkTag = false;
+            if (newValue instanceof StoreItem) {
+                newTag = Long.toString(eTag.getAndIncrement());
+                expectedTag = ((StoreItem) newValue).getETag();
+                checkTag = !StringUtils.equals(expectedTag, "*");
+            }
+
+            // Serialized outside of the update loop, so the compare-and-set only
+            // retries the ETag check.
+            Entry newEntry;
+            try {
+                newEntry = createEntry(newValue, newTag);
+            } catch (IOException e) {
+                logger.error("Write failed: {}", e.toString());
+                return Async.completeExceptionally(new RuntimeException(
+                    String.format("Write failed: %s", e.toString())
+                ));
+            }
+
+            while (true) {
+                Entry oldEntry = memory.get(change.getKey());
+                if (
+                    checkTag && oldEntry != null && oldEntry.eTag != null
+                        && !StringUtils.equals(expectedTag, oldEntry.eTag)
+                ) {
+                    String msg = String.format(
+                        "eTag conflict. Original: %s, Current: %s", expectedTag, oldEntry.eTag
+                    );
+                    logger.error(msg);
+                    return Async.completeExceptionally(new RuntimeException(msg));
+                }
+
+                boolean updated = oldEntry == null
+                    ? memory.putIfAbsent(change.getKey(), newEntry) == null
+                    : memory.replace(change.getKey(), oldEntry, newEntry);
+                if (updated) {
+                    break;
+                }
+            }
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Deletes storage items from storage.
+     *
+     * @param keys keys of the items to delete
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public CompletableFuture<Void> delete(String[] keys) {
+        if (keys == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("keys cannot be null"));
+        }
+
+        for (String key : keys) {
+            memory.remove(key);
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Gets the cached type for a stored type name, loading the class on first use.
+     *
+     * @param typeName The stored type name.
+     * @return The type.
+     * @throws ClassNotFoundException The type could not be loaded.
+     */
+    private Class<?> getType(String typeName) throws ClassNotFoundException {
+        Class<?> type = types.get(typeName);
+        if (type == null) {
+            type = Class.forName(typeName);
+            types.putIfAbsent(typeName, type);
+        }
+        return type;
+    }
+
+    /**
+     * Gets the cached JSON tree reader for a stored type.
+     *
+     * @param typeName The stored type name.
+     * @return The reader for the type.
+     * @throws ClassNotFoundException The type could not be loaded.
+     */
+    private ObjectReader getReader(String typeName) throws ClassNotFoundException {
+        ObjectReader reader = readers.get(typeName);
+        if (reader == null) {
+            reader = objectMapper.readerFor(getType(typeName));
+            readers.putIfAbsent(typeName, reader);
+        }
+        return reader;
+    }
+
+    /**
+     * Creates a new instance of a stored value.
+     *
+     * @param entry The stored entry.
+     * @return The value.
+     * @throws IOException            The value could not be deserialized.
+     * @throws ClassNotFoundException The value type could not be loaded.
+     */
+    private Object toValue(Entry entry) throws IOException, ClassNotFoundException {
+        if (entry.data instanceof JsonNode) {
+            return getReader(entry.typeName).readValue((JsonNode) entry.data);
+        }
+
+        Object value = serializer.deserialize((byte[]) entry.data, getType(entry.typeName));
+        if (value instanceof StoreItem) {
+            ((StoreItem) value).setETag(entry.eTag);
+        }
+        return value;
+    }
+
+    /**
+     * Converts a value to its stored form.
+     *
+     * @param value   The value to store.
+     * @param withTag The ETag to assign, or null if the value is not a StoreItem.
+     * @return The entry to store.
+     * @throws IOException The value could not be serialized.
+     */
+    private Entry createEntry(Object value, String withTag) throws IOException {
+        Object data;
+        if (serializer != null) {
+            // the tag is applied on read, so the caller's object isn't touched
+            data = serializer.serialize(value);
+        } else {
+            JsonNode node = objectMapper.valueToTree(value);
+            if (value instanceof StoreItem) {
+                ((ObjectNode) node).put("eTag", withTag);
+            }
+            data = node;
+        }
+
+        return new Entry(value.getClass().getTypeName(), data, withTag);
+    }
+
+    /**
+     * An immutable stored value.
+     */
+    private static final class Entry {
+        /**
+         * The type name of the stored value.
+         */
+        private final String typeName;
+
+        /**
+         * The stored value, as a JsonNode or byte array.
+         */
+        private final Object data;
+
+        /**
+         * The ETag of the stored value, or null if it is not a StoreItem.
+         */
+        private final String eTag;
+
+        /**
+         * Creates an entry.
+         *
+         * @param withTypeName The type name of the stored value.
+         * @param withData     The stored value.
+         * @param withETag     The ETag, or null.
+         */
+        Entry(String withTypeName, Object withData, String withETag) {
+            typeName = withTypeName;
+            data = withData;
+            eTag = withETag;
+        }
+    }
+}
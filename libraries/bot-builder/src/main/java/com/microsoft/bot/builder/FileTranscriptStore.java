@@ -0,0 +1,1147 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.codepoetics.protonpack.StreamUtils;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.bot.connector.Async;
+import com.microsoft.bot.schema.Activity;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A transcript store that keeps activities in append-only segment files on
+ * disk.
+ *
+ * <p>
+ * Each channel has its own directory of numbered segment files. Activities are
+ * appended to the newest segment, and a new one is started once it reaches
+ * the segment size. Only a sparse index is kept in memory: for each
+ * conversation, the position and timestamp of every few of its activities. A
+ * page of activities is read by seeking to the nearest indexed position and
+ * scanning forward, so a store can hold far more activities than fit in the
+ * heap.
+ * </p>
+ *
+ * <p>
+ * Activities are returned in the order they were logged, which is timestamp
+ * order for activities logged by {@link TranscriptLoggerMiddleware}. Deleting
+ * a transcript appends a tombstone, and segments that are mostly deleted
+ * activities are rewritten without them. Continuation tokens are positions in
+ * the log, and are only valid until the segment they point into is rewritten:
+ * a token that does not point at a record of the conversation fails the read
+ * with an IllegalArgumentException.
+ * </p>
+ *
+ * <p>
+ * On open, the segments are scanned to rebuild the index, and an incomplete
+ * record at the end of the newest segment, left by a crash, is discarded. A
+ * directory must not be shared by more than one FileTranscriptStore at a time.
+ * </p>
+ */
+public class FileTranscriptStore implements TranscriptStore, AutoCloseable {
+    /**
+     * The default size at which a new segment is started.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Numbers of results in a paged request.
+     */
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * The index keeps the position of every this many activities of a
+     * conversation within a segment.
+     */
+    private static final int CHECKPOINT_INTERVAL = 32;
+
+    /**
+     * The file name extension of segments.
+     */
+    private static final String SEGMENT_EXTENSION = ".log";
+
+    /**
+     * The file name extension of a segment being rewritten.
+     */
+    private static final String COMPACT_EXTENSION = ".compact";
+
+    /**
+     * Size of the record length and checksum header.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Size of the record operation and conversation id length, which follow
+     * the header.
+     */
+    private static final int PREFIX_SIZE = 5;
+
+    /**
+     * Size of the encoded timestamp.
+     */
+    private static final int TIMESTAMP_SIZE = 12;
+
+    /**
+     * Record operation for a logged activity.
+     */
+    private static final byte OP_ACTIVITY = 1;
+
+    /**
+     * Record operation for a deleted transcript.
+     */
+    private static final byte OP_TOMBSTONE = 2;
+
+    /**
+     * Bits of a position that hold the offset within the segment.
+     */
+    private static final int SEGMENT_SHIFT = 32;
+
+    /**
+     * Mask for the offset within the segment of a position.
+     */
+    private static final long OFFSET_MASK = 0xFFFFFFFFL;
+
+    /**
+     * The directory that holds the channel directories.
+     */
+    private final Path directory;
+
+    /**
+     * The size at which a new segment is started.
+     */
+    private final int segmentSize;
+
+    /**
+     * Whether segments are forced to disk after every write.
+     */
+    private final boolean syncWrites;
+
+    /**
+     * The open channels, by channel id.
+     */
+    private final Map<String, ChannelLog> channels = new ConcurrentHashMap<>();
+
+    /**
+     * To/From JSON. Read-only properties aren't written, so they don't come
+     * back as extra properties of the activity.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
+
+    /**
+     * The logger.
+     */
+    private Logger logger = LoggerFactory.getLogger(FileTranscriptStore.class);
+
+    /**
+     * Opens, or creates, a transcript store in a directory.
+     *
+     * @param withDirectory The directory that holds the transcripts.
+     * @throws IOException The store could not be opened or recovered.
+     */
+    public FileTranscriptStore(Path withDirectory) throws IOException {
+        this(withDirectory, DEFAULT_SEGMENT_SIZE, false);
+    }
+
+    /**
+     * Opens, or creates, a transcript store in a directory.
+     *
+     * @param withDirectory   The directory that holds the transcripts.
+     * @param withSegmentSize The size in bytes at which a new segment is
+     *                        started.
+     * @param withSyncWrites  true to force each write to disk before it
+     *                        completes; false to leave flushing to the
+     *                        operating system.
+     * @throws IOException The store could not be opened or recovered.
+     */
+    public FileTranscriptStore(Path withDirectory, int withSegmentSize, boolean withSyncWrites) throws IOException {
+        if (withDirectory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        if (withSegmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be greater than zero");
+        }
+
+        directory = withDirectory;
+        segmentSize = withSegmentSize;
+        syncWrites = withSyncWrites;
+
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> channelDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path channelDirectory : channelDirectories) {
+                String channelId = URLDecoder.decode(channelDirectory.getFileName().toString(), "UTF-8");
+                channels.put(channelId, new ChannelLog(channelDirectory));
+            }
+        }
+    }
+
+    /**
+     * Logs an activity to the transcript.
+     *
+     * @param activity The activity to log.
+     * @return A CompletableFuture that represents the work queued to execute.
+     */
+    @Override
+    public CompletableFuture<Void> logActivity(Activity activity) {
+        if (activity == null) {
+            return Async.completeExceptionally(
+                new IllegalArgumentException("activity cannot be null for LogActivity()"));
+        }
+
+        if (activity.getChannelId() == null || activity.getConversation() == null
+            || activity.getConversation().getId() == null) {
+            return Async.completeExceptionally(
+                new IllegalArgumentException("activity must have a channelId and conversation id"));
+        }
+
+        try {
+            Instant timestamp = activity.getTimestamp() != null
+                ? activity.getTimestamp().toInstant()
+                : Instant.MIN;
+            byte[] record = encode(
+                OP_ACTIVITY, activity.getConversation().getId(), timestamp, objectMapper.writeValueAsBytes(activity)
+            );
+            getOrCreateChannel(activity.getChannelId()).append(record);
+        } catch (IOException e) {
+            logger.error("logActivity failed: {}", e.toString());
+            return Async.completeExceptionally(new RuntimeException(
+                String.format("logActivity failed: %s", e.toString())
+            ));
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Gets from the store activities that match a set of criteria.
+     *
+     * @param channelId         The ID of the channel the conversation is in.
+     * @param conversationId    The ID of the conversation.
+     * @param continuationToken The continuation token from the previous page of
+     *                          results.
+     * @param startDate         A cutoff date. Activities older than this date are
+     *                          not included.
+     * @return A task that represents the work queued to execute. If the task
+     *         completes successfully, the result contains the matching activities.
+     */
+    @Override
+    public CompletableFuture<PagedResult<Activity>> getTranscriptActivities(
+        String channelId,
+        String conversationId,
+        String continuationToken,
+        OffsetDateTime startDate
+    ) {
+        if (channelId == null) {
+            return Async.completeExceptionally(
+                new IllegalArgumentException(String.format("missing %1$s", "channelId")));
+        }
+
+        if (conversationId == null) {
+            return Async.completeExceptionally(
+                new IllegalArgumentException(String.format("missing %1$s", "conversationId")));
+        }
+
+        PagedResult<Activity> pagedResult = new PagedResult<>();
+        ChannelLog channel = channels.get(channelId);
+        if (channel != null) {
+            try {
+                channel.readPage(conversationId, continuationToken, startDate, pagedResult);
+            } catch (IllegalArgumentException e) {
+                return Async.completeExceptionally(e);
+            } catch (IOException e) {
+                logger.error("getTranscriptActivities failed: {}", e.toString());
+                return Async.completeExceptionally(new RuntimeException(
+                    String.format("getTranscriptActivities failed: %s", e.toString())
+                ));
+            }
+        }
+
+        return CompletableFuture.completedFuture(pagedResult);
+    }
+
+    /**
+     * Gets the conversations on a channel from the store.
+     *
+     * @param channelId         The ID of the channel.
+     * @param continuationToken The continuation token from the previous page of
+     *                          results.
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public CompletableFuture<PagedResult<TranscriptInfo>> listTranscripts(
+        String channelId,
+        String continuationToken
+    ) {
+        if (channelId == null) {
+            return Async.completeExceptionally(new IllegalArgumentException(String.format(
+                "missing %1$s", "channelId"
+            )));
+        }
+
+        PagedResult<TranscriptInfo> pagedResult = new PagedResult<>();
+        ChannelLog channel = channels.get(channelId);
+        if (channel != null) {
+            Stream<TranscriptInfo> stream = channel.listTranscripts(channelId).stream()
+                .sorted(Comparator.comparing(TranscriptInfo::getCreated).thenComparing(TranscriptInfo::getId));
+
+            if (continuationToken != null) {
+                stream = StreamUtils
+                    .skipWhile(stream, c -> !c.getId().equals(continuationToken))
+                    .skip(1);
+            }
+
+            List<TranscriptInfo> items = stream.limit(PAGE_SIZE).collect(Collectors.toList());
+
+            pagedResult.setItems(items);
+            if (items.size() == PAGE_SIZE) {
+                pagedResult.setContinuationToken(items.get(items.size() - 1).getId());
+            }
+        }
+
+        return CompletableFuture.completedFuture(pagedResult);
+    }
+
+    /**
+     * Deletes conversation data from the store.
+     *
+     * @param channelId      The ID of the channel the conversation is in.
+     * @param conversationId The ID of the conversation to delete.
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public CompletableFuture<Void> deleteTranscript(String channelId, String conversationId) {
+        if (channelId == null) {
+            return Async.completeExceptionally(new IllegalArgumentException(
+                String.format("%1$s should not be null", "channelId")
+            ));
+        }
+
+        if (conversationId == null) {
+            return Async.completeExceptionally(new IllegalArgumentException(
+                String.format("%1$s should not be null", "conversationId")
+            ));
+        }
+
+        ChannelLog channel = channels.get(channelId);
+        if (channel != null) {
+            try {
+                channel.delete(conversationId);
+            } catch (IOException e) {
+                logger.error("deleteTranscript failed: {}", e.toString());
+                return Async.completeExceptionally(new RuntimeException(
+                    String.format("deleteTranscript failed: %s", e.toString())
+                ));
+            }
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Rewrites every full segment that holds deleted activities without them.
+     *
+     * @throws IOException A segment could not be rewritten.
+     */
+    public void compact() throws IOException {
+        for (ChannelLog channel : channels.values()) {
+            channel.compact(false);
+        }
+    }
+
+    /**
+     * Forces the segments to disk and closes them.
+     *
+     * @throws IOException A segment could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        for (ChannelLog channel : channels.values()) {
+            channel.close();
+        }
+        channels.clear();
+    }
+
+    /**
+     * Gets the log of a channel, creating it on first use.
+     *
+     * @param channelId The channel id.
+     * @return The channel log.
+     * @throws IOException The channel directory could not be created.
+     */
+    private ChannelLog getOrCreateChannel(String channelId) throws IOException {
+        ChannelLog channel = channels.get(channelId);
+        if (channel != null) {
+            return channel;
+        }
+
+        synchronized (channels) {
+            channel = channels.get(channelId);
+            if (channel == null) {
+                Path channelDirectory = directory.resolve(encodeChannelId(channelId));
+                Files.createDirectories(channelDirectory);
+                channel = new ChannelLog(channelDirectory);
+                channels.put(channelId, channel);
+            }
+            return channel;
+        }
+    }
+
+    /**
+     * Encodes a channel id as a directory name.
+     *
+     * @param channelId The channel id.
+     * @return The directory name.
+     * @throws UnsupportedEncodingException Never, UTF-8 is always supported.
+     */
+    private static String encodeChannelId(String channelId) throws UnsupportedEncodingException {
+        return URLEncoder.encode(channelId, "UTF-8");
+    }
+
+    /**
+     * Encodes a record, including its header.
+     *
+     * @param op             The record operation.
+     * @param conversationId The conversation id.
+     * @param timestamp      The activity timestamp.
+     * @param data           The serialized activity, or null.
+     * @return The record.
+     */
+    private static byte[] encode(byte op, String conversationId, Instant timestamp, byte[] data) {
+        byte[] id = conversationId.getBytes(StandardCharsets.UTF_8);
+        int length = PREFIX_SIZE + id.length + TIMESTAMP_SIZE + (data != null ? data.length : 0);
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length);
+        record.putInt(length);
+        record.putInt(0);
+        record.put(op);
+        record.putInt(id.length);
+        record.put(id);
+        record.putLong(timestamp.getEpochSecond());
+        record.putInt(timestamp.getNano());
+        if (data != null) {
+            record.put(data);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, length);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * Combines a segment id and an offset within it into a log position.
+     *
+     * @param segmentId The segment id.
+     * @param offset    The offset within the segment.
+     * @return The position.
+     */
+    private static long toPosition(int segmentId, long offset) {
+        return ((long) segmentId << SEGMENT_SHIFT) | offset;
+    }
+
+    /**
+     * A decoded record.
+     */
+    private static final class Record {
+        /**
+         * The record operation.
+         */
+        private final byte op;
+
+        /**
+         * The conversation id.
+         */
+        private final String conversationId;
+
+        /**
+         * The activity timestamp.
+         */
+        private final Instant timestamp;
+
+        /**
+         * The record body, which ends with the serialized activity.
+         */
+        private final ByteBuffer body;
+
+        /**
+         * Creates a record.
+         *
+         * @param withOp             The record operation.
+         * @param withConversationId The conversation id.
+         * @param withTimestamp      The activity timestamp.
+         * @param withBody           The record body, positioned at the activity.
+         */
+        Record(byte withOp, String withConversationId, Instant withTimestamp, ByteBuffer withBody) {
+            op = withOp;
+            conversationId = withConversationId;
+            timestamp = withTimestamp;
+            body = withBody;
+        }
+
+        /**
+         * Decodes a record body.
+         *
+         * @param body The record body.
+         * @return The record.
+         */
+        static Record decode(ByteBuffer body) {
+            byte op = body.get();
+            byte[] id = new byte[body.getInt()];
+            body.get(id);
+            Instant timestamp = Instant.ofEpochSecond(body.getLong(), body.getInt());
+            return new Record(op, new String(id, StandardCharsets.UTF_8), timestamp, body);
+        }
+    }
+
+    /**
+     * A segment file.
+     */
+    private static final class Segment {
+        /**
+         * The segment id, which orders segments.
+         */
+        private final int id;
+
+        /**
+         * The segment file.
+         */
+        private final Path path;
+
+        /**
+         * The open segment file.
+         */
+        private FileChannel file;
+
+        /**
+         * The length of the valid records.
+         */
+        private long size;
+
+        /**
+         * The bytes taken by activities of deleted transcripts.
+         */
+        private long deadBytes;
+
+        /**
+         * Opens a segment file.
+         *
+         * @param withId   The segment id.
+         * @param withPath The segment file.
+         * @throws IOException The file could not be opened.
+         */
+        Segment(int withId, Path withPath) throws IOException {
+            id = withId;
+            path = withPath;
+            file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Reads bytes from the segment.
+         *
+         * @param offset The offset to read from.
+         * @param length The number of bytes to read.
+         * @return The bytes, or null if the segment ends first.
+         * @throws IOException The segment could not be read.
+         */
+        ByteBuffer read(long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (file.read(buffer, offset + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    /**
+     * The index entry of a conversation.
+     */
+    private static final class Conversation {
+        /**
+         * When the first activity was logged.
+         */
+        private final OffsetDateTime created;
+
+        /**
+         * The position of the first activity. Anything before it belongs to a
+         * deleted transcript of the same conversation.
+         */
+        private long start;
+
+        /**
+         * The position and timestamp of every few activities. Always includes
+         * the first activity in each segment.
+         */
+        private final NavigableMap<Long, Instant> checkpoints = new TreeMap<>();
+
+        /**
+         * Bytes of activities, by segment id.
+         */
+        private final NavigableMap<Integer, Long> bytesBySegment = new TreeMap<>();
+
+        /**
+         * Number of activities, by segment id.
+         */
+        private final Map<Integer, Integer> countBySegment = new HashMap<>();
+
+        /**
+         * Offset of the last activity, by segment id.
+         */
+        private final Map<Integer, Long> lastBySegment = new HashMap<>();
+
+        /**
+         * Creates an index entry.
+         *
+         * @param withCreated The timestamp of the first activity.
+         * @param withStart   The position of the first activity.
+         */
+        Conversation(Instant withCreated, long withStart) {
+            created = withCreated.equals(Instant.MIN)
+                ? OffsetDateTime.now(ZoneOffset.UTC)
+                : OffsetDateTime.ofInstant(withCreated, ZoneOffset.UTC);
+            start = withStart;
+        }
+
+        /**
+         * Adds an activity to the index.
+         *
+         * @param segmentId The segment id.
+         * @param offset    The offset of the record.
+         * @param length    The length of the record.
+         * @param timestamp The activity timestamp.
+         */
+        void add(int segmentId, long offset, int length, Instant timestamp) {
+            int count = countBySegment.getOrDefault(segmentId, 0);
+            if (count % CHECKPOINT_INTERVAL == 0) {
+                checkpoints.put(toPosition(segmentId, offset), timestamp);
+            }
+            countBySegment.put(segmentId, count + 1);
+            lastBySegment.put(segmentId, offset);
+            bytesBySegment.merge(segmentId, (long) length, Long::sum);
+        }
+
+        /**
+         * Removes a segment from the index, before it is rewritten.
+         *
+         * @param segmentId The segment id.
+         */
+        void removeSegment(int segmentId) {
+            checkpoints.subMap(toPosition(segmentId, 0), true, toPosition(segmentId, OFFSET_MASK), true).clear();
+            countBySegment.remove(segmentId);
+            lastBySegment.remove(segmentId);
+            bytesBySegment.remove(segmentId);
+        }
+    }
+
+    /**
+     * The segments and index of one channel.
+     */
+    private final class ChannelLog {
+        /**
+         * The channel directory.
+         */
+        private final Path channelDirectory;
+
+        /**
+         * The segments, by id. The last is the one being appended to.
+         */
+        private final NavigableMap<Integer, Segment> segments = new TreeMap<>();
+
+        /**
+         * The live conversations.
+         */
+        private final Map<String, Conversation> conversations = new HashMap<>();
+
+        /**
+         * Appends, deletes and compaction take the lock exclusively.
+         */
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * Opens the segments of a channel and rebuilds the index.
+         *
+         * @param withDirectory The channel directory.
+         * @throws IOException The segments could not be opened or recovered.
+         */
+        ChannelLog(Path withDirectory) throws IOException {
+            channelDirectory = withDirectory;
+
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(channelDirectory)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(COMPACT_EXTENSION)) {
+                        // an interrupted compaction, the original is still in place
+                        Files.delete(file);
+                    } else if (name.endsWith(SEGMENT_EXTENSION)) {
+                        int id = NumberUtils.toInt(name.substring(0, name.length() - SEGMENT_EXTENSION.length()), -1);
+                        if (id >= 0) {
+                            segments.put(id, new Segment(id, file));
+                        }
+                    }
+                }
+            }
+
+            for (Segment segment : segments.values()) {
+                recover(segment, segment == segments.lastEntry().getValue());
+            }
+        }
+
+        /**
+         * Appends a record to the newest segment, starting a new one if it is
+         * full.
+         *
+         * @param record The encoded record.
+         * @throws IOException The record could not be written.
+         */
+        void append(byte[] record) throws IOException {
+            lock.writeLock().lock();
+            try {
+                Segment segment = segments.isEmpty() ? null : segments.lastEntry().getValue();
+                if (segment == null || segment.size > 0 && segment.size + record.length > segmentSize) {
+                    segment = createSegment(segment == null ? 0 : segment.id + 1);
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                while (buffer.hasRemaining()) {
+                    segment.file.write(buffer, segment.size + buffer.position());
+                }
+                if (syncWrites) {
+                    segment.file.force(false);
+                }
+
+                ByteBuffer body = ByteBuffer.wrap(record, HEADER_SIZE, record.length - HEADER_SIZE).slice();
+                apply(Record.decode(body), segment, segment.size, record.length);
+                segment.size += record.length;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Deletes a transcript by appending a tombstone, and rewrites the full
+         * segments that are now mostly deleted activities.
+         *
+         * @param conversationId The conversation id.
+         * @throws IOException The tombstone could not be written.
+         */
+        void delete(String conversationId) throws IOException {
+            lock.writeLock().lock();
+            try {
+                if (conversations.containsKey(conversationId)) {
+                    append(encode(OP_TOMBSTONE, conversationId, Instant.now(), null));
+                    compact(true);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Reads a page of activities.
+         *
+         * @param conversationId    The conversation id.
+         * @param continuationToken The position to continue from, or null.
+         * @param startDate         Activities older than this are skipped, or
+         *                          null.
+         * @param pagedResult       Receives the activities and continuation
+         *                          token.
+         * @throws IOException              The segments could not be read.
+         * @throws IllegalArgumentException The continuation token does not
+         *                                  point at a record of the
+         *                                  conversation.
+         */
+        void readPage(
+            String conversationId,
+            String continuationToken,
+            OffsetDateTime startDate,
+            PagedResult<Activity> pagedResult
+        ) throws IOException, IllegalArgumentException {
+            List<Activity> items = new ArrayList<>();
+            pagedResult.setItems(items);
+
+            lock.readLock().lock();
+            try {
+                Conversation conversation = conversations.get(conversationId);
+                if (conversation == null) {
+                    return;
+                }
+
+                Instant since = startDate != null ? startDate.toInstant() : null;
+                long from = conversation.start;
+                if (continuationToken != null) {
+                    from = NumberUtils.toLong(continuationToken, -1);
+                    if (!isContinuation(conversation, from)) {
+                        throw new IllegalArgumentException(
+                            String.format("Invalid continuation token %s", continuationToken)
+                        );
+                    }
+                } else if (since != null) {
+                    // seek to the last indexed activity before the start date
+                    for (Map.Entry<Long, Instant> checkpoint : conversation.checkpoints.entrySet()) {
+                        if (checkpoint.getValue().compareTo(since) >= 0) {
+                            break;
+                        }
+                        from = checkpoint.getKey();
+                    }
+                }
+
+                int fromSegment = (int) (from >>> SEGMENT_SHIFT);
+                for (int segmentId : conversation.bytesBySegment.tailMap(fromSegment, true).keySet()) {
+                    Segment segment = segments.get(segmentId);
+                    long offset = segmentId == fromSegment
+                        ? Math.max(from & OFFSET_MASK, firstOffset(conversation, segmentId))
+                        : firstOffset(conversation, segmentId);
+                    long last = conversation.lastBySegment.get(segmentId);
+
+                    while (offset <= last) {
+                        ByteBuffer header = segment.read(offset, HEADER_SIZE + PREFIX_SIZE);
+                        int length = header.getInt();
+                        header.getInt();
+                        byte op = header.get();
+                        int idLength = header.getInt();
+
+                        ByteBuffer id = segment.read(offset + HEADER_SIZE + PREFIX_SIZE, idLength);
+                        if (op == OP_ACTIVITY && conversationId.equals(StandardCharsets.UTF_8.decode(id).toString())) {
+                            Record record = Record.decode(segment.read(offset + HEADER_SIZE, length));
+                            if (since == null || record.timestamp.compareTo(since) >= 0) {
+                                items.add(objectMapper.readValue(
+                                    record.body.array(),
+                                    record.body.position(),
+                                    record.body.remaining(),
+                                    Activity.class
+                                ));
+                            }
+                        }
+
+                        offset += HEADER_SIZE + length;
+                        if (items.size() == PAGE_SIZE) {
+                            pagedResult.setContinuationToken(Long.toString(toPosition(segmentId, offset)));
+                            return;
+                        }
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Lists the live conversations.
+         *
+         * @param channelId The channel id.
+         * @return The conversations.
+         */
+        List<TranscriptInfo> listTranscripts(String channelId) {
+            lock.readLock().lock();
+            try {
+                return conversations.entrySet().stream()
+                    .map(c -> new TranscriptInfo(c.getKey(), channelId, c.getValue().created))
+                    .collect(Collectors.toList());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Rewrites full segments without the activities of deleted transcripts.
+         *
+         * @param onlyIfMostlyDead true to only rewrite segments that are at least
+         *                         half deleted activities.
+         * @throws IOException A segment could not be rewritten.
+         */
+        void compact(boolean onlyIfMostlyDead) throws IOException {
+            lock.writeLock().lock();
+            try {
+                Segment newest = segments.isEmpty() ? null : segments.lastEntry().getValue();
+                for (Segment segment : new ArrayList<>(segments.values())) {
+                    if (segment != newest && segment.deadBytes > 0
+                        && (!onlyIfMostlyDead || segment.deadBytes * 2 >= segment.size)) {
+                        compact(segment);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Forces the segments to disk and closes them.
+         *
+         * @throws IOException A segment could not be closed.
+         */
+        void close() throws IOException {
+            lock.writeLock().lock();
+            try {
+                for (Segment segment : segments.values()) {
+                    segment.file.force(true);
+                    segment.file.close();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Creates a new, empty segment.
+         *
+         * @param id The segment id.
+         * @return The segment.
+         * @throws IOException The segment could not be created.
+         */
+        private Segment createSegment(int id) throws IOException {
+            Segment segment = new Segment(id, channelDirectory.resolve(segmentName(id)));
+            segments.put(id, segment);
+            return segment;
+        }
+
+        /**
+         * Gets the offset of the first activity of a conversation in a segment.
+         *
+         * @param conversation The conversation.
+         * @param segmentId    The segment id.
+         * @return The offset.
+         */
+        private long firstOffset(Conversation conversation, int segmentId) {
+            Long position = conversation.checkpoints.ceilingKey(toPosition(segmentId, 0));
+            return position != null && (position >>> SEGMENT_SHIFT) == segmentId ? position & OFFSET_MASK : 0;
+        }
+
+        /**
+         * Checks that a continuation token points at a record boundary at or
+         * after the start of a conversation, so that a stale or forged token is
+         * not read as a record.
+         *
+         * @param conversation The conversation.
+         * @param position     The position from the token.
+         * @return true if reading can continue from the position.
+         * @throws IOException The segment could not be read.
+         */
+        private boolean isContinuation(Conversation conversation, long position) throws IOException {
+            if (position < conversation.start) {
+                return false;
+            }
+
+            Segment segment = segments.get((int) (position >>> SEGMENT_SHIFT));
+            long offset = position & OFFSET_MASK;
+            // a page can end with the last record of a segment
+            return segment != null && (offset == segment.size || checkRecord(segment, offset, segment.size) > 0);
+        }
+
+        /**
+         * Checks the record at an offset of a segment.
+         *
+         * @param segment The segment.
+         * @param offset  The offset of the record.
+         * @param limit   The end of the readable part of the segment.
+         * @return The length of the record body, or -1 if there is no complete
+         *         record with a matching checksum at the offset.
+         * @throws IOException The segment could not be read.
+         */
+        private int checkRecord(Segment segment, long offset, long limit) throws IOException {
+            if (offset + HEADER_SIZE > limit) {
+                return -1;
+            }
+
+            ByteBuffer header = segment.read(offset, HEADER_SIZE);
+            int length = header.getInt();
+            long checksum = header.getInt() & OFFSET_MASK;
+            if (length <= 0 || offset + HEADER_SIZE + length > limit) {
+                return -1;
+            }
+
+            ByteBuffer body = segment.read(offset + HEADER_SIZE, length);
+            CRC32 crc = new CRC32();
+            crc.update(body.array(), 0, length);
+            return crc.getValue() == checksum ? length : -1;
+        }
+
+        /**
+         * Replays a segment into the index. An incomplete or corrupt record ends
+         * the segment, and is cut off if this is the newest segment.
+         *
+         * @param segment The segment.
+         * @param newest  Whether this is the segment being appended to.
+         * @throws IOException The segment could not be read.
+         */
+        private void recover(Segment segment, boolean newest) throws IOException {
+            long fileSize = segment.file.size();
+            long offset = 0;
+            while (offset + HEADER_SIZE <= fileSize) {
+                ByteBuffer header = segment.read(offset, HEADER_SIZE);
+                int length = header.getInt();
+                long checksum = header.getInt() & OFFSET_MASK;
+                if (length <= 0 || offset + HEADER_SIZE + length > fileSize) {
+                    break;
+                }
+
+                ByteBuffer body = segment.read(offset + HEADER_SIZE, length);
+                CRC32 crc = new CRC32();
+                crc.update(body.array(), 0, length);
+                if (crc.getValue() != checksum) {
+                    break;
+                }
+
+                apply(Record.decode(body), segment, offset, HEADER_SIZE + length);
+                offset += HEADER_SIZE + length;
+            }
+
+            segment.size = offset;
+            if (offset < fileSize) {
+                logger.warn("Discarding incomplete record at offset {} of {}", offset, segment.path);
+                if (newest) {
+                    segment.file.truncate(offset);
+                }
+            }
+        }
+
+        /**
+         * Updates the index for a record.
+         *
+         * @param record  The record.
+         * @param segment The segment holding the record.
+         * @param offset  The offset of the record.
+         * @param length  The length of the record, including the header.
+         */
+        private void apply(Record record, Segment segment, long offset, int length) {
+            if (record.op == OP_TOMBSTONE) {
+                Conversation deleted = conversations.remove(record.conversationId);
+                if (deleted != null) {
+                    for (Map.Entry<Integer, Long> bytes : deleted.bytesBySegment.entrySet()) {
+                        Segment holder = segments.get(bytes.getKey());
+                        if (holder != null) {
+                            holder.deadBytes += bytes.getValue();
+                        }
+                    }
+                }
+                return;
+            }
+
+            conversations
+                .computeIfAbsent(record.conversationId, id -> new Conversation(
+                    record.timestamp, toPosition(segment.id, offset)
+                ))
+                .add(segment.id, offset, length, record.timestamp);
+        }
+
+        /**
+         * Rewrites a segment without the activities of deleted transcripts.
+         * Tombstones are kept, since older segments may still hold activities
+         * of the same conversations.
+         *
+         * @param segment The segment.
+         * @throws IOException The segment could not be rewritten.
+         */
+        private void compact(Segment segment) throws IOException {
+            Path compacted = segment.path.resolveSibling(segment.path.getFileName() + COMPACT_EXTENSION);
+            long newSize = 0;
+            try (FileChannel out = FileChannel.open(
+                compacted,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )) {
+                long offset = 0;
+                while (offset < segment.size) {
+                    int length = segment.read(offset, HEADER_SIZE).getInt();
+                    ByteBuffer record = segment.read(offset, HEADER_SIZE + length);
+                    Record decoded = Record.decode(segment.read(offset + HEADER_SIZE, length));
+
+                    Conversation conversation = conversations.get(decoded.conversationId);
+                    if (decoded.op == OP_TOMBSTONE
+                        || conversation != null && toPosition(segment.id, offset) >= conversation.start) {
+                        while (record.hasRemaining()) {
+                            out.write(record, newSize + record.position());
+                        }
+                        newSize += HEADER_SIZE + length;
+                    }
+
+                    offset += HEADER_SIZE + length;
+                }
+                out.force(true);
+            }
+
+            segment.file.close();
+            Files.move(compacted, segment.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            segment.file = FileChannel.open(segment.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment.size = newSize;
+            segment.deadBytes = 0;
+            reindex(segment);
+        }
+
+        /**
+         * Rebuilds the index entries of a segment after it was rewritten.
+         *
+         * @param segment The segment.
+         * @throws IOException The segment could not be read.
+         */
+        private void reindex(Segment segment) throws IOException {
+            for (Conversation conversation : conversations.values()) {
+                conversation.removeSegment(segment.id);
+            }
+
+            Set<Conversation> started = new HashSet<>();
+            long offset = 0;
+            while (offset < segment.size) {
+                int length = segment.read(offset, HEADER_SIZE).getInt();
+                Record record = Record.decode(segment.read(offset + HEADER_SIZE, length));
+                if (record.op == OP_ACTIVITY) {
+                    Conversation conversation = conversations.get(record.conversationId);
+                    if (conversation.start >>> SEGMENT_SHIFT == segment.id && started.add(conversation)) {
+                        conversation.start = toPosition(segment.id, offset);
+                    }
+                    conversation.add(segment.id, offset, HEADER_SIZE + length, record.timestamp);
+                }
+                offset += HEADER_SIZE + length;
+            }
+        }
+
+        /**
+         * Gets the file name of a segment.
+         *
+         * @param id The segment id.
+         * @return The file name.
+         */
+        private String segmentName(int id) {
+            return String.format("%010d%s", id, SEGMENT_EXTENSION);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * A {@link StateSerializer} that writes state as JSON text, with the same type
+ * handling as {@link MemoryStorage}.
+ */
+public class JsonStateSerializer implements StateSerializer {
+    /**
+     * To/From JSON.
+     */
+    private final ObjectMapper objectMapper = configure(new ObjectMapper());
+
+    /**
+     * Serializes a state object to JSON.
+     *
+     * @param value The value to serialize.
+     * @return The UTF-8 JSON bytes.
+     * @throws IOException The value could not be serialized.
+     */
+    @Override
+    public byte[] serialize(Object value) throws IOException {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    /**
+     * Deserializes a state object from JSON.
+     *
+     * @param data The UTF-8 JSON bytes.
+     * @param type The type to deserialize to.
+     * @param <T>  The type to deserialize to.
+     * @return The deserialized value.
+     * @throws IOException The data could not be deserialized.
+     */
+    @Override
+    public <T> T deserialize(byte[] data, Class<T> type) throws IOException {
+        return objectMapper.readValue(data, type);
+    }
+
+    /**
+     * Applies the settings used for persisted state to a mapper.
+     *
+     * @param mapper The mapper to configure.
+     * @return The configured mapper.
+     */
+    static ObjectMapper configure(ObjectMapper mapper) {
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .findAndRegisterModules()
+            .enableDefaultTyping();
+        return mapper;
+    }
+}
@@ -0,0 +1,749 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.connector.Async;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A storage layer that persists items to a local, memory-mapped append log.
+ *
+ * <p>
+ * Every write or delete appends a checksummed record to the log and updates
+ * an in-memory index of the latest record for each key, so reads cost one
+ * lookup and one deserialization. When the log holds more superseded records
+ * than live ones, it is compacted by copying the live records to a new file
+ * that atomically replaces the old one. On open, the log is replayed up to
+ * the last complete record, which discards a record torn by a crash.
+ * </p>
+ *
+ * <p>
+ * ETags follow the same rules as {@link MemoryStorage}. A compacted log starts
+ * with the next ETag to issue, so ETags of records dropped by compaction are
+ * not issued again after a restart. The log must not be shared by more than
+ * one MappedFileStorage at a time.
+ * </p>
+ */
+public class MappedFileStorage implements Storage, AutoCloseable {
+    /**
+     * The name of the log file within the storage directory.
+     */
+    public static final String LOG_FILE_NAME = "state.log";
+
+    /**
+     * The initial size of the mapped log.
+     */
+    private static final int INITIAL_CAPACITY = 1024 * 1024;
+
+    /**
+     * Superseded bytes below which the log is never compacted.
+     */
+    private static final long MIN_COMPACTION_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * Size of the record length and checksum header.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Record operation for a write.
+     */
+    private static final byte OP_WRITE = 1;
+
+    /**
+     * Record operation for a delete.
+     */
+    private static final byte OP_DELETE = 2;
+
+    /**
+     * Record operation that carries the next ETag to issue.
+     */
+    private static final byte OP_ETAG = 3;
+
+    /**
+     * Mask to read a checksum as an unsigned int.
+     */
+    private static final long CRC_MASK = 0xFFFFFFFFL;
+
+    /**
+     * The log file.
+     */
+    private final Path logFile;
+
+    /**
+     * Whether the mapped log is forced to disk after every write.
+     */
+    private final boolean syncWrites;
+
+    /**
+     * Serializes stored values.
+     */
+    private final StateSerializer serializer;
+
+    /**
+     * The latest record for each live key.
+     */
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+
+    /**
+     * Reads share the lock; appends, remaps and compaction take it exclusively.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The logger.
+     */
+    private Logger logger = LoggerFactory.getLogger(MappedFileStorage.class);
+
+    /**
+     * The open log file.
+     */
+    private FileChannel channel;
+
+    /**
+     * The mapped log.
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * The offset at which the next record is appended.
+     */
+    private int writePosition;
+
+    /**
+     * Bytes held by records that are no longer live.
+     */
+    private long deadBytes;
+
+    /**
+     * eTag counter.
+     */
+    private long eTag;
+
+    /**
+     * Opens, or creates, the storage log in a directory.
+     *
+     * @param directory The directory that holds the log.
+     * @throws IOException The log could not be opened or recovered.
+     */
+    public MappedFileStorage(Path directory) throws IOException {
+        this(directory, false);
+    }
+
+    /**
+     * Opens, or creates, the storage log in a directory.
+     *
+     * @param directory       The directory that holds the log.
+     * @param withSyncWrites  true to force the log to disk before each write
+     *                        completes, which also survives power loss; false to
+     *                        leave flushing to the operating system, which only
+     *                        survives a process crash.
+     * @throws IOException The log could not be opened or recovered.
+     */
+    public MappedFileStorage(Path directory, boolean withSyncWrites) throws IOException {
+        this(directory, withSyncWrites, new JsonStateSerializer());
+    }
+
+    /**
+     * Opens, or creates, the storage log in a directory, with the given
+     * serializer for stored values.
+     *
+     * @param directory       The directory that holds the log.
+     * @param withSyncWrites  true to force the log to disk before each write
+     *                        completes; false to leave flushing to the operating
+     *                        system.
+     * @param withSerializer  Serializes stored values. It must be able to read
+     *                        the values already in the log.
+     * @throws IOException The log could not be opened or recovered.
+     */
+    public MappedFileStorage(
+        Path directory,
+        boolean withSyncWrites,
+        StateSerializer withSerializer
+    ) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        if (withSerializer == null) {
+            throw new IllegalArgumentException("serializer cannot be null");
+        }
+
+        Files.createDirectories(directory);
+        logFile = directory.resolve(LOG_FILE_NAME);
+        syncWrites = withSyncWrites;
+
+        serializer = withSerializer;
+
+        open();
+        recover();
+    }
+
+    /**
+     * Reads storage items from storage.
+     *
+     * @param keys keys of the items to read
+     * @return A task that represents the work queued to execute. If the activities
+     *         are successfully sent, the task result contains the items read,
+     *         indexed by key.
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>> read(String[] keys) {
+        if (keys == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("keys cannot be null"));
+        }
+
+        Map<String, Object> storeItems = new ConcurrentHashMap<>(keys.length);
+        lock.readLock().lock();
+        try {
+            for (String key : keys) {
+                IndexEntry entry = index.get(key);
+                if (entry != null) {
+                    Record record = Record.decode(slice(entry.offset + HEADER_SIZE, entry.length));
+                    Object value = serializer.deserialize(record.data, Class.forName(record.typeName));
+                    if (value instanceof StoreItem) {
+                        ((StoreItem) value).setETag(record.eTag);
+                    }
+                    storeItems.put(key, value);
+                }
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            logger.error("Read failed: {}", e.toString());
+            return Async.completeExceptionally(new RuntimeException(
+                String.format("Read failed: %s", e.toString())
+            ));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return CompletableFuture.completedFuture(storeItems);
+    }
+
+    /**
+     * Writes storage items to storage.
+     *
+     * @param changes The items to write, indexed by key.
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public CompletableFuture<Void> write(Map<String, Object> changes) {
+        if (changes == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("changes cannot be null"));
+        }
+
+        RuntimeException conflict = null;
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, Object> change : changes.entrySet()) {
+                Object newValue = change.getValue();
+                IndexEntry oldEntry = index.get(change.getKey());
+
+                String newTag = null;
+                if (newValue instanceof StoreItem) {
+                    StoreItem newStoreItem = (StoreItem) newValue;
+                    if (
+                        oldEntry != null && oldEntry.eTag != null
+                            && !StringUtils.equals(newStoreItem.getETag(), "*")
+                            && !StringUtils.equals(newStoreItem.getETag(), oldEntry.eTag)
+                    ) {
+                        String msg = String.format(
+                            "eTag conflict. Original: %s, Current: %s", newStoreItem.getETag(),
+                            oldEntry.eTag
+                        );
+                        logger.error(msg);
+                        conflict = new RuntimeException(msg);
+                        break;
+                    }
+                    newTag = Long.toString(eTag++);
+                }
+
+                // the record carries the tag, which is applied on read
+                append(new Record(
+                    OP_WRITE,
+                    change.getKey(),
+                    newValue.getClass().getTypeName(),
+                    newTag,
+                    serializer.serialize(newValue)
+                ));
+            }
+
+            // the records appended before a conflict are kept, so sync them too
+            afterAppend();
+        } catch (IOException e) {
+            logger.error("Write failed: {}", e.toString());
+            return Async.completeExceptionally(new RuntimeException(
+                String.format("Write failed: %s", e.toString())
+            ));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return conflict != null ? Async.completeExceptionally(conflict) : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Deletes storage items from storage.
+     *
+     * @param keys keys of the items to delete
+     * @return A task that represents the work queued to execute.
+     */
+    @Override
+    public CompletableFuture<Void> delete(String[] keys) {
+        if (keys == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("keys cannot be null"));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (String key : keys) {
+                if (index.containsKey(key)) {
+                    append(new Record(OP_DELETE, key, null, null, null));
+                }
+            }
+
+            afterAppend();
+        } catch (IOException e) {
+            logger.error("Delete failed: {}", e.toString());
+            return Async.completeExceptionally(new RuntimeException(
+                String.format("Delete failed: %s", e.toString())
+            ));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Rewrites the log with only the live records.
+     *
+     * @throws IOException The log could not be rewritten.
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            Path compacted = logFile.resolveSibling(LOG_FILE_NAME + ".compact");
+            Map<String, IndexEntry> newIndex = new ConcurrentHashMap<>();
+            int position = 0;
+            try (FileChannel out = FileChannel.open(
+                compacted,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )) {
+                // the records dropped here may hold the highest ETag issued
+                ByteBuffer mark = frame(new Record(OP_ETAG, null, null, Long.toString(eTag), null).encode());
+                position += mark.remaining();
+                while (mark.hasRemaining()) {
+                    out.write(mark);
+                }
+
+                for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                    IndexEntry live = entry.getValue();
+                    ByteBuffer record = slice(live.offset, HEADER_SIZE + live.length);
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                    newIndex.put(entry.getKey(), new IndexEntry(position, live.length, live.eTag));
+                    position += HEADER_SIZE + live.length;
+                }
+                out.force(true);
+            }
+
+            channel.close();
+            try {
+                Files.move(compacted, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                index.clear();
+                index.putAll(newIndex);
+                writePosition = position;
+                deadBytes = 0;
+            } finally {
+                // reopen the old log if it could not be replaced
+                open();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the log to disk and closes it.
+     *
+     * @throws IOException The log could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Opens and maps the log file, growing it to hold at least the current
+     * write position.
+     *
+     * @throws IOException The log could not be opened.
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(
+            logFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+        long capacity = Math.max(INITIAL_CAPACITY, channel.size());
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Replays the log into the index, stopping at the first incomplete or
+     * corrupt record.
+     */
+    private void recover() {
+        int position = 0;
+        boolean torn = false;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+
+            if (length < 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+                torn = true;
+                break;
+            }
+
+            ByteBuffer body = slice(position + HEADER_SIZE, length);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if ((buffer.getInt(position + Integer.BYTES) & CRC_MASK) != crc.getValue()) {
+                torn = true;
+                break;
+            }
+
+            apply(Record.decode(body), position, length);
+            position += HEADER_SIZE + length;
+        }
+
+        writePosition = position;
+        if (torn) {
+            logger.warn("Discarding incomplete record at offset {} of {}", position, logFile);
+            for (int i = position; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Appends a record to the log and applies it to the index.
+     *
+     * @param record The record to append.
+     * @throws IOException The log could not be grown.
+     */
+    private void append(Record record) throws IOException {
+        byte[] body = record.encode();
+        ensureCapacity(HEADER_SIZE + body.length);
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        // the body goes in before the length, so a torn write never has a valid header
+        ByteBuffer target = buffer.duplicate();
+        target.position(writePosition + HEADER_SIZE);
+        target.put(body);
+        buffer.putInt(writePosition + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(writePosition, body.length);
+
+        apply(record, writePosition, body.length);
+        writePosition += HEADER_SIZE + body.length;
+    }
+
+    /**
+     * Syncs and compacts the log as needed once a batch has been appended. The
+     * batch is already in the log, so a failed compaction is only logged and
+     * tried again after the next batch.
+     */
+    private void afterAppend() {
+        if (syncWrites) {
+            buffer.force();
+        }
+
+        if (deadBytes > MIN_COMPACTION_BYTES && deadBytes > writePosition - deadBytes) {
+            try {
+                compact();
+            } catch (IOException e) {
+                logger.warn("Compaction of {} failed: {}", logFile, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Updates the index for a record.
+     *
+     * @param record   The record.
+     * @param position The offset of the record.
+     * @param length   The length of the record body.
+     */
+    private void apply(Record record, int position, int length) {
+        if (record.op == OP_ETAG) {
+            eTag = Math.max(eTag, NumberUtils.toLong(record.eTag, 0));
+            return;
+        }
+
+        IndexEntry previous = record.op == OP_WRITE
+            ? index.put(record.key, new IndexEntry(position, length, record.eTag))
+            : index.remove(record.key);
+        if (previous != null) {
+            deadBytes += HEADER_SIZE + previous.length;
+        }
+        if (record.op == OP_DELETE) {
+            deadBytes += HEADER_SIZE + length;
+        }
+
+        if (record.eTag != null) {
+            eTag = Math.max(eTag, NumberUtils.toLong(record.eTag, -1) + 1);
+        }
+    }
+
+    /**
+     * Frames a record body with its length and checksum header.
+     *
+     * @param body The encoded record body.
+     * @return The framed record, ready to be written.
+     */
+    private static ByteBuffer frame(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteBuffer framed = ByteBuffer.allocate(HEADER_SIZE + body.length);
+        framed.putInt(body.length);
+        framed.putInt((int) crc.getValue());
+        framed.put(body);
+        framed.flip();
+        return framed;
+    }
+
+    /**
+     * Grows the mapped log if it can't hold another record.
+     *
+     * @param size The size of the record to append.
+     * @throws IOException The log could not be grown.
+     */
+    private void ensureCapacity(int size) throws IOException {
+        if (writePosition + size <= buffer.capacity()) {
+            return;
+        }
+
+        long capacity = buffer.capacity();
+        while (capacity < (long) writePosition + size) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Storage log is full: " + logFile);
+        }
+
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Gets a view of part of the mapped log.
+     *
+     * @param offset The offset of the view.
+     * @param length The length of the view.
+     * @return The view.
+     */
+    private ByteBuffer slice(int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice();
+    }
+
+    /**
+     * The location of the live record for a key.
+     */
+    private static final class IndexEntry {
+        /**
+         * The offset of the record.
+         */
+        private final int offset;
+
+        /**
+         * The length of the record body.
+         */
+        private final int length;
+
+        /**
+         * The ETag of the item, or null.
+         */
+        private final String eTag;
+
+        /**
+         * Creates an index entry.
+         *
+         * @param withOffset The offset of the record.
+         * @param withLength The length of the record body.
+         * @param withETag   The ETag of the item, or null.
+         */
+        IndexEntry(int withOffset, int withLength, String withETag) {
+            offset = withOffset;
+            length = withLength;
+            eTag = withETag;
+        }
+    }
+
+    /**
+     * A log record.
+     */
+    private static final class Record {
+        /**
+         * The operation.
+         */
+        private final byte op;
+
+        /**
+         * The storage key, or null for an ETag record.
+         */
+        private final String key;
+
+        /**
+         * The type name of the item, or null for a delete.
+         */
+        private final String typeName;
+
+        /**
+         * The ETag of the item, or the next ETag to issue for an ETag record.
+         */
+        private final String eTag;
+
+        /**
+         * The serialized item, or null for a delete.
+         */
+        private final byte[] data;
+
+        /**
+         * Creates a record.
+         *
+         * @param withOp       The operation.
+         * @param withKey      The storage key.
+         * @param withTypeName The type name of the item.
+         * @param withETag     The ETag of the item.
+         * @param withData     The serialized item.
+         */
+        Record(byte withOp, String withKey, String withTypeName, String withETag, byte[] withData) {
+            op = withOp;
+            key = withKey;
+            typeName = withTypeName;
+            eTag = withETag;
+            data = withData;
+        }
+
+        /**
+         * Encodes the record body.
+         *
+         * @return The encoded body.
+         */
+        byte[] encode() {
+            List<byte[]> fields = new ArrayList<>();
+            fields.add(toBytes(key));
+            fields.add(toBytes(typeName));
+            fields.add(toBytes(eTag));
+            fields.add(data);
+
+            int size = 1;
+            for (byte[] field : fields) {
+                size += Integer.BYTES + (field != null ? field.length : 0);
+            }
+
+            ByteBuffer body = ByteBuffer.allocate(size);
+            body.put(op);
+            for (byte[] field : fields) {
+                body.putInt(field != null ? field.length : -1);
+                if (field != null) {
+                    body.put(field);
+                }
+            }
+            return body.array();
+        }
+
+        /**
+         * Decodes a record body.
+         *
+         * @param body The encoded body.
+         * @return The record.
+         */
+        static Record decode(ByteBuffer body) {
+            ByteBuffer in = body.duplicate();
+            byte op = in.get();
+            String key = fromBytes(readField(in));
+            String typeName = fromBytes(readField(in));
+            String eTag = fromBytes(readField(in));
+            byte[] data = readField(in);
+            return new Record(op, key, typeName, eTag, data);
+        }
+
+        /**
+         * Reads a length-prefixed field.
+         *
+         * @param in The body being decoded.
+         * @return The field, or null.
+         */
+        private static byte[] readField(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] field = new byte[length];
+            in.get(field);
+            return field;
+        }
+
+        /**
+         * Encodes a string field.
+         *
+         * @param value The string, or null.
+         * @return The UTF-8 bytes, or null.
+         */
+        private static byte[] toBytes(String value) {
+            return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+        }
+
+        /**
+         * Decodes a string field.
+         *
+         * @param value The UTF-8 bytes, or null.
+         * @return The string, or null.
+         */
+        private static String fromBytes(byte[] value) {
+            return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+        }
+    }
+}
@@ -10,9 +10,14 @@ import com.microsoft.bot.schema.Activity;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -21,6 +26,12 @@ import java.util.stream.Stream;
  * Dictionary.
  *
  * <p>
+ * Each conversation keeps its activities in a concurrent index ordered by
+ * timestamp, so a page of activities is found with a seek instead of a sort,
+ * and logging to one conversation doesn't block readers of another.
+ * </p>
+ *
+ * <p>
  * Because this uses an unbounded volatile dictionary this should only be used
  * for unit tests or non-production environments.
  * </p>
@@ -31,15 +42,10 @@ public class MemoryTranscriptStore implements TranscriptStore {
      */
     private static final int PAGE_SIZE = 20;
 
-    /**
-     * Sync object for locking.
-     */
-    private final Object sync = new Object();
-
     /**
      * Map of channel transcripts.
      */
-    private HashMap<String, HashMap<String, ArrayList<Activity>>> channels = new HashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, Transcript>> channels = new ConcurrentHashMap<>();
 
     /**
      * Logs an activity to the transcript.
@@ -54,26 +60,9 @@ public class MemoryTranscriptStore implements TranscriptStore {
                 new IllegalArgumentException("activity cannot be null for LogActivity()"));
         }
 
-        synchronized (sync) {
-            HashMap<String, ArrayList<Activity>> channel;
-            if (!channels.containsKey(activity.getChannelId())) {
-                channel = new HashMap<>();
-                channels.put(activity.getChannelId(), channel);
-            } else {
-                channel = channels.get(activity.getChannelId());
-            }
-
-            ArrayList<Activity> transcript;
-
-            if (!channel.containsKey(activity.getConversation().getId())) {
-                transcript = new ArrayList<>();
-                channel.put(activity.getConversation().getId(), transcript);
-            } else {
-                transcript = channel.get(activity.getConversation().getId());
-            }
-
-            transcript.add(activity);
-        }
+        channels.computeIfAbsent(activity.getChannelId(), id -> new ConcurrentHashMap<>())
+            .computeIfAbsent(activity.getConversation().getId(), id -> new Transcript(activity.getTimestamp()))
+            .add(activity);
 
         return CompletableFuture.completedFuture(null);
     }
@@ -108,33 +97,13 @@ public class MemoryTranscriptStore implements TranscriptStore {
         }
 
         PagedResult<Activity> pagedResult = new PagedResult<>();
-        synchronized (sync) {
-            if (channels.containsKey(channelId)) {
-                HashMap<String, ArrayList<Activity>> channel = channels.get(channelId);
-                if (channel.containsKey(conversationId)) {
-                    OffsetDateTime effectiveStartDate = (startDate == null)
-                        ? OffsetDateTime.MIN
-                        : startDate;
-
-                    ArrayList<Activity> transcript = channel.get(conversationId);
-
-                    Stream<Activity> stream = transcript.stream()
-                        .sorted(Comparator.comparing(Activity::getTimestamp))
-                        .filter(a -> a.getTimestamp().compareTo(effectiveStartDate) >= 0);
-
-                    if (continuationToken != null) {
-                        stream = StreamUtils
-                            .skipWhile(stream, a -> !a.getId().equals(continuationToken))
-                            .skip(1);
-                    }
-
-                    List<Activity> items = stream.limit(PAGE_SIZE).collect(Collectors.toList());
-
-                    pagedResult.setItems(items);
-                    if (pagedResult.getItems().size() == PAGE_SIZE) {
-                        pagedResult.setContinuationToken(items.get(items.size() - 1).getId());
-                    }
-                }
+        Transcript transcript = getTranscript(channelId, conversationId);
+        if (transcript != null) {
+            List<Activity> items = transcript.getPage(continuationToken, startDate, PAGE_SIZE);
+
+            pagedResult.setItems(items);
+            if (items.size() == PAGE_SIZE) {
+                pagedResult.setContinuationToken(items.get(items.size() - 1).getId());
             }
         }
 
@@ -162,11 +131,9 @@ public class MemoryTranscriptStore implements TranscriptStore {
             ));
         }
 
-        synchronized (sync) {
-            if (this.channels.containsKey(channelId)) {
-                HashMap<String, ArrayList<Activity>> channel = this.channels.get(channelId);
-                channel.remove(conversationId);
-            }
+        ConcurrentMap<String, Transcript> channel = channels.get(channelId);
+        if (channel != null) {
+            channel.remove(conversationId);
         }
 
         return CompletableFuture.completedFuture(null);
@@ -192,36 +159,164 @@ public class MemoryTranscriptStore implements TranscriptStore {
         }
 
         PagedResult<TranscriptInfo> pagedResult = new PagedResult<>();
-        synchronized (sync) {
-            if (channels.containsKey(channelId)) {
-                HashMap<String, ArrayList<Activity>> channel = channels.get(channelId);
-                Stream<TranscriptInfo> stream = channel.entrySet().stream().map(c -> {
-                    OffsetDateTime offsetDateTime;
-
-                    if (c.getValue().stream().findFirst().isPresent()) {
-                        offsetDateTime = c.getValue().stream().findFirst().get().getTimestamp();
-                    } else {
-                        offsetDateTime = OffsetDateTime.now();
-                    }
-
-                    return new TranscriptInfo(c.getKey(), channelId, offsetDateTime);
-                }).sorted(Comparator.comparing(TranscriptInfo::getCreated));
-
-                if (continuationToken != null) {
-                    stream = StreamUtils
-                        .skipWhile(stream, c -> !c.getId().equals(continuationToken))
-                        .skip(1);
-                }
+        ConcurrentMap<String, Transcript> channel = channels.get(channelId);
+        if (channel != null) {
+            Stream<TranscriptInfo> stream = channel.entrySet().stream()
+                .map(c -> new TranscriptInfo(c.getKey(), channelId, c.getValue().getCreated()))
+                .sorted(Comparator.comparing(TranscriptInfo::getCreated));
+
+            if (continuationToken != null) {
+                stream = StreamUtils
+                    .skipWhile(stream, c -> !c.getId().equals(continuationToken))
+                    .skip(1);
+            }
 
-                List<TranscriptInfo> items = stream.limit(PAGE_SIZE).collect(Collectors.toList());
+            List<TranscriptInfo> items = stream.limit(PAGE_SIZE).collect(Collectors.toList());
 
-                pagedResult.setItems(items);
-                if (items.size() == PAGE_SIZE) {
-                    pagedResult.setContinuationToken(items.get(items.size() - 1).getId());
-                }
+            pagedResult.setItems(items);
+            if (items.size() == PAGE_SIZE) {
+                pagedResult.setContinuationToken(items.get(items.size() - 1).getId());
             }
         }
 
         return CompletableFuture.completedFuture(pagedResult);
     }
+
+    /**
+     * Gets the transcript of a conversation.
+     *
+     * @param channelId      The ID of the channel the conversation is in.
+     * @param conversationId The ID of the conversation.
+     * @return The transcript, or null if nothing was logged to it.
+     */
+    private Transcript getTranscript(String channelId, String conversationId) {
+        ConcurrentMap<String, Transcript> channel = channels.get(channelId);
+        return channel != null ? channel.get(conversationId) : null;
+    }
+
+    /**
+     * The activities of one conversation, ordered by timestamp and then by the
+     * order they were logged in.
+     */
+    private static final class Transcript {
+        /**
+         * When the first activity was logged.
+         */
+        private final OffsetDateTime created;
+
+        /**
+         * The activities, by position.
+         */
+        private final ConcurrentNavigableMap<Position, Activity> activities = new ConcurrentSkipListMap<>();
+
+        /**
+         * The position of the first activity logged with each id.
+         */
+        private final ConcurrentMap<String, Position> positions = new ConcurrentHashMap<>();
+
+        /**
+         * Orders activities with the same timestamp.
+         */
+        private final AtomicLong sequence = new AtomicLong();
+
+        /**
+         * Creates a transcript.
+         *
+         * @param withCreated The timestamp of the first activity, or null.
+         */
+        Transcript(OffsetDateTime withCreated) {
+            created = withCreated != null ? withCreated : OffsetDateTime.now();
+        }
+
+        /**
+         * @return When the first activity was logged.
+         */
+        OffsetDateTime getCreated() {
+            return created;
+        }
+
+        /**
+         * Adds an activity.
+         *
+         * @param activity The activity.
+         */
+        void add(Activity activity) {
+            Position position = new Position(activity.getTimestamp(), sequence.getAndIncrement());
+            if (activity.getId() != null) {
+                positions.putIfAbsent(activity.getId(), position);
+            }
+            activities.put(position, activity);
+        }
+
+        /**
+         * Gets a page of activities.
+         *
+         * @param continuationToken The id of the last activity of the previous
+         *                          page, or null for the first page.
+         * @param startDate         Activities older than this are skipped, or null.
+         * @param pageSize          The maximum number of activities to return.
+         * @return The activities.
+         */
+        List<Activity> getPage(String continuationToken, OffsetDateTime startDate, int pageSize) {
+            NavigableMap<Position, Activity> page = activities;
+            if (startDate != null) {
+                page = page.tailMap(new Position(startDate, Long.MIN_VALUE), true);
+            }
+
+            if (continuationToken != null) {
+                Position last = positions.get(continuationToken);
+                if (last == null) {
+                    return new ArrayList<>();
+                }
+                page = page.tailMap(last, false);
+            }
+
+            List<Activity> items = new ArrayList<>(pageSize);
+            for (Activity activity : page.values()) {
+                if (items.size() == pageSize) {
+                    break;
+                }
+                items.add(activity);
+            }
+            return items;
+        }
+    }
+
+    /**
+     * The position of an activity in a transcript.
+     */
+    private static final class Position implements Comparable<Position> {
+        /**
+         * The activity timestamp.
+         */
+        private final OffsetDateTime timestamp;
+
+        /**
+         * The order the activity was logged in.
+         */
+        private final long sequence;
+
+        /**
+         * Creates a position.
+         *
+         * @param withTimestamp The activity timestamp, or null.
+         * @param withSequence  The order the activity was logged in.
+         */
+        Position(OffsetDateTime withTimestamp, long withSequence) {
+            timestamp = withTimestamp != null ? withTimestamp : OffsetDateTime.MIN;
+            sequence = withSequence;
+        }
+
+        /**
+         * Orders by timestamp and then by sequence.
+         *
+         * @param other The position to compare to.
+         * @return The comparison result.
+         */
+        @Override
+        public int compareTo(Position other) {
+            int result = timestamp.compareTo(other.timestamp);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
 }
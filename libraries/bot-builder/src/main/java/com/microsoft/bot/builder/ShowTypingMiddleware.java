@@ -3,6 +3,7 @@
 
 package com.microsoft.bot.builder;
 
+import com.microsoft.bot.connector.Async;
 import com.microsoft.bot.connector.ExecutorFactory;
 import com.microsoft.bot.schema.Activity;
 import com.microsoft.bot.schema.ActivityTypes;
@@ -11,6 +12,12 @@ import com.microsoft.bot.schema.ResourceResponse;
 
 import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * When added, this middleware will send typing activities back to the user when
@@ -19,7 +26,13 @@ import java.util.concurrent.CompletableFuture;
  * milliseconds before the first typing activity is sent and then a frequency,
  * also in milliseconds which determines how often another typing activity is
  * sent. Typing activities will continue to be sent until your bot sends another
- * message back to the user.
+ * message back to the user, or the turn ends.
+ *
+ * <p>
+ * The indicators are driven by a shared timer, so a waiting turn holds no
+ * thread, and they stop as soon as the turn completes, whether it succeeded
+ * or failed. A period of zero sends a single typing indicator.
+ * </p>
  */
 public class ShowTypingMiddleware implements Middleware {
     private static final int DEFAULT_DELAY = 500;
@@ -36,6 +49,16 @@ public class ShowTypingMiddleware implements Middleware {
      */
     private long period;
 
+    /**
+     * Provides the timer the indicators are scheduled on.
+     */
+    private final Supplier<ScheduledExecutorService> scheduler;
+
+    /**
+     * Runs the indicator sends.
+     */
+    private final Executor executor;
+
     /**
      * Constructs with default delay and period.
      */
@@ -51,6 +74,31 @@ public class ShowTypingMiddleware implements Middleware {
      * @throws IllegalArgumentException delay and period must be greater than zero
      */
     public ShowTypingMiddleware(long withDelay, long withPeriod) throws IllegalArgumentException {
+        this(
+            withDelay,
+            withPeriod,
+            ExecutorFactory::getScheduler,
+            runnable -> ExecutorFactory.getExecutor().execute(runnable)
+        );
+    }
+
+    /**
+     * Initializes a new instance of the ShowTypingMiddleware class with the timer
+     * and executor the indicators run on.
+     *
+     * @param withDelay     Initial delay before sending first typing indicator.
+     * @param withPeriod    Rate at which additional typing indicators will be
+     *                      sent.
+     * @param withScheduler Provides the timer the indicators are scheduled on.
+     * @param withExecutor  Runs the indicator sends.
+     * @throws IllegalArgumentException delay and period must be greater than zero
+     */
+    ShowTypingMiddleware(
+        long withDelay,
+        long withPeriod,
+        Supplier<ScheduledExecutorService> withScheduler,
+        Executor withExecutor
+    ) throws IllegalArgumentException {
         if (withDelay < 0) {
             throw new IllegalArgumentException("Delay must be greater than or equal to zero");
         }
@@ -61,6 +109,8 @@ public class ShowTypingMiddleware implements Middleware {
 
         delay = withDelay;
         period = withPeriod;
+        scheduler = withScheduler;
+        executor = withExecutor;
     }
 
     /**
@@ -77,29 +127,71 @@ public class ShowTypingMiddleware implements Middleware {
             return next.next();
         }
 
-        // do not await task - we want this to run in the background and we will cancel
-        // it when its done
-        CompletableFuture sendFuture = sendTyping(turnContext, delay, period);
-        return next.next().thenAccept(result -> sendFuture.cancel(true));
+        // the typing indicators run on the shared timer in the background, and are
+        // stopped when the turn ends, however it ends
+        TypingTimer typing = new TypingTimer(this, turnContext);
+        return Async.tryCompletable(next::next).whenComplete((result, ex) -> typing.cancel());
     }
 
-    private static CompletableFuture<Void> sendTyping(
-        TurnContext turnContext,
-        long delay,
-        long period
-    ) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                Thread.sleep(delay);
+    /**
+     * Sends typing indicators for a turn from the shared timer. Nothing runs
+     * between indicators, and each one is scheduled only after the previous
+     * send completed, so a slow channel never has several in flight.
+     */
+    private static final class TypingTimer {
+        private final TurnContext turnContext;
+        private final long period;
+        private final Supplier<ScheduledExecutorService> scheduler;
+        private final Executor executor;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> scheduled;
+
+        TypingTimer(ShowTypingMiddleware withMiddleware, TurnContext withTurnContext) {
+            turnContext = withTurnContext;
+            period = withMiddleware.period;
+            scheduler = withMiddleware.scheduler;
+            executor = withMiddleware.executor;
+            schedule(withMiddleware.delay);
+        }
 
-                while (!Thread.currentThread().isInterrupted()) {
-                    sendTypingActivity(turnContext).join();
-                    Thread.sleep(period);
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> current = scheduled;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        private void schedule(long withDelay) {
+            // the timer thread only hands the send to the pool
+            scheduled = scheduler.get().schedule(() -> {
+                try {
+                    executor.execute(this::tick);
+                } catch (RejectedExecutionException e) {
+                    // the pool is full, skip this indicator but keep the timer going
+                    if (!cancelled && period > 0) {
+                        schedule(period);
+                    }
                 }
-            } catch (InterruptedException e) {
-                // do nothing
+            }, withDelay, TimeUnit.MILLISECONDS);
+
+            // cancel may have run before the new task was published
+            if (cancelled) {
+                scheduled.cancel(false);
             }
-        }, ExecutorFactory.getExecutor());
+        }
+
+        private void tick() {
+            if (cancelled) {
+                return;
+            }
+
+            sendTypingActivity(turnContext).whenComplete((responses, ex) -> {
+                if (!cancelled && period > 0) {
+                    schedule(period);
+                }
+            });
+        }
     }
 
     private static CompletableFuture<ResourceResponse[]> sendTypingActivity(
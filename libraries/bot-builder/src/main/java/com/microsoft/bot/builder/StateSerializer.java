@@ -0,0 +1,37 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import java.io.IOException;
+
+/**
+ * Converts state objects to and from the bytes kept by a storage layer.
+ *
+ * <p>
+ * Implementations must be thread safe, and must preserve the runtime types of
+ * nested values so that state read back has the same shape it was written
+ * with.
+ * </p>
+ */
+public interface StateSerializer {
+    /**
+     * Serializes a state object.
+     *
+     * @param value The value to serialize.
+     * @return The serialized value.
+     * @throws IOException The value could not be serialized.
+     */
+    byte[] serialize(Object value) throws IOException;
+
+    /**
+     * Deserializes a state object.
+     *
+     * @param data The serialized value.
+     * @param type The type to deserialize to.
+     * @param <T>  The type to deserialize to.
+     * @return The deserialized value.
+     * @throws IOException The data could not be deserialized.
+     */
+    <T> T deserialize(byte[] data, Class<T> type) throws IOException;
+}
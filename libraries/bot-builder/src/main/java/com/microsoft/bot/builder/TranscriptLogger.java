@@ -3,8 +3,10 @@
 
 package com.microsoft.bot.builder;
 
+import com.microsoft.bot.connector.Async;
 import com.microsoft.bot.schema.Activity;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -18,4 +20,27 @@ public interface TranscriptLogger {
      * @return A task that represents the work queued to execute.
      */
     CompletableFuture<Void> logActivity(Activity activity);
+
+    /**
+     * Log a batch of activities to the transcript, in order.
+     *
+     * <p>
+     * The default implementation calls {@link #logActivity(Activity)} for each
+     * activity in order, so an activity that fails to log does not keep the
+     * others from being logged. Loggers that can write several activities at
+     * once should override it.
+     * </p>
+     *
+     * @param activities The activities to transcribe.
+     * @return A task that completes when every activity has been logged, or
+     *         completes exceptionally if any of them failed.
+     */
+    default CompletableFuture<Void> logActivities(List<Activity> activities) {
+        CompletableFuture<?>[] logged = new CompletableFuture<?>[activities.size()];
+        for (int i = 0; i < logged.length; i++) {
+            Activity activity = activities.get(i);
+            logged[i] = Async.tryCompletable(() -> logActivity(activity));
+        }
+        return CompletableFuture.allOf(logged);
+    }
 }
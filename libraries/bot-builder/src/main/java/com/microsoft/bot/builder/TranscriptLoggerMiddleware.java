@@ -4,12 +4,17 @@
 package com.microsoft.bot.builder;
 
 import com.microsoft.bot.schema.Activity;
+import com.microsoft.bot.schema.ActivitySnapshot;
 import com.microsoft.bot.schema.ActivityTypes;
 import com.microsoft.bot.schema.ChannelAccount;
 import com.microsoft.bot.schema.RoleTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -17,6 +22,17 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 /**
  * When added, this middleware will log incoming and outgoing activities to a
  * TranscriptStore.
+ *
+ * <p>
+ * The activities of a turn are handed to the logger as one batch at the end of
+ * the turn. Wrap the logger in a {@link BatchingTranscriptLogger} to write
+ * them on a background thread instead of the turn's.
+ * </p>
+ *
+ * <p>
+ * Activities are recorded as {@link ActivitySnapshot}s, so an activity is only
+ * cloned if the bot changes it later in the turn.
+ * </p>
  */
 public class TranscriptLoggerMiddleware implements Middleware {
 
@@ -26,9 +42,9 @@ public class TranscriptLoggerMiddleware implements Middleware {
     private TranscriptLogger transcriptLogger;
 
     /**
-     * Activity queue.
+     * The logger.
      */
-    private Queue<Activity> transcript = new ConcurrentLinkedQueue<Activity>();
+    private Logger logger = LoggerFactory.getLogger(TranscriptLoggerMiddleware.class);
 
     /**
      * Initializes a new instance of the <see cref="TranscriptLoggerMiddleware"/>
@@ -55,9 +71,12 @@ public class TranscriptLoggerMiddleware implements Middleware {
      */
     @Override
     public CompletableFuture<Void> onTurn(TurnContext context, NextDelegate next) {
+        // activities of this turn
+        Queue<TranscriptEntry> transcript = new ConcurrentLinkedQueue<>();
+
         // log incoming activity at beginning of turn
         if (context.getActivity() != null) {
-            logActivity(Activity.clone(context.getActivity()), true);
+            transcript.offer(new TranscriptEntry(ActivitySnapshot.of(context.getActivity()), null, true));
         }
 
         // hook up onSend pipeline
@@ -66,7 +85,7 @@ public class TranscriptLoggerMiddleware implements Middleware {
                 // run full pipeline
                 return nextSend.get().thenApply(responses -> {
                     for (Activity activity : activities) {
-                        logActivity(Activity.clone(activity), false);
+                        transcript.offer(new TranscriptEntry(ActivitySnapshot.of(activity), null, false));
                     }
 
                     return responses;
@@ -80,9 +99,9 @@ public class TranscriptLoggerMiddleware implements Middleware {
                 // run full pipeline
                 return nextUpdate.get().thenApply(resourceResponse -> {
                     // add Message Update activity
-                    Activity updateActivity = Activity.clone(activity);
-                    updateActivity.setType(ActivityTypes.MESSAGE_UPDATE);
-                    logActivity(updateActivity, false);
+                    transcript.offer(
+                        new TranscriptEntry(ActivitySnapshot.of(activity), ActivityTypes.MESSAGE_UPDATE, false)
+                    );
 
                     return resourceResponse;
                 });
@@ -103,7 +122,7 @@ public class TranscriptLoggerMiddleware implements Middleware {
                         }
                     };
 
-                    logActivity(deleteActivity, false);
+                    transcript.offer(new TranscriptEntry(deleteActivity, false));
 
                     return null;
                 });
@@ -115,27 +134,128 @@ public class TranscriptLoggerMiddleware implements Middleware {
             .thenAccept(
                 nextResult -> {
                     // flush transcript at end of turn
-                    while (!transcript.isEmpty()) {
-                        Activity activity = transcript.poll();
-                        transcriptLogger.logActivity(activity);
+                    List<Activity> activities = new ArrayList<>();
+                    TranscriptEntry entry;
+                    while ((entry = transcript.poll()) != null) {
+                        activities.add(entry.toActivity());
+                    }
+
+                    if (!activities.isEmpty()) {
+                        transcriptLogger.logActivities(activities).exceptionally(ex -> {
+                            logger.error("Failed to log transcript: {}", ex.toString());
+                            return null;
+                        });
                     }
                 }
-            );
+            )
+            .whenComplete((result, ex) -> {
+                // a failed turn is not logged, so stop tracking its activities
+                TranscriptEntry entry;
+                while ((entry = transcript.poll()) != null) {
+                    entry.release();
+                }
+            });
     }
 
-    private void logActivity(Activity activity, boolean incoming) {
-        if (activity.getTimestamp() == null) {
-            activity.setTimestamp(OffsetDateTime.now(ZoneId.of("UTC")));
+    /**
+     * An activity of the turn, resolved to the logged activity at the end of the
+     * turn.
+     *
+     * <p>
+     * Activities the bot may still change are held as snapshots, so the logged
+     * copy is only made if the activity changes before the turn ends.
+     * </p>
+     */
+    private static final class TranscriptEntry {
+        /**
+         * The snapshot of the activity, or null if the activity is held as is.
+         */
+        private final ActivitySnapshot snapshot;
+
+        /**
+         * The activity to log, or null if it is held as a snapshot.
+         */
+        private final Activity activity;
+
+        /**
+         * The type to log the activity as, or null to keep its own.
+         */
+        private final String type;
+
+        /**
+         * True if the activity was received from the user.
+         */
+        private final boolean incoming;
+
+        /**
+         * The timestamp for an activity that has none.
+         */
+        private final OffsetDateTime loggedAt = OffsetDateTime.now(ZoneId.of("UTC"));
+
+        /**
+         * Initializes an entry for an activity held as a snapshot.
+         *
+         * @param withSnapshot The snapshot of the activity.
+         * @param withType     The type to log the activity as, or null.
+         * @param withIncoming True if the activity was received from the user.
+         */
+        TranscriptEntry(ActivitySnapshot withSnapshot, String withType, boolean withIncoming) {
+            snapshot = withSnapshot;
+            activity = null;
+            type = withType;
+            incoming = withIncoming;
         }
 
-        if (activity.getFrom() == null) {
-            activity.setFrom(new ChannelAccount());
+        /**
+         * Initializes an entry for an activity logged as is.
+         *
+         * @param withActivity The activity.
+         * @param withIncoming True if the activity was received from the user.
+         */
+        TranscriptEntry(Activity withActivity, boolean withIncoming) {
+            snapshot = null;
+            activity = withActivity;
+            type = null;
+            incoming = withIncoming;
         }
 
-        if (activity.getFrom().getRole() == null) {
-            activity.getFrom().setRole(incoming ? RoleTypes.USER : RoleTypes.BOT);
+        /**
+         * Gets the activity to log, with its timestamp and sender role filled in.
+         *
+         * @return The activity.
+         */
+        Activity toActivity() {
+            Activity logged = snapshot != null ? snapshot.get() : activity;
+
+            if (type != null) {
+                logged.setType(type);
+            }
+
+            if (logged.getTimestamp() == null) {
+                logged.setTimestamp(loggedAt);
+            }
+
+            // the account may be shared with the live activity, so set the role on a copy
+            if (logged.getFrom() == null) {
+                logged.setFrom(new ChannelAccount());
+            } else if (logged.getFrom().getRole() == null) {
+                logged.setFrom(ChannelAccount.clone(logged.getFrom()));
+            }
+
+            if (logged.getFrom().getRole() == null) {
+                logged.getFrom().setRole(incoming ? RoleTypes.USER : RoleTypes.BOT);
+            }
+
+            return logged;
         }
 
-        transcript.offer(activity);
+        /**
+         * Stops tracking changes to the activity, for a turn that is not logged.
+         */
+        void release() {
+            if (snapshot != null) {
+                snapshot.release();
+            }
+        }
     }
 }
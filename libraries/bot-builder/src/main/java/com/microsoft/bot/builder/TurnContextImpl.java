@@ -67,7 +67,7 @@ public class TurnContextImpl implements TurnContext, AutoCloseable {
      */
     private Boolean responded = false;
 
-    private static final String STATE_TURN_LOCALE = "turn.locale";
+    private static final TurnStateKey<String> STATE_TURN_LOCALE = TurnStateKey.of("turn.locale");
 
     /**
      * Creates a context object.
@@ -407,7 +407,7 @@ public class TurnContextImpl implements TurnContext, AutoCloseable {
                 // Ensure the TurnState has the InvokeResponseKey, since this activity
                 // is not being sent through the adapter, where it would be added to TurnState.
                 if (activity.isType(ActivityTypes.INVOKE_RESPONSE)) {
-                    getTurnState().add(BotFrameworkAdapter.INVOKE_RESPONSE_KEY, activity);
+                    getTurnState().add(BotFrameworkAdapter.INVOKE_RESPONSE_STATE_KEY, activity);
                 }
 
                 responses[index] = new ResourceResponse();
@@ -5,18 +5,49 @@ package com.microsoft.bot.builder;
 
 import com.microsoft.bot.connector.ConnectorClient;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a set of collection of services associated with the
  * {@link TurnContext}.
+ *
+ * <p>
+ * Values are stored in an array indexed by {@link TurnStateKey} slots. The
+ * typed methods index the array directly. The string methods find the key
+ * registered with the name and use its slot, and keep values whose names have
+ * no key in a separate map. The type based methods use the type name like the
+ * string methods, and do not register a key for it; use
+ * {@link TurnStateKey#of(Class)} for a type that is accessed on every turn.
+ * </p>
  */
 public class TurnContextStateCollection implements AutoCloseable {
     /**
-     * Map of objects managed by this class.
+     * The minimum number of slots allocated.
      */
-    private Map<String, Object> state = new HashMap<>();
+    private static final int MIN_SLOTS = 16;
+
+    /**
+     * Values by key slot.
+     */
+    private Object[] slots = new Object[Math.max(MIN_SLOTS, TurnStateKey.getSlotCount())];
+
+    /**
+     * The key of each occupied slot.
+     */
+    private TurnStateKey<?>[] keys = new TurnStateKey<?>[slots.length];
+
+    /**
+     * Values whose names have no registered key, or null if there are none.
+     */
+    private Map<String, Object> overflow;
 
     /**
      * Get a value.
@@ -26,12 +57,14 @@ public class TurnContextStateCollection implements AutoCloseable {
      * @return The value.
      * @throws IllegalArgumentException Null key.
      */
+    @SuppressWarnings("unchecked")
     public <T> T get(String key) throws IllegalArgumentException {
         if (key == null) {
             throw new IllegalArgumentException("key");
         }
 
-        Object service = state.get(key);
+        TurnStateKey<?> stateKey = TurnStateKey.find(key);
+        Object service = stateKey != null ? read(stateKey) : overflow != null ? overflow.get(key) : null;
         try {
             return (T) service;
         } catch (ClassCastException e) {
@@ -39,12 +72,29 @@ public class TurnContextStateCollection implements AutoCloseable {
         }
     }
 
+    /**
+     * Get a value by typed key.
+     *
+     * @param key The key.
+     * @param <T> The type of the value.
+     * @return The value, or null if there is none.
+     * @throws IllegalArgumentException Null key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(TurnStateKey<T> key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key");
+        }
+
+        return (T) read(key);
+    }
+
     /**
      * Returns the Services stored in the TurnContextStateCollection.
      * @return the Map of String, Object pairs that contains the names and services for this collection.
      */
     public Map<String, Object> getTurnStateServices() {
-        return state;
+        return new StateMap();
     }
 
 
@@ -68,20 +118,54 @@ public class TurnContextStateCollection implements AutoCloseable {
      * @param <T>   The type of the value.
      * @throws IllegalArgumentException For null key or value.
      */
+    @SuppressWarnings("unchecked")
     public <T> void add(String key, T value) throws IllegalArgumentException {
         if (key == null) {
             throw new IllegalArgumentException("key");
         }
 
+        TurnStateKey<?> stateKey = TurnStateKey.find(key);
+        if (stateKey != null) {
+            add((TurnStateKey<Object>) stateKey, value);
+            return;
+        }
+
         if (value == null) {
             throw new IllegalArgumentException("value");
         }
 
-        if (state.containsKey(key)) {
+        if (overflow == null) {
+            overflow = new HashMap<>();
+        } else if (overflow.containsKey(key)) {
             throw new IllegalArgumentException(String.format("Key %s already exists", key));
         }
 
-        state.put(key, value);
+        overflow.put(key, value);
+    }
+
+    /**
+     * Adds a value by typed key.
+     *
+     * @param key   The key.
+     * @param value The value to add.
+     * @param <T>   The type of the value.
+     * @throws IllegalArgumentException For null key or value, or if the key
+     *                                  already has a value.
+     */
+    public <T> void add(TurnStateKey<T> key, T value) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key");
+        }
+
+        if (value == null) {
+            throw new IllegalArgumentException("value");
+        }
+
+        if (read(key) != null) {
+            throw new IllegalArgumentException(String.format("Key %s already exists", key.getName()));
+        }
+
+        write(key, value);
     }
 
     /**
@@ -105,7 +189,32 @@ public class TurnContextStateCollection implements AutoCloseable {
      * @param key The name of the value to remove.
      */
     public void remove(String key) {
-        state.remove(key);
+        TurnStateKey<?> stateKey = TurnStateKey.find(key);
+        if (stateKey != null) {
+            remove(stateKey);
+        } else if (overflow != null) {
+            overflow.remove(key);
+        }
+    }
+
+    /**
+     * Removes a value by typed key.
+     *
+     * @param key The key of the value to remove.
+     */
+    public void remove(TurnStateKey<?> key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key");
+        }
+
+        int slot = key.getSlot();
+        if (slot < slots.length) {
+            slots[slot] = null;
+            keys[slot] = null;
+        }
+        if (overflow != null) {
+            overflow.remove(key.getName());
+        }
     }
 
     /**
@@ -113,20 +222,57 @@ public class TurnContextStateCollection implements AutoCloseable {
      *
      * @param key   The name of the value to replace.
      * @param value The new value.
+     * @throws IllegalArgumentException For null key or value.
      */
-    public void replace(String key, Object value) {
-        state.remove(key);
-        add(key, value);
+    public void replace(String key, Object value) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key");
+        }
+
+        TurnStateKey<?> stateKey = TurnStateKey.find(key);
+        if (stateKey != null) {
+            replaceSlot(stateKey, value);
+            return;
+        }
+
+        if (value == null) {
+            throw new IllegalArgumentException("value");
+        }
+
+        if (overflow == null) {
+            overflow = new HashMap<>();
+        }
+        overflow.put(key, value);
+    }
+
+    /**
+     * Replaces a value by typed key.
+     *
+     * @param key   The key of the value to replace.
+     * @param value The new value.
+     * @param <T>   The type of the value.
+     * @throws IllegalArgumentException For null key or value.
+     */
+    public <T> void replace(TurnStateKey<T> key, T value) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key");
+        }
+
+        replaceSlot(key, value);
     }
 
     /**
      * Replaces a value.
      * @param value The service to add.
      * @param <T>   The type of the value.
+     * @throws IllegalArgumentException For null value.
      */
-    public <T> void replace(T value) {
-        String key = value.getClass().getName();
-        replace(key, value);
+    public <T> void replace(T value) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("value");
+        }
+
+        replace(value.getClass().getName(), value);
     }
 
     /**
@@ -136,7 +282,17 @@ public class TurnContextStateCollection implements AutoCloseable {
      * @return  True if the key exists.
      */
     public boolean containsKey(String key) {
-        return state.containsKey(key);
+        TurnStateKey<?> stateKey = TurnStateKey.find(key);
+        return stateKey != null ? read(stateKey) != null : overflow != null && overflow.containsKey(key);
+    }
+
+    /**
+     * Returns <tt>true</tt> if this contains a value for the specified key.
+     * @param key The key of the value.
+     * @return  True if the key has a value.
+     */
+    public boolean containsKey(TurnStateKey<?> key) {
+        return read(key) != null;
     }
 
     /**
@@ -158,12 +314,12 @@ public class TurnContextStateCollection implements AutoCloseable {
      */
     @Override
     public void close() throws Exception {
-        for (Map.Entry entry : state.entrySet()) {
-            if (entry.getValue() instanceof AutoCloseable) {
-                if (entry.getValue() instanceof ConnectorClient) {
+        for (Object value : values()) {
+            if (value instanceof AutoCloseable) {
+                if (value instanceof ConnectorClient) {
                     continue;
                 }
-                ((AutoCloseable) entry.getValue()).close();
+                ((AutoCloseable) value).close();
             }
         }
     }
@@ -174,9 +330,176 @@ public class TurnContextStateCollection implements AutoCloseable {
      */
     public void copy(TurnContextStateCollection other) {
         if (other != null) {
-            for (String key : other.state.keySet()) {
-                state.put(key, other.state.get(key));
+            // keys are shared by every collection, so slots copy across as they are
+            for (int slot = 0; slot < other.slots.length; slot++) {
+                if (other.slots[slot] != null) {
+                    write(other.keys[slot], other.slots[slot]);
+                }
+            }
+
+            if (other.overflow != null) {
+                for (Map.Entry<String, Object> entry : other.overflow.entrySet()) {
+                    TurnStateKey<?> stateKey = TurnStateKey.find(entry.getKey());
+                    if (stateKey != null) {
+                        write(stateKey, entry.getValue());
+                    } else {
+                        if (overflow == null) {
+                            overflow = new HashMap<>();
+                        }
+                        overflow.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the value of a key, moving it into its slot if it was added by name
+     * before the key was registered.
+     *
+     * @param key The key.
+     * @return The value, or null if there is none.
+     */
+    private Object read(TurnStateKey<?> key) {
+        int slot = key.getSlot();
+        Object value = slot < slots.length ? slots[slot] : null;
+        if (value == null && overflow != null && !overflow.isEmpty()) {
+            value = overflow.remove(key.getName());
+            if (value != null) {
+                write(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Stores the value of a key in its slot, growing the slots if the key was
+     * registered after this collection was created.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    private void write(TurnStateKey<?> key, Object value) {
+        int slot = key.getSlot();
+        if (slot >= slots.length) {
+            int length = Math.max(slot + 1, Math.max(slots.length * 2, TurnStateKey.getSlotCount()));
+            slots = Arrays.copyOf(slots, length);
+            keys = Arrays.copyOf(keys, length);
+        }
+        slots[slot] = value;
+        keys[slot] = key;
+    }
+
+    /**
+     * Overwrites the value of a key in its slot.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    private void replaceSlot(TurnStateKey<?> key, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value");
+        }
+
+        // a value added by name before the key was registered is superseded
+        if (overflow != null) {
+            overflow.remove(key.getName());
+        }
+        write(key, value);
+    }
+
+    /**
+     * Gets a snapshot of the stored values.
+     *
+     * @return The values.
+     */
+    private List<Object> values() {
+        List<Object> values = new ArrayList<>();
+        for (Object value : slots) {
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        if (overflow != null) {
+            values.addAll(overflow.values());
+        }
+        return values;
+    }
+
+    /**
+     * A map view of the collection by name. Iteration works on a snapshot, so
+     * the collection may be changed while iterating.
+     */
+    private final class StateMap extends AbstractMap<String, Object> {
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            List<Entry<String, Object>> entries = new ArrayList<>();
+            for (int slot = 0; slot < slots.length; slot++) {
+                if (slots[slot] != null) {
+                    entries.add(new SimpleImmutableEntry<>(keys[slot].getName(), slots[slot]));
+                }
+            }
+            if (overflow != null) {
+                overflow.forEach((name, value) -> entries.add(new SimpleImmutableEntry<>(name, value)));
+            }
+
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> iterator = entries.iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        private Entry<String, Object> current;
+
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            current = iterator.next();
+                            return current;
+                        }
+
+                        @Override
+                        public void remove() {
+                            iterator.remove();
+                            TurnContextStateCollection.this.remove(current.getKey());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        @Override
+        public Object get(Object key) {
+            return key instanceof String ? TurnContextStateCollection.this.get((String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && TurnContextStateCollection.this.containsKey((String) key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Object previous = get(key);
+            TurnContextStateCollection.this.replace(key, value);
+            return previous;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            Object previous = get(key);
+            if (key instanceof String) {
+                TurnContextStateCollection.this.remove((String) key);
             }
+            return previous;
         }
     }
 }
@@ -0,0 +1,316 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.connector.Async;
+import com.microsoft.bot.connector.ExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs turns one at a time per conversation, and turns of different
+ * conversations in parallel.
+ *
+ * <p>
+ * Two activities for the same conversation that are processed at once can
+ * both read the same state and then conflict when writing it. The scheduler
+ * queues the turns of each conversation and starts the next turn only when the
+ * previous one has completed. Each conversation has a lock-free queue, which is
+ * dropped once the conversation has no turns waiting.
+ * </p>
+ *
+ * <p>
+ * The number of turns waiting per conversation is bounded. A turn scheduled
+ * when the backlog is full fails with a RejectedExecutionException without
+ * running. The first turn of an idle conversation runs on the calling thread;
+ * queued turns run on the executor given to the constructor. A queued turn
+ * that the executor rejects also fails with a RejectedExecutionException, and
+ * the turns behind it still run.
+ * </p>
+ *
+ * @see BotFrameworkAdapter#setTurnScheduler(TurnScheduler)
+ */
+public class TurnScheduler {
+    /**
+     * The default number of turns that can wait per conversation.
+     */
+    public static final int DEFAULT_MAX_BACKLOG = 100;
+
+    /**
+     * The value of {@link Lane#reserved} once a lane has been dropped.
+     */
+    private static final int RETIRED = -1;
+
+    private Logger logger = LoggerFactory.getLogger(TurnScheduler.class);
+
+    private final int maxBacklog;
+    private final Executor executor;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queuedTurns = new AtomicInteger();
+    private final LongAdder completedTurns = new LongAdder();
+    private final LongAdder rejectedTurns = new LongAdder();
+
+    /**
+     * Creates a scheduler with the default backlog, running queued turns on the
+     * SDK executor.
+     */
+    public TurnScheduler() {
+        this(DEFAULT_MAX_BACKLOG);
+    }
+
+    /**
+     * Creates a scheduler running queued turns on the SDK executor.
+     *
+     * @param withMaxBacklog The number of turns that can wait per conversation
+     *                       behind the running one.
+     */
+    public TurnScheduler(int withMaxBacklog) {
+        this(withMaxBacklog, null);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param withMaxBacklog The number of turns that can wait per conversation
+     *                       behind the running one.
+     * @param withExecutor   The executor for queued turns, or null for the SDK
+     *                       executor.
+     */
+    public TurnScheduler(int withMaxBacklog, Executor withExecutor) {
+        if (withMaxBacklog < 0) {
+            throw new IllegalArgumentException("maxBacklog cannot be negative");
+        }
+
+        maxBacklog = withMaxBacklog;
+        executor = withExecutor;
+    }
+
+    /**
+     * Runs a turn once the earlier turns of its conversation have completed.
+     *
+     * @param key  The conversation key. Turns with equal keys run one at a time.
+     * @param turn Starts the turn.
+     * @param <T>  The result type of the turn.
+     * @return A future that completes with the turn, or completes exceptionally
+     *         with a RejectedExecutionException if the backlog of the
+     *         conversation is full.
+     */
+    public <T> CompletableFuture<T> schedule(String key, Supplier<CompletableFuture<T>> turn) {
+        if (key == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("key"));
+        }
+        if (turn == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("turn"));
+        }
+
+        Lane lane = reserve(key);
+        if (lane == null) {
+            rejectedTurns.increment();
+            logger.debug("Turn rejected, conversation {} has {} turns waiting", key, maxBacklog);
+            return Async.completeExceptionally(new RejectedExecutionException(
+                String.format("The backlog of conversation %s is full", key)
+            ));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        lane.queue.offer(new QueuedTurn<>(lane, turn, result));
+        queuedTurns.incrementAndGet();
+
+        // the turn that finds the conversation idle starts it
+        if (lane.scheduled.getAndIncrement() == 0) {
+            lane.queue.poll().run();
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the number of turns that can wait per conversation.
+     *
+     * @return The maximum backlog.
+     */
+    public int getMaxBacklog() {
+        return maxBacklog;
+    }
+
+    /**
+     * Gets the number of conversations with a turn running or waiting.
+     *
+     * @return The active conversation count.
+     */
+    public int getActiveConversations() {
+        return lanes.size();
+    }
+
+    /**
+     * Gets the number of turns waiting for an earlier turn of their
+     * conversation.
+     *
+     * @return The queued turn count.
+     */
+    public int getQueuedTurns() {
+        return queuedTurns.get();
+    }
+
+    /**
+     * Gets the number of turns that have completed.
+     *
+     * @return The completed turn count.
+     */
+    public long getCompletedTurns() {
+        return completedTurns.sum();
+    }
+
+    /**
+     * Gets the number of turns rejected because their conversation's backlog
+     * was full or the executor rejected them.
+     *
+     * @return The rejected turn count.
+     */
+    public long getRejectedTurns() {
+        return rejectedTurns.sum();
+    }
+
+    /**
+     * Reserves a place for a turn in the lane of a conversation.
+     *
+     * @param key The conversation key.
+     * @return The lane, or null if its backlog is full.
+     */
+    private Lane reserve(String key) {
+        while (true) {
+            Lane lane = lanes.computeIfAbsent(key, Lane::new);
+            int reserved = lane.reserved.get();
+            if (reserved == RETIRED) {
+                // the lane was dropped after this thread found it, use a new one
+                lanes.remove(key, lane);
+                continue;
+            }
+            if (reserved > maxBacklog) {
+                return null;
+            }
+            if (lane.reserved.compareAndSet(reserved, reserved + 1)) {
+                return lane;
+            }
+        }
+    }
+
+    /**
+     * Called when a turn of a lane completes. Starts the next turn, or drops
+     * the lane if no turn is waiting.
+     *
+     * @param lane The lane.
+     */
+    private void complete(Lane lane) {
+        if (lane.reserved.decrementAndGet() == 0 && lane.reserved.compareAndSet(0, RETIRED)) {
+            lanes.remove(lane.key, lane);
+        }
+
+        if (lane.scheduled.decrementAndGet() > 0) {
+            QueuedTurn<?> next = lane.queue.poll();
+            Executor nextExecutor = executor != null ? executor : ExecutorFactory.getExecutor();
+            try {
+                nextExecutor.execute(next);
+            } catch (RejectedExecutionException e) {
+                // fail the turn rather than leave it, and the turns behind it, waiting
+                logger.warn("Turn rejected by the executor, conversation {}", lane.key);
+                next.reject(e);
+            }
+        }
+    }
+
+    /**
+     * A turn waiting in a lane.
+     *
+     * @param <T> The result type of the turn.
+     */
+    private final class QueuedTurn<T> implements Runnable {
+        private final Lane lane;
+        private final Supplier<CompletableFuture<T>> turn;
+        private final CompletableFuture<T> result;
+
+        QueuedTurn(Lane withLane, Supplier<CompletableFuture<T>> withTurn, CompletableFuture<T> withResult) {
+            lane = withLane;
+            turn = withTurn;
+            result = withResult;
+        }
+
+        @Override
+        public void run() {
+            queuedTurns.decrementAndGet();
+            Async.tryCompletable(turn::get).whenComplete((value, ex) -> {
+                completedTurns.increment();
+                finish(value, ex);
+            });
+        }
+
+        /**
+         * Completes the turn without running it, and moves on to the next one.
+         *
+         * @param ex The reason the turn did not run.
+         */
+        void reject(RejectedExecutionException ex) {
+            queuedTurns.decrementAndGet();
+            rejectedTurns.increment();
+            finish(null, ex);
+        }
+
+        private void finish(T value, Throwable ex) {
+            try {
+                // release the lane first, so that a turn scheduled once
+                // this one completes does not find it busy
+                complete(lane);
+            } finally {
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * The turns of one conversation.
+     */
+    private static final class Lane {
+        /**
+         * The conversation key.
+         */
+        private final String key;
+
+        /**
+         * The turns waiting to run.
+         */
+        private final Queue<QueuedTurn<?>> queue = new ConcurrentLinkedQueue<>();
+
+        /**
+         * The turns accepted and not yet completed, or RETIRED once the lane is
+         * dropped. Reserved before a turn is queued, so it bounds the backlog.
+         */
+        private final AtomicInteger reserved = new AtomicInteger();
+
+        /**
+         * The turns queued and not yet completed. Incremented after a turn is
+         * queued, so a nonzero count always has a turn to poll.
+         */
+        private final AtomicInteger scheduled = new AtomicInteger();
+
+        Lane(String withKey) {
+            key = withKey;
+        }
+    }
+}
@@ -19,6 +19,11 @@ public final class TurnStateConstants {
      */
     public static final String OAUTH_LOGIN_TIMEOUT_KEY = "loginTimeout";
 
+    /**
+     * Typed TurnState key for the OAuth login timeout.
+     */
+    public static final TurnStateKey<Duration> OAUTH_LOGIN_TIMEOUT_STATE_KEY = TurnStateKey.of(OAUTH_LOGIN_TIMEOUT_KEY);
+
     /**
      * Name of the token polling settings key.
      */
@@ -0,0 +1,134 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A typed key for a value in the {@link TurnContextStateCollection}.
+ *
+ * <p>
+ * Each key name is registered once per process and given a fixed slot, so
+ * accessing turn state with a key is an array index rather than a map lookup.
+ * Keys are interned by name: the key for a name is the same object everywhere,
+ * and string access to {@link TurnContextStateCollection} with that name reads
+ * and writes the same slot. Keys are never released, so create them for fixed
+ * names such as constants and class names, not for per-turn or per-user values.
+ * Keys are only registered by this class: the string and type based methods of
+ * {@link TurnContextStateCollection} use a key if one is registered for the
+ * name, and otherwise keep the value in a map.
+ * </p>
+ *
+ * @param <T> The type of the value.
+ */
+public final class TurnStateKey<T> {
+    /**
+     * The registered keys by name.
+     */
+    private static final Map<String, TurnStateKey<?>> KEYS = new ConcurrentHashMap<>();
+
+    /**
+     * The number of slots assigned.
+     */
+    private static final AtomicInteger SLOTS = new AtomicInteger();
+
+    /**
+     * The key name.
+     */
+    private final String name;
+
+    /**
+     * The slot of the key in every TurnContextStateCollection.
+     */
+    private final int slot;
+
+    private TurnStateKey(String withName, int withSlot) {
+        name = withName;
+        slot = withSlot;
+    }
+
+    /**
+     * Gets the key for a name, registering it if needed.
+     *
+     * @param name The key name.
+     * @param <T>  The type of the value.
+     * @return The key.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TurnStateKey<T> of(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("name");
+        }
+
+        TurnStateKey<?> key = KEYS.get(name);
+        if (key == null) {
+            key = KEYS.computeIfAbsent(name, n -> new TurnStateKey<>(n, SLOTS.getAndIncrement()));
+        }
+        return (TurnStateKey<T>) key;
+    }
+
+    /**
+     * Gets the key for a type, named by {@link Class#getName()} like the type
+     * based methods of {@link TurnContextStateCollection}.
+     *
+     * @param type The type of the value.
+     * @param <T>  The type of the value.
+     * @return The key.
+     */
+    public static <T> TurnStateKey<T> of(Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("type");
+        }
+        return of(type.getName());
+    }
+
+    /**
+     * Gets the key for a name if it is registered.
+     *
+     * @param name The key name, or null.
+     * @return The key, or null if no key has the name.
+     */
+    static TurnStateKey<?> find(String name) {
+        return name != null ? KEYS.get(name) : null;
+    }
+
+    /**
+     * Gets the number of slots assigned so far.
+     *
+     * @return The slot count.
+     */
+    static int getSlotCount() {
+        return SLOTS.get();
+    }
+
+    /**
+     * Gets the key name.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the slot of the key.
+     *
+     * @return The slot index.
+     */
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Returns the key name.
+     *
+     * @return The name.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
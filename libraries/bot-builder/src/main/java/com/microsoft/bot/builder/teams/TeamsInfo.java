@@ -336,7 +336,7 @@ public final class TeamsInfo {
 
     private static ConnectorClient getConnectorClient(TurnContext turnContext) {
         ConnectorClient client = turnContext.getTurnState().get(
-            BotFrameworkAdapter.CONNECTOR_CLIENT_KEY
+            BotFrameworkAdapter.CONNECTOR_CLIENT_STATE_KEY
         );
         if (client == null) {
             throw new IllegalStateException("This method requires a connector client.");
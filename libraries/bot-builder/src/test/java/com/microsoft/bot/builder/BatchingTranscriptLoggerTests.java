@@ -0,0 +1,141 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.builder.adapters.TestAdapter;
+import com.microsoft.bot.builder.adapters.TestFlow;
+import com.microsoft.bot.schema.Activity;
+import com.microsoft.bot.schema.ActivityTypes;
+import com.microsoft.bot.schema.ConversationAccount;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+public class BatchingTranscriptLoggerTests {
+    @Test
+    public void BatchingTranscriptLogger_WritesInOrderInBatches() throws InterruptedException {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        List<String> logged = Collections.synchronizedList(new ArrayList<>());
+        TranscriptLogger inner = new TranscriptLogger() {
+            @Override
+            public CompletableFuture<Void> logActivity(Activity activity) {
+                logged.add(activity.getId());
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public CompletableFuture<Void> logActivities(List<Activity> activities) {
+                batchSizes.add(activities.size());
+                return TranscriptLogger.super.logActivities(activities);
+            }
+        };
+
+        try (BatchingTranscriptLogger batching = new BatchingTranscriptLogger(
+            inner, 1000, 10, Duration.ofMillis(20), BatchingTranscriptLogger.OverflowPolicy.BLOCK
+        )) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 95; i++) {
+                expected.add(Integer.toString(i));
+                batching.logActivity(createActivity(Integer.toString(i))).join();
+            }
+
+            batching.flush().join();
+            Assert.assertEquals(expected, logged);
+            for (int size : batchSizes) {
+                Assert.assertTrue(size <= 10);
+            }
+        }
+    }
+
+    @Test
+    public void BatchingTranscriptLogger_DropsWhenFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> logged = Collections.synchronizedList(new ArrayList<>());
+        TranscriptLogger slow = activity -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            logged.add(activity.getId());
+            return CompletableFuture.completedFuture(null);
+        };
+
+        try (BatchingTranscriptLogger batching = new BatchingTranscriptLogger(
+            slow, 5, 1, Duration.ZERO, BatchingTranscriptLogger.OverflowPolicy.DROP_NEWEST
+        )) {
+            // the turn never waits on the stalled sink
+            for (int i = 0; i < 20; i++) {
+                batching.logActivity(createActivity(Integer.toString(i))).join();
+            }
+            Assert.assertTrue(batching.getDroppedCount() > 0);
+
+            release.countDown();
+            batching.flush().join();
+            Assert.assertEquals(20, logged.size() + batching.getDroppedCount());
+        }
+    }
+
+    @Test
+    public void BatchingTranscriptLogger_LogsTurnsThroughMiddleware() throws InterruptedException {
+        MemoryTranscriptStore transcriptStore = new MemoryTranscriptStore();
+        try (BatchingTranscriptLogger batching = new BatchingTranscriptLogger(transcriptStore)) {
+            TestAdapter adapter = new TestAdapter().use(new TranscriptLoggerMiddleware(batching));
+            String[] conversationId = { null };
+
+            new TestFlow(adapter, (context) -> {
+                conversationId[0] = context.getActivity().getConversation().getId();
+                context.sendActivity("echo:" + context.getActivity().getText()).join();
+                return CompletableFuture.completedFuture(null);
+            }).send("foo").assertReply("echo:foo").send("bar").assertReply("echo:bar").startTest().join();
+
+            batching.flush().join();
+            PagedResult<Activity> pagedResult = transcriptStore.getTranscriptActivities(
+                "test", conversationId[0]
+            ).join();
+            Assert.assertEquals(4, pagedResult.getItems().size());
+            Assert.assertEquals("foo", pagedResult.getItems().get(0).getText());
+            Assert.assertEquals("echo:bar", pagedResult.getItems().get(3).getText());
+        }
+    }
+
+    @Test
+    public void TranscriptLogger_LogsTheRestWhenOneActivityFails() {
+        List<String> logged = Collections.synchronizedList(new ArrayList<>());
+        TranscriptLogger logger = activity -> {
+            if (activity.getId().equals("1")) {
+                throw new IllegalStateException("failed");
+            }
+            logged.add(activity.getId());
+            return CompletableFuture.completedFuture(null);
+        };
+
+        CompletableFuture<Void> result = logger.logActivities(
+            Arrays.asList(createActivity("0"), createActivity("1"), createActivity("2"))
+        );
+        try {
+            result.join();
+            Assert.fail("Should have failed");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals(Arrays.asList("0", "2"), logged);
+    }
+
+    private static Activity createActivity(String id) {
+        Activity activity = new Activity(ActivityTypes.MESSAGE);
+        activity.setId(id);
+        activity.setChannelId("test");
+        activity.setConversation(new ConversationAccount("conversation"));
+        return activity;
+    }
+}
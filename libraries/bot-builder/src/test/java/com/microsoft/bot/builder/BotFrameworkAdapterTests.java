@@ -29,6 +29,8 @@ import com.microsoft.bot.schema.DeliveryModes;
 import com.microsoft.bot.schema.ExpectedReplies;
 import com.microsoft.bot.schema.ResourceResponse;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +38,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import static org.mockito.Mockito.*;
@@ -157,6 +160,38 @@ public class BotFrameworkAdapterTests {
         Assert.assertEquals(EventActivityName, newActivity[0].getName());
     }
 
+    @Test
+    public void ProcessActivityDoesNotBlockOnCredentialProvider() {
+        CompletableFuture<Boolean> authDisabled = new CompletableFuture<>();
+        CredentialProvider credentials = new SimpleCredentialProvider() {
+            @Override
+            public CompletableFuture<Boolean> isAuthenticationDisabled() {
+                return authDisabled;
+            }
+        };
+        BotFrameworkAdapter sut = new BotFrameworkAdapter(credentials);
+
+        Activity activity = new Activity(ActivityTypes.MESSAGE);
+        activity.setChannelId(Channels.DIRECTLINE);
+        activity.setServiceUrl("https://smba.trafficmanager.net/amer/");
+        activity.setConversation(new ConversationAccount("conversationId"));
+
+        String[] callerId = new String[] {"not called"};
+        CompletableFuture<InvokeResponse> result = sut.processActivity(
+            new ClaimsIdentity("anonymous"), activity, (context) -> {
+                callerId[0] = context.getActivity().getCallerId();
+                return CompletableFuture.completedFuture(null);
+            });
+
+        // the turn waits for the provider instead of blocking the caller
+        Assert.assertFalse(result.isDone());
+        Assert.assertEquals("not called", callerId[0]);
+
+        authDisabled.complete(true);
+        result.join();
+        Assert.assertNull(callerId[0]);
+    }
+
     private Activity processActivity(
         String channelId,
         String channelDataTenantId,
@@ -461,4 +496,112 @@ public class BotFrameworkAdapterTests {
         Assert.assertNull(invokeResponse);
         Assert.assertEquals(3, ((MemoryConversations) mockConnector.getConversations()).getSentActivities().size());
     }
+
+    @Test
+    public void SendActivitiesChainsSendsWithoutBlocking() {
+        List<CompletableFuture<ResourceResponse>> pending = new ArrayList<>();
+        List<String> sent = new ArrayList<>();
+        List<Thread> senders = new ArrayList<>();
+        TurnContext turnContext = createSendContext(pending, sent, senders);
+
+        CompletableFuture<ResourceResponse[]> result = turnContext.getAdapter().sendActivities(
+            turnContext,
+            Arrays.asList(MessageFactory.text("1"), MessageFactory.text("2"), MessageFactory.text("3"))
+        );
+
+        // only the first send is in flight, and nothing waits on it
+        Assert.assertFalse(result.isDone());
+        Assert.assertEquals(Arrays.asList("1"), awaitSent(sent, 1));
+
+        pending.get(0).complete(new ResourceResponse("id1"));
+        Assert.assertEquals(Arrays.asList("1", "2"), awaitSent(sent, 2));
+        pending.get(1).complete(new ResourceResponse("id2"));
+        awaitSent(sent, 3);
+        pending.get(2).complete(new ResourceResponse("id3"));
+
+        ResourceResponse[] responses = result.join();
+        Assert.assertEquals("id1", responses[0].getId());
+        Assert.assertEquals("id3", responses[2].getId());
+
+        // the next send does not run on the thread that completed the previous one
+        synchronized (sent) {
+            Assert.assertNotEquals(Thread.currentThread(), senders.get(1));
+            Assert.assertNotEquals(Thread.currentThread(), senders.get(2));
+        }
+    }
+
+    @Test
+    public void SendActivitiesPipelinesUpToLimitAndWaitsOutDelays() {
+        List<CompletableFuture<ResourceResponse>> pending = new ArrayList<>();
+        List<String> sent = new ArrayList<>();
+        TurnContext turnContext = createSendContext(pending, sent, new ArrayList<>());
+        ((BotFrameworkAdapter) turnContext.getAdapter()).setMaxPipelinedSends(2);
+
+        Activity delay = new Activity(ActivityTypes.DELAY);
+        delay.setValue(50);
+        CompletableFuture<ResourceResponse[]> result = turnContext.getAdapter().sendActivities(
+            turnContext,
+            Arrays.asList(MessageFactory.text("1"), MessageFactory.text("2"), MessageFactory.text("3"),
+                delay, MessageFactory.text("4"))
+        );
+
+        Assert.assertEquals(Arrays.asList("1", "2"), awaitSent(sent, 2));
+        pending.get(1).complete(new ResourceResponse("id2"));
+        Assert.assertEquals(Arrays.asList("1", "2"), awaitSent(sent, 2));
+        pending.get(0).complete(new ResourceResponse("id1"));
+        Assert.assertEquals(Arrays.asList("1", "2", "3"), awaitSent(sent, 3));
+
+        long start = System.nanoTime();
+        pending.get(2).complete(new ResourceResponse("id3"));
+        awaitSent(sent, 4);
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        pending.get(3).complete(new ResourceResponse("id4"));
+
+        ResourceResponse[] responses = result.join();
+        Assert.assertEquals(5, responses.length);
+        Assert.assertEquals("", responses[3].getId());
+        Assert.assertEquals("id4", responses[4].getId());
+    }
+
+    private static List<String> awaitSent(List<String> sent, int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            synchronized (sent) {
+                if (sent.size() >= count) {
+                    return new ArrayList<>(sent);
+                }
+            }
+            Thread.yield();
+        }
+        Assert.fail(String.format("Expected %d sends", count));
+        return null;
+    }
+
+    private TurnContext createSendContext(
+        List<CompletableFuture<ResourceResponse>> pending,
+        List<String> sent,
+        List<Thread> senders
+    ) {
+        Conversations conversations = mock(Conversations.class);
+        when(conversations.sendToConversation(any(Activity.class))).thenAnswer(invocation -> {
+            CompletableFuture<ResourceResponse> response = new CompletableFuture<>();
+            synchronized (sent) {
+                pending.add(response);
+                senders.add(Thread.currentThread());
+                sent.add(((Activity) invocation.getArgument(0)).getText());
+            }
+            return response;
+        });
+        ConnectorClient connectorClient = mock(ConnectorClient.class);
+        when(connectorClient.getConversations()).thenReturn(conversations);
+
+        Activity incoming = new Activity(ActivityTypes.MESSAGE);
+        incoming.setChannelId(Channels.DIRECTLINE);
+        incoming.setConversation(new ConversationAccount("cid"));
+        TurnContext turnContext = new TurnContextImpl(
+            new BotFrameworkAdapter(new SimpleCredentialProvider()), incoming
+        );
+        turnContext.getTurnState().add(BotFrameworkAdapter.CONNECTOR_CLIENT_KEY, connectorClient);
+        return turnContext;
+    }
 }
@@ -6,6 +6,9 @@ package com.microsoft.bot.builder;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 public class BotStateSetTests {
     @Test
     public void BotStateSet_Properties() {
@@ -98,4 +101,90 @@ public class BotStateSetTests {
         convCount = convProperty.get(turnContext, () -> 0).join();
         Assert.assertEquals(20, convCount.intValue());
     }
+
+    @Test
+    public void BotStateSet_BatchesStorageCalls() {
+        int[] readCount = { 0 };
+        int[] writeCount = { 0 };
+        Storage storage = new MemoryStorage() {
+            @Override
+            public CompletableFuture<Map<String, Object>> read(String[] keys) {
+                readCount[0]++;
+                return super.read(keys);
+            }
+
+            @Override
+            public CompletableFuture<Void> write(Map<String, Object> changes) {
+                writeCount[0]++;
+                return super.write(changes);
+            }
+        };
+
+        TurnContext turnContext = TestUtilities.createEmptyContext();
+
+        UserState userState = new UserState(storage);
+        StatePropertyAccessor<Integer> userProperty = userState.createProperty("userCount");
+        ConversationState convState = new ConversationState(storage);
+        StatePropertyAccessor<Integer> convProperty = convState.createProperty("convCount");
+        BotStateSet stateSet = new BotStateSet(userState, convState);
+
+        stateSet.loadAll(turnContext).join();
+        Assert.assertEquals(1, readCount[0]);
+
+        userProperty.set(turnContext, 10).join();
+        convProperty.set(turnContext, 20).join();
+        Assert.assertEquals(1, readCount[0]);
+
+        stateSet.saveAllChanges(turnContext).join();
+        Assert.assertEquals(1, writeCount[0]);
+
+        stateSet.saveAllChanges(turnContext).join();
+        Assert.assertEquals(1, writeCount[0]);
+
+        stateSet.setBatching(false);
+        stateSet.loadAll(turnContext, true).join();
+        Assert.assertEquals(3, readCount[0]);
+        Assert.assertEquals(10, userProperty.get(turnContext).join().intValue());
+        Assert.assertEquals(20, convProperty.get(turnContext).join().intValue());
+    }
+
+    @Test
+    public void BotStateSet_SaveSkipsStatesNotLoaded() {
+        TurnContext turnContext = TestUtilities.createEmptyContext();
+        turnContext.getActivity().setFrom(null);
+
+        Storage storage = new MemoryStorage();
+        UserState userState = new UserState(storage);
+        ConversationState convState = new ConversationState(storage);
+        StatePropertyAccessor<Integer> convProperty = convState.createProperty("convCount");
+        BotStateSet stateSet = new BotStateSet(userState, convState);
+
+        // the user state would need From.Id for its storage key
+        convState.load(turnContext).join();
+        convProperty.set(turnContext, 20).join();
+        stateSet.saveAllChanges(turnContext).join();
+
+        TurnContext next = TestUtilities.createEmptyContext();
+        Assert.assertEquals(20, convProperty.get(next).join().intValue());
+    }
+
+    @Test
+    public void BotStateSet_DoesNotBatchOverriddenSaves() {
+        int[] saveCount = { 0 };
+        ConversationState convState = new ConversationState(new MemoryStorage()) {
+            @Override
+            public CompletableFuture<Void> saveChanges(TurnContext turnContext, boolean force) {
+                saveCount[0]++;
+                return super.saveChanges(turnContext, force);
+            }
+        };
+        StatePropertyAccessor<Integer> convProperty = convState.createProperty("convCount");
+        BotStateSet stateSet = new BotStateSet(convState);
+
+        TurnContext turnContext = TestUtilities.createEmptyContext();
+        stateSet.loadAll(turnContext).join();
+        convProperty.set(turnContext, 20).join();
+        stateSet.saveAllChanges(turnContext).join();
+        Assert.assertEquals(1, saveCount[0]);
+    }
 }
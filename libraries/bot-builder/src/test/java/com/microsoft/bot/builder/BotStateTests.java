@@ -13,7 +13,10 @@ import java.util.concurrent.CompletionException;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -98,6 +101,206 @@ public class BotStateTests {
         Assert.assertEquals(1, readCount[0]);
     }
 
+    @Test
+    public void DirtyTracking_StorageNotCalledNoChanges() {
+        int[] storeCount = { 0 };
+        Storage mock = new MemoryStorage() {
+            @Override
+            public CompletableFuture<Void> write(Map<String, Object> changes) {
+                storeCount[0]++;
+                return super.write(changes);
+            }
+        };
+
+        UserState userState = new UserState(mock);
+        userState.setDirtyTracking(true);
+        TurnContext context = TestUtilities.createEmptyContext();
+
+        StatePropertyAccessor<TestPocoState> propertyA = userState.createProperty("propertyA");
+        StatePropertyAccessor<String> propertyB = userState.createProperty("propertyB");
+
+        propertyB.set(context, "hello").join();
+        userState.saveChanges(context).join();
+        Assert.assertEquals(1, storeCount[0]);
+
+        Assert.assertEquals("hello", propertyB.get(context).join());
+        userState.saveChanges(context).join();
+        Assert.assertEquals(1, storeCount[0]); // Gets should not bump
+
+        propertyA.set(context, new TestPocoState("one")).join();
+        userState.saveChanges(context).join();
+        Assert.assertEquals(2, storeCount[0]); // Save when dirty should bump
+
+        // without the deep check, in place changes need an explicit set
+        propertyA.get(context).join().setValue("two");
+        userState.saveChanges(context).join();
+        Assert.assertEquals(2, storeCount[0]);
+
+        propertyA.delete(context).join();
+        userState.saveChanges(context).join();
+        Assert.assertEquals(3, storeCount[0]);
+    }
+
+    @Test
+    public void DirtyTracking_DeepMutationCheck() {
+        int[] storeCount = { 0 };
+        Storage mock = new MemoryStorage() {
+            @Override
+            public CompletableFuture<Void> write(Map<String, Object> changes) {
+                storeCount[0]++;
+                return super.write(changes);
+            }
+        };
+
+        UserState userState = new UserState(mock);
+        userState.setDirtyTracking(true);
+        userState.setDeepMutationCheck(true);
+        TurnContext context = TestUtilities.createEmptyContext();
+
+        StatePropertyAccessor<TestPocoState> propertyA = userState.createProperty("propertyA");
+
+        TestPocoState poco = propertyA.get(context, () -> new TestPocoState("one")).join();
+        userState.saveChanges(context).join();
+        Assert.assertEquals(1, storeCount[0]);
+
+        userState.saveChanges(context).join();
+        Assert.assertEquals(1, storeCount[0]); // Unchanged should not bump
+
+        poco.setValue("two");
+        userState.saveChanges(context).join();
+        Assert.assertEquals(2, storeCount[0]); // In place change should bump
+
+        userState.load(context, true).join();
+        poco = propertyA.get(context).join();
+        Assert.assertEquals("two", poco.getValue());
+
+        poco.setValue("three");
+        userState.saveChanges(context).join();
+        Assert.assertEquals(3, storeCount[0]);
+
+        userState.saveChanges(context).join();
+        Assert.assertEquals(3, storeCount[0]);
+
+        // a value changed in place along with a set is saved once
+        StatePropertyAccessor<String> propertyB = userState.createProperty("propertyB");
+        propertyB.set(context, "hello").join();
+        poco.setValue("four");
+        userState.saveChanges(context).join();
+        Assert.assertEquals(4, storeCount[0]);
+
+        userState.saveChanges(context).join();
+        Assert.assertEquals(4, storeCount[0]);
+    }
+
+    @Test
+    public void PropertyStorage_ReadsAndWritesOnlyAccessedProperties() {
+        List<String> reads = new ArrayList<>();
+        List<String> writes = new ArrayList<>();
+        Storage mock = new MemoryStorage() {
+            @Override
+            public CompletableFuture<Map<String, Object>> read(String[] keys) {
+                reads.addAll(Arrays.asList(keys));
+                return super.read(keys);
+            }
+
+            @Override
+            public CompletableFuture<Void> write(Map<String, Object> changes) {
+                writes.addAll(changes.keySet());
+                return super.write(changes);
+            }
+        };
+
+        UserState userState = new UserState(mock);
+        userState.setPropertyStorage(true);
+        StatePropertyAccessor<TestPocoState> propertyA = userState.createProperty("propertyA");
+        StatePropertyAccessor<String> propertyB = userState.createProperty("propertyB");
+
+        TurnContext context = TestUtilities.createEmptyContext();
+        String storageKey = userState.getStorageKey(context);
+        userState.load(context).join();
+        propertyA.set(context, new TestPocoState("one")).join();
+        propertyB.set(context, "hello").join();
+        userState.saveChanges(context).join();
+        Assert.assertTrue(reads.isEmpty());
+        Assert.assertEquals(2, writes.size());
+
+        // a new turn only reads and writes the property it touches
+        reads.clear();
+        writes.clear();
+        context = TestUtilities.createEmptyContext();
+        userState.load(context).join();
+        Assert.assertTrue(reads.isEmpty());
+        TestPocoState valueA = propertyA.get(context).join();
+        Assert.assertEquals("one", valueA.getValue());
+        Assert.assertEquals(Arrays.asList(storageKey + "#propertyA"), reads);
+
+        valueA.setValue("two");
+        userState.saveChanges(context).join();
+        Assert.assertEquals(Arrays.asList(storageKey + "#propertyA"), writes);
+
+        writes.clear();
+        userState.saveChanges(context).join();
+        Assert.assertTrue(writes.isEmpty());
+
+        // deleting a property that wasn't read still removes it
+        context = TestUtilities.createEmptyContext();
+        propertyB.delete(context).join();
+        userState.saveChanges(context).join();
+
+        context = TestUtilities.createEmptyContext();
+        Assert.assertNull(propertyB.get(context).join());
+        Assert.assertEquals("two", propertyA.get(context).join().getValue());
+    }
+
+    @Test
+    public void PropertyStorage_DirtyTrackingWritesOnlyTouchedProperties() {
+        List<String> writes = new ArrayList<>();
+        Storage mock = new MemoryStorage() {
+            @Override
+            public CompletableFuture<Void> write(Map<String, Object> changes) {
+                writes.addAll(changes.keySet());
+                return super.write(changes);
+            }
+        };
+
+        UserState userState = new UserState(mock);
+        userState.setPropertyStorage(true);
+        userState.setDirtyTracking(true);
+        StatePropertyAccessor<TestPocoState> propertyA = userState.createProperty("propertyA");
+        StatePropertyAccessor<String> propertyB = userState.createProperty("propertyB");
+
+        TurnContext context = TestUtilities.createEmptyContext();
+        String storageKey = userState.getStorageKey(context);
+        propertyA.set(context, new TestPocoState("one")).join();
+        propertyB.set(context, "hello").join();
+        userState.saveChanges(context).join();
+        Assert.assertEquals(2, writes.size());
+
+        // without the deep check, a property that is only read is not compared
+        writes.clear();
+        context = TestUtilities.createEmptyContext();
+        propertyA.get(context).join().setValue("two");
+        propertyB.set(context, "world").join();
+        userState.saveChanges(context).join();
+        Assert.assertEquals(Arrays.asList(storageKey + "#propertyB"), writes);
+
+        writes.clear();
+        userState.saveChanges(context).join();
+        Assert.assertTrue(writes.isEmpty());
+
+        // with it, a property read and changed in place is written
+        userState.setDeepMutationCheck(true);
+        context = TestUtilities.createEmptyContext();
+        propertyA.get(context).join().setValue("three");
+        propertyB.get(context).join();
+        userState.saveChanges(context).join();
+        Assert.assertEquals(Arrays.asList(storageKey + "#propertyA"), writes);
+
+        context = TestUtilities.createEmptyContext();
+        Assert.assertEquals("three", propertyA.get(context).join().getValue());
+        Assert.assertEquals("world", propertyB.get(context).join());
+    }
+
     @Test
     public void State_SetNoLoad() {
         Map<String, JsonNode> dictionary = new HashMap<>();
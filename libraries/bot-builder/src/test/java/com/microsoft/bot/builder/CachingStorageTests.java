@@ -0,0 +1,200 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.microsoft.bot.connector.Async;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class CachingStorageTests extends StorageBaseTests {
+    private Map<String, JsonNode> backingMemory;
+    private int[] readCount;
+    private boolean[] available;
+    private Storage backing;
+    private CachingStorage storage;
+
+    @Before
+    public void initialize() {
+        backingMemory = new HashMap<>();
+        readCount = new int[] { 0 };
+        available = new boolean[] { true };
+        backing = new MemoryStorage(backingMemory) {
+            @Override
+            public CompletableFuture<Map<String, Object>> read(String[] keys) {
+                if (!available[0]) {
+                    return Async.completeExceptionally(new IllegalStateException("unavailable"));
+                }
+                readCount[0]++;
+                return super.read(keys);
+            }
+
+            @Override
+            public CompletableFuture<Void> write(Map<String, Object> changes) {
+                if (!available[0]) {
+                    return Async.completeExceptionally(new IllegalStateException("unavailable"));
+                }
+                return super.write(changes);
+            }
+        };
+
+        storage = new CachingStorage(backing, 2, Duration.ofMinutes(1), Duration.ofHours(1));
+    }
+
+    @After
+    public void cleanup() {
+        storage.close();
+    }
+
+    @Test
+    public void CachingStorage_CreateObjectTest() {
+        createObjectTest(storage);
+    }
+
+    @Test
+    public void CachingStorage_ReadUnknownTest() {
+        readUnknownTest(storage);
+    }
+
+    @Test
+    public void CachingStorage_UpdateObjectTest() {
+        updateObjectTest(storage);
+    }
+
+    @Test
+    public void CachingStorage_DeleteObjectTest() {
+        deleteObjectTest(storage);
+    }
+
+    @Test
+    public void CachingStorage_HandleCrazyKeys() {
+        handleCrazyKeys(storage);
+    }
+
+    @Test
+    public void CachingStorage_WritesBehind() {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("item", new PocoStoreItem("1", 1));
+        storage.write(changes).join();
+
+        Assert.assertFalse(backingMemory.containsKey("item"));
+        Assert.assertEquals(1, storage.getPendingCount());
+
+        PocoStoreItem item = (PocoStoreItem) storage.read(new String[] { "item" }).join().get("item");
+        Assert.assertEquals(0, readCount[0]);
+
+        item.setCount(2);
+        changes.put("item", item);
+        storage.write(changes).join();
+        storage.flush().join();
+
+        Assert.assertEquals(0, storage.getPendingCount());
+        Assert.assertEquals(2, backingMemory.get("item").get("count").asInt());
+
+        // read back once to learn the new eTag
+        Assert.assertEquals(1, readCount[0]);
+
+        storage.delete(new String[] { "item" }).join();
+        Assert.assertTrue(storage.read(new String[] { "item" }).join().isEmpty());
+        Assert.assertTrue(backingMemory.containsKey("item"));
+
+        storage.flush().join();
+        Assert.assertFalse(backingMemory.containsKey("item"));
+        Assert.assertEquals(1, readCount[0]);
+    }
+
+    @Test
+    public void CachingStorage_ReadsThroughAfterEviction() {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("a", new PocoStoreItem("a", 1));
+        changes.put("b", new PocoStoreItem("b", 1));
+        changes.put("c", new PocoStoreItem("c", 1));
+        storage.write(changes).join();
+        storage.flush().join();
+        readCount[0] = 0;
+
+        // holds two items, so one of them was evicted
+        Map<String, Object> items = storage.read(new String[] { "a", "b", "c" }).join();
+        Assert.assertEquals(3, items.size());
+        Assert.assertEquals(1, readCount[0]);
+    }
+
+    @Test
+    public void CachingStorage_FlushSurfacesConflicts() {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("item", new PocoStoreItem("1", 1));
+        storage.write(changes).join();
+        storage.flush().join();
+
+        // another writer changes the item behind the cache
+        Map<String, Object> other = new HashMap<>();
+        PocoStoreItem otherItem = new PocoStoreItem("1", 10);
+        otherItem.setETag("*");
+        other.put("item", otherItem);
+        backing.write(other).join();
+
+        PocoStoreItem item = (PocoStoreItem) storage.read(new String[] { "item" }).join().get("item");
+        item.setCount(2);
+        changes.put("item", item);
+        storage.write(changes).join();
+
+        try {
+            storage.flush().join();
+            Assert.fail("Should have thrown");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause().getMessage().contains("eTag conflict"));
+        }
+
+        Assert.assertEquals(0, storage.getPendingCount());
+        Assert.assertEquals(10, backingMemory.get("item").get("count").asInt());
+        item = (PocoStoreItem) storage.read(new String[] { "item" }).join().get("item");
+        Assert.assertEquals(10, item.getCount());
+    }
+
+    @Test
+    public void CachingStorage_WritesWaitWhenBehind() {
+        available[0] = false;
+
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("a", new PocoStoreItem("a", 1));
+        changes.put("b", new PocoStoreItem("b", 1));
+        storage.write(changes).join();
+
+        try {
+            storage.write(Collections.singletonMap("c", new PocoStoreItem("c", 1))).join();
+            Assert.fail("Should have thrown");
+        } catch (CompletionException e) {
+            Assert.assertEquals(2, storage.getPendingCount());
+        }
+
+        available[0] = true;
+        storage.write(Collections.singletonMap("c", new PocoStoreItem("c", 1))).join();
+        Assert.assertTrue(backingMemory.containsKey("a"));
+        Assert.assertTrue(backingMemory.containsKey("b"));
+        Assert.assertEquals(1, storage.getPendingCount());
+    }
+
+    @Test
+    public void CachingStorage_WritesThroughAfterClose() {
+        storage.close();
+
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("item", new PocoStoreItem("1", 1));
+        storage.write(changes).join();
+        Assert.assertEquals(0, storage.getPendingCount());
+        Assert.assertTrue(backingMemory.containsKey("item"));
+
+        storage.delete(new String[] { "item" }).join();
+        Assert.assertFalse(backingMemory.containsKey("item"));
+    }
+}
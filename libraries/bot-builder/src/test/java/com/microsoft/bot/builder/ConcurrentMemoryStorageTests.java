@@ -0,0 +1,94 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentMemoryStorageTests extends StorageBaseTests {
+    private Storage storage;
+    private Storage bytesStorage;
+
+    @Before
+    public void initialize() {
+        storage = new ConcurrentMemoryStorage();
+        bytesStorage = new ConcurrentMemoryStorage(true);
+    }
+
+    @Test
+    public void ConcurrentMemoryStorage_CreateObjectTest() {
+        createObjectTest(storage);
+        createObjectTest(bytesStorage);
+    }
+
+    @Test
+    public void ConcurrentMemoryStorage_ReadUnknownTest() {
+        readUnknownTest(storage);
+        readUnknownTest(bytesStorage);
+    }
+
+    @Test
+    public void ConcurrentMemoryStorage_UpdateObjectTest() {
+        updateObjectTest(storage);
+        updateObjectTest(bytesStorage);
+    }
+
+    @Test
+    public void ConcurrentMemoryStorage_DeleteObjectTest() {
+        deleteObjectTest(storage);
+        deleteObjectTest(bytesStorage);
+    }
+
+    @Test
+    public void ConcurrentMemoryStorage_HandleCrazyKeys() {
+        handleCrazyKeys(storage);
+        handleCrazyKeys(bytesStorage);
+    }
+
+    @Test
+    public void ConcurrentMemoryStorage_OnlyOneConcurrentWriterWins() {
+        Map<String, Object> initial = new HashMap<>();
+        initial.put("contended", new PocoStoreItem("1", 0));
+        storage.write(initial).join();
+
+        PocoStoreItem loaded = (PocoStoreItem) storage.read(new String[] { "contended" })
+            .join()
+            .get("contended");
+
+        AtomicInteger succeeded = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CompletableFuture<?>[] writes = new CompletableFuture[32];
+            for (int i = 0; i < writes.length; i++) {
+                int count = i;
+                writes[i] = CompletableFuture.runAsync(() -> {
+                    PocoStoreItem item = new PocoStoreItem("1", count);
+                    item.setETag(loaded.getETag());
+                    Map<String, Object> change = new HashMap<>();
+                    change.put("contended", item);
+                    try {
+                        storage.write(change).join();
+                        succeeded.incrementAndGet();
+                    } catch (CompletionException e) {
+                        // eTag conflict
+                    }
+                }, executor);
+            }
+            CompletableFuture.allOf(writes).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(1, succeeded.get());
+    }
+}
@@ -0,0 +1,231 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import com.microsoft.bot.schema.Activity;
+import com.microsoft.bot.schema.ActivityTypes;
+import com.microsoft.bot.schema.ConversationAccount;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class FileTranscriptStoreTests extends TranscriptBaseTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private FileTranscriptStore fileStore;
+
+    @Before
+    public void initialize() throws IOException {
+        directory = folder.getRoot().toPath();
+        open(FileTranscriptStore.DEFAULT_SEGMENT_SIZE);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        fileStore.close();
+    }
+
+    @Test
+    public void FileTranscript_BadArgs() {
+        super.BadArgs();
+    }
+
+    @Test
+    public void FileTranscript_LogActivity() {
+        super.LogActivity();
+    }
+
+    @Test
+    public void FileTranscript_LogMultipleActivities() {
+        super.LogMultipleActivities();
+    }
+
+    @Test
+    public void FileTranscript_GetConversationActivities() {
+        super.GetTranscriptActivities();
+    }
+
+    @Test
+    public void FileTranscript_GetConversationActivitiesStartDate() {
+        super.GetTranscriptActivitiesStartDate();
+    }
+
+    @Test
+    public void FileTranscript_ListConversations() {
+        super.ListTranscripts();
+    }
+
+    @Test
+    public void FileTranscript_DeleteConversation() {
+        super.DeleteTranscript();
+    }
+
+    @Test
+    public void FileTranscript_PagesAcrossSegmentsAfterReopen() throws IOException {
+        open(4096);
+        OffsetDateTime start = OffsetDateTime.now(ZoneId.of("UTC"));
+        for (int i = 0; i < 200; i++) {
+            fileStore.logActivity(createActivity("a", i, start)).join();
+            fileStore.logActivity(createActivity("b", i, start)).join();
+        }
+        Assert.assertTrue(segmentCount() > 1);
+
+        fileStore.close();
+        open(4096);
+
+        Assert.assertEquals(expectedIds(0, 200), readAll("a", null));
+        Assert.assertEquals(expectedIds(150, 200), readAll("b", start.plusSeconds(150)));
+    }
+
+    @Test
+    public void FileTranscript_CompactsDeletedTranscripts() throws IOException {
+        open(4096);
+        OffsetDateTime start = OffsetDateTime.now(ZoneId.of("UTC"));
+        for (int i = 0; i < 200; i++) {
+            fileStore.logActivity(createActivity("deleted", i, start)).join();
+            fileStore.logActivity(createActivity("kept", i, start)).join();
+        }
+        long before = logSize();
+
+        fileStore.deleteTranscript("test", "deleted").join();
+        fileStore.compact();
+        Assert.assertTrue(logSize() < before * 2 / 3);
+        Assert.assertEquals(expectedIds(0, 200), readAll("kept", null));
+        Assert.assertTrue(readAll("deleted", null).isEmpty());
+
+        // a new transcript with the same id only has the new activities, also after a restart
+        fileStore.logActivity(createActivity("deleted", 500, start)).join();
+        fileStore.close();
+        open(4096);
+        Assert.assertEquals(expectedIds(500, 501), readAll("deleted", null));
+        Assert.assertEquals(expectedIds(0, 200), readAll("kept", null));
+    }
+
+    @Test
+    public void FileTranscript_DiscardsTornRecord() throws IOException {
+        OffsetDateTime start = OffsetDateTime.now(ZoneId.of("UTC"));
+        fileStore.logActivity(createActivity("torn", 0, start)).join();
+        fileStore.logActivity(createActivity("torn", 1, start)).join();
+        fileStore.close();
+
+        // cut the last record short, as a crash in the middle of a write would
+        Path segment = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(file.length() - 10);
+        }
+
+        open(FileTranscriptStore.DEFAULT_SEGMENT_SIZE);
+        Assert.assertEquals(expectedIds(0, 1), readAll("torn", null));
+
+        fileStore.logActivity(createActivity("torn", 2, start)).join();
+        List<String> ids = readAll("torn", null);
+        Assert.assertEquals(2, ids.size());
+        Assert.assertEquals("2", ids.get(1));
+    }
+
+    @Test
+    public void FileTranscript_RejectsInvalidContinuationTokens() {
+        OffsetDateTime start = OffsetDateTime.now(ZoneId.of("UTC"));
+        fileStore.logActivity(createActivity("other", 0, start)).join();
+        for (int i = 0; i < 30; i++) {
+            fileStore.logActivity(createActivity("paged", i, start)).join();
+        }
+        String token = store.getTranscriptActivities("test", "paged", null, null).join().getContinuationToken();
+        Assert.assertNotNull(token);
+
+        // inside a record, before the conversation, in a missing segment, and not a position
+        long position = Long.parseLong(token);
+        for (String invalid : new String[] {
+            Long.toString(position + 1), "0", Long.toString(position + (1L << 32)), "garbage"
+        }) {
+            CompletableFuture<PagedResult<Activity>> page =
+                store.getTranscriptActivities("test", "paged", invalid, null);
+            try {
+                page.join();
+                Assert.fail("Should have failed for " + invalid);
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+        }
+
+        Assert.assertEquals(10, store.getTranscriptActivities("test", "paged", token, null).join().getItems().size());
+    }
+
+    private void open(int segmentSize) throws IOException {
+        if (fileStore != null) {
+            fileStore.close();
+        }
+        fileStore = new FileTranscriptStore(directory, segmentSize, false);
+        store = fileStore;
+    }
+
+    private List<String> readAll(String conversationId, OffsetDateTime startDate) {
+        List<String> ids = new ArrayList<>();
+        PagedResult<Activity> pagedResult = null;
+        do {
+            pagedResult = store.getTranscriptActivities(
+                "test",
+                conversationId,
+                pagedResult != null ? pagedResult.getContinuationToken() : null,
+                startDate
+            ).join();
+            pagedResult.getItems().forEach(a -> ids.add(a.getId()));
+        } while (pagedResult.getContinuationToken() != null);
+        return ids;
+    }
+
+    private static List<String> expectedIds(int from, int to) {
+        List<String> ids = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ids.add(Integer.toString(i));
+        }
+        return ids;
+    }
+
+    private static Activity createActivity(String conversationId, int index, OffsetDateTime start) {
+        Activity activity = new Activity(ActivityTypes.MESSAGE);
+        activity.setId(Integer.toString(index));
+        activity.setText("message " + index);
+        activity.setChannelId("test");
+        activity.setConversation(new ConversationAccount(conversationId));
+        activity.setTimestamp(start.plusSeconds(index));
+        return activity;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("test"))) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private int segmentCount() throws IOException {
+        return segments().size();
+    }
+
+    private long logSize() throws IOException {
+        long size = 0;
+        for (Path segment : segments()) {
+            size += Files.size(segment);
+        }
+        return size;
+    }
+}
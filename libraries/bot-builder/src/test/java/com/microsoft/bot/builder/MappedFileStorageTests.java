@@ -0,0 +1,222 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
+public class MappedFileStorageTests extends StorageBaseTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private MappedFileStorage storage;
+
+    @Before
+    public void initialize() throws IOException {
+        directory = folder.getRoot().toPath();
+        storage = new MappedFileStorage(directory);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        storage.close();
+    }
+
+    @Test
+    public void MappedFileStorage_CreateObjectTest() {
+        createObjectTest(storage);
+    }
+
+    @Test
+    public void MappedFileStorage_ReadUnknownTest() {
+        readUnknownTest(storage);
+    }
+
+    @Test
+    public void MappedFileStorage_UpdateObjectTest() {
+        updateObjectTest(storage);
+    }
+
+    @Test
+    public void MappedFileStorage_DeleteObjectTest() {
+        deleteObjectTest(storage);
+    }
+
+    @Test
+    public void MappedFileStorage_HandleCrazyKeys() {
+        handleCrazyKeys(storage);
+    }
+
+    @Test
+    public void MappedFileStorage_RecoversAfterReopen() throws IOException {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("kept", new PocoStoreItem("1", 1));
+        changes.put("deleted", new PocoStoreItem("2", 2));
+        storage.write(changes).join();
+        storage.delete(new String[] { "deleted" }).join();
+        String eTag = ((PocoStoreItem) storage.read(new String[] { "kept" }).join().get("kept")).getETag();
+        storage.close();
+
+        storage = new MappedFileStorage(directory);
+        Map<String, Object> items = storage.read(new String[] { "kept", "deleted" }).join();
+        Assert.assertEquals(1, items.size());
+        PocoStoreItem kept = (PocoStoreItem) items.get("kept");
+        Assert.assertEquals(1, kept.getCount());
+        Assert.assertEquals(eTag, kept.getETag());
+
+        // eTags keep increasing across restarts
+        storage.write(items).join();
+        PocoStoreItem rewritten = (PocoStoreItem) storage.read(new String[] { "kept" }).join().get("kept");
+        Assert.assertNotEquals(eTag, rewritten.getETag());
+    }
+
+    @Test
+    public void MappedFileStorage_DiscardsTornRecord() throws IOException {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("first", new PocoStoreItem("1", 1));
+        storage.write(changes).join();
+        changes.put("first", new PocoStoreItem("1", 2));
+        ((PocoStoreItem) changes.get("first")).setETag("*");
+        storage.write(changes).join();
+        storage.close();
+
+        // corrupt the last byte of the second record
+        Path log = directory.resolve(MappedFileStorage.LOG_FILE_NAME);
+        try (RandomAccessFile file = new RandomAccessFile(log.toFile(), "rw")) {
+            long position = 0;
+            long last = 0;
+            while (true) {
+                file.seek(position);
+                int length = file.readInt();
+                if (length == 0) {
+                    break;
+                }
+                last = position + 8 + length - 1;
+                position += 8 + length;
+            }
+            file.seek(last);
+            int corrupted = file.read() ^ 0xFF;
+            file.seek(last);
+            file.write(corrupted);
+        }
+
+        storage = new MappedFileStorage(directory);
+        PocoStoreItem first = (PocoStoreItem) storage.read(new String[] { "first" }).join().get("first");
+        Assert.assertEquals(1, first.getCount());
+    }
+
+    @Test
+    public void MappedFileStorage_Compact() throws IOException {
+        Map<String, Object> changes = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            PocoStoreItem item = new PocoStoreItem("1", i);
+            item.setETag("*");
+            changes.put("item", item);
+            storage.write(changes).join();
+        }
+        changes.clear();
+        changes.put("other", new PocoItem("2", 2));
+        storage.write(changes).join();
+
+        storage.compact();
+        Assert.assertEquals(99, ((PocoStoreItem) storage.read(new String[] { "item" }).join().get("item")).getCount());
+        storage.close();
+
+        storage = new MappedFileStorage(directory);
+        Map<String, Object> items = storage.read(new String[] { "item", "other" }).join();
+        Assert.assertEquals(99, ((PocoStoreItem) items.get("item")).getCount());
+        Assert.assertEquals(2, ((PocoItem) items.get("other")).getCount());
+    }
+
+    @Test
+    public void MappedFileStorage_DoesNotReissueETagsAfterCompaction() throws IOException {
+        Set<String> issued = new HashSet<>();
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("kept", new PocoStoreItem("1", 1));
+        storage.write(changes).join();
+        issued.add(((PocoStoreItem) storage.read(new String[] { "kept" }).join().get("kept")).getETag());
+        for (int i = 0; i < 5; i++) {
+            PocoStoreItem item = new PocoStoreItem("2", i);
+            item.setETag("*");
+            changes.clear();
+            changes.put("deleted", item);
+            storage.write(changes).join();
+            issued.add(((PocoStoreItem) storage.read(new String[] { "deleted" }).join().get("deleted")).getETag());
+        }
+        storage.delete(new String[] { "deleted" }).join();
+
+        // compaction drops every record of the deleted key
+        storage.compact();
+        storage.close();
+
+        storage = new MappedFileStorage(directory);
+        for (int i = 0; i < issued.size(); i++) {
+            changes.clear();
+            changes.put("new" + i, new PocoStoreItem("3", i));
+            storage.write(changes).join();
+            String eTag = ((PocoStoreItem) storage.read(new String[] { "new" + i }).join().get("new" + i)).getETag();
+            Assert.assertFalse(eTag, issued.contains(eTag));
+        }
+    }
+
+    @Test
+    public void MappedFileStorage_UsableAfterFailedCompaction() throws IOException {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("item", new PocoItem("1", 1));
+        storage.write(changes).join();
+
+        // a directory in the way of the compacted log makes compaction fail
+        Files.createDirectory(directory.resolve(MappedFileStorage.LOG_FILE_NAME + ".compact"));
+        try {
+            storage.compact();
+            Assert.fail("Should have thrown");
+        } catch (IOException e) {
+            // expected
+        }
+
+        changes.put("item", new PocoItem("1", 2));
+        storage.write(changes).join();
+        Assert.assertEquals(2, ((PocoItem) storage.read(new String[] { "item" }).join().get("item")).getCount());
+    }
+
+    @Test
+    public void MappedFileStorage_KeepsRecordsBeforeConflict() {
+        PocoStoreItem stored = new PocoStoreItem("1", 1);
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("conflicted", stored);
+        storage.write(changes).join();
+
+        Map<String, Object> batch = new LinkedHashMap<>();
+        batch.put("first", new PocoItem("2", 2));
+        PocoStoreItem outdated = new PocoStoreItem("1", 3);
+        outdated.setETag("outdated");
+        batch.put("conflicted", outdated);
+        try {
+            storage.write(batch).join();
+            Assert.fail("Should have thrown");
+        } catch (CompletionException e) {
+            // expected
+        }
+
+        Map<String, Object> items = storage.read(new String[] { "first", "conflicted" }).join();
+        Assert.assertEquals(2, ((PocoItem) items.get("first")).getCount());
+        Assert.assertEquals(1, ((PocoStoreItem) items.get("conflicted")).getCount());
+    }
+}
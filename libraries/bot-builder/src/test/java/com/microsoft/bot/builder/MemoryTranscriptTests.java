@@ -3,8 +3,19 @@
 
 package com.microsoft.bot.builder;
 
+import com.microsoft.bot.schema.Activity;
+import com.microsoft.bot.schema.ActivityTypes;
+import com.microsoft.bot.schema.ConversationAccount;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 public class MemoryTranscriptTests extends TranscriptBaseTests {
     public MemoryTranscriptTests() {
         store = new MemoryTranscriptStore();
@@ -44,4 +55,45 @@ public class MemoryTranscriptTests extends TranscriptBaseTests {
     public void MemoryTranscript_DeleteConversation() {
         super.DeleteTranscript();
     }
+
+    @Test
+    public void MemoryTranscript_PagesInTimestampOrder() {
+        OffsetDateTime start = OffsetDateTime.now(ZoneId.of("UTC"));
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            Activity activity = new Activity(ActivityTypes.MESSAGE);
+            activity.setId(Integer.toString(i));
+            activity.setChannelId("test");
+            activity.setConversation(new ConversationAccount("_PagesInTimestampOrder"));
+            activity.setTimestamp(start.plusSeconds(i));
+            activities.add(activity);
+        }
+
+        // logged out of order
+        List<Activity> shuffled = new ArrayList<>(activities);
+        Collections.shuffle(shuffled, new Random(0));
+        for (Activity activity : shuffled) {
+            store.logActivity(activity).join();
+        }
+
+        List<String> ids = new ArrayList<>();
+        PagedResult<Activity> pagedResult = null;
+        do {
+            pagedResult = store.getTranscriptActivities(
+                "test",
+                "_PagesInTimestampOrder",
+                pagedResult != null ? pagedResult.getContinuationToken() : null,
+                start.plusSeconds(5)
+            ).join();
+            for (Activity item : pagedResult.getItems()) {
+                ids.add(item.getId());
+            }
+        } while (pagedResult.getContinuationToken() != null);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 5; i < activities.size(); i++) {
+            expected.add(Integer.toString(i));
+        }
+        Assert.assertEquals(expected, ids);
+    }
 }
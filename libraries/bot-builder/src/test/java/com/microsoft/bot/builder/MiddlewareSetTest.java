@@ -444,6 +444,64 @@ public class MiddlewareSetTest {
         Assert.assertTrue(caughtException[0]);
     }
 
+    @Test
+    public void NestedSet_ChangedAfterFirstTurn() {
+        StringBuilder calls = new StringBuilder();
+        MiddlewareSet inner = new MiddlewareSet();
+        inner.use(new AnonymousReceiveMiddleware((tc, nd) -> {
+            calls.append("a");
+            return nd.next();
+        }));
+
+        MiddlewareSet outer = new MiddlewareSet();
+        outer.use(inner).use(inner);
+        outer.receiveActivityWithStatus(null, (ctx) -> {
+            calls.append("|");
+            return CompletableFuture.completedFuture(null);
+        }).join();
+        Assert.assertEquals("aa|", calls.toString());
+
+        // the outer set picks up middleware added to a nested set
+        inner.use(new AnonymousReceiveMiddleware((tc, nd) -> {
+            calls.append("b");
+            return nd.next();
+        }));
+        calls.setLength(0);
+        outer.receiveActivityWithStatus(null, (ctx) -> {
+            calls.append("|");
+            return CompletableFuture.completedFuture(null);
+        }).join();
+        Assert.assertEquals("abab|", calls.toString());
+    }
+
+    @Test
+    public void NestedSet_ShortCircuitContinuesOuterPipeline() {
+        StringBuilder calls = new StringBuilder();
+        MiddlewareSet inner = new MiddlewareSet();
+        inner.use(new AnonymousReceiveMiddleware((tc, nd) -> {
+            calls.append("inner-stop;");
+            return CompletableFuture.completedFuture(null);
+        }));
+        inner.use(new AnonymousReceiveMiddleware((tc, nd) -> {
+            calls.append("inner-skipped;");
+            return nd.next();
+        }));
+
+        MiddlewareSet outer = new MiddlewareSet();
+        outer.use(inner);
+        outer.use(new AnonymousReceiveMiddleware((tc, nd) -> {
+            calls.append("outer;");
+            return nd.next();
+        }));
+        outer.receiveActivityWithStatus(null, (ctx) -> {
+            calls.append("bot;");
+            return CompletableFuture.completedFuture(null);
+        }).join();
+
+        // a nested set ends its own chain before the outer pipeline continues
+        Assert.assertEquals("inner-stop;outer;bot;", calls.toString());
+    }
+
     private static class WasCalledMiddleware implements Middleware {
         boolean called = false;
 
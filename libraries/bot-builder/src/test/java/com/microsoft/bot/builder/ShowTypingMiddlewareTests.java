@@ -7,10 +7,17 @@ import com.microsoft.bot.builder.adapters.TestAdapter;
 import com.microsoft.bot.builder.adapters.TestFlow;
 import com.microsoft.bot.schema.Activity;
 import com.microsoft.bot.schema.ActivityTypes;
+import com.microsoft.bot.schema.ResourceResponse;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ShowTypingMiddlewareTests {
     @Test
@@ -65,6 +72,50 @@ public class ShowTypingMiddlewareTests {
         })).send("foo").assertReply("Message send after delay").startTest().join();
     }
 
+    @Test
+    public void ShowTyping_TestMiddleware_StopsWhenTurnFails() throws Exception {
+        // the timer and the sends share one thread, so draining it settles the indicators
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1);
+        timer.setRemoveOnCancelPolicy(true);
+        CountDownLatch typing = new CountDownLatch(1);
+        AtomicInteger typingCount = new AtomicInteger();
+        TestAdapter adapter = new TestAdapter() {
+            @Override
+            public CompletableFuture<ResourceResponse[]> sendActivities(
+                TurnContext context,
+                List<Activity> activities
+            ) {
+                typingCount.incrementAndGet();
+                typing.countDown();
+                return super.sendActivities(context, activities);
+            }
+        };
+        adapter.use(new ShowTypingMiddleware(0, 10, () -> timer, Runnable::run));
+
+        try {
+            adapter.processActivity(adapter.makeActivity("foo"), turnContext -> {
+                try {
+                    Assert.assertTrue(typing.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("turn failed");
+            }).join();
+            Assert.fail("expected the turn to fail");
+        } catch (CompletionException e) {
+            // expected
+        }
+
+        try {
+            // an indicator may still be completing, after that none is scheduled
+            timer.submit(() -> { }).get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(timer.getQueue().isEmpty());
+            Assert.assertTrue(typingCount.get() > 0);
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void ShowTyping_TestMiddleware_NegativeDelay() {
         TestAdapter adapter = new TestAdapter().use(new ShowTypingMiddleware(-100, 5000));
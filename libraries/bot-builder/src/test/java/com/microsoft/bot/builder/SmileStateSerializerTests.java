@@ -0,0 +1,106 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SmileStateSerializerTests extends StorageBaseTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StateSerializer serializer;
+    private Storage storage;
+
+    @Before
+    public void initialize() {
+        serializer = new SmileStateSerializer();
+        storage = new ConcurrentMemoryStorage(serializer);
+    }
+
+    @Test
+    public void SmileStateSerializer_CreateObjectTest() {
+        createObjectTest(storage);
+    }
+
+    @Test
+    public void SmileStateSerializer_ReadUnknownTest() {
+        readUnknownTest(storage);
+    }
+
+    @Test
+    public void SmileStateSerializer_UpdateObjectTest() {
+        updateObjectTest(storage);
+    }
+
+    @Test
+    public void SmileStateSerializer_DeleteObjectTest() {
+        deleteObjectTest(storage);
+    }
+
+    @Test
+    public void SmileStateSerializer_HandleCrazyKeys() {
+        handleCrazyKeys(storage);
+    }
+
+    @Test
+    public void SmileStateSerializer_RoundTripsNestedTypes() throws IOException {
+        List<Object> list = new ArrayList<>();
+        list.add(new PocoItem("1", 1));
+        list.add("two");
+        Map<String, Object> state = new HashMap<>();
+        state.put("list", list);
+        state.put("item", new PocoStoreItem("3", 3));
+
+        byte[] smile = serializer.serialize(state);
+        byte[] json = new JsonStateSerializer().serialize(state);
+        Assert.assertTrue(smile.length < json.length);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> result = serializer.deserialize(smile, HashMap.class);
+        List<?> resultList = (List<?>) result.get("list");
+        Assert.assertEquals(1, ((PocoItem) resultList.get(0)).getCount());
+        Assert.assertEquals("two", resultList.get(1));
+        Assert.assertEquals("3", ((PocoStoreItem) result.get("item")).getId());
+    }
+
+    @Test
+    public void SmileStateSerializer_ReadsJson() throws IOException {
+        byte[] json = new JsonStateSerializer().serialize(new PocoItem("1", 42));
+
+        PocoItem result = serializer.deserialize(json, PocoItem.class);
+        Assert.assertEquals("1", result.getId());
+        Assert.assertEquals(42, result.getCount());
+    }
+
+    @Test
+    public void SmileStateSerializer_ReadsJsonLog() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("old", new PocoStoreItem("1", 1));
+        try (MappedFileStorage jsonStorage = new MappedFileStorage(directory)) {
+            jsonStorage.write(changes).join();
+        }
+
+        try (MappedFileStorage smileStorage = new MappedFileStorage(directory, false, serializer)) {
+            changes.clear();
+            changes.put("new", new PocoStoreItem("2", 2));
+            smileStorage.write(changes).join();
+
+            Map<String, Object> items = smileStorage.read(new String[] { "old", "new" }).join();
+            Assert.assertEquals(1, ((PocoStoreItem) items.get("old")).getCount());
+            Assert.assertEquals(2, ((PocoStoreItem) items.get("new")).getCount());
+        }
+    }
+}
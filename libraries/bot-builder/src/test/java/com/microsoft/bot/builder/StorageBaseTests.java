@@ -241,7 +241,7 @@ public class StorageBaseTests {
         storage.delete(new String[] { "unknown_key" }).join();
     }
 
-    private static class PocoItem {
+    static class PocoItem {
         public PocoItem() {
 
         }
@@ -287,7 +287,7 @@ public class StorageBaseTests {
         private String[] extraBytes;
     }
 
-    private static class PocoStoreItem implements StoreItem {
+    static class PocoStoreItem implements StoreItem {
         private String id;
         private int count;
         private String eTag;
@@ -47,6 +47,37 @@ public class TranscriptMiddlewareTest {
         }
     }
 
+    @Test
+    public final void Transcript_LogsActivitiesAsSent() {
+        MemoryTranscriptStore transcriptStore = new MemoryTranscriptStore();
+        TestAdapter adapter = (new TestAdapter()).use(
+            new TranscriptLoggerMiddleware(transcriptStore)
+        );
+        final String[] conversationId = { null };
+
+        new TestFlow(adapter, (context) -> {
+            conversationId[0] = context.getActivity().getConversation().getId();
+            Activity reply = MessageFactory.text("echo:" + context.getActivity().getText());
+            context.sendActivity(reply).join();
+
+            // changes after the activities were logged are not recorded
+            context.getActivity().setText("changed");
+            reply.setSpeak("changed");
+            return CompletableFuture.completedFuture(null);
+        }).send("foo").assertReply("echo:foo").startTest().join();
+
+        PagedResult<Activity> pagedResult = transcriptStore.getTranscriptActivities(
+            "test",
+            conversationId[0]
+        ).join();
+        Assert.assertEquals(2, pagedResult.getItems().size());
+        Assert.assertEquals("foo", pagedResult.getItems().get(0).getText());
+        Assert.assertEquals(RoleTypes.USER, pagedResult.getItems().get(0).getFrom().getRole());
+        Assert.assertEquals("echo:foo", pagedResult.getItems().get(1).getText());
+        Assert.assertNull(pagedResult.getItems().get(1).getSpeak());
+        Assert.assertEquals(RoleTypes.BOT, pagedResult.getItems().get(1).getFrom().getRole());
+    }
+
     @Test
     public final void Transcript_LogActivities() {
         MemoryTranscriptStore transcriptStore = new MemoryTranscriptStore();
@@ -570,6 +570,77 @@ public class TurnContextTests {
         Assert.assertTrue(disposableObject3.disposed);
     }
 
+    @Test
+    public void TurnContextStateTypedKeys() {
+        TurnStateKey<String> typedKey = TurnStateKey.of("TurnContextTests.typed");
+        Assert.assertSame(typedKey, TurnStateKey.of("TurnContextTests.typed"));
+
+        TurnContextStateCollection stateCollection = new TurnContextStateCollection();
+        stateCollection.add(typedKey, "value");
+
+        // the string API reads and writes the same slot
+        Assert.assertEquals("value", stateCollection.get("TurnContextTests.typed"));
+        stateCollection.replace("TurnContextTests.typed", "replaced");
+        Assert.assertEquals("replaced", stateCollection.get(typedKey));
+        Assert.assertEquals("replaced", stateCollection.getTurnStateServices().get("TurnContextTests.typed"));
+
+        try {
+            stateCollection.add("TurnContextTests.typed", "duplicate");
+            Assert.fail("Should have thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        stateCollection.remove(typedKey);
+        Assert.assertFalse(stateCollection.containsKey("TurnContextTests.typed"));
+    }
+
+    @Test
+    public void TurnContextStateKeyRegisteredAfterAdd() {
+        TurnContextStateCollection stateCollection = new TurnContextStateCollection();
+        stateCollection.add("TurnContextTests.late", 42);
+        stateCollection.add("TurnContextTests.untyped", "untyped");
+
+        TurnStateKey<Integer> lateKey = TurnStateKey.of("TurnContextTests.late");
+        Assert.assertEquals(Integer.valueOf(42), stateCollection.get(lateKey));
+        Assert.assertEquals(Integer.valueOf(42), stateCollection.get("TurnContextTests.late"));
+
+        TurnContextStateCollection copy = new TurnContextStateCollection();
+        copy.copy(stateCollection);
+        Assert.assertEquals(Integer.valueOf(42), copy.get(lateKey));
+        Assert.assertEquals("untyped", copy.get("TurnContextTests.untyped"));
+        Assert.assertEquals(2, copy.getTurnStateServices().size());
+    }
+
+    @Test
+    public void TurnContextStateTypeMethodsDoNotRegisterKeys() {
+        TurnContextStateCollection stateCollection = new TurnContextStateCollection();
+        TrackDisposed service = new TrackDisposed();
+        stateCollection.add(service);
+        Assert.assertSame(service, stateCollection.get(TrackDisposed.class));
+        stateCollection.replace(new TrackDisposed());
+        Assert.assertNull(TurnStateKey.find(TrackDisposed.class.getName()));
+
+        // replacing by key overwrites a value added by name before the key existed
+        stateCollection.add("TurnContextTests.replaced", "before");
+        TurnStateKey<String> key = TurnStateKey.of("TurnContextTests.replaced");
+        stateCollection.replace(key, "after");
+        Assert.assertEquals("after", stateCollection.get("TurnContextTests.replaced"));
+        Assert.assertEquals(2, stateCollection.getTurnStateServices().size());
+    }
+
+    @Test
+    public void TurnContextStateNullKeys() {
+        TurnContextStateCollection stateCollection = new TurnContextStateCollection();
+        Assert.assertFalse(stateCollection.containsKey((String) null));
+        stateCollection.remove((String) null);
+
+        stateCollection.add("TurnContextTests.kept", "kept");
+        Assert.assertFalse(stateCollection.containsKey((String) null));
+        stateCollection.remove((String) null);
+        Assert.assertEquals("kept", stateCollection.get("TurnContextTests.kept"));
+    }
+
     private static class TrackDisposed implements AutoCloseable {
         public boolean disposed = false;
 
@@ -0,0 +1,129 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.builder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+public class TurnSchedulerTests {
+    @Test
+    public void TurnScheduler_SerializesTurnsOfAConversation() {
+        TurnScheduler scheduler = new TurnScheduler();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> firstDone = new CompletableFuture<>();
+
+        CompletableFuture<String> first = scheduler.schedule("a", () -> {
+            order.add("first started");
+            return firstDone.thenApply(v -> {
+                order.add("first completed");
+                return "first";
+            });
+        });
+        CompletableFuture<String> second = scheduler.schedule("a", () -> {
+            order.add("second started");
+            return CompletableFuture.completedFuture("second");
+        });
+
+        Assert.assertFalse(second.isDone());
+        Assert.assertEquals(1, scheduler.getQueuedTurns());
+
+        firstDone.complete(null);
+        Assert.assertEquals("first", first.join());
+        Assert.assertEquals("second", second.join());
+        Assert.assertEquals(
+            Arrays.asList("first started", "first completed", "second started"),
+            order
+        );
+    }
+
+    @Test
+    public void TurnScheduler_RunsConversationsInParallel() {
+        TurnScheduler scheduler = new TurnScheduler();
+        CompletableFuture<Void> firstDone = new CompletableFuture<>();
+
+        CompletableFuture<Void> first = scheduler.schedule("a", () -> firstDone);
+        CompletableFuture<String> other = scheduler.schedule("b", () -> CompletableFuture.completedFuture("b"));
+
+        Assert.assertEquals("b", other.join());
+        Assert.assertFalse(first.isDone());
+        Assert.assertEquals(1, scheduler.getActiveConversations());
+
+        firstDone.complete(null);
+        first.join();
+        Assert.assertEquals(0, scheduler.getActiveConversations());
+        Assert.assertEquals(2, scheduler.getCompletedTurns());
+    }
+
+    @Test
+    public void TurnScheduler_RejectsWhenBacklogIsFull() {
+        TurnScheduler scheduler = new TurnScheduler(1);
+        CompletableFuture<Void> firstDone = new CompletableFuture<>();
+
+        CompletableFuture<Void> first = scheduler.schedule("a", () -> firstDone);
+        CompletableFuture<Void> queued = scheduler.schedule("a", () -> CompletableFuture.completedFuture(null));
+        CompletableFuture<Void> rejected = scheduler.schedule("a", () -> CompletableFuture.completedFuture(null));
+
+        try {
+            rejected.join();
+            Assert.fail("Should have been rejected");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        Assert.assertEquals(1, scheduler.getRejectedTurns());
+
+        firstDone.complete(null);
+        first.join();
+        queued.join();
+
+        // a failed turn does not stop the conversation
+        CompletableFuture<Void> failed = scheduler.schedule("a", () -> {
+            throw new IllegalStateException("failed");
+        });
+        try {
+            failed.join();
+            Assert.fail("Should have failed");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        scheduler.schedule("a", () -> CompletableFuture.completedFuture(null)).join();
+        Assert.assertEquals(0, scheduler.getActiveConversations());
+    }
+
+    @Test
+    public void TurnScheduler_FailsQueuedTurnsTheExecutorRejects() {
+        TurnScheduler scheduler = new TurnScheduler(TurnScheduler.DEFAULT_MAX_BACKLOG, runnable -> {
+            throw new RejectedExecutionException("full");
+        });
+        CompletableFuture<Void> firstDone = new CompletableFuture<>();
+
+        CompletableFuture<Void> first = scheduler.schedule("a", () -> firstDone);
+        CompletableFuture<Void> second = scheduler.schedule("a", () -> CompletableFuture.completedFuture(null));
+        CompletableFuture<Void> third = scheduler.schedule("a", () -> CompletableFuture.completedFuture(null));
+
+        firstDone.complete(null);
+        first.join();
+        for (CompletableFuture<Void> rejected : Arrays.asList(second, third)) {
+            try {
+                rejected.join();
+                Assert.fail("Should have been rejected");
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        }
+        Assert.assertEquals(2, scheduler.getRejectedTurns());
+        Assert.assertEquals(0, scheduler.getQueuedTurns());
+        Assert.assertEquals(0, scheduler.getActiveConversations());
+
+        // the conversation is not stuck
+        Assert.assertEquals("next", scheduler.schedule("a", () -> CompletableFuture.completedFuture("next")).join());
+    }
+}
@@ -5,6 +5,8 @@ package com.microsoft.bot.connector;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Asyc and CompletableFuture helpers methods.
@@ -82,4 +84,30 @@ public final class Async {
         result.completeExceptionally(ex);
         return result;
     }
+
+    /**
+     * Constructs a CompletableFuture that completes after a delay, without
+     * holding a thread while it waits. The future is completed on the
+     * {@link ExecutorFactory#getExecutor()} pool, or on the timer thread if the
+     * pool rejects the task.
+     *
+     * @param millis The delay in milliseconds.
+     * @return A CompletableFuture that completes once the delay has passed.
+     */
+    public static CompletableFuture<Void> delay(long millis) {
+        if (millis <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        ExecutorFactory.getScheduler().schedule(() -> {
+            try {
+                ExecutorFactory.getExecutor().execute(() -> result.complete(null));
+            } catch (RejectedExecutionException e) {
+                // the pool is full, completing on the timer is better than never
+                result.complete(null);
+            }
+        }, millis, TimeUnit.MILLISECONDS);
+        return result;
+    }
 }
@@ -0,0 +1,259 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Settings for the SDK executors created by {@link ExecutorFactory}.
+ *
+ * <p>
+ * The defaults match the original SDK pool: a ForkJoinPool with twice as many
+ * threads as there are processors. Every setting can also be given as a system
+ * property, which {@link ExecutorFactory} reads when it is first used:
+ * </p>
+ * <ul>
+ * <li>{@code bot.executor.mode}: {@code forkjoin} or {@code threadpool}</li>
+ * <li>{@code bot.executor.parallelism}: the number of threads, or core threads
+ * of a thread pool</li>
+ * <li>{@code bot.executor.maxPoolSize}: the maximum threads of a thread
+ * pool, 0 for the parallelism</li>
+ * <li>{@code bot.executor.queueCapacity}: the task queue bound of a thread
+ * pool, 0 for unbounded</li>
+ * <li>{@code bot.executor.rejectionPolicy}: {@code abort} or
+ * {@code callerruns}, for a full thread pool</li>
+ * <li>{@code bot.executor.virtualThreads}: {@code true} to run blocking work on
+ * virtual threads when the JVM has them</li>
+ * </ul>
+ */
+public class ExecutorConfiguration {
+    /**
+     * The property prefix of the executor settings.
+     */
+    public static final String PROPERTY_PREFIX = "bot.executor.";
+
+    /**
+     * The multiple of the processor count used as the default parallelism.
+     */
+    private static final int THREADS_PER_PROCESSOR = 2;
+
+    /**
+     * The kind of pool the SDK executor is.
+     */
+    public enum Mode {
+        /**
+         * A work-stealing ForkJoinPool, the default.
+         */
+        FORK_JOIN,
+
+        /**
+         * A ThreadPoolExecutor with a bounded queue and a rejection policy.
+         */
+        THREAD_POOL
+    }
+
+    /**
+     * What a thread pool does with a task when its queue is full.
+     */
+    public enum RejectionPolicy {
+        /**
+         * Throw a RejectedExecutionException, which fails the future.
+         */
+        ABORT,
+
+        /**
+         * Run the task on the submitting thread, which slows the submitter down.
+         */
+        CALLER_RUNS
+    }
+
+    private Mode mode = Mode.FORK_JOIN;
+    private int parallelism = Runtime.getRuntime().availableProcessors() * THREADS_PER_PROCESSOR;
+    private int maxPoolSize;
+    private int queueCapacity;
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+    private boolean virtualThreads;
+
+    /**
+     * Reads the settings from properties, using the defaults for any that are
+     * missing.
+     *
+     * @param properties The properties, such as the system properties.
+     * @return The configuration.
+     * @throws IllegalArgumentException A property has an invalid value.
+     */
+    public static ExecutorConfiguration fromProperties(Properties properties) throws IllegalArgumentException {
+        ExecutorConfiguration configuration = new ExecutorConfiguration();
+
+        String value = properties.getProperty(PROPERTY_PREFIX + "mode");
+        if (value != null) {
+            configuration.setMode(parseEnum(Mode.class, value));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "parallelism");
+        if (value != null) {
+            configuration.setParallelism(Integer.parseInt(value.trim()));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "maxPoolSize");
+        if (value != null) {
+            configuration.setMaxPoolSize(Integer.parseInt(value.trim()));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "queueCapacity");
+        if (value != null) {
+            configuration.setQueueCapacity(Integer.parseInt(value.trim()));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "rejectionPolicy");
+        if (value != null) {
+            configuration.setRejectionPolicy(parseEnum(RejectionPolicy.class, value));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "virtualThreads");
+        if (value != null) {
+            configuration.setVirtualThreads(Boolean.parseBoolean(value.trim()));
+        }
+
+        return configuration;
+    }
+
+    /**
+     * Gets the kind of pool.
+     *
+     * @return The pool mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets the kind of pool.
+     *
+     * @param withMode The pool mode.
+     */
+    public void setMode(Mode withMode) {
+        if (withMode == null) {
+            throw new IllegalArgumentException("mode cannot be null");
+        }
+        mode = withMode;
+    }
+
+    /**
+     * Gets the number of threads, or the core threads of a thread pool.
+     *
+     * @return The parallelism.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads, or the core threads of a thread pool.
+     *
+     * @param withParallelism The parallelism.
+     */
+    public void setParallelism(int withParallelism) {
+        if (withParallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        parallelism = withParallelism;
+    }
+
+    /**
+     * Gets the maximum number of threads of a thread pool. Threads above the
+     * parallelism are only started when the queue is full.
+     *
+     * @return The maximum pool size, 0 for the parallelism.
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Sets the maximum number of threads of a thread pool.
+     *
+     * @param withMaxPoolSize The maximum pool size, 0 for the parallelism.
+     */
+    public void setMaxPoolSize(int withMaxPoolSize) {
+        if (withMaxPoolSize < 0) {
+            throw new IllegalArgumentException("maxPoolSize cannot be negative");
+        }
+        maxPoolSize = withMaxPoolSize;
+    }
+
+    /**
+     * Gets the bound of a thread pool's task queue.
+     *
+     * @return The queue capacity, 0 for unbounded.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Sets the bound of a thread pool's task queue.
+     *
+     * @param withQueueCapacity The queue capacity, 0 for unbounded.
+     */
+    public void setQueueCapacity(int withQueueCapacity) {
+        if (withQueueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity cannot be negative");
+        }
+        queueCapacity = withQueueCapacity;
+    }
+
+    /**
+     * Gets what a thread pool does with a task when its queue is full.
+     *
+     * @return The rejection policy.
+     */
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    /**
+     * Sets what a thread pool does with a task when its queue is full.
+     *
+     * @param withRejectionPolicy The rejection policy.
+     */
+    public void setRejectionPolicy(RejectionPolicy withRejectionPolicy) {
+        if (withRejectionPolicy == null) {
+            throw new IllegalArgumentException("rejectionPolicy cannot be null");
+        }
+        rejectionPolicy = withRejectionPolicy;
+    }
+
+    /**
+     * Gets whether blocking work runs on virtual threads when the JVM has them.
+     *
+     * @return True to use virtual threads for blocking work.
+     */
+    public boolean getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Sets whether blocking work runs on virtual threads when the JVM has them.
+     * On older JVMs blocking work runs on the SDK executor.
+     *
+     * @param withVirtualThreads True to use virtual threads for blocking work.
+     */
+    public void setVirtualThreads(boolean withVirtualThreads) {
+        virtualThreads = withVirtualThreads;
+    }
+
+    private static <T extends Enum<T>> T parseEnum(Class<T> type, String value) {
+        String name = value.trim().toUpperCase(Locale.ROOT).replace("-", "_");
+        for (T constant : type.getEnumConstants()) {
+            if (constant.name().equals(name) || constant.name().replace("_", "").equals(name)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException(
+            String.format("Invalid %s: %s", type.getSimpleName(), value)
+        );
+    }
+}
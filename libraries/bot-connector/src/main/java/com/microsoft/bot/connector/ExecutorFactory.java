@@ -4,18 +4,67 @@
 
 package com.microsoft.bot.connector;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
 import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provides a common Executor for Future operations.
+ *
+ * <p>
+ * Executors are kept in a registry by name. The SDK uses the
+ * {@link #DEFAULT_EXECUTOR} for async work, the {@link #BLOCKING_EXECUTOR} for
+ * work that blocks on I/O, and the {@link #TIMER_EXECUTOR} for timers. The
+ * default and blocking executors are built from an {@link ExecutorConfiguration}
+ * read from the system properties, and can be rebuilt with
+ * {@link #configure(ExecutorConfiguration)} or replaced with
+ * {@link #register(String, ExecutorService)}. {@link #getMetrics()} reports
+ * the load of every registered executor.
+ * </p>
  */
 public final class ExecutorFactory {
-    private ExecutorFactory() {
+    /**
+     * The name of the executor for async calls.
+     */
+    public static final String DEFAULT_EXECUTOR = "default";
 
-    }
+    /**
+     * The name of the executor for work that blocks on I/O. Unless virtual
+     * threads are configured, this is the default executor.
+     */
+    public static final String BLOCKING_EXECUTOR = "blocking";
+
+    /**
+     * The name of the timer executor.
+     */
+    public static final String TIMER_EXECUTOR = "timer";
+
+    /**
+     * How long idle threads above the core size of a thread pool are kept.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static Logger logger = LoggerFactory.getLogger(ExecutorFactory.class);
 
     private static ForkJoinWorkerThreadFactory factory = new ForkJoinWorkerThreadFactory() {
         @Override
@@ -27,15 +76,213 @@ public final class ExecutorFactory {
         }
     };
 
-    private static ExecutorService executor =
-        new ForkJoinPool(Runtime.getRuntime().availableProcessors() * 2, factory, null, false);
+    private static Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
+
+    /**
+     * The executors built by {@link #configure(ExecutorConfiguration)}, which are
+     * let go idle when they are replaced.
+     */
+    private static Set<ExecutorService> owned = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    static {
+        executors.put(TIMER_EXECUTOR, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Bot-Timer");
+            thread.setDaemon(true);
+            return thread;
+        }));
+
+        ExecutorConfiguration configuration;
+        try {
+            configuration = ExecutorConfiguration.fromProperties(System.getProperties());
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid executor settings, using the defaults: {}", e.getMessage());
+            configuration = new ExecutorConfiguration();
+        }
+        configure(configuration);
+    }
+
+    private ExecutorFactory() {
+
+    }
 
     /**
      * Provides an SDK wide ExecutorService for async calls.
-     * 
+     *
      * @return An ExecutorService.
      */
     public static ExecutorService getExecutor() {
+        return executors.get(DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Provides a registered ExecutorService.
+     *
+     * @param name The executor name.
+     * @return The executor registered with the name, or the default executor if
+     *         there is none.
+     */
+    public static ExecutorService getExecutor(String name) {
+        ExecutorService executor = executors.get(name);
+        return executor != null ? executor : getExecutor();
+    }
+
+    /**
+     * Provides the ExecutorService for work that blocks a thread, such as
+     * synchronous I/O.
+     *
+     * @return An ExecutorService.
+     */
+    public static ExecutorService getBlockingExecutor() {
+        return getExecutor(BLOCKING_EXECUTOR);
+    }
+
+    /**
+     * Provides an SDK wide timer for delayed and periodic work. Its single
+     * thread only fires timers; scheduled work should hand anything
+     * substantial to {@link #getExecutor()}.
+     *
+     * @return A ScheduledExecutorService.
+     */
+    public static ScheduledExecutorService getScheduler() {
+        return (ScheduledExecutorService) executors.get(TIMER_EXECUTOR);
+    }
+
+    /**
+     * Registers an executor by name, replacing any executor with that name. The
+     * caller owns the executor and is responsible for shutting it down.
+     *
+     * @param name     The executor name.
+     * @param executor The executor.
+     */
+    public static void register(String name, ExecutorService executor) {
+        if (name == null || executor == null) {
+            throw new IllegalArgumentException("name and executor cannot be null");
+        }
+        if (TIMER_EXECUTOR.equals(name) && !(executor instanceof ScheduledExecutorService)) {
+            throw new IllegalArgumentException("The timer executor must be a ScheduledExecutorService");
+        }
+
+        retire(executors.put(name, executor));
+    }
+
+    /**
+     * Removes a registered executor, so that the name falls back to the default
+     * executor. The executor is not shut down. The default and timer executors
+     * can only be replaced, not removed.
+     *
+     * @param name The executor name.
+     * @return The executor that was registered with the name, or null if there
+     *         was none.
+     */
+    public static ExecutorService unregister(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("name cannot be null");
+        }
+        if (DEFAULT_EXECUTOR.equals(name) || TIMER_EXECUTOR.equals(name)) {
+            throw new IllegalArgumentException(String.format("The %s executor cannot be removed", name));
+        }
+
+        ExecutorService executor = executors.remove(name);
+        retire(executor);
         return executor;
     }
+
+    /**
+     * Rebuilds the default and blocking executors.
+     *
+     * <p>
+     * Code that got the previous executors before the call, such as a
+     * continuation captured earlier or a bean created from
+     * {@link #getExecutor()}, may keep using them. The previous executors are
+     * therefore not shut down: they keep running the tasks queued and submitted
+     * to them, and their threads exit once they are idle. Call this method
+     * before the bot starts so that all work runs on the new executors.
+     * </p>
+     *
+     * @param configuration The executor settings.
+     */
+    public static synchronized void configure(ExecutorConfiguration configuration) {
+        if (configuration == null) {
+            throw new IllegalArgumentException("configuration cannot be null");
+        }
+
+        ExecutorService executor = createExecutor(configuration);
+        owned.add(executor);
+        ExecutorService previous = executors.put(DEFAULT_EXECUTOR, executor);
+
+        ExecutorService blocking = null;
+        if (configuration.getVirtualThreads()) {
+            blocking = VirtualThreadExecutor.create();
+            if (blocking == null) {
+                logger.warn("Virtual threads are not supported by this JVM, blocking work uses the default executor");
+            }
+        }
+
+        ExecutorService previousBlocking;
+        if (blocking != null) {
+            owned.add(blocking);
+            previousBlocking = executors.put(BLOCKING_EXECUTOR, blocking);
+        } else {
+            previousBlocking = executors.remove(BLOCKING_EXECUTOR);
+        }
+
+        retire(previous);
+        retire(previousBlocking);
+    }
+
+    /**
+     * Takes a snapshot of the load of every registered executor.
+     *
+     * @return The metrics, one per executor.
+     */
+    public static List<ExecutorMetrics> getMetrics() {
+        List<ExecutorMetrics> metrics = new ArrayList<>();
+        executors.forEach((name, executor) -> metrics.add(ExecutorMetrics.of(name, executor)));
+        return metrics;
+    }
+
+    private static ExecutorService createExecutor(ExecutorConfiguration configuration) {
+        if (configuration.getMode() == ExecutorConfiguration.Mode.FORK_JOIN) {
+            return new ForkJoinPool(configuration.getParallelism(), factory, null, false);
+        }
+
+        BlockingQueue<Runnable> queue = configuration.getQueueCapacity() > 0
+            ? new ArrayBlockingQueue<>(configuration.getQueueCapacity())
+            : new LinkedBlockingQueue<>();
+        RejectedExecutionHandler rejection =
+            configuration.getRejectionPolicy() == ExecutorConfiguration.RejectionPolicy.CALLER_RUNS
+                ? new ThreadPoolExecutor.CallerRunsPolicy()
+                : new ThreadPoolExecutor.AbortPolicy();
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "Bot-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return new ThreadPoolExecutor(
+            configuration.getParallelism(),
+            Math.max(configuration.getParallelism(), configuration.getMaxPoolSize()),
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            queue,
+            threadFactory,
+            rejection
+        );
+    }
+
+    /**
+     * Lets an executor built by the factory go idle once it is replaced. It is
+     * not shut down, as it may still be held by code that got it earlier.
+     *
+     * @param executor The replaced executor, or null.
+     */
+    private static void retire(ExecutorService executor) {
+        // fork join workers already exit when the pool is idle
+        if (executor != null && owned.remove(executor) && !executors.containsValue(executor)
+            && executor instanceof ThreadPoolExecutor) {
+            ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+        }
+    }
 }
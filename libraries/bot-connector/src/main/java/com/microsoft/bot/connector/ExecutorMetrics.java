@@ -0,0 +1,158 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * A point in time snapshot of an executor's load. Counts an executor does not
+ * track are -1.
+ */
+public class ExecutorMetrics {
+    private final String name;
+    private final int poolSize;
+    private final int activeCount;
+    private final long queuedCount;
+    private final long completedCount;
+    private final long stealCount;
+
+    /**
+     * Initializes a new instance of the ExecutorMetrics class.
+     *
+     * @param withName           The executor name.
+     * @param withPoolSize       The number of threads.
+     * @param withActiveCount    The number of threads running tasks.
+     * @param withQueuedCount    The number of tasks waiting to run.
+     * @param withCompletedCount The number of tasks run.
+     * @param withStealCount     The number of tasks stolen between threads.
+     */
+    public ExecutorMetrics(
+        String withName,
+        int withPoolSize,
+        int withActiveCount,
+        long withQueuedCount,
+        long withCompletedCount,
+        long withStealCount
+    ) {
+        name = withName;
+        poolSize = withPoolSize;
+        activeCount = withActiveCount;
+        queuedCount = withQueuedCount;
+        completedCount = withCompletedCount;
+        stealCount = withStealCount;
+    }
+
+    /**
+     * Takes a snapshot of an executor.
+     *
+     * @param name     The executor name.
+     * @param executor The executor.
+     * @return The snapshot.
+     */
+    public static ExecutorMetrics of(String name, Executor executor) {
+        if (executor instanceof ForkJoinPool) {
+            ForkJoinPool pool = (ForkJoinPool) executor;
+            return new ExecutorMetrics(
+                name,
+                pool.getPoolSize(),
+                pool.getActiveThreadCount(),
+                pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount(),
+                -1,
+                pool.getStealCount()
+            );
+        }
+
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            return new ExecutorMetrics(
+                name,
+                pool.getPoolSize(),
+                pool.getActiveCount(),
+                pool.getQueue().size(),
+                pool.getCompletedTaskCount(),
+                executor instanceof ScheduledThreadPoolExecutor ? -1 : 0
+            );
+        }
+
+        if (executor instanceof VirtualThreadExecutor) {
+            VirtualThreadExecutor virtual = (VirtualThreadExecutor) executor;
+            return new ExecutorMetrics(
+                name, virtual.getActiveCount(), virtual.getActiveCount(), 0, virtual.getCompletedCount(), -1
+            );
+        }
+
+        return new ExecutorMetrics(name, -1, -1, -1, -1, -1);
+    }
+
+    /**
+     * Gets the executor name.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of threads.
+     *
+     * @return The pool size.
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Gets the number of threads running tasks.
+     *
+     * @return The active thread count.
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * Gets the number of tasks waiting to run. A count that keeps growing means
+     * the executor is saturated.
+     *
+     * @return The queue depth.
+     */
+    public long getQueuedCount() {
+        return queuedCount;
+    }
+
+    /**
+     * Gets the number of tasks run so far.
+     *
+     * @return The completed task count.
+     */
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    /**
+     * Gets the number of tasks one thread took from another's queue.
+     *
+     * @return The steal count.
+     */
+    public long getStealCount() {
+        return stealCount;
+    }
+
+    /**
+     * Formats the snapshot for logging.
+     *
+     * @return The metrics as text.
+     */
+    @Override
+    public String toString() {
+        return String.format(
+            "%s: pool=%d active=%d queued=%d completed=%d steals=%d",
+            name, poolSize, activeCount, queuedCount, completedCount, stealCount
+        );
+    }
+}
@@ -0,0 +1,125 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs each task on a new virtual thread, counting the running and completed
+ * tasks. The SDK is built for Java 8, so virtual threads are found by
+ * reflection and {@link #create()} returns null on JVMs without them.
+ */
+final class VirtualThreadExecutor extends AbstractExecutorService {
+    private final ThreadFactory threadFactory;
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final Object terminated = new Object();
+    private volatile boolean shutdown;
+
+    private VirtualThreadExecutor(ThreadFactory withThreadFactory) {
+        threadFactory = withThreadFactory;
+    }
+
+    /**
+     * Creates an executor if the JVM supports virtual threads.
+     *
+     * @return The executor, or null if virtual threads are not available.
+     */
+    static VirtualThreadExecutor create() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method name = builder.getClass().getMethod("name", String.class, long.class);
+            name.setAccessible(true);
+            builder = name.invoke(builder, "Bot-Virtual-", 0L);
+            Method factory = builder.getClass().getMethod("factory");
+            factory.setAccessible(true);
+            return new VirtualThreadExecutor((ThreadFactory) factory.invoke(builder));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the number of tasks running.
+     *
+     * @return The active task count.
+     */
+    int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Gets the number of tasks run so far.
+     *
+     * @return The completed task count.
+     */
+    long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+
+        activeCount.incrementAndGet();
+        threadFactory.newThread(() -> {
+            try {
+                command.run();
+            } finally {
+                completedCount.incrementAndGet();
+                if (activeCount.decrementAndGet() == 0 && shutdown) {
+                    synchronized (terminated) {
+                        terminated.notifyAll();
+                    }
+                }
+            }
+        }).start();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && activeCount.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (terminated) {
+            while (!isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(terminated, remaining);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,153 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.authentication;
+
+import com.microsoft.aad.msal4j.IAuthenticationResult;
+import com.microsoft.bot.connector.Async;
+import com.microsoft.bot.connector.ExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the access token of an {@link AppCredentials} ready for outgoing
+ * requests.
+ *
+ * <p>
+ * The token is kept in memory and refreshed in the background before it
+ * expires, so requests get it without waiting. Only the first request, or one
+ * made after the token could not be refreshed in time, waits for a token to be
+ * acquired. Only one acquisition runs at a time: requests that need a token
+ * while one is being acquired share it. If a background refresh fails, the
+ * current token is used while it is valid, and the refresh is retried.
+ * </p>
+ */
+final class AccessTokenManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccessTokenManager.class);
+    private static final int REFRESH_AHEAD_MINUTES = 5;
+    private static final int RETRY_SECONDS = 30;
+    private static final long REFRESH_AHEAD_MILLIS = Duration.ofMinutes(REFRESH_AHEAD_MINUTES).toMillis();
+    private static final long EXPIRY_MARGIN_MILLIS = Duration.ofMinutes(1).toMillis();
+    private static final long RETRY_MILLIS = Duration.ofSeconds(RETRY_SECONDS).toMillis();
+
+    private final Supplier<CompletableFuture<IAuthenticationResult>> acquire;
+    private final LongSupplier clock;
+
+    private volatile IAuthenticationResult current;
+    private final AtomicReference<CompletableFuture<IAuthenticationResult>> refreshing = new AtomicReference<>();
+    private volatile long lastAttempt;
+    private ScheduledFuture<?> nextRefresh;
+
+    /**
+     * Creates a manager.
+     *
+     * @param withAcquire Acquires a new token.
+     */
+    AccessTokenManager(Supplier<CompletableFuture<IAuthenticationResult>> withAcquire) {
+        this(withAcquire, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a manager with a clock.
+     *
+     * @param withAcquire Acquires a new token.
+     * @param withClock   The current time in milliseconds.
+     */
+    AccessTokenManager(Supplier<CompletableFuture<IAuthenticationResult>> withAcquire, LongSupplier withClock) {
+        acquire = withAcquire;
+        clock = withClock;
+    }
+
+    /**
+     * Gets a valid access token.
+     *
+     * @return A future that is already complete if a valid token is cached.
+     */
+    CompletableFuture<String> getToken() {
+        IAuthenticationResult token = current;
+        long now = clock.getAsLong();
+
+        if (token != null && now < expiresAt(token) - EXPIRY_MARGIN_MILLIS) {
+            if (now >= expiresAt(token) - REFRESH_AHEAD_MILLIS && now >= lastAttempt + RETRY_MILLIS) {
+                refresh();
+            }
+            return CompletableFuture.completedFuture(token.accessToken());
+        }
+
+        return refresh().thenApply(IAuthenticationResult::accessToken);
+    }
+
+    /**
+     * Starts acquiring a token unless an acquisition is running.
+     *
+     * @return The running acquisition.
+     */
+    private CompletableFuture<IAuthenticationResult> refresh() {
+        CompletableFuture<IAuthenticationResult> result = new CompletableFuture<>();
+        while (!refreshing.compareAndSet(null, result)) {
+            CompletableFuture<IAuthenticationResult> running = refreshing.get();
+            if (running != null) {
+                return running;
+            }
+        }
+
+        lastAttempt = clock.getAsLong();
+        Async.tryCompletable(acquire::get).whenComplete((token, ex) -> {
+            if (ex == null && token != null) {
+                current = token;
+                scheduleRefresh(Math.max(
+                    expiresAt(token) - REFRESH_AHEAD_MILLIS - clock.getAsLong(), RETRY_MILLIS
+                ));
+            } else if (current != null) {
+                LOGGER.warn("Failed to refresh the access token", ex);
+                scheduleRefresh(RETRY_MILLIS);
+            }
+
+            refreshing.set(null);
+            if (ex != null) {
+                result.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null
+                    ? ex.getCause()
+                    : ex);
+            } else if (token == null) {
+                result.completeExceptionally(new AuthenticationException("No access token was acquired"));
+            } else {
+                result.complete(token);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Schedules a background refresh. The task does not keep the manager from
+     * being collected once its credentials are no longer used.
+     *
+     * @param delayMillis The delay.
+     */
+    private synchronized void scheduleRefresh(long delayMillis) {
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+        }
+
+        WeakReference<AccessTokenManager> manager = new WeakReference<>(this);
+        nextRefresh = ExecutorFactory.getScheduler().schedule(() -> {
+            AccessTokenManager target = manager.get();
+            if (target != null) {
+                target.refresh();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static long expiresAt(IAuthenticationResult token) {
+        return token.expiresOnDate() != null ? token.expiresOnDate().getTime() : 0;
+    }
+}
@@ -4,17 +4,15 @@
 package com.microsoft.bot.connector.authentication;
 
 import com.microsoft.aad.msal4j.IAuthenticationResult;
+import com.microsoft.bot.connector.Async;
 import com.microsoft.bot.restclient.credentials.ServiceClientCredentials;
 import okhttp3.OkHttpClient;
 import org.apache.commons.lang3.StringUtils;
-import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 /**
  * Base abstraction for AAD credentials for auth and caching.
@@ -24,21 +22,21 @@ import java.util.concurrent.ConcurrentMap;
  * </p>
  */
 public abstract class AppCredentials implements ServiceClientCredentials {
-    private static final int EXPIRATION_SLACK = 5;
     private static final int EXPIRATION_DAYS = 1;
-    private static ConcurrentMap<String, LocalDateTime> trustHostNames = new ConcurrentHashMap<>();
+    private static final TrustedHostRegistry TRUSTED_HOSTS = new TrustedHostRegistry();
 
     static {
-        trustHostNames.put("api.botframework.com", LocalDateTime.MAX);
-        trustHostNames.put("token.botframework.com", LocalDateTime.MAX);
-        trustHostNames.put("api.botframework.azure.us", LocalDateTime.MAX);
-        trustHostNames.put("token.botframework.azure.us", LocalDateTime.MAX);
+        TRUSTED_HOSTS.trust("https://api.botframework.com", LocalDateTime.MAX);
+        TRUSTED_HOSTS.trust("https://token.botframework.com", LocalDateTime.MAX);
+        TRUSTED_HOSTS.trust("https://api.botframework.azure.us", LocalDateTime.MAX);
+        TRUSTED_HOSTS.trust("https://token.botframework.azure.us", LocalDateTime.MAX);
     }
 
     private String appId;
     private String authTenant;
     private String authScope;
-    private Authenticator authenticator;
+    private volatile Authenticator authenticator;
+    private final AccessTokenManager tokenManager = new AccessTokenManager(this::acquireToken);
 
     /**
      * Initializes a new instance of the AppCredentials class.
@@ -62,6 +60,16 @@ public abstract class AppCredentials implements ServiceClientCredentials {
             : withOAuthScope;
     }
 
+    /**
+     * Gets the registry of trusted service url hosts, for example to save it
+     * and load it when the bot restarts.
+     *
+     * @return The trusted hosts.
+     */
+    public static TrustedHostRegistry getTrustedHosts() {
+        return TRUSTED_HOSTS;
+    }
+
     /**
      * Adds the host of service url to trusted hosts.
      *
@@ -83,12 +91,7 @@ public abstract class AppCredentials implements ServiceClientCredentials {
      *                       trusted anymore.
      */
     public static void trustServiceUrl(String serviceUrl, LocalDateTime expirationTime) {
-        try {
-            URL url = new URL(serviceUrl);
-            trustServiceUrl(url, expirationTime);
-        } catch (MalformedURLException e) {
-            LoggerFactory.getLogger(MicrosoftAppCredentials.class).error("trustServiceUrl", e);
-        }
+        TRUSTED_HOSTS.trust(serviceUrl, expirationTime);
     }
 
     /**
@@ -99,7 +102,7 @@ public abstract class AppCredentials implements ServiceClientCredentials {
      *                       trusted anymore.
      */
     public static void trustServiceUrl(URL serviceUrl, LocalDateTime expirationTime) {
-        trustHostNames.put(serviceUrl.getHost(), expirationTime);
+        TRUSTED_HOSTS.trust(serviceUrl, expirationTime);
     }
 
     /**
@@ -109,13 +112,7 @@ public abstract class AppCredentials implements ServiceClientCredentials {
      * @return true if the service is trusted.
      */
     public static boolean isTrustedServiceUrl(String serviceUrl) {
-        try {
-            URL url = new URL(serviceUrl);
-            return isTrustedServiceUrl(url);
-        } catch (MalformedURLException e) {
-            LoggerFactory.getLogger(AppCredentials.class).error("trustServiceUrl", e);
-            return false;
-        }
+        return TRUSTED_HOSTS.isTrusted(serviceUrl);
     }
 
     /**
@@ -125,8 +122,7 @@ public abstract class AppCredentials implements ServiceClientCredentials {
      * @return true if the service is trusted.
      */
     public static boolean isTrustedServiceUrl(URL serviceUrl) {
-        return !trustHostNames.getOrDefault(serviceUrl.getHost(), LocalDateTime.MIN)
-            .isBefore(LocalDateTime.now().minusMinutes(EXPIRATION_SLACK));
+        return TRUSTED_HOSTS.isTrusted(serviceUrl);
     }
 
     /**
@@ -217,21 +213,24 @@ public abstract class AppCredentials implements ServiceClientCredentials {
     /**
      * Gets an OAuth access token.
      *
+     * <p>
+     * The token is cached and refreshed in the background before it expires, so
+     * the result is usually already complete.
+     * </p>
+     *
      * @return If the task is successful, the result contains the access token
      *         string.
      */
     public CompletableFuture<String> getToken() {
-        CompletableFuture<String> result;
+        return tokenManager.getToken();
+    }
 
+    private CompletableFuture<IAuthenticationResult> acquireToken() {
         try {
-            result = getAuthenticator().acquireToken()
-                .thenApply(IAuthenticationResult::accessToken);
+            return getAuthenticator().acquireToken();
         } catch (MalformedURLException e) {
-            result = new CompletableFuture<>();
-            result.completeExceptionally(new AuthenticationException(e));
+            return Async.completeExceptionally(new AuthenticationException(e));
         }
-
-        return result;
     }
 
     /**
@@ -247,10 +246,17 @@ public abstract class AppCredentials implements ServiceClientCredentials {
 
     // lazy Authenticator create.
     private Authenticator getAuthenticator() throws MalformedURLException {
-        if (authenticator == null) {
-            authenticator = buildAuthenticator();
+        Authenticator result = authenticator;
+        if (result == null) {
+            synchronized (this) {
+                result = authenticator;
+                if (result == null) {
+                    result = buildAuthenticator();
+                    authenticator = result;
+                }
+            }
         }
-        return authenticator;
+        return result;
     }
 
     /**
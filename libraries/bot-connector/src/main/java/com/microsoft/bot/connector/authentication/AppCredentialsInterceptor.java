@@ -11,6 +11,11 @@ import java.io.IOException;
 
 /**
  * Token credentials filter for placing a token credential into request headers.
+ *
+ * <p>
+ * The credentials keep their token cached and refreshed ahead of expiry, so
+ * the request thread normally attaches it without waiting.
+ * </p>
  */
 public class AppCredentialsInterceptor implements Interceptor {
     /**
@@ -5,45 +5,131 @@ package com.microsoft.bot.connector.authentication;
 
 import com.auth0.jwk.Jwk;
 import com.auth0.jwk.JwkException;
-import com.auth0.jwk.SigningKeyNotFoundException;
 import com.auth0.jwk.UrlJwkProvider;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.bot.connector.ExecutorFactory;
 
 import java.io.IOException;
 import java.net.URL;
 import java.security.interfaces.RSAPublicKey;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Maintains a cache of OpenID metadata keys.
+ *
+ * <p>
+ * Keys are served from an immutable snapshot that a refresh replaces
+ * atomically, so reading a key never waits on another request. Only one
+ * refresh runs at a time. The keys are refreshed in the background before they
+ * expire, and a request that finds them expired triggers a background refresh
+ * but is served the expired keys meanwhile. If a refresh fails, the previous
+ * keys are kept and the refresh is retried later. A request only waits for the
+ * network when there are no keys yet, or when its key is unknown and the keys
+ * have not been refreshed within the last hour.
+ * </p>
  */
 class CachingOpenIdMetadata implements OpenIdMetadata {
     private static final Logger LOGGER = LoggerFactory.getLogger(CachingOpenIdMetadata.class);
-    private static final int CACHE_DAYS = 1;
-    private static final int CACHE_HOURS = 1;
+    private static final long CACHE_MILLIS = Duration.ofDays(1).toMillis();
+    private static final long MISS_REFRESH_MILLIS = Duration.ofHours(1).toMillis();
+    private static final long REFRESH_AHEAD_MILLIS = Duration.ofHours(1).toMillis();
+    private static final long RETRY_MILLIS = Duration.ofMinutes(1).toMillis();
 
-    private String url;
-    private long lastUpdated;
-    private ObjectMapper mapper;
-    private Map<String, Jwk> keyCache = new HashMap<>();
-    private final Object sync = new Object();
+    /**
+     * Fetches the keys of an OpenID metadata url.
+     */
+    interface KeyFetcher {
+        /**
+         * Fetches the keys.
+         *
+         * @param url The OpenID metadata url.
+         * @return The keys by id.
+         * @throws IOException  The metadata or keys could not be fetched.
+         * @throws JwkException The keys could not be read.
+         */
+        Map<String, OpenIdMetadataKey> fetch(String url) throws IOException, JwkException;
+    }
+
+    /**
+     * The keys of one refresh.
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyMap(), 0);
+
+        private final Map<String, OpenIdMetadataKey> keys;
+        private final long fetchedAt;
+
+        Snapshot(Map<String, OpenIdMetadataKey> withKeys, long withFetchedAt) {
+            keys = withKeys;
+            fetchedAt = withFetchedAt;
+        }
+    }
+
+    private final String url;
+    private final KeyFetcher fetcher;
+    private final LongSupplier clock;
+    private final Executor executor;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final AtomicReference<CompletableFuture<Snapshot>> refreshing = new AtomicReference<>();
+    private volatile long lastAttempt;
+    private ScheduledFuture<?> nextRefresh;
+
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder refreshFailureCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private volatile long lastRefreshLatencyMillis;
 
     /**
      * Constructs a OpenIdMetaData cache for a url.
-     * 
+     *
      * @param withUrl The url.
      */
     CachingOpenIdMetadata(String withUrl) {
+        this(withUrl, CachingOpenIdMetadata::fetchKeys, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a OpenIdMetaData cache with a key source and clock.
+     *
+     * @param withUrl     The url.
+     * @param withFetcher Fetches the keys.
+     * @param withClock   The current time in milliseconds.
+     */
+    CachingOpenIdMetadata(String withUrl, KeyFetcher withFetcher, LongSupplier withClock) {
+        this(withUrl, withFetcher, withClock, runnable -> ExecutorFactory.getBlockingExecutor().execute(runnable));
+    }
+
+    /**
+     * Constructs a OpenIdMetaData cache with a key source, clock and executor for
+     * background refreshes.
+     *
+     * @param withUrl      The url.
+     * @param withFetcher  Fetches the keys.
+     * @param withClock    The current time in milliseconds.
+     * @param withExecutor Runs background refreshes.
+     */
+    CachingOpenIdMetadata(String withUrl, KeyFetcher withFetcher, LongSupplier withClock, Executor withExecutor) {
         url = withUrl;
-        mapper = new ObjectMapper().findAndRegisterModules();
+        fetcher = withFetcher;
+        clock = withClock;
+        executor = withExecutor;
     }
 
     /**
@@ -58,62 +144,142 @@ class CachingOpenIdMetadata implements OpenIdMetadata {
      */
     @Override
     public OpenIdMetadataKey getKey(String keyId) {
-        synchronized (sync) {
-            // If keys are more than CACHE_DAYS days old, refresh them
-            if (lastUpdated < System.currentTimeMillis() - Duration.ofDays(CACHE_DAYS).toMillis()) {
-                refreshCache();
+        Snapshot current = snapshot;
+        long now = clock.getAsLong();
+
+        if (current.fetchedAt == 0) {
+            // nothing to serve yet
+            current = awaitRefresh();
+        } else if (current.fetchedAt < now - CACHE_MILLIS && lastAttempt < now - RETRY_MILLIS) {
+            // serve the expired keys while they are refreshed
+            refresh(false);
+        }
+
+        OpenIdMetadataKey key = current.keys.get(keyId);
+        if (key == null) {
+            missCount.increment();
+
+            // Refresh the cache if a key is not found (max once per hour)
+            if (lastAttempt < now - MISS_REFRESH_MILLIS) {
+                key = awaitRefresh().keys.get(keyId);
             }
 
-            // Search the cache even if we failed to refresh
-            OpenIdMetadataKey key = findKey(keyId);
-            if (key == null && lastUpdated < System.currentTimeMillis() - Duration.ofHours(CACHE_HOURS).toMillis()) {
-                // Refresh the cache if a key is not found (max once per CACHE_HOURS)
-                refreshCache();
-                key = findKey(keyId);
+            if (key == null) {
+                LOGGER.warn("findKey: keyId " + keyId + " doesn't exist.");
             }
-            return key;
         }
+        return key;
     }
 
-    private void refreshCache() {
-        keyCache.clear();
+    /**
+     * Takes a snapshot of the cache's metrics.
+     *
+     * @return The metrics.
+     */
+    OpenIdMetadataMetrics getMetrics() {
+        Snapshot current = snapshot;
+        return new OpenIdMetadataMetrics(
+            url,
+            current.keys.size(),
+            current.fetchedAt,
+            lastRefreshLatencyMillis,
+            refreshCount.sum(),
+            refreshFailureCount.sum(),
+            missCount.sum()
+        );
+    }
+
+    private Snapshot awaitRefresh() {
+        return refresh(true).join();
+    }
+
+    /**
+     * Starts a refresh unless one is running.
+     *
+     * @param inline True to fetch on the calling thread if this call starts the
+     *               refresh, false to fetch on the blocking executor.
+     * @return The running refresh. It completes with the new keys, or with the
+     *         previous keys if the refresh fails or can't be started.
+     */
+    private CompletableFuture<Snapshot> refresh(boolean inline) {
+        CompletableFuture<Snapshot> refresh = new CompletableFuture<>();
+        while (!refreshing.compareAndSet(null, refresh)) {
+            CompletableFuture<Snapshot> running = refreshing.get();
+            if (running != null) {
+                return running;
+            }
+        }
+
+        lastAttempt = clock.getAsLong();
+        if (inline) {
+            runRefresh(refresh);
+        } else {
+            try {
+                executor.execute(() -> runRefresh(refresh));
+            } catch (RejectedExecutionException e) {
+                // keep the current keys, a later request retries
+                LOGGER.warn(String.format("Failed to start openID config refresh: %s", e.getMessage()));
+                refreshing.set(null);
+                refresh.complete(snapshot);
+            }
+        }
+        return refresh;
+    }
 
+    private void runRefresh(CompletableFuture<Snapshot> refresh) {
+        long start = System.nanoTime();
+        Snapshot result;
         try {
-            URL openIdUrl = new URL(this.url);
-            HashMap<String, Object> openIdConf =
-                this.mapper.readValue(openIdUrl, new TypeReference<HashMap<String, Object>>() {
-                });
-            URL keysUrl = new URL(openIdConf.get("jwks_uri").toString());
-            lastUpdated = System.currentTimeMillis();
-            UrlJwkProvider provider = new UrlJwkProvider(keysUrl);
-            keyCache = provider.getAll().stream().collect(Collectors.toMap(Jwk::getId, jwk -> jwk));
-        } catch (IOException e) {
+            result = new Snapshot(Collections.unmodifiableMap(fetcher.fetch(url)), clock.getAsLong());
+            snapshot = result;
+            refreshCount.increment();
+            lastRefreshLatencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } catch (IOException | JwkException | RuntimeException e) {
             LOGGER.error(String.format("Failed to load openID config: %s", e.getMessage()));
-            lastUpdated = 0;
-        } catch (SigningKeyNotFoundException keyexception) {
-            LOGGER.error("refreshCache", keyexception);
-            lastUpdated = 0;
+            refreshFailureCount.increment();
+            result = null;
         }
+
+        refreshing.set(null);
+        refresh.complete(result != null ? result : snapshot);
+        scheduleRefresh(result != null ? CACHE_MILLIS - REFRESH_AHEAD_MILLIS : RETRY_MILLIS);
     }
 
-    @SuppressWarnings("unchecked")
-    private OpenIdMetadataKey findKey(String keyId) {
-        if (!keyCache.containsKey(keyId)) {
-            LOGGER.warn("findKey: keyId " + keyId + " doesn't exist.");
-            return null;
+    private synchronized void scheduleRefresh(long delayMillis) {
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
         }
-
         try {
-            Jwk jwk = keyCache.get(keyId);
-            OpenIdMetadataKey key = new OpenIdMetadataKey();
-            key.key = (RSAPublicKey) jwk.getPublicKey();
-            key.endorsements = (List<String>) jwk.getAdditionalAttributes().get("endorsements");
-            key.certificateChain = jwk.getCertificateChain();
-            return key;
-        } catch (JwkException e) {
-            String errorDescription = String.format("Failed to load keys: %s", e.getMessage());
-            LOGGER.warn(errorDescription);
+            nextRefresh = ExecutorFactory.getScheduler().schedule(
+                () -> refresh(false), delayMillis, TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException e) {
+            // requests still refresh expired or missing keys
+            LOGGER.warn(String.format("Failed to schedule openID config refresh: %s", e.getMessage()));
+            nextRefresh = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, OpenIdMetadataKey> fetchKeys(String metadataUrl) throws IOException, JwkException {
+        URL openIdUrl = new URL(metadataUrl);
+        HashMap<String, Object> openIdConf = new ObjectMapper().findAndRegisterModules()
+            .readValue(openIdUrl, new TypeReference<HashMap<String, Object>>() {
+            });
+        URL keysUrl = new URL(openIdConf.get("jwks_uri").toString());
+
+        Map<String, OpenIdMetadataKey> keys = new HashMap<>();
+        for (Jwk jwk : new UrlJwkProvider(keysUrl).getAll()) {
+            try {
+                OpenIdMetadataKey key = new OpenIdMetadataKey();
+                key.key = (RSAPublicKey) jwk.getPublicKey();
+                key.endorsements = (List<String>) jwk.getAdditionalAttributes().get("endorsements");
+                key.certificateChain = jwk.getCertificateChain();
+                keys.put(jwk.getId(), key);
+            } catch (JwkException e) {
+                LOGGER.warn(String.format("Failed to load keys: %s", e.getMessage()));
+            }
         }
-        return null;
+        return keys;
     }
 }
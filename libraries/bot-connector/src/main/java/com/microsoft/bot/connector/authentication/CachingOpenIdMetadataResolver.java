@@ -3,8 +3,10 @@
 
 package com.microsoft.bot.connector.authentication;
 
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
 
 /**
  * Maintains a cache of OpenIdMetadata objects.
@@ -24,4 +26,14 @@ public class CachingOpenIdMetadataResolver implements OpenIdMetadataResolver {
         return OPENID_METADATA_CACHE
             .computeIfAbsent(metadataUrl, key -> new CachingOpenIdMetadata(metadataUrl));
     }
+
+    /**
+     * Takes a snapshot of the metrics of every cached OpenIdMetadata.
+     * @return The metrics, one per metadata url.
+     */
+    public static List<OpenIdMetadataMetrics> getMetrics() {
+        return OPENID_METADATA_CACHE.values().stream()
+            .map(CachingOpenIdMetadata::getMetrics)
+            .collect(Collectors.toList());
+    }
 }
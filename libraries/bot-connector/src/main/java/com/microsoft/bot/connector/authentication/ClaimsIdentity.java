@@ -6,6 +6,7 @@ package com.microsoft.bot.connector.authentication;
 import com.auth0.jwt.interfaces.DecodedJWT;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -14,6 +15,7 @@ import java.util.Map;
 public class ClaimsIdentity {
     private String issuer;
     private Map<String, String> claims;
+    private List<String> endorsements;
 
     private ClaimsIdentity() {
         this("", new HashMap<>());
@@ -78,4 +80,24 @@ public class ClaimsIdentity {
     public String getIssuer() {
         return issuer;
     }
+
+    /**
+     * The endorsements of the key that signed the token. They are kept so that
+     * the channel of an activity can be checked against them once the activity
+     * has been read.
+     *
+     * @return The endorsements, or null if the signing key has none.
+     */
+    public List<String> getEndorsements() {
+        return endorsements;
+    }
+
+    /**
+     * Sets the endorsements of the key that signed the token.
+     *
+     * @param withEndorsements The endorsements.
+     */
+    void setEndorsements(List<String> withEndorsements) {
+        endorsements = withEndorsements;
+    }
 }
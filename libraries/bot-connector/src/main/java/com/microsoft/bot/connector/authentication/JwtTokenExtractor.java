@@ -8,13 +8,22 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.Verification;
+import com.microsoft.bot.connector.Async;
 import com.microsoft.bot.connector.ExecutorFactory;
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,12 +31,45 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Extracts relevant data from JWT Tokens.
+ *
+ * <p>
+ * The signature of a token is verified once: later requests with the same
+ * token, signed with the same key, skip the verification. The lifetime,
+ * signing certificate, endorsement and algorithm checks still run for every
+ * request.
+ * </p>
  */
 public class JwtTokenExtractor {
     private static final Logger LOGGER = LoggerFactory.getLogger(CachingOpenIdMetadata.class);
+    private static final int MAX_VERIFIED_TOKENS = 1000;
+    private static final int MAX_CERTIFICATES = 100;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Tokens whose signature was verified, by token hash. The Bot Connector
+     * sends the same token with many requests, and verifying the signature is
+     * the most expensive part of authenticating one, so it is only done once
+     * per token. Least recently used tokens are dropped first.
+     */
+    private static final Map<String, VerifiedToken> VERIFIED_TOKENS = Collections.synchronizedMap(
+        new LinkedHashMap<String, VerifiedToken>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > MAX_VERIFIED_TOKENS;
+            }
+        }
+    );
+
+    /**
+     * Decoded signing certificates, by encoded certificate.
+     */
+    private static final ConcurrentMap<String, X509Certificate> CERTIFICATES = new ConcurrentHashMap<>();
 
     private TokenValidationParameters tokenValidationParameters;
     private List<String> allowedSigningAlgorithms;
@@ -119,28 +161,56 @@ public class JwtTokenExtractor {
             return CompletableFuture.completedFuture(null);
         }
 
+        String tokenHash = hashToken(token);
+        VerifiedToken verified = VERIFIED_TOKENS.get(tokenHash);
+        if (verified != null) {
+            // Issuer isn't allowed? No need to check signature
+            if (!hasAllowedIssuer(verified.issuer)) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            // The signature was verified before with the same key, only the
+            // checks that depend on this request and the current time are run.
+            OpenIdMetadataKey key = this.openIdMetadata.getKey(verified.keyId);
+            if (key != null && verified.key.equals(key.key) && !isExpired(verified.expiresAt)) {
+                return Async.wrapBlock(() -> {
+                    try {
+                        validateClaims(verified.algorithm, key, channelId, requiredEndorsements);
+                    } catch (JWTVerificationException | CertificateException ex) {
+                        LOGGER.warn(ex.getMessage());
+                        throw new AuthenticationException(ex);
+                    }
+                    ClaimsIdentity identity = new ClaimsIdentity(verified.issuer, new HashMap<>(verified.claims));
+                    identity.setEndorsements(key.endorsements);
+                    return identity;
+                });
+            }
+            VERIFIED_TOKENS.remove(tokenHash);
+        }
+
+        DecodedJWT decodedJWT = JWT.decode(token);
+
         // Issuer isn't allowed? No need to check signature
-        if (!hasAllowedIssuer(token)) {
+        if (!hasAllowedIssuer(decodedJWT.getIssuer())) {
             return CompletableFuture.completedFuture(null);
         }
 
-        return validateToken(token, channelId, requiredEndorsements);
+        return validateToken(token, tokenHash, decodedJWT, channelId, requiredEndorsements);
     }
 
-    private boolean hasAllowedIssuer(String token) {
-        DecodedJWT decodedJWT = JWT.decode(token);
+    private boolean hasAllowedIssuer(String issuer) {
         return this.tokenValidationParameters.validIssuers != null
-            && this.tokenValidationParameters.validIssuers.contains(decodedJWT.getIssuer());
+            && this.tokenValidationParameters.validIssuers.contains(issuer);
     }
 
-    @SuppressWarnings("unchecked")
     private CompletableFuture<ClaimsIdentity> validateToken(
         String token,
+        String tokenHash,
+        DecodedJWT decodedJWT,
         String channelId,
         List<String> requiredEndorsements
     ) {
         return CompletableFuture.supplyAsync(() -> {
-            DecodedJWT decodedJWT = JWT.decode(token);
             OpenIdMetadataKey key = this.openIdMetadata.getKey(decodedJWT.getKeyId());
             if (key == null) {
                 return null;
@@ -150,73 +220,118 @@ public class JwtTokenExtractor {
                 .acceptLeeway(tokenValidationParameters.clockSkew.getSeconds());
             try {
                 verification.build().verify(token);
-
-                // If specified, validate the signing certificate.
-                if (
-                    tokenValidationParameters.validateIssuerSigningKey
-                    && key.certificateChain != null
-                    && key.certificateChain.size() > 0
-                ) {
-                    X509Certificate cert = decodeCertificate(key.certificateChain.get(0));
-                    if (!isCertValid(cert)) {
-                        throw new JWTVerificationException("Signing certificate is not valid");
-                    }
+                if (decodedJWT.getExpiresAt() != null) {
+                    VERIFIED_TOKENS.put(tokenHash, new VerifiedToken(decodedJWT, key.key));
                 }
 
-                // Note: On the Emulator Code Path, the endorsements collection is null so the
-                // validation code below won't run. This is normal.
-                if (key.endorsements != null) {
-                    // Validate Channel / Token Endorsements. For this, the channelID present on the
-                    // Activity needs to be matched by an endorsement.
-                    boolean isEndorsed =
-                        EndorsementsValidator.validate(channelId, key.endorsements);
-                    if (!isEndorsed) {
-                        throw new AuthenticationException(
-                            String.format(
-                                "Could not validate endorsement for key: %s with endorsements: %s",
-                                key.key.toString(), StringUtils.join(key.endorsements)
-                            )
-                        );
-                    }
-
-                    // Verify that additional endorsements are satisfied. If no additional
-                    // endorsements are expected, the requirement is satisfied as well
-                    boolean additionalEndorsementsSatisfied = requiredEndorsements.stream()
-                        .allMatch(
-                            (endorsement) -> EndorsementsValidator
-                                .validate(endorsement, key.endorsements)
-                        );
-                    if (!additionalEndorsementsSatisfied) {
-                        throw new AuthenticationException(
-                            String.format(
-                                "Could not validate additional endorsement for key: %s with endorsements: %s",
-                                key.key.toString(), StringUtils.join(requiredEndorsements)
-                            )
-                        );
-                    }
-                }
-
-                if (!this.allowedSigningAlgorithms.contains(decodedJWT.getAlgorithm())) {
-                    throw new AuthenticationException(
-                        String.format(
-                            "Could not validate algorithm for key: %s with algorithms: %s",
-                            decodedJWT.getAlgorithm(), StringUtils.join(allowedSigningAlgorithms)
-                        )
-                    );
-                }
-
-                return new ClaimsIdentity(decodedJWT);
+                validateClaims(decodedJWT.getAlgorithm(), key, channelId, requiredEndorsements);
+                ClaimsIdentity identity = new ClaimsIdentity(decodedJWT);
+                identity.setEndorsements(key.endorsements);
+                return identity;
             } catch (JWTVerificationException | CertificateException ex) {
                 LOGGER.warn(ex.getMessage());
                 throw new AuthenticationException(ex);
             }
-        }, ExecutorFactory.getExecutor());
+        }, ExecutorFactory.getBlockingExecutor());
     }
 
-    private X509Certificate decodeCertificate(String certStr) throws CertificateException {
-        byte[] decoded = Base64.getDecoder().decode(certStr);
-        return (X509Certificate) CertificateFactory
-            .getInstance("X.509").generateCertificate(new ByteArrayInputStream(decoded));
+    /**
+     * Runs the checks of a token with a verified signature.
+     *
+     * @param algorithm            The signing algorithm of the token.
+     * @param key                  The key that signed the token.
+     * @param channelId            The channel id.
+     * @param requiredEndorsements A list of endorsements that are required.
+     * @throws CertificateException    The signing certificate cannot be read.
+     * @throws AuthenticationException The token is not valid for the request.
+     */
+    private void validateClaims(
+        String algorithm,
+        OpenIdMetadataKey key,
+        String channelId,
+        List<String> requiredEndorsements
+    ) throws CertificateException {
+        // If specified, validate the signing certificate.
+        if (
+            tokenValidationParameters.validateIssuerSigningKey
+            && key.certificateChain != null
+            && key.certificateChain.size() > 0
+        ) {
+            X509Certificate cert = decodeCertificate(key.certificateChain.get(0));
+            if (!isCertValid(cert)) {
+                throw new JWTVerificationException("Signing certificate is not valid");
+            }
+        }
+
+        // Note: On the Emulator Code Path, the endorsements collection is null so the
+        // validation code below won't run. This is normal.
+        if (key.endorsements != null) {
+            // Validate Channel / Token Endorsements. For this, the channelID present on the
+            // Activity needs to be matched by an endorsement.
+            boolean isEndorsed =
+                EndorsementsValidator.validate(channelId, key.endorsements);
+            if (!isEndorsed) {
+                throw new AuthenticationException(
+                    String.format(
+                        "Could not validate endorsement for key: %s with endorsements: %s",
+                        key.key.toString(), StringUtils.join(key.endorsements)
+                    )
+                );
+            }
+
+            // Verify that additional endorsements are satisfied. If no additional
+            // endorsements are expected, the requirement is satisfied as well
+            boolean additionalEndorsementsSatisfied = requiredEndorsements.stream()
+                .allMatch(
+                    (endorsement) -> EndorsementsValidator
+                        .validate(endorsement, key.endorsements)
+                );
+            if (!additionalEndorsementsSatisfied) {
+                throw new AuthenticationException(
+                    String.format(
+                        "Could not validate additional endorsement for key: %s with endorsements: %s",
+                        key.key.toString(), StringUtils.join(requiredEndorsements)
+                    )
+                );
+            }
+        }
+
+        if (!this.allowedSigningAlgorithms.contains(algorithm)) {
+            throw new AuthenticationException(
+                String.format(
+                    "Could not validate algorithm for key: %s with algorithms: %s",
+                    algorithm, StringUtils.join(allowedSigningAlgorithms)
+                )
+            );
+        }
+    }
+
+    private boolean isExpired(Date expiresAt) {
+        long now = new Date().getTime();
+        return now > expiresAt.getTime() + tokenValidationParameters.clockSkew.toMillis();
+    }
+
+    private static String hashToken(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static X509Certificate decodeCertificate(String certStr) throws CertificateException {
+        X509Certificate cert = CERTIFICATES.get(certStr);
+        if (cert == null) {
+            byte[] decoded = Base64.getDecoder().decode(certStr);
+            cert = (X509Certificate) CertificateFactory
+                .getInstance("X.509").generateCertificate(new ByteArrayInputStream(decoded));
+            if (CERTIFICATES.size() >= MAX_CERTIFICATES) {
+                CERTIFICATES.clear();
+            }
+            CERTIFICATES.put(certStr, cert);
+        }
+        return cert;
     }
 
     private boolean isCertValid(X509Certificate cert) {
@@ -230,4 +345,27 @@ public class JwtTokenExtractor {
         long endValid = cert.getNotAfter().getTime() + clockskew;
         return now >= startValid && now <= endValid;
     }
+
+    /**
+     * What is kept of a token whose signature was verified. The token itself is
+     * not kept.
+     */
+    private static final class VerifiedToken {
+        private final String issuer;
+        private final Map<String, String> claims;
+        private final String keyId;
+        private final String algorithm;
+        private final Date expiresAt;
+        private final RSAPublicKey key;
+
+        VerifiedToken(DecodedJWT jwt, RSAPublicKey withKey) {
+            ClaimsIdentity identity = new ClaimsIdentity(jwt);
+            issuer = identity.getIssuer();
+            claims = identity.claims();
+            keyId = jwt.getKeyId();
+            algorithm = jwt.getAlgorithm();
+            expiresAt = jwt.getExpiresAt();
+            key = withKey;
+        }
+    }
 }
@@ -3,6 +3,8 @@
 
 package com.microsoft.bot.connector.authentication;
 
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
 import com.microsoft.bot.connector.Async;
 import com.microsoft.bot.schema.Activity;
 import java.util.Map;
@@ -63,18 +65,7 @@ public final class JwtTokenValidation {
     ) {
 
         if (StringUtils.isEmpty(authHeader)) {
-            // No auth header was sent. We might be on the anonymous code path.
-            return credentials.isAuthenticationDisabled().thenApply(isAuthDisable -> {
-                if (isAuthDisable) {
-                    // In the scenario where Auth is disabled, we still want to have the
-                    // IsAuthenticated flag set in the ClaimsIdentity. To do this requires
-                    // adding in an empty claim.
-                    return new ClaimsIdentity("anonymous");
-                }
-
-                // No Auth Header. Auth is required. Request is not authorized.
-                throw new AuthenticationException("No Auth Header. Auth is required.");
-            });
+            return authenticateAnonymous(credentials);
         }
 
         // Go through the standard authentication path. This will throw
@@ -92,6 +83,141 @@ public final class JwtTokenValidation {
             });
     }
 
+    /**
+     * Authenticates the Authorization header of a request before its body is
+     * read, so that requests without a valid token can be rejected without
+     * parsing the activity.
+     *
+     * <p>
+     * This verifies the token's signature, issuer, audience and lifetime. The
+     * channel endorsement and service URL checks need the activity, so
+     * {@link #authenticateActivity(ClaimsIdentity, String, Activity, ChannelProvider)}
+     * must still be called once the body has been read.
+     * </p>
+     *
+     * @param authHeader      The Bearer token included as part of the request
+     * @param credentials     The bot's credential provider.
+     * @param channelProvider The bot's channel service provider.
+     * @param authConfig      The authentication configuration.
+     * @return A task that represents the work queued to execute.
+     * @throws AuthenticationException Throws on auth failed.
+     */
+    public static CompletableFuture<ClaimsIdentity> authenticateHeader(
+        String authHeader,
+        CredentialProvider credentials,
+        ChannelProvider channelProvider,
+        AuthenticationConfiguration authConfig
+    ) {
+        if (StringUtils.isEmpty(authHeader)) {
+            return authenticateAnonymous(credentials);
+        }
+
+        // Government and enterprise validation require a service URL. Use the one the
+        // token claims; it is compared with the activity's once the body is read.
+        String serviceUrl = null;
+        if (channelProvider != null && !channelProvider.isPublicAzure()
+            && !EmulatorValidation.isTokenFromEmulator(authHeader)) {
+            serviceUrl = getServiceUrlClaim(authHeader);
+        }
+
+        return validateAuthHeader(authHeader, credentials, channelProvider, null, serviceUrl, authConfig);
+    }
+
+    /**
+     * Runs the checks of a request that need its activity, once
+     * {@link #authenticateHeader(String, CredentialProvider, ChannelProvider,
+     * AuthenticationConfiguration)} has authenticated its Authorization header.
+     * Together they check the same as
+     * {@link #authenticateRequest(Activity, String, CredentialProvider,
+     * ChannelProvider, AuthenticationConfiguration)}, without verifying the token
+     * twice.
+     *
+     * <p>
+     * The activity's channel must be endorsed by the key that signed the token,
+     * and its service URL must match the one the token claims. The service URL
+     * is then trusted for outgoing requests.
+     * </p>
+     *
+     * @param identity        The identity from authenticateHeader.
+     * @param authHeader      The Bearer token included as part of the request.
+     * @param activity        The incoming Activity.
+     * @param channelProvider The bot's channel service provider.
+     * @return A task that completes with the identity, or completes
+     *         exceptionally with an AuthenticationException.
+     */
+    public static CompletableFuture<ClaimsIdentity> authenticateActivity(
+        ClaimsIdentity identity,
+        String authHeader,
+        Activity activity,
+        ChannelProvider channelProvider
+    ) {
+        if (identity == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("identity"));
+        }
+        if (activity == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("activity"));
+        }
+
+        // the anonymous identity has no token to check the activity against
+        if (StringUtils.isEmpty(authHeader)) {
+            return CompletableFuture.completedFuture(identity);
+        }
+
+        if (identity.getEndorsements() != null
+            && !EndorsementsValidator.validate(activity.getChannelId(), identity.getEndorsements())) {
+            return Async.completeExceptionally(new AuthenticationException(String.format(
+                "Could not validate endorsement for channel %s with endorsements %s",
+                activity.getChannelId(), StringUtils.join(identity.getEndorsements())
+            )));
+        }
+
+        if (!EmulatorValidation.isTokenFromEmulator(authHeader)) {
+            String serviceUrl = activity.getServiceUrl();
+            String serviceUrlClaim = identity.claims().get(AuthenticationConstants.SERVICE_URL_CLAIM);
+            boolean matches = channelProvider == null || channelProvider.isPublicAzure()
+                ? serviceUrl == null || serviceUrl.equalsIgnoreCase(serviceUrlClaim)
+                : StringUtils.isNotEmpty(serviceUrl) && StringUtils.equals(serviceUrl, serviceUrlClaim);
+            if (!matches) {
+                return Async.completeExceptionally(new AuthenticationException(String.format(
+                    "'%s' claim does not match service url provided (%s).",
+                    AuthenticationConstants.SERVICE_URL_CLAIM, serviceUrl
+                )));
+            }
+        }
+
+        // On the standard Auth path, we need to trust the URL that was incoming.
+        MicrosoftAppCredentials.trustServiceUrl(activity.getServiceUrl());
+        return CompletableFuture.completedFuture(identity);
+    }
+
+    private static CompletableFuture<ClaimsIdentity> authenticateAnonymous(CredentialProvider credentials) {
+        // No auth header was sent. We might be on the anonymous code path.
+        return credentials.isAuthenticationDisabled().thenApply(isAuthDisable -> {
+            if (isAuthDisable) {
+                // In the scenario where Auth is disabled, we still want to have the
+                // IsAuthenticated flag set in the ClaimsIdentity. To do this requires
+                // adding in an empty claim.
+                return new ClaimsIdentity("anonymous");
+            }
+
+            // No Auth Header. Auth is required. Request is not authorized.
+            throw new AuthenticationException("No Auth Header. Auth is required.");
+        });
+    }
+
+    private static String getServiceUrlClaim(String authHeader) {
+        String[] parts = authHeader.split(" ");
+        if (parts.length != 2) {
+            return null;
+        }
+
+        try {
+            return JWT.decode(parts[1]).getClaim(AuthenticationConstants.SERVICE_URL_CLAIM).asString();
+        } catch (JWTDecodeException e) {
+            return null;
+        }
+    }
+
     /**
      * Validates the authentication header of an incoming request.
      *
@@ -0,0 +1,127 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.authentication;
+
+/**
+ * A point in time snapshot of an OpenID metadata key cache.
+ */
+public class OpenIdMetadataMetrics {
+    private final String url;
+    private final int keyCount;
+    private final long lastRefreshTime;
+    private final long lastRefreshLatencyMillis;
+    private final long refreshCount;
+    private final long refreshFailureCount;
+    private final long missCount;
+
+    /**
+     * Initializes a new instance of the OpenIdMetadataMetrics class.
+     *
+     * @param withUrl                      The OpenID metadata url.
+     * @param withKeyCount                 The number of cached keys.
+     * @param withLastRefreshTime          When the keys were last refreshed, in
+     *                                     epoch milliseconds, or 0 if never.
+     * @param withLastRefreshLatencyMillis How long the last successful refresh
+     *                                     took.
+     * @param withRefreshCount             The number of successful refreshes.
+     * @param withRefreshFailureCount      The number of failed refreshes.
+     * @param withMissCount                The number of lookups of an unknown
+     *                                     key.
+     */
+    public OpenIdMetadataMetrics(
+        String withUrl,
+        int withKeyCount,
+        long withLastRefreshTime,
+        long withLastRefreshLatencyMillis,
+        long withRefreshCount,
+        long withRefreshFailureCount,
+        long withMissCount
+    ) {
+        url = withUrl;
+        keyCount = withKeyCount;
+        lastRefreshTime = withLastRefreshTime;
+        lastRefreshLatencyMillis = withLastRefreshLatencyMillis;
+        refreshCount = withRefreshCount;
+        refreshFailureCount = withRefreshFailureCount;
+        missCount = withMissCount;
+    }
+
+    /**
+     * Gets the OpenID metadata url.
+     *
+     * @return The url.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the number of cached keys.
+     *
+     * @return The key count.
+     */
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Gets when the keys were last refreshed.
+     *
+     * @return The time in epoch milliseconds, or 0 if the keys were never
+     *         loaded.
+     */
+    public long getLastRefreshTime() {
+        return lastRefreshTime;
+    }
+
+    /**
+     * Gets how long the last successful refresh took.
+     *
+     * @return The latency in milliseconds.
+     */
+    public long getLastRefreshLatencyMillis() {
+        return lastRefreshLatencyMillis;
+    }
+
+    /**
+     * Gets the number of successful refreshes.
+     *
+     * @return The refresh count.
+     */
+    public long getRefreshCount() {
+        return refreshCount;
+    }
+
+    /**
+     * Gets the number of failed refreshes. While refreshes fail, the previous
+     * keys are still used.
+     *
+     * @return The failure count.
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailureCount;
+    }
+
+    /**
+     * Gets the number of lookups of a key that was not cached.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Formats the snapshot for logging.
+     *
+     * @return The metrics as text.
+     */
+    @Override
+    public String toString() {
+        return String.format(
+            "%s: keys=%d refreshed=%d latency=%dms refreshes=%d failures=%d misses=%d",
+            url, keyCount, lastRefreshTime, lastRefreshLatencyMillis, refreshCount, refreshFailureCount, missCount
+        );
+    }
+}
@@ -0,0 +1,301 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.authentication;
+
+import com.microsoft.bot.connector.ExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The hosts that the bot sends its access token to.
+ *
+ * <p>
+ * Checking a service url is done on every outgoing request, so it only reads
+ * two maps: the host parsed from each service url is cached, and host
+ * expirations are kept as {@link System#nanoTime()} deadlines, which are not
+ * affected by changes to the system clock. A host is still trusted for a few
+ * minutes after it expires.
+ * </p>
+ *
+ * <p>
+ * The number of hosts is bounded. Expired hosts are removed by a periodic
+ * sweep, and when the registry is full the host that expires first is
+ * dropped. The hosts can be saved to and loaded from a file so that a bot
+ * restarted during a conversation keeps trusting its service url.
+ * </p>
+ */
+public class TrustedHostRegistry {
+    /**
+     * The default number of hosts.
+     */
+    public static final int DEFAULT_MAX_HOSTS = 10000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrustedHostRegistry.class);
+    private static final int EXPIRATION_SLACK_MINUTES = 5;
+    private static final long EXPIRATION_SLACK = Duration.ofMinutes(EXPIRATION_SLACK_MINUTES).toNanos();
+    private static final long SWEEP_INTERVAL_MINUTES = Duration.ofHours(1).toMinutes();
+    private static final int MAX_CACHED_URLS = 1000;
+    private static final int MAX_EXPIRATION_DAYS = 36500;
+
+    /**
+     * The expiration of a host that never expires.
+     */
+    private static final long NEVER = Long.MAX_VALUE;
+
+    /**
+     * The longest expiration kept as a deadline, which keeps deadlines far from
+     * overflowing. Longer expirations never expire.
+     */
+    private static final Duration MAX_EXPIRATION = Duration.ofDays(MAX_EXPIRATION_DAYS);
+
+    private final int maxHosts;
+    private final ConcurrentMap<String, Long> expirations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> hostsByUrl = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a registry with the default size.
+     */
+    public TrustedHostRegistry() {
+        this(DEFAULT_MAX_HOSTS);
+    }
+
+    /**
+     * Creates a registry.
+     *
+     * @param withMaxHosts The number of hosts kept.
+     */
+    public TrustedHostRegistry(int withMaxHosts) {
+        if (withMaxHosts <= 0) {
+            throw new IllegalArgumentException("maxHosts must be greater than zero");
+        }
+        maxHosts = withMaxHosts;
+
+        // the task does not keep an unused registry from being collected, and
+        // stops once it has been
+        WeakReference<TrustedHostRegistry> registry = new WeakReference<>(this);
+        AtomicReference<ScheduledFuture<?>> sweeper = new AtomicReference<>();
+        sweeper.set(ExecutorFactory.getScheduler().scheduleWithFixedDelay(() -> {
+            TrustedHostRegistry target = registry.get();
+            if (target != null) {
+                target.sweep();
+            } else if (sweeper.get() != null) {
+                sweeper.get().cancel(false);
+            }
+        }, SWEEP_INTERVAL_MINUTES, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES));
+    }
+
+    /**
+     * Trusts the host of a service url until an expiration time.
+     *
+     * @param serviceUrl     The service url.
+     * @param expirationTime The time after which the host is not trusted
+     *                       anymore.
+     */
+    public void trust(String serviceUrl, LocalDateTime expirationTime) {
+        String host = getHost(serviceUrl);
+        if (host != null) {
+            trustHost(host, toDeadline(expirationTime));
+        }
+    }
+
+    /**
+     * Trusts the host of a service url until an expiration time.
+     *
+     * @param serviceUrl     The service url.
+     * @param expirationTime The time after which the host is not trusted
+     *                       anymore.
+     */
+    public void trust(URL serviceUrl, LocalDateTime expirationTime) {
+        trustHost(serviceUrl.getHost(), toDeadline(expirationTime));
+    }
+
+    /**
+     * Checks whether the host of a service url is trusted.
+     *
+     * @param serviceUrl The service url.
+     * @return true if the host is trusted.
+     */
+    public boolean isTrusted(String serviceUrl) {
+        String host = getHost(serviceUrl);
+        return host != null && isTrustedHost(host);
+    }
+
+    /**
+     * Checks whether the host of a service url is trusted.
+     *
+     * @param serviceUrl The service url.
+     * @return true if the host is trusted.
+     */
+    public boolean isTrusted(URL serviceUrl) {
+        return isTrustedHost(serviceUrl.getHost());
+    }
+
+    /**
+     * Gets the number of hosts, including expired hosts not yet swept.
+     *
+     * @return The host count.
+     */
+    public int size() {
+        return expirations.size();
+    }
+
+    /**
+     * Removes the hosts that are no longer trusted.
+     *
+     * @return The number of hosts removed.
+     */
+    public int sweep() {
+        int removed = 0;
+        long now = System.nanoTime();
+        for (Map.Entry<String, Long> entry : expirations.entrySet()) {
+            if (isExpired(entry.getValue(), now) && expirations.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Saves the trusted hosts to a file.
+     *
+     * @param file The file to write.
+     * @throws IOException The file could not be written.
+     */
+    public void save(Path file) throws IOException {
+        Properties properties = new Properties();
+        long now = System.nanoTime();
+        long wallClock = System.currentTimeMillis();
+        expirations.forEach((host, deadline) -> {
+            if (!isExpired(deadline, now)) {
+                long expiresAt = deadline == NEVER
+                    ? NEVER
+                    : wallClock + TimeUnit.NANOSECONDS.toMillis(deadline - now);
+                properties.setProperty(host, Long.toString(expiresAt));
+            }
+        });
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "Trusted service url hosts and their expiration in epoch milliseconds");
+        }
+    }
+
+    /**
+     * Adds the hosts saved to a file. Hosts that expired since are skipped.
+     *
+     * @param file The file to read.
+     * @throws IOException The file could not be read.
+     */
+    public void load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+
+        long now = System.nanoTime();
+        long wallClock = System.currentTimeMillis();
+        for (String host : properties.stringPropertyNames()) {
+            try {
+                long expiresAt = Long.parseLong(properties.getProperty(host).trim());
+                long deadline = expiresAt == NEVER
+                    ? NEVER
+                    : toDeadline(Duration.ofMillis(expiresAt - wallClock), now);
+                if (!isExpired(deadline, now)) {
+                    trustHost(host, deadline);
+                }
+            } catch (NumberFormatException e) {
+                LOGGER.warn(String.format("Ignoring trusted host %s with invalid expiration", host));
+            }
+        }
+    }
+
+    private boolean isTrustedHost(String host) {
+        Long deadline = expirations.get(host);
+        return deadline != null && !isExpired(deadline, System.nanoTime());
+    }
+
+    private void trustHost(String host, long deadline) {
+        // sweeping only evicts a host if none has expired
+        if (expirations.size() >= maxHosts && !expirations.containsKey(host) && sweep() == 0) {
+            evictFirstExpiring();
+        }
+        expirations.put(host, deadline);
+    }
+
+    private void evictFirstExpiring() {
+        String first = null;
+        long firstDeadline = NEVER;
+        long now = System.nanoTime();
+        for (Map.Entry<String, Long> entry : expirations.entrySet()) {
+            if (entry.getValue() != NEVER && (first == null || entry.getValue() - now < firstDeadline - now)) {
+                first = entry.getKey();
+                firstDeadline = entry.getValue();
+            }
+        }
+        if (first != null) {
+            expirations.remove(first);
+        }
+    }
+
+    private String getHost(String serviceUrl) {
+        if (serviceUrl == null) {
+            return null;
+        }
+
+        String host = hostsByUrl.get(serviceUrl);
+        if (host == null) {
+            try {
+                host = new URL(serviceUrl).getHost();
+            } catch (MalformedURLException e) {
+                LOGGER.error("trustServiceUrl", e);
+                return null;
+            }
+
+            if (hostsByUrl.size() >= MAX_CACHED_URLS) {
+                hostsByUrl.clear();
+            }
+            hostsByUrl.put(serviceUrl, host);
+        }
+        return host;
+    }
+
+    private static boolean isExpired(long deadline, long now) {
+        return deadline != NEVER && now - deadline > EXPIRATION_SLACK;
+    }
+
+    private static long toDeadline(LocalDateTime expirationTime) {
+        return toDeadline(
+            Duration.between(LocalDateTime.now(ZoneId.systemDefault()), expirationTime), System.nanoTime()
+        );
+    }
+
+    private static long toDeadline(Duration fromNow, long now) {
+        if (fromNow.compareTo(MAX_EXPIRATION) > 0) {
+            return NEVER;
+        }
+        if (fromNow.compareTo(MAX_EXPIRATION.negated()) < 0) {
+            return now - MAX_EXPIRATION.toNanos();
+        }
+        return now + fromNow.toNanos();
+    }
+
+}
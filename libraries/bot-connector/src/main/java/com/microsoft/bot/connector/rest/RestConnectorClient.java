@@ -16,8 +16,6 @@ import com.microsoft.bot.restclient.credentials.ServiceClientCredentials;
 import com.microsoft.bot.restclient.RestClient;
 import com.microsoft.bot.restclient.retry.RetryStrategy;
 import com.microsoft.bot.restclient.serializer.JacksonAdapter;
-import okhttp3.OkHttpClient;
-import retrofit2.Retrofit;
 
 /**
  * The Bot Connector REST API allows your bot to send and receive messages to
@@ -278,7 +276,7 @@ public class RestConnectorClient extends ServiceClient implements ConnectorClien
         String baseUrl,
         ServiceClientCredentials credentials
     ) {
-        return new RestClient.Builder(new OkHttpClient.Builder(), new Retrofit.Builder())
+        return new RestClient.Builder()
             .withBaseUrl(baseUrl)
             .withCredentials(credentials)
             .withSerializerAdapter(new JacksonAdapter())
@@ -15,8 +15,6 @@ import com.microsoft.bot.restclient.ServiceResponseBuilder;
 import com.microsoft.bot.restclient.credentials.ServiceClientCredentials;
 import com.microsoft.bot.restclient.retry.RetryStrategy;
 import com.microsoft.bot.restclient.serializer.JacksonAdapter;
-import okhttp3.OkHttpClient;
-import retrofit2.Retrofit;
 
 /**
  * The Bot Connector REST API allows your bot to send and receive messages to
@@ -256,7 +254,7 @@ public class RestTeamsConnectorClient extends ServiceClient implements TeamsConn
         String baseUrl,
         ServiceClientCredentials credentials
     ) {
-        return new RestClient.Builder(new OkHttpClient.Builder(), new Retrofit.Builder())
+        return new RestClient.Builder()
             .withBaseUrl(baseUrl)
             .withCredentials(credentials)
             .withSerializerAdapter(new JacksonAdapter())
@@ -0,0 +1,152 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.restclient;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The connection pool and dispatcher shared by REST clients.
+ *
+ * <p>
+ * A bot creates a connector client per service url, app and scope. If each
+ * client had its own OkHttp connection pool and dispatcher, connections to a
+ * service url could not be reused across clients, and each client would
+ * limit its own requests to a host. A {@link RestClient} that is not given a
+ * connection pool or dispatcher uses those of the {@link #getDefault() default
+ * transport} instead, along with its timeouts and protocols.
+ * </p>
+ */
+public final class HttpTransport {
+    private static volatile HttpTransport defaultTransport;
+
+    private final HttpTransportConfiguration configuration;
+    private final Dispatcher dispatcher;
+    private final ConnectionPool connectionPool;
+    private final List<Protocol> protocols;
+
+    /**
+     * Creates a transport.
+     *
+     * @param configuration the settings
+     */
+    public HttpTransport(HttpTransportConfiguration configuration) {
+        if (configuration == null) {
+            throw new IllegalArgumentException("configuration == null");
+        }
+        this.configuration = configuration;
+
+        dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(configuration.maxRequests());
+        dispatcher.setMaxRequestsPerHost(configuration.maxRequestsPerHost());
+
+        connectionPool = new ConnectionPool(
+            configuration.maxIdleConnections(), configuration.keepAliveSeconds(), TimeUnit.SECONDS);
+
+        protocols = configuration.http2()
+            ? Collections.unmodifiableList(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            : Collections.singletonList(Protocol.HTTP_1_1);
+    }
+
+    /**
+     * Gets the transport used by REST clients that are not given a connection
+     * pool or dispatcher. It is created from the system properties described
+     * in {@link HttpTransportConfiguration} when it is first used.
+     *
+     * @return the default transport
+     */
+    public static HttpTransport getDefault() {
+        HttpTransport transport = defaultTransport;
+        if (transport == null) {
+            synchronized (HttpTransport.class) {
+                transport = defaultTransport;
+                if (transport == null) {
+                    HttpTransportConfiguration configuration;
+                    try {
+                        configuration = HttpTransportConfiguration.fromProperties(System.getProperties());
+                    } catch (IllegalArgumentException e) {
+                        LoggerFactory.getLogger(HttpTransport.class)
+                            .error("Invalid HTTP settings, using the defaults: {}", e.getMessage());
+                        configuration = new HttpTransportConfiguration();
+                    }
+                    transport = new HttpTransport(configuration);
+                    defaultTransport = transport;
+                }
+            }
+        }
+        return transport;
+    }
+
+    /**
+     * Replaces the default transport. Clients built before keep using the
+     * previous one.
+     *
+     * @param transport the new default transport
+     */
+    public static void setDefault(HttpTransport transport) {
+        if (transport == null) {
+            throw new IllegalArgumentException("transport == null");
+        }
+        defaultTransport = transport;
+    }
+
+    /**
+     * @return the settings of the transport
+     */
+    public HttpTransportConfiguration configuration() {
+        return configuration;
+    }
+
+    /**
+     * @return the shared dispatcher
+     */
+    public Dispatcher dispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * @return the shared connection pool
+     */
+    public ConnectionPool connectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Applies the timeouts and protocols of the transport to an HTTP client.
+     *
+     * @param httpClientBuilder the builder of the HTTP client
+     * @return the builder itself for chaining
+     */
+    public OkHttpClient.Builder applyTo(OkHttpClient.Builder httpClientBuilder) {
+        return httpClientBuilder
+            .connectTimeout(configuration.connectTimeoutSeconds(), TimeUnit.SECONDS)
+            .readTimeout(configuration.readTimeoutSeconds(), TimeUnit.SECONDS)
+            .writeTimeout(configuration.writeTimeoutSeconds(), TimeUnit.SECONDS)
+            .protocols(protocols);
+    }
+
+    /**
+     * Takes a snapshot of the load of the transport.
+     *
+     * @return the metrics
+     */
+    public HttpTransportMetrics metrics() {
+        return new HttpTransportMetrics(
+            connectionPool.connectionCount(),
+            connectionPool.idleConnectionCount(),
+            dispatcher.runningCallsCount(),
+            dispatcher.queuedCallsCount(),
+            dispatcher.getMaxRequests(),
+            dispatcher.getMaxRequestsPerHost()
+        );
+    }
+}
@@ -0,0 +1,264 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.restclient;
+
+import java.util.Properties;
+
+/**
+ * Settings for an {@link HttpTransport}.
+ *
+ * <p>
+ * The timeouts default to the values RestClient always used. Every setting can
+ * also be given as a system property, which {@link HttpTransport#getDefault()}
+ * reads when it is first used:
+ * </p>
+ * <ul>
+ * <li>{@code bot.http.maxRequests}: the number of requests running at once</li>
+ * <li>{@code bot.http.maxRequestsPerHost}: the number of requests running at
+ * once to one host</li>
+ * <li>{@code bot.http.maxIdleConnections}: the number of idle connections
+ * kept open</li>
+ * <li>{@code bot.http.keepAliveSeconds}: how long an idle connection is kept
+ * open</li>
+ * <li>{@code bot.http.connectTimeoutSeconds}, {@code bot.http.readTimeoutSeconds}
+ * and {@code bot.http.writeTimeoutSeconds}: the timeouts, 0 for none</li>
+ * <li>{@code bot.http.http2}: {@code false} to only use HTTP/1.1</li>
+ * </ul>
+ */
+public class HttpTransportConfiguration {
+    /**
+     * The property prefix of the transport settings.
+     */
+    public static final String PROPERTY_PREFIX = "bot.http.";
+
+    private int maxRequests = 128;
+    private int maxRequestsPerHost = 32;
+    private int maxIdleConnections = 32;
+    private long keepAliveSeconds = 300;
+    private long connectTimeoutSeconds = 60;
+    private long readTimeoutSeconds = 120;
+    private long writeTimeoutSeconds = 10;
+    private boolean http2 = true;
+
+    /**
+     * Reads the settings from properties, using the defaults for any that are
+     * missing.
+     *
+     * @param properties the properties, such as the system properties
+     * @return the configuration
+     * @throws IllegalArgumentException a property has an invalid value
+     */
+    public static HttpTransportConfiguration fromProperties(Properties properties) throws IllegalArgumentException {
+        HttpTransportConfiguration configuration = new HttpTransportConfiguration();
+
+        String value = properties.getProperty(PROPERTY_PREFIX + "maxRequests");
+        if (value != null) {
+            configuration.withMaxRequests(Integer.parseInt(value.trim()));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "maxRequestsPerHost");
+        if (value != null) {
+            configuration.withMaxRequestsPerHost(Integer.parseInt(value.trim()));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "maxIdleConnections");
+        if (value != null) {
+            configuration.withMaxIdleConnections(Integer.parseInt(value.trim()));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "keepAliveSeconds");
+        if (value != null) {
+            configuration.withKeepAliveSeconds(Long.parseLong(value.trim()));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "connectTimeoutSeconds");
+        if (value != null) {
+            configuration.withConnectTimeoutSeconds(Long.parseLong(value.trim()));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "readTimeoutSeconds");
+        if (value != null) {
+            configuration.withReadTimeoutSeconds(Long.parseLong(value.trim()));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "writeTimeoutSeconds");
+        if (value != null) {
+            configuration.withWriteTimeoutSeconds(Long.parseLong(value.trim()));
+        }
+
+        value = properties.getProperty(PROPERTY_PREFIX + "http2");
+        if (value != null) {
+            configuration.withHttp2(Boolean.parseBoolean(value.trim()));
+        }
+
+        return configuration;
+    }
+
+    /**
+     * @return the number of requests running at once, 128 by default
+     */
+    public int maxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * Sets the number of requests running at once. Further requests wait.
+     *
+     * @param maxRequests the maximum requests
+     * @return the configuration itself for chaining
+     */
+    public HttpTransportConfiguration withMaxRequests(int maxRequests) {
+        if (maxRequests < 1) {
+            throw new IllegalArgumentException("maxRequests must be at least 1");
+        }
+        this.maxRequests = maxRequests;
+        return this;
+    }
+
+    /**
+     * @return the number of requests running at once to one host, 32 by default
+     */
+    public int maxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * Sets the number of requests running at once to one host. Further requests
+     * to the host wait.
+     *
+     * @param maxRequestsPerHost the maximum requests per host
+     * @return the configuration itself for chaining
+     */
+    public HttpTransportConfiguration withMaxRequestsPerHost(int maxRequestsPerHost) {
+        if (maxRequestsPerHost < 1) {
+            throw new IllegalArgumentException("maxRequestsPerHost must be at least 1");
+        }
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        return this;
+    }
+
+    /**
+     * @return the number of idle connections kept open, 32 by default
+     */
+    public int maxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    /**
+     * Sets the number of idle connections kept open.
+     *
+     * @param maxIdleConnections the maximum idle connections
+     * @return the configuration itself for chaining
+     */
+    public HttpTransportConfiguration withMaxIdleConnections(int maxIdleConnections) {
+        if (maxIdleConnections < 0) {
+            throw new IllegalArgumentException("maxIdleConnections cannot be negative");
+        }
+        this.maxIdleConnections = maxIdleConnections;
+        return this;
+    }
+
+    /**
+     * @return how long an idle connection is kept open, 300 seconds by default
+     */
+    public long keepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    /**
+     * Sets how long an idle connection is kept open.
+     *
+     * @param keepAliveSeconds the keep alive duration in seconds
+     * @return the configuration itself for chaining
+     */
+    public HttpTransportConfiguration withKeepAliveSeconds(long keepAliveSeconds) {
+        if (keepAliveSeconds < 1) {
+            throw new IllegalArgumentException("keepAliveSeconds must be at least 1");
+        }
+        this.keepAliveSeconds = keepAliveSeconds;
+        return this;
+    }
+
+    /**
+     * @return the connect timeout, 60 seconds by default
+     */
+    public long connectTimeoutSeconds() {
+        return connectTimeoutSeconds;
+    }
+
+    /**
+     * Sets the connect timeout.
+     *
+     * @param connectTimeoutSeconds the timeout in seconds, 0 for none
+     * @return the configuration itself for chaining
+     */
+    public HttpTransportConfiguration withConnectTimeoutSeconds(long connectTimeoutSeconds) {
+        if (connectTimeoutSeconds < 0) {
+            throw new IllegalArgumentException("connectTimeoutSeconds cannot be negative");
+        }
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+        return this;
+    }
+
+    /**
+     * @return the read timeout, 120 seconds by default
+     */
+    public long readTimeoutSeconds() {
+        return readTimeoutSeconds;
+    }
+
+    /**
+     * Sets the read timeout.
+     *
+     * @param readTimeoutSeconds the timeout in seconds, 0 for none
+     * @return the configuration itself for chaining
+     */
+    public HttpTransportConfiguration withReadTimeoutSeconds(long readTimeoutSeconds) {
+        if (readTimeoutSeconds < 0) {
+            throw new IllegalArgumentException("readTimeoutSeconds cannot be negative");
+        }
+        this.readTimeoutSeconds = readTimeoutSeconds;
+        return this;
+    }
+
+    /**
+     * @return the write timeout, 10 seconds by default
+     */
+    public long writeTimeoutSeconds() {
+        return writeTimeoutSeconds;
+    }
+
+    /**
+     * Sets the write timeout.
+     *
+     * @param writeTimeoutSeconds the timeout in seconds, 0 for none
+     * @return the configuration itself for chaining
+     */
+    public HttpTransportConfiguration withWriteTimeoutSeconds(long writeTimeoutSeconds) {
+        if (writeTimeoutSeconds < 0) {
+            throw new IllegalArgumentException("writeTimeoutSeconds cannot be negative");
+        }
+        this.writeTimeoutSeconds = writeTimeoutSeconds;
+        return this;
+    }
+
+    /**
+     * @return true if HTTP/2 is used when the server supports it, the default
+     */
+    public boolean http2() {
+        return http2;
+    }
+
+    /**
+     * Sets whether HTTP/2 is used when the server supports it. With HTTP/2, the
+     * requests to a host share one connection.
+     *
+     * @param http2 false to only use HTTP/1.1
+     * @return the configuration itself for chaining
+     */
+    public HttpTransportConfiguration withHttp2(boolean http2) {
+        this.http2 = http2;
+        return this;
+    }
+}
@@ -0,0 +1,100 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.restclient;
+
+/**
+ * A point in time snapshot of the load of an {@link HttpTransport}.
+ */
+public class HttpTransportMetrics {
+    private final int connectionCount;
+    private final int idleConnectionCount;
+    private final int runningCalls;
+    private final int queuedCalls;
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+
+    /**
+     * Initializes a new instance of the HttpTransportMetrics class.
+     *
+     * @param connectionCount     the number of open connections
+     * @param idleConnectionCount the number of idle connections
+     * @param runningCalls        the number of asynchronous calls running
+     * @param queuedCalls         the number of asynchronous calls waiting for a
+     *                            place under the request limits
+     * @param maxRequests         the limit of calls running at once
+     * @param maxRequestsPerHost  the limit of calls running at once to one host
+     */
+    public HttpTransportMetrics(
+        int connectionCount,
+        int idleConnectionCount,
+        int runningCalls,
+        int queuedCalls,
+        int maxRequests,
+        int maxRequestsPerHost
+    ) {
+        this.connectionCount = connectionCount;
+        this.idleConnectionCount = idleConnectionCount;
+        this.runningCalls = runningCalls;
+        this.queuedCalls = queuedCalls;
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    /**
+     * @return the number of open connections, idle or in use
+     */
+    public int connectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * @return the number of idle connections
+     */
+    public int idleConnectionCount() {
+        return idleConnectionCount;
+    }
+
+    /**
+     * @return the number of asynchronous calls running
+     */
+    public int runningCalls() {
+        return runningCalls;
+    }
+
+    /**
+     * @return the number of asynchronous calls waiting for a place under the
+     *         request limits. A count that keeps growing means the limits are
+     *         too low.
+     */
+    public int queuedCalls() {
+        return queuedCalls;
+    }
+
+    /**
+     * @return the limit of calls running at once
+     */
+    public int maxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * @return the limit of calls running at once to one host
+     */
+    public int maxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * Formats the snapshot for logging.
+     *
+     * @return the metrics as text
+     */
+    @Override
+    public String toString() {
+        return String.format(
+            "connections=%d idle=%d running=%d queued=%d maxRequests=%d maxRequestsPerHost=%d",
+            connectionCount, idleConnectionCount, runningCalls, queuedCalls, maxRequests, maxRequestsPerHost
+        );
+    }
+}
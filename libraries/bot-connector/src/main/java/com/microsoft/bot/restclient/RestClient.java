@@ -119,14 +119,19 @@ public final class RestClient {
 
     /**
      * Closes the HTTP client and recycles the resources associated. The threads will
-     * be recycled after 60 seconds of inactivity.
+     * be recycled after 60 seconds of inactivity. The dispatcher and connection pool
+     * of a shared {@link HttpTransport} are left open for the other clients.
      */
     @Beta(SinceVersion.V1_1_0)
     public void close() {
-        httpClient.dispatcher().executorService().shutdown();
-        httpClient.connectionPool().evictAll();
-        synchronized (httpClient.connectionPool()) {
-            httpClient.connectionPool().notifyAll();
+        if (builder.dispatcher != null || !builder.shareTransport) {
+            httpClient.dispatcher().executorService().shutdown();
+        }
+        if (builder.connectionPool != null || !builder.shareTransport) {
+            httpClient.connectionPool().evictAll();
+            synchronized (httpClient.connectionPool()) {
+                httpClient.connectionPool().notifyAll();
+            }
         }
         synchronized (AsyncTimeout.class) {
             AsyncTimeout.class.notifyAll();
@@ -178,17 +183,29 @@ public final class RestClient {
         /** The connection pool in use for OkHttp. */
         private ConnectionPool connectionPool;
 
+        /** The transport set with {@link #withHttpTransport(HttpTransport)}. */
+        private HttpTransport transport;
+        /** If set to true, the connection pool and dispatcher of a transport are used unless set on the builder. */
+        private boolean shareTransport;
+
         /**
-         * Creates an instance of the builder with a base URL to the service.
+         * Creates an instance of the builder with a base URL to the service. The
+         * client uses the connection pool, dispatcher, timeouts and protocols of the
+         * {@link HttpTransport#getDefault() default transport}.
          */
         public Builder() {
-            this(new OkHttpClient.Builder(), new Retrofit.Builder());
+            this(new OkHttpClient.Builder(), new Retrofit.Builder(), true);
         }
 
         private Builder(final RestClient restClient) {
-            this(restClient.httpClient.newBuilder(), new Retrofit.Builder());
+            this(restClient.httpClient.newBuilder(), new Retrofit.Builder(), restClient.builder.shareTransport);
             this.httpClientBuilder.readTimeout(restClient.httpClient.readTimeoutMillis(), TimeUnit.MILLISECONDS);
             this.httpClientBuilder.connectTimeout(restClient.httpClient.connectTimeoutMillis(), TimeUnit.MILLISECONDS);
+            this.httpClientBuilder.writeTimeout(restClient.httpClient.writeTimeoutMillis(), TimeUnit.MILLISECONDS);
+            this.httpClientBuilder.protocols(restClient.httpClient.protocols());
+            this.transport = restClient.builder.transport;
+            this.connectionPool = restClient.builder.connectionPool;
+            this.dispatcher = restClient.builder.dispatcher;
             this.httpClientBuilder.interceptors().clear();
             this.httpClientBuilder.networkInterceptors().clear();
             this.baseUrl = restClient.retrofit.baseUrl().toString();
@@ -225,11 +242,20 @@ public final class RestClient {
 
         /**
          * Creates an instance of the builder with a base URL and 2 custom builders.
+         * The client keeps the connection pool, dispatcher, write timeout and
+         * protocols of the given HTTP client builder; call
+         * {@link #withHttpTransport(HttpTransport)} to share those of a transport
+         * instead.
          *
          * @param httpClientBuilder the builder to build an {@link OkHttpClient}.
          * @param retrofitBuilder the builder to build a {@link Retrofit}.
          */
         public Builder(OkHttpClient.Builder httpClientBuilder, Retrofit.Builder retrofitBuilder) {
+            this(httpClientBuilder, retrofitBuilder, false);
+        }
+
+        private Builder(OkHttpClient.Builder httpClientBuilder, Retrofit.Builder retrofitBuilder,
+                        boolean shareTransport) {
             if (httpClientBuilder == null) {
                 throw new IllegalArgumentException("httpClientBuilder == null");
             }
@@ -240,10 +266,17 @@ public final class RestClient {
             cookieManager.setCookiePolicy(CookiePolicy.ACCEPT_ALL);
             customHeadersInterceptor = new CustomHeadersInterceptor();
             // Set up OkHttp client
+            HttpTransport defaultTransport = HttpTransport.getDefault();
+            if (shareTransport) {
+                defaultTransport.applyTo(httpClientBuilder);
+            } else {
+                httpClientBuilder
+                    .readTimeout(defaultTransport.configuration().readTimeoutSeconds(), TimeUnit.SECONDS)
+                    .connectTimeout(defaultTransport.configuration().connectTimeoutSeconds(), TimeUnit.SECONDS);
+            }
+            this.shareTransport = shareTransport;
             this.httpClientBuilder = httpClientBuilder
                     .cookieJar(new JavaNetCookieJar(cookieManager))
-                    .readTimeout(120, TimeUnit.SECONDS)
-                    .connectTimeout(60, TimeUnit.SECONDS)
                     .addInterceptor(new RequestIdHeaderInterceptor())
                     .addInterceptor(new BaseUrlHandler());
             this.retrofitBuilder = retrofitBuilder;
@@ -410,6 +443,27 @@ public final class RestClient {
             return this;
         }
 
+        /**
+         * Sets the transport whose connection pool, dispatcher, timeouts and
+         * protocols the client uses. Timeouts set before this call are replaced.
+         * Without this call, a client from {@link #Builder()} uses the
+         * {@link HttpTransport#getDefault() default transport}, and a client from a
+         * given HTTP client builder uses its own. A connection pool or dispatcher set
+         * on this builder takes precedence either way.
+         *
+         * @param transport the shared transport
+         * @return the builder itself for chaining
+         */
+        public Builder withHttpTransport(HttpTransport transport) {
+            if (transport == null) {
+                throw new IllegalArgumentException("transport == null");
+            }
+            this.transport = transport;
+            this.shareTransport = true;
+            transport.applyTo(httpClientBuilder);
+            return this;
+        }
+
         /**
          * Sets whether to use the thread pool in OkHttp client or RxJava schedulers.
          * If set to true, the thread pool in OkHttp client will be used. Default is false.
@@ -514,6 +568,13 @@ public final class RestClient {
                 retryHandler = new RetryHandler(retryStrategy);
             }
 
+            if (shareTransport) {
+                // share the transport's connections and request limits with other clients
+                HttpTransport sharedTransport = transport != null ? transport : HttpTransport.getDefault();
+                httpClientBuilder = httpClientBuilder
+                        .connectionPool(sharedTransport.connectionPool())
+                        .dispatcher(sharedTransport.dispatcher());
+            }
             if (connectionPool != null) {
                 httpClientBuilder = httpClientBuilder.connectionPool(connectionPool);
             }
@@ -22,12 +22,17 @@ public abstract class ServiceClient {
     private final RestClient restClient;
 
     /**
-     * Initializes a new instance of the ServiceClient class.
+     * Initializes a new instance of the ServiceClient class, using the
+     * {@link HttpTransport#getDefault() default transport}.
      *
      * @param baseUrl the service endpoint
      */
     protected ServiceClient(String baseUrl) {
-        this(baseUrl, new OkHttpClient.Builder(), new Retrofit.Builder());
+        this(new RestClient.Builder()
+                .withBaseUrl(baseUrl)
+                .withResponseBuilderFactory(new ServiceResponseBuilder.Factory())
+                .withSerializerAdapter(new JacksonAdapter())
+                .build());
     }
 
     /**
@@ -45,8 +50,20 @@ public abstract class ServiceClient {
                 .build());
     }
 
+    /**
+     * Initializes a new instance of the ServiceClient class, using the
+     * {@link HttpTransport#getDefault() default transport}.
+     *
+     * @param baseUrl the service base uri
+     * @param credentials the credentials
+     */
     protected ServiceClient(String baseUrl, ServiceClientCredentials credentials) {
-        this(baseUrl, credentials, new OkHttpClient.Builder(), new Retrofit.Builder());
+        this(new RestClient.Builder()
+            .withBaseUrl(baseUrl)
+            .withCredentials(credentials)
+            .withSerializerAdapter(new JacksonAdapter())
+            .withResponseBuilderFactory(new ServiceResponseBuilder.Factory())
+            .build());
     }
 
     /**
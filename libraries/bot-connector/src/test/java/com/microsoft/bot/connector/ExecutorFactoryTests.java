@@ -0,0 +1,142 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+public class ExecutorFactoryTests {
+    @After
+    public void restoreDefaults() {
+        ExecutorFactory.configure(new ExecutorConfiguration());
+    }
+
+    @Test
+    public void ExecutorConfiguration_ReadsProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("bot.executor.mode", "threadpool");
+        properties.setProperty("bot.executor.parallelism", "3");
+        properties.setProperty("bot.executor.maxPoolSize", "6");
+        properties.setProperty("bot.executor.queueCapacity", "100");
+        properties.setProperty("bot.executor.rejectionPolicy", "abort");
+        properties.setProperty("bot.executor.virtualThreads", "true");
+
+        ExecutorConfiguration configuration = ExecutorConfiguration.fromProperties(properties);
+        Assert.assertEquals(ExecutorConfiguration.Mode.THREAD_POOL, configuration.getMode());
+        Assert.assertEquals(3, configuration.getParallelism());
+        Assert.assertEquals(6, configuration.getMaxPoolSize());
+        Assert.assertEquals(100, configuration.getQueueCapacity());
+        Assert.assertEquals(ExecutorConfiguration.RejectionPolicy.ABORT, configuration.getRejectionPolicy());
+        Assert.assertTrue(configuration.getVirtualThreads());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ExecutorConfiguration_RejectsUnknownMode() {
+        Properties properties = new Properties();
+        properties.setProperty("bot.executor.mode", "fibers");
+        ExecutorConfiguration.fromProperties(properties);
+    }
+
+    @Test
+    public void ExecutorFactory_ConfiguresBoundedThreadPool() throws InterruptedException {
+        ExecutorService previous = ExecutorFactory.getExecutor();
+        Assert.assertTrue(previous instanceof ForkJoinPool);
+
+        ExecutorConfiguration configuration = new ExecutorConfiguration();
+        configuration.setMode(ExecutorConfiguration.Mode.THREAD_POOL);
+        configuration.setParallelism(1);
+        configuration.setQueueCapacity(1);
+        configuration.setRejectionPolicy(ExecutorConfiguration.RejectionPolicy.CALLER_RUNS);
+        ExecutorFactory.configure(configuration);
+
+        ExecutorService executor = ExecutorFactory.getExecutor();
+        Assert.assertTrue(executor instanceof ThreadPoolExecutor);
+        // work captured before the change can still run on the previous executor
+        Assert.assertFalse(previous.isShutdown());
+        CompletableFuture.runAsync(() -> { }, previous).join();
+        Assert.assertSame(executor, ExecutorFactory.getBlockingExecutor());
+
+        // one task running, one queued, and the third runs on the caller
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+            started.countDown();
+            await(release);
+        }, executor);
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> { }, executor);
+        Thread caller = Thread.currentThread();
+        Thread[] ranOn = new Thread[1];
+        CompletableFuture.runAsync(() -> ranOn[0] = Thread.currentThread(), executor).join();
+        Assert.assertSame(caller, ranOn[0]);
+
+        started.await();
+        ExecutorMetrics metrics = ExecutorFactory.getMetrics().stream()
+            .filter(m -> m.getName().equals(ExecutorFactory.DEFAULT_EXECUTOR))
+            .findFirst()
+            .get();
+        Assert.assertEquals(1, metrics.getActiveCount());
+        Assert.assertEquals(1, metrics.getQueuedCount());
+
+        release.countDown();
+        running.join();
+        queued.join();
+    }
+
+    @Test
+    public void ExecutorFactory_LetsReplacedThreadPoolGoIdle() {
+        ExecutorConfiguration configuration = new ExecutorConfiguration();
+        configuration.setMode(ExecutorConfiguration.Mode.THREAD_POOL);
+        ExecutorFactory.configure(configuration);
+        ThreadPoolExecutor previous = (ThreadPoolExecutor) ExecutorFactory.getExecutor();
+
+        ExecutorFactory.configure(new ExecutorConfiguration());
+        Assert.assertFalse(previous.isShutdown());
+        Assert.assertTrue(previous.allowsCoreThreadTimeOut());
+        CompletableFuture.runAsync(() -> { }, previous).join();
+    }
+
+    @Test
+    public void ExecutorFactory_RegistersNamedExecutors() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            ExecutorFactory.register("custom", pool);
+            Assert.assertSame(pool, ExecutorFactory.getExecutor("custom"));
+            Assert.assertSame(ExecutorFactory.getExecutor(), ExecutorFactory.getExecutor("unknown"));
+            Assert.assertTrue(ExecutorFactory.getMetrics().stream().anyMatch(m -> m.getName().equals("custom")));
+        } finally {
+            Assert.assertSame(pool, ExecutorFactory.unregister("custom"));
+            pool.shutdown();
+        }
+        Assert.assertSame(ExecutorFactory.getExecutor(), ExecutorFactory.getExecutor("custom"));
+    }
+
+    @Test
+    public void ExecutorFactory_FallsBackWithoutVirtualThreads() {
+        ExecutorConfiguration configuration = new ExecutorConfiguration();
+        configuration.setVirtualThreads(true);
+        ExecutorFactory.configure(configuration);
+
+        String running = CompletableFuture.supplyAsync(
+            () -> Thread.currentThread().getName(), ExecutorFactory.getBlockingExecutor()
+        ).join();
+        boolean virtualThreads = VirtualThreadExecutor.create() != null;
+        Assert.assertEquals(virtualThreads, running.startsWith("Bot-Virtual-"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
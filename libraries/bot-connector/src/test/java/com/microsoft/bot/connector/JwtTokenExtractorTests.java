@@ -5,6 +5,7 @@ package com.microsoft.bot.connector;
 
 import com.auth0.jwt.algorithms.Algorithm;
 import com.microsoft.bot.connector.authentication.AuthenticationConstants;
+import com.microsoft.bot.connector.authentication.AuthenticationException;
 import com.microsoft.bot.connector.authentication.ChannelValidation;
 import com.microsoft.bot.connector.authentication.ClaimsIdentity;
 import com.microsoft.bot.connector.authentication.EmulatorValidation;
@@ -32,6 +33,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import sun.security.x509.AlgorithmId;
@@ -96,6 +98,45 @@ public class JwtTokenExtractorTests {
         ).join();
     }
 
+    @Test
+    public void JwtTokenExtractor_WithVerifiedToken_ShouldStillCheckCertificate() {
+        String token = createTokenForCertificate(validCertificate, keyPair.getPrivate());
+        buildExtractor(validCertificate).getIdentity("Bearer " + token, "test").join();
+        buildExtractor(validCertificate).getIdentity("Bearer " + token, "test").join();
+
+        try {
+            buildExtractor(expiredCertificate).getIdentity("Bearer " + token, "test").join();
+            Assert.fail("Should have rejected the expired certificate");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof AuthenticationException);
+        }
+    }
+
+    @Test
+    public void JwtTokenExtractor_WithVerifiedToken_ShouldNotAllowOtherKey() throws GeneralSecurityException, IOException {
+        String token = createTokenForCertificate(validCertificate, keyPair.getPrivate());
+        buildExtractor(validCertificate).getIdentity("Bearer " + token, "test").join();
+
+        Date now = new Date();
+        X509Certificate otherCertificate = createSelfSignedCertificate(
+            createKeyPair(), new Date(now.getTime() - 86400000L), new Date(now.getTime() + 86400000L)
+        );
+        try {
+            buildExtractor(otherCertificate).getIdentity("Bearer " + token, "test").join();
+            Assert.fail("Should have rejected the token signed with another key");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof AuthenticationException);
+        }
+    }
+
+    private JwtTokenExtractor buildExtractor(X509Certificate cert) {
+        return new JwtTokenExtractor(
+            createTokenValidationParameters(cert),
+            "https://login.botframework.com/v1/.well-known/openidconfiguration",
+            AuthenticationConstants.ALLOWED_SIGNING_ALGORITHMS
+        );
+    }
+
     private CompletableFuture<ClaimsIdentity> buildExtractorAndValidateToken(
         X509Certificate cert,
         PrivateKey privateKey
@@ -5,6 +5,7 @@ package com.microsoft.bot.connector;
 
 import com.microsoft.bot.connector.authentication.*;
 import com.microsoft.bot.schema.Activity;
+import com.microsoft.bot.schema.ActivityTypes;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -191,6 +192,35 @@ public class JwtTokenValidationTests {
         }
     }
 
+    @Test
+    public void ActivityAuthentication_ChecksServiceUrlClaim() {
+        Map<String, String> claims = new HashMap<>();
+        claims.put(AuthenticationConstants.SERVICE_URL_CLAIM, "https://webchat.botframework.com/");
+        ClaimsIdentity identity = new ClaimsIdentity(AuthenticationConstants.TO_BOT_FROM_CHANNEL_TOKEN_ISSUER, claims);
+        Activity activity = new Activity(ActivityTypes.MESSAGE);
+        activity.setChannelId("webchat");
+        activity.setServiceUrl("https://WebChat.botframework.com/");
+
+        // the header was already verified, so it is not decoded again
+        Assert.assertSame(identity, JwtTokenValidation.authenticateActivity(
+            identity, "Bearer verified", activity, new SimpleChannelProvider()).join());
+        Assert.assertTrue(MicrosoftAppCredentials.isTrustedServiceUrl("https://WebChat.botframework.com/"));
+
+        activity.setServiceUrl("https://other.botframework.com/");
+        try {
+            JwtTokenValidation.authenticateActivity(
+                identity, "Bearer verified", activity, new SimpleChannelProvider()).join();
+            Assert.fail("Should have thrown AuthenticationException");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof AuthenticationException);
+        }
+
+        // the anonymous identity has no token to check against
+        ClaimsIdentity anonymous = new ClaimsIdentity("anonymous");
+        Assert.assertSame(anonymous, JwtTokenValidation.authenticateActivity(
+            anonymous, "", activity, new SimpleChannelProvider()).join());
+    }
+
     /**
      * Tests with no authentication header and makes sure the service URL is not added to the trusted list.
      */
@@ -229,6 +259,27 @@ public class JwtTokenValidationTests {
         Assert.assertFalse(MicrosoftAppCredentials.isTrustedServiceUrl("https://smba.trafficmanager.net/amer-client-ss.msg/"));
     }
 
+    @Test
+    public void HeaderOnlyAuthentication_NoHeader() {
+        ClaimsIdentity identity = JwtTokenValidation.authenticateHeader(
+            "",
+            new SimpleCredentialProvider("", ""),
+            new SimpleChannelProvider(),
+            new AuthenticationConfiguration()).join();
+        Assert.assertEquals("anonymous", identity.getIssuer());
+
+        try {
+            JwtTokenValidation.authenticateHeader(
+                "",
+                new SimpleCredentialProvider(APPID, APPPASSWORD),
+                new SimpleChannelProvider(),
+                new AuthenticationConfiguration()).join();
+            Assert.fail("Should have thrown AuthenticationException");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof AuthenticationException);
+        }
+    }
+
     /**
      * Tests with no authentication header and makes sure the service URL is not added to the trusted list.
      */
@@ -0,0 +1,64 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector;
+
+import com.microsoft.bot.connector.authentication.TrustedHostRegistry;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+public class TrustedHostRegistryTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void SweepRemovesExpiredHosts() {
+        TrustedHostRegistry registry = new TrustedHostRegistry();
+        registry.trust("https://expired.com/api", LocalDateTime.now().minusMinutes(6));
+        registry.trust("https://valid.com/api", LocalDateTime.now().plusDays(1));
+        registry.trust("https://never.com/api", LocalDateTime.MAX);
+
+        Assert.assertEquals(1, registry.sweep());
+        Assert.assertEquals(2, registry.size());
+        Assert.assertFalse(registry.isTrusted("https://expired.com/api"));
+        Assert.assertTrue(registry.isTrusted("https://valid.com/other"));
+        Assert.assertTrue(registry.isTrusted("https://never.com/api"));
+    }
+
+    @Test
+    public void FullRegistryDropsFirstExpiringHost() {
+        TrustedHostRegistry registry = new TrustedHostRegistry(2);
+        registry.trust("https://first.com", LocalDateTime.now().plusHours(1));
+        registry.trust("https://second.com", LocalDateTime.now().plusHours(2));
+        registry.trust("https://third.com", LocalDateTime.now().plusHours(3));
+
+        Assert.assertEquals(2, registry.size());
+        Assert.assertFalse(registry.isTrusted("https://first.com"));
+        Assert.assertTrue(registry.isTrusted("https://second.com"));
+        Assert.assertTrue(registry.isTrusted("https://third.com"));
+    }
+
+    @Test
+    public void SavedHostsAreTrustedAfterLoad() throws IOException {
+        TrustedHostRegistry registry = new TrustedHostRegistry();
+        registry.trust("https://valid.com", LocalDateTime.now().plusDays(1));
+        registry.trust("https://never.com", LocalDateTime.MAX);
+        registry.trust("https://expired.com", LocalDateTime.now().minusDays(1));
+
+        Path file = folder.getRoot().toPath().resolve("trusted-hosts.properties");
+        registry.save(file);
+
+        TrustedHostRegistry restored = new TrustedHostRegistry();
+        restored.load(file);
+        Assert.assertEquals(2, restored.size());
+        Assert.assertTrue(restored.isTrusted("https://valid.com"));
+        Assert.assertTrue(restored.isTrusted("https://never.com"));
+        Assert.assertFalse(restored.isTrusted("https://expired.com"));
+    }
+}
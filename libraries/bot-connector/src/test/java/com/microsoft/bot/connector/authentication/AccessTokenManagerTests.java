@@ -0,0 +1,134 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.authentication;
+
+import com.microsoft.aad.msal4j.IAccount;
+import com.microsoft.aad.msal4j.IAuthenticationResult;
+import com.microsoft.aad.msal4j.ITenantProfile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AccessTokenManagerTests {
+    @Test
+    public void AccessTokenManager_SharesOneAcquisition() {
+        List<CompletableFuture<IAuthenticationResult>> acquisitions = new ArrayList<>();
+        AccessTokenManager manager = new AccessTokenManager(() -> {
+            CompletableFuture<IAuthenticationResult> acquisition = new CompletableFuture<>();
+            acquisitions.add(acquisition);
+            return acquisition;
+        });
+
+        CompletableFuture<String> first = manager.getToken();
+        CompletableFuture<String> second = manager.getToken();
+        Assert.assertEquals(1, acquisitions.size());
+        Assert.assertFalse(first.isDone());
+
+        acquisitions.get(0).complete(token("token1", System.currentTimeMillis() + Duration.ofHours(1).toMillis()));
+        Assert.assertEquals("token1", first.join());
+        Assert.assertEquals("token1", second.join());
+
+        // a cached token is returned without waiting
+        CompletableFuture<String> cached = manager.getToken();
+        Assert.assertTrue(cached.isDone());
+        Assert.assertEquals("token1", cached.join());
+        Assert.assertEquals(1, acquisitions.size());
+    }
+
+    @Test
+    public void AccessTokenManager_RefreshesBeforeExpiry() {
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        long expiresAt = now.get() + Duration.ofHours(1).toMillis();
+        List<CompletableFuture<IAuthenticationResult>> acquisitions = new ArrayList<>();
+        AccessTokenManager manager = new AccessTokenManager(() -> {
+            CompletableFuture<IAuthenticationResult> acquisition = new CompletableFuture<>();
+            acquisitions.add(acquisition);
+            return acquisition;
+        }, now::get);
+
+        CompletableFuture<String> first = manager.getToken();
+        acquisitions.get(0).complete(token("token1", expiresAt));
+        Assert.assertEquals("token1", first.join());
+
+        // close to expiry the current token is used while a new one is acquired
+        now.set(expiresAt - Duration.ofMinutes(3).toMillis());
+        CompletableFuture<String> refreshing = manager.getToken();
+        Assert.assertTrue(refreshing.isDone());
+        Assert.assertEquals("token1", refreshing.join());
+        Assert.assertEquals(2, acquisitions.size());
+
+        acquisitions.get(1).complete(token("token2", expiresAt + Duration.ofHours(1).toMillis()));
+        Assert.assertEquals("token2", manager.getToken().join());
+        Assert.assertEquals(2, acquisitions.size());
+    }
+
+    @Test
+    public void AccessTokenManager_KeepsTokenWhenRefreshFails() {
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        long expiresAt = now.get() + Duration.ofHours(1).toMillis();
+        List<CompletableFuture<IAuthenticationResult>> acquisitions = new ArrayList<>();
+        AccessTokenManager manager = new AccessTokenManager(() -> {
+            CompletableFuture<IAuthenticationResult> acquisition = new CompletableFuture<>();
+            acquisitions.add(acquisition);
+            return acquisition;
+        }, now::get);
+
+        CompletableFuture<String> first = manager.getToken();
+        acquisitions.get(0).complete(token("token1", expiresAt));
+        first.join();
+
+        now.set(expiresAt - Duration.ofMinutes(3).toMillis());
+        manager.getToken();
+        acquisitions.get(1).completeExceptionally(new AuthenticationException("unavailable"));
+
+        // the failed refresh is not retried by every request
+        Assert.assertEquals("token1", manager.getToken().join());
+        Assert.assertEquals(2, acquisitions.size());
+    }
+
+    private static IAuthenticationResult token(String accessToken, long expiresAt) {
+        return new IAuthenticationResult() {
+            @Override
+            public String accessToken() {
+                return accessToken;
+            }
+
+            @Override
+            public String idToken() {
+                return null;
+            }
+
+            @Override
+            public IAccount account() {
+                return null;
+            }
+
+            @Override
+            public ITenantProfile tenantProfile() {
+                return null;
+            }
+
+            @Override
+            public String environment() {
+                return null;
+            }
+
+            @Override
+            public String scopes() {
+                return null;
+            }
+
+            @Override
+            public Date expiresOnDate() {
+                return new Date(expiresAt);
+            }
+        };
+    }
+}
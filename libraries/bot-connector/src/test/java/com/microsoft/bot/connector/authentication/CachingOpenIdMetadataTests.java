@@ -0,0 +1,112 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.connector.authentication;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingOpenIdMetadataTests {
+    private static final String URL = "https://login.example.com/.well-known/openid-configuration";
+
+    @Test
+    public void CachingOpenIdMetadata_RefreshesOnceForUnknownKeys() {
+        AtomicLong now = new AtomicLong(Duration.ofDays(1).toMillis());
+        AtomicInteger fetches = new AtomicInteger();
+        CachingOpenIdMetadata metadata = new CachingOpenIdMetadata(URL, url -> {
+            Map<String, OpenIdMetadataKey> keys = new HashMap<>();
+            keys.put("key1", new OpenIdMetadataKey());
+            if (fetches.incrementAndGet() > 1) {
+                keys.put("key2", new OpenIdMetadataKey());
+            }
+            return keys;
+        }, now::get);
+
+        Assert.assertNotNull(metadata.getKey("key1"));
+        Assert.assertNotNull(metadata.getKey("key1"));
+        Assert.assertEquals(1, fetches.get());
+
+        // an unknown key refreshes at most once an hour
+        Assert.assertNull(metadata.getKey("key2"));
+        Assert.assertEquals(1, fetches.get());
+
+        now.addAndGet(Duration.ofHours(2).toMillis());
+        Assert.assertNotNull(metadata.getKey("key2"));
+        Assert.assertEquals(2, fetches.get());
+
+        OpenIdMetadataMetrics metrics = metadata.getMetrics();
+        Assert.assertEquals(2, metrics.getKeyCount());
+        Assert.assertEquals(2, metrics.getRefreshCount());
+        Assert.assertEquals(2, metrics.getMissCount());
+        Assert.assertEquals(now.get(), metrics.getLastRefreshTime());
+    }
+
+    @Test
+    public void CachingOpenIdMetadata_ServesExpiredKeysWhenRefreshFails() throws InterruptedException {
+        AtomicLong now = new AtomicLong(Duration.ofDays(1).toMillis());
+        AtomicInteger fetches = new AtomicInteger();
+        OpenIdMetadataKey key = new OpenIdMetadataKey();
+        CachingOpenIdMetadata metadata = new CachingOpenIdMetadata(URL, url -> {
+            if (fetches.incrementAndGet() > 1) {
+                throw new IOException("unreachable");
+            }
+            Map<String, OpenIdMetadataKey> keys = new HashMap<>();
+            keys.put("key1", key);
+            return keys;
+        }, now::get);
+
+        Assert.assertSame(key, metadata.getKey("key1"));
+
+        now.addAndGet(Duration.ofDays(2).toMillis());
+        Assert.assertSame(key, metadata.getKey("key1"));
+
+        // the expired keys were served while they were refreshed in the background
+        long deadline = System.currentTimeMillis() + Duration.ofSeconds(10).toMillis();
+        while (metadata.getMetrics().getRefreshFailureCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, metadata.getMetrics().getRefreshFailureCount());
+        Assert.assertSame(key, metadata.getKey("key1"));
+        Assert.assertEquals(2, fetches.get());
+    }
+
+    @Test(timeout = 10000)
+    public void CachingOpenIdMetadata_RecoversWhenRefreshIsRejected() {
+        AtomicLong now = new AtomicLong(Duration.ofDays(1).toMillis());
+        AtomicInteger fetches = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+        OpenIdMetadataKey key = new OpenIdMetadataKey();
+        CachingOpenIdMetadata metadata = new CachingOpenIdMetadata(URL, url -> {
+            fetches.incrementAndGet();
+            Map<String, OpenIdMetadataKey> keys = new HashMap<>();
+            keys.put("key1", key);
+            return keys;
+        }, now::get, runnable -> {
+            if (rejections.getAndIncrement() == 0) {
+                throw new RejectedExecutionException("shut down");
+            }
+            runnable.run();
+        });
+
+        Assert.assertSame(key, metadata.getKey("key1"));
+
+        // the background refresh is rejected, so the expired keys are kept
+        now.addAndGet(Duration.ofDays(2).toMillis());
+        Assert.assertSame(key, metadata.getKey("key1"));
+        Assert.assertEquals(1, fetches.get());
+
+        // and the next refresh doesn't wait on the rejected one
+        now.addAndGet(Duration.ofMinutes(2).toMillis());
+        Assert.assertSame(key, metadata.getKey("key1"));
+        Assert.assertEquals(2, fetches.get());
+        Assert.assertEquals(now.get(), metadata.getMetrics().getLastRefreshTime());
+    }
+}
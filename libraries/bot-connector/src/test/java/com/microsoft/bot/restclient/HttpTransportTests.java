@@ -0,0 +1,114 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.restclient;
+
+import com.microsoft.bot.restclient.serializer.JacksonAdapter;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.Assert;
+import org.junit.Test;
+import retrofit2.Retrofit;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+public class HttpTransportTests {
+    @Test
+    public void clientsShareDefaultTransport() {
+        RestClient first = newClient("https://smba.trafficmanager.net/amer/").build();
+        RestClient second = newClient("https://smba.trafficmanager.net/emea/").build();
+
+        HttpTransport transport = HttpTransport.getDefault();
+        Assert.assertSame(transport.connectionPool(), first.httpClient().connectionPool());
+        Assert.assertSame(transport.connectionPool(), second.httpClient().connectionPool());
+        Assert.assertSame(transport.dispatcher(), first.httpClient().dispatcher());
+        Assert.assertSame(transport.dispatcher(), second.httpClient().dispatcher());
+        Assert.assertEquals(TimeUnit.SECONDS.toMillis(60), first.httpClient().connectTimeoutMillis());
+        Assert.assertEquals(TimeUnit.SECONDS.toMillis(120), first.httpClient().readTimeoutMillis());
+
+        // closing a client leaves the shared transport to the others
+        first.close();
+        Assert.assertFalse(transport.dispatcher().executorService().isShutdown());
+        Assert.assertSame(transport.dispatcher(), first.newBuilder().build().httpClient().dispatcher());
+    }
+
+    @Test
+    public void clientUsesGivenTransport() {
+        HttpTransport transport = new HttpTransport(new HttpTransportConfiguration()
+            .withMaxRequestsPerHost(64)
+            .withConnectTimeoutSeconds(5)
+            .withHttp2(false));
+
+        RestClient client = newClient("https://smba.trafficmanager.net/amer/")
+            .withHttpTransport(transport)
+            .build();
+
+        Assert.assertSame(transport.dispatcher(), client.httpClient().dispatcher());
+        Assert.assertSame(transport.connectionPool(), client.httpClient().connectionPool());
+        Assert.assertEquals(64, client.httpClient().dispatcher().getMaxRequestsPerHost());
+        Assert.assertEquals(TimeUnit.SECONDS.toMillis(5), client.httpClient().connectTimeoutMillis());
+        Assert.assertEquals(Collections.singletonList(Protocol.HTTP_1_1), client.httpClient().protocols());
+
+        HttpTransportMetrics metrics = transport.metrics();
+        Assert.assertEquals(64, metrics.maxRequestsPerHost());
+        Assert.assertEquals(0, metrics.connectionCount());
+        Assert.assertEquals(0, metrics.queuedCalls());
+    }
+
+    @Test
+    public void clientKeepsGivenHttpClientBuilder() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(2);
+        OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .writeTimeout(3, TimeUnit.SECONDS);
+
+        RestClient client = new RestClient.Builder(httpClientBuilder, new Retrofit.Builder())
+            .withBaseUrl("https://smba.trafficmanager.net/amer/")
+            .withSerializerAdapter(new JacksonAdapter())
+            .withResponseBuilderFactory(new ServiceResponseBuilder.Factory())
+            .build();
+
+        HttpTransport transport = HttpTransport.getDefault();
+        Assert.assertSame(dispatcher, client.httpClient().dispatcher());
+        Assert.assertNotSame(transport.connectionPool(), client.httpClient().connectionPool());
+        Assert.assertEquals(TimeUnit.SECONDS.toMillis(3), client.httpClient().writeTimeoutMillis());
+
+        // sharing a transport is opt-in for a given builder
+        RestClient shared = client.newBuilder().withHttpTransport(transport).build();
+        Assert.assertSame(transport.dispatcher(), shared.httpClient().dispatcher());
+        Assert.assertSame(transport.connectionPool(), shared.httpClient().connectionPool());
+    }
+
+    @Test
+    public void configurationFromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("bot.http.maxRequestsPerHost", "48");
+        properties.setProperty("bot.http.keepAliveSeconds", "60");
+        properties.setProperty("bot.http.http2", "false");
+
+        HttpTransportConfiguration configuration = HttpTransportConfiguration.fromProperties(properties);
+        Assert.assertEquals(48, configuration.maxRequestsPerHost());
+        Assert.assertEquals(60, configuration.keepAliveSeconds());
+        Assert.assertFalse(configuration.http2());
+        Assert.assertEquals(128, configuration.maxRequests());
+
+        properties.setProperty("bot.http.maxRequests", "0");
+        try {
+            HttpTransportConfiguration.fromProperties(properties);
+            Assert.fail("Should have rejected maxRequests of 0");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static RestClient.Builder newClient(String baseUrl) {
+        return new RestClient.Builder()
+            .withBaseUrl(baseUrl)
+            .withSerializerAdapter(new JacksonAdapter())
+            .withResponseBuilderFactory(new ServiceResponseBuilder.Factory());
+    }
+}
@@ -5,6 +5,7 @@ package com.microsoft.bot.dialogs;
 
 import com.microsoft.bot.builder.TurnContext;
 import com.microsoft.bot.builder.TurnContextStateCollection;
+import com.microsoft.bot.builder.TurnStateKey;
 import com.microsoft.bot.dialogs.memory.DialogStateManager;
 import com.microsoft.bot.dialogs.prompts.PromptOptions;
 import com.microsoft.bot.connector.Async;
@@ -17,6 +18,9 @@ import org.apache.commons.lang3.StringUtils;
  *  Provides context for the current state of the dialog stack.
  */
 public class DialogContext {
+    private static final TurnStateKey<Boolean> ACTIVITY_RECEIVED_EMITTED_KEY =
+        TurnStateKey.of("activityReceivedEmitted");
+
     private DialogSet dialogs;
     private TurnContext context;
     private List<DialogInstance> stack;
@@ -255,8 +259,8 @@ public class DialogContext {
             // if we are continuing and haven't emitted the activityReceived event, emit it
             // NOTE: This is backward compatible way for activity received to be fired even if
             // you have legacy dialog loop
-            if (!getContext().getTurnState().containsKey("activityReceivedEmitted")) {
-                getContext().getTurnState().replace("activityReceivedEmitted", true);
+            if (!getContext().getTurnState().containsKey(ACTIVITY_RECEIVED_EMITTED_KEY)) {
+                getContext().getTurnState().replace(ACTIVITY_RECEIVED_EMITTED_KEY, true);
 
                 // Dispatch "activityReceived" event
                 // - This will queue up any interruptions.
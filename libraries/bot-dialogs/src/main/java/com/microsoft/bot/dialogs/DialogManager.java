@@ -291,7 +291,7 @@ public class DialogManager {
         Boolean endOfTurn = false;
         while (!endOfTurn) {
             try {
-                ClaimsIdentity claimIdentity = context.getTurnState().get(BotAdapter.BOT_IDENTITY_KEY);
+                ClaimsIdentity claimIdentity = context.getTurnState().get(BotAdapter.BOT_IDENTITY_STATE_KEY);
                 if (claimIdentity != null && SkillValidation.isSkillClaim(claimIdentity.claims())) {
                     // The bot is running as a skill.
                     turnResult = handleSkillOnTurn().join();
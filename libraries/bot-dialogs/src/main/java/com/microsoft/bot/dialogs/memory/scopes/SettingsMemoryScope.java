@@ -6,6 +6,7 @@ package com.microsoft.bot.dialogs.memory.scopes;
 import java.util.Properties;
 import java.util.TreeMap;
 
+import com.microsoft.bot.builder.TurnStateKey;
 import com.microsoft.bot.dialogs.DialogContext;
 import com.microsoft.bot.dialogs.ScopePath;
 import com.microsoft.bot.integration.Configuration;
@@ -14,6 +15,9 @@ import com.microsoft.bot.integration.Configuration;
  * TurnMemoryScope represents memory scoped to the current turn.
  */
 public class SettingsMemoryScope extends MemoryScope {
+    private static final TurnStateKey<Object> TURN_KEY = TurnStateKey.of(ScopePath.TURN);
+    private static final TurnStateKey<Object> SETTINGS_KEY = TurnStateKey.of(ScopePath.SETTINGS);
+
     /**
      * Initializes a new instance of the TurnMemoryScope class.
      */
@@ -32,12 +36,12 @@ public class SettingsMemoryScope extends MemoryScope {
 
         Object returnValue;
 
-        returnValue = dialogContext.getContext().getTurnState().get(ScopePath.TURN);
+        returnValue = dialogContext.getContext().getTurnState().get(TURN_KEY);
         if (returnValue == null) {
             Configuration configuration = dialogContext.getContext().getTurnState().get(Configuration.class);
             if (configuration != null) {
                 returnValue = loadSettings(configuration);
-                dialogContext.getContext().getTurnState().add(ScopePath.SETTINGS, returnValue);
+                dialogContext.getContext().getTurnState().add(SETTINGS_KEY, returnValue);
             }
         }
         return returnValue;
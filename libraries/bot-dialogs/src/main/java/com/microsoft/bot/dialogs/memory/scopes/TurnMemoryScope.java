@@ -5,6 +5,7 @@ package com.microsoft.bot.dialogs.memory.scopes;
 
 import java.util.TreeMap;
 
+import com.microsoft.bot.builder.TurnStateKey;
 import com.microsoft.bot.dialogs.DialogContext;
 import com.microsoft.bot.dialogs.ScopePath;
 
@@ -12,6 +13,8 @@ import com.microsoft.bot.dialogs.ScopePath;
  * TurnMemoryScope represents memory scoped to the current turn.
  */
 public class TurnMemoryScope extends MemoryScope {
+    private static final TurnStateKey<Object> TURN_KEY = TurnStateKey.of(ScopePath.TURN);
+
     /**
      * Initializes a new instance of the TurnMemoryScope class.
      */
@@ -30,10 +33,10 @@ public class TurnMemoryScope extends MemoryScope {
 
         Object returnValue;
 
-        returnValue = dialogContext.getContext().getTurnState().get(ScopePath.TURN);
+        returnValue = dialogContext.getContext().getTurnState().get(TURN_KEY);
         if (returnValue == null) {
             returnValue = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER);
-            dialogContext.getContext().getTurnState().add(ScopePath.TURN, returnValue);
+            dialogContext.getContext().getTurnState().add(TURN_KEY, returnValue);
         }
 
         return returnValue;
@@ -48,10 +51,10 @@ public class TurnMemoryScope extends MemoryScope {
             throw new IllegalArgumentException("dialogContext cannot be null.");
         }
 
-        if (dialogContext.getContext().getTurnState().containsKey(ScopePath.TURN)) {
-            dialogContext.getContext().getTurnState().replace(ScopePath.TURN, memory);
+        if (dialogContext.getContext().getTurnState().containsKey(TURN_KEY)) {
+            dialogContext.getContext().getTurnState().replace(TURN_KEY, memory);
         } else {
-            dialogContext.getContext().getTurnState().add(ScopePath.TURN, memory);
+            dialogContext.getContext().getTurnState().add(TURN_KEY, memory);
         }
     }
 }
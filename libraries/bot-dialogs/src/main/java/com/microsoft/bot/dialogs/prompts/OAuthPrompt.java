@@ -196,7 +196,7 @@ public class OAuthPrompt extends Dialog {
             // in speech channel or
             // bot is a skill or
             // an extra OAuthAppCredentials is being passed in
-            ClaimsIdentity botIdentity = turnContext.getTurnState().get(BotAdapter.BOT_IDENTITY_KEY);
+            ClaimsIdentity botIdentity = turnContext.getTurnState().get(BotAdapter.BOT_IDENTITY_STATE_KEY);
             if (turnContext.getActivity().isFromStreamingConnection()
                     || botIdentity != null && SkillValidation.isSkillClaim(botIdentity.claims())
                     || settings.getOAuthAppCredentials() != null) {
@@ -231,9 +231,9 @@ public class OAuthPrompt extends Dialog {
 
         // Add the login timeout specified in OAuthPromptSettings to TurnState so it can
         // be referenced if polling is needed
-        if (!turnContext.getTurnState().containsKey(TurnStateConstants.OAUTH_LOGIN_TIMEOUT_KEY)
+        if (!turnContext.getTurnState().containsKey(TurnStateConstants.OAUTH_LOGIN_TIMEOUT_STATE_KEY)
                 && settings.getTimeout() != null) {
-            turnContext.getTurnState().add(TurnStateConstants.OAUTH_LOGIN_TIMEOUT_KEY,
+            turnContext.getTurnState().add(TurnStateConstants.OAUTH_LOGIN_TIMEOUT_STATE_KEY,
                     Duration.ofMillis(settings.getTimeout()));
         }
 
@@ -286,7 +286,7 @@ public class OAuthPrompt extends Dialog {
                 }
 
                 ConnectorClientBuilder connectorClientProvider = (ConnectorClientBuilder) adapter;
-                ClaimsIdentity claimsIdentity = turnContext.getTurnState().get(BotAdapter.BOT_IDENTITY_KEY);
+                ClaimsIdentity claimsIdentity = turnContext.getTurnState().get(BotAdapter.BOT_IDENTITY_STATE_KEY);
                 ConnectorClient connectorClient =  connectorClientProvider.createConnectorClient(
                                                                 dc.getContext().getActivity().getServiceUrl(),
                                                                 claimsIdentity,
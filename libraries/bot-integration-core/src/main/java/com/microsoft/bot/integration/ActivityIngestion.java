@@ -0,0 +1,169 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.integration;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.microsoft.bot.builder.Bot;
+import com.microsoft.bot.builder.InvokeResponse;
+import com.microsoft.bot.connector.Async;
+import com.microsoft.bot.connector.ExecutorFactory;
+import com.microsoft.bot.schema.Activity;
+import com.microsoft.bot.schema.Serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Receives incoming Activities from HTTP requests.
+ *
+ * <p>
+ * The Authorization header is authenticated before the request body is read,
+ * so a request without a valid token is rejected without parsing its body.
+ * The body is then streamed into an {@link Activity} with a shared reader,
+ * rather than being bound by the web framework before authentication starts.
+ * Reading a request stream blocks, so it is done on the
+ * {@link ExecutorFactory#getBlockingExecutor() blocking executor}. Once the
+ * Activity is read, only the checks that need it are run; the token is not
+ * verified again.
+ * </p>
+ *
+ * <p>
+ * Frameworks that receive the body asynchronously, such as Spring WebFlux, use
+ * {@link #processIncomingActivity(String, Supplier, Bot)} instead. It does not
+ * block: the body is only requested once the header is authenticated, and is
+ * parsed and processed on the {@link ExecutorFactory#getExecutor() SDK
+ * executor}, not on the thread that delivers it, so a bot that blocks does not
+ * hold up an event loop thread.
+ * </p>
+ *
+ * <p>
+ * When the adapter has an {@link AdmissionController} that is full, requests
+ * are shed before they are authenticated or read.
+ * </p>
+ *
+ * <p>
+ * A body that is not a valid Activity fails the future with an IOException,
+ * which controllers should report as a bad request.
+ * </p>
+ */
+public class ActivityIngestion {
+    /**
+     * The shared reader for incoming Activities.
+     */
+    private static final ObjectReader ACTIVITY_READER = Serialization.getReader(Activity.class);
+
+    /**
+     * The adapter that authenticates and processes the Activities.
+     */
+    private final BotFrameworkHttpAdapter adapter;
+
+    /**
+     * Constructs with the adapter that processes the Activities.
+     *
+     * @param withAdapter The BotFrameworkHttpAdapter to use.
+     */
+    public ActivityIngestion(BotFrameworkHttpAdapter withAdapter) {
+        if (withAdapter == null) {
+            throw new IllegalArgumentException("adapter cannot be null");
+        }
+        adapter = withAdapter;
+    }
+
+    /**
+     * Authenticates a request, then reads and processes its Activity.
+     *
+     * @param authHeader The Authorization header from the http request.
+     * @param body       The request body. It is not read if authentication
+     *                   fails.
+     * @param bot        A Bot.
+     * @return A CompletableFuture that completes exceptionally with an
+     *         AuthenticationException if the request is not authorized, or with
+     *         an IOException if the body cannot be read.
+     */
+    public CompletableFuture<InvokeResponse> processIncomingActivity(
+        String authHeader,
+        InputStream body,
+        Bot bot
+    ) {
+        if (body == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("body"));
+        }
+        AdmissionController admission = adapter.getAdmissionController();
+        if (admission != null && admission.isSaturated()) {
+            return rejected(admission);
+        }
+
+        return adapter.authenticateHeader(authHeader)
+            .thenComposeAsync(identity -> {
+                Activity activity;
+                try {
+                    activity = readActivity(body);
+                } catch (IOException e) {
+                    return Async.completeExceptionally(e);
+                }
+                return adapter.processIncomingActivity(identity, authHeader, activity, bot);
+            }, ExecutorFactory.getBlockingExecutor());
+    }
+
+    /**
+     * Authenticates a request, then reads and processes its Activity without
+     * blocking.
+     *
+     * @param authHeader The Authorization header from the http request.
+     * @param body       Supplies the request body once it has been received. It
+     *                   is not called if authentication fails.
+     * @param bot        A Bot.
+     * @return A CompletableFuture that completes exceptionally with an
+     *         AuthenticationException if the request is not authorized, or with
+     *         an IOException if the body cannot be read.
+     */
+    public CompletableFuture<InvokeResponse> processIncomingActivity(
+        String authHeader,
+        Supplier<CompletableFuture<InputStream>> body,
+        Bot bot
+    ) {
+        if (body == null) {
+            return Async.completeExceptionally(new IllegalArgumentException("body"));
+        }
+        AdmissionController admission = adapter.getAdmissionController();
+        if (admission != null && admission.isSaturated()) {
+            return rejected(admission);
+        }
+
+        return adapter.authenticateHeader(authHeader)
+            // the body is delivered on a framework thread, such as an event
+            // loop, so parsing it and running the bot happen on the SDK pool
+            .thenCompose(identity -> body.get().thenComposeAsync(stream -> {
+                Activity activity;
+                try {
+                    activity = readActivity(stream);
+                } catch (IOException e) {
+                    return Async.completeExceptionally(e);
+                }
+                return adapter.processIncomingActivity(identity, authHeader, activity, bot);
+            }, ExecutorFactory.getExecutor()));
+    }
+
+    private static CompletableFuture<InvokeResponse> rejected(AdmissionController admission) {
+        admission.recordRejected();
+        return Async.completeExceptionally(new AdmissionRejectedException(
+            String.format("The bot is at its limit of %d concurrent requests", admission.getLimit())
+        ));
+    }
+
+    /**
+     * Reads an Activity from a stream with the shared reader.
+     *
+     * @param body The stream to read.
+     * @return The Activity.
+     * @throws IOException The stream could not be read or is not an Activity.
+     */
+    public static Activity readActivity(InputStream body) throws IOException {
+        try (InputStream is = body) {
+            return ACTIVITY_READER.readValue(is);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.integration;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of incoming requests a bot processes at once, and sheds
+ * the rest.
+ *
+ * <p>
+ * Without a limit, an overloaded bot accepts every request and queues the work
+ * on the SDK executor, so every request slows down. With one, a request over
+ * the limit is rejected at once with an {@link AdmissionRejectedException},
+ * which HTTP layers report as 503 so that the channel retries later, and the
+ * admitted requests keep their latency. The limit is fixed or adaptive, see
+ * {@link ConcurrencyLimit}.
+ * </p>
+ *
+ * <p>
+ * Part of the limit is reserved for priority requests, such as invoke
+ * activities whose caller waits for the answer: ordinary requests are shed
+ * first, and priority requests only when the whole limit is in use.
+ * </p>
+ *
+ * @see BotFrameworkHttpAdapter#setAdmissionController(AdmissionController)
+ */
+public class AdmissionController {
+    /**
+     * The default share of the limit reserved for priority requests.
+     */
+    public static final double DEFAULT_PRIORITY_RESERVE = 0.1;
+
+    /**
+     * The configuration key of a fixed concurrency limit.
+     */
+    public static final String MAX_CONCURRENCY_KEY = "AdmissionMaxConcurrency";
+
+    /**
+     * The configuration key that makes the limit adaptive, starting at the
+     * maximum concurrency if that is set.
+     */
+    public static final String ADAPTIVE_KEY = "AdmissionAdaptive";
+
+    private final ConcurrencyLimit limit;
+    private final double priorityReserve;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a controller with the default priority reserve.
+     *
+     * @param withLimit The concurrency limit.
+     */
+    public AdmissionController(ConcurrencyLimit withLimit) {
+        this(withLimit, DEFAULT_PRIORITY_RESERVE);
+    }
+
+    /**
+     * Creates a controller.
+     *
+     * @param withLimit           The concurrency limit.
+     * @param withPriorityReserve The share of the limit, from 0 to 1, that only
+     *                            priority requests can use.
+     */
+    public AdmissionController(ConcurrencyLimit withLimit, double withPriorityReserve) {
+        if (withLimit == null) {
+            throw new IllegalArgumentException("limit cannot be null");
+        }
+        if (withPriorityReserve < 0 || withPriorityReserve > 1) {
+            throw new IllegalArgumentException("priorityReserve must be between 0 and 1");
+        }
+
+        limit = withLimit;
+        priorityReserve = withPriorityReserve;
+    }
+
+    /**
+     * Creates a controller from configuration. {@link #MAX_CONCURRENCY_KEY} sets a
+     * fixed limit, and {@link #ADAPTIVE_KEY} set to true makes it adaptive.
+     *
+     * @param configuration The configuration to read.
+     * @return The controller, or null if admission control is not configured.
+     * @throws IllegalArgumentException A setting has an invalid value.
+     */
+    public static AdmissionController fromConfiguration(Configuration configuration)
+        throws IllegalArgumentException {
+        String maxConcurrency = configuration.getProperty(MAX_CONCURRENCY_KEY);
+        boolean adaptive = Boolean.parseBoolean(configuration.getProperty(ADAPTIVE_KEY));
+
+        if (adaptive) {
+            int initial = StringUtils.isBlank(maxConcurrency)
+                ? AimdConcurrencyLimit.DEFAULT_INITIAL_LIMIT
+                : Integer.parseInt(maxConcurrency.trim());
+            return new AdmissionController(new AimdConcurrencyLimit(
+                initial,
+                1,
+                Math.max(initial, AimdConcurrencyLimit.DEFAULT_MAX_LIMIT),
+                AimdConcurrencyLimit.DEFAULT_BACKOFF_RATIO,
+                AimdConcurrencyLimit.DEFAULT_LATENCY_THRESHOLD_MILLIS
+            ));
+        }
+
+        if (!StringUtils.isBlank(maxConcurrency)) {
+            return new AdmissionController(new FixedConcurrencyLimit(Integer.parseInt(maxConcurrency.trim())));
+        }
+
+        return null;
+    }
+
+    /**
+     * Admits a request if there is room for it.
+     *
+     * @param priority True for a request that can use the priority reserve.
+     * @return A permit to release when the request completes, or null if the
+     *         request should be shed.
+     */
+    public Permit tryAcquire(boolean priority) {
+        int max = limit.getLimit();
+        if (!priority) {
+            max -= (int) (max * priorityReserve);
+        }
+
+        while (true) {
+            int current = inflight.get();
+            if (current >= max) {
+                rejected.increment();
+                return null;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                admitted.increment();
+                return new Permit();
+            }
+        }
+    }
+
+    /**
+     * Gets whether every place, including the priority reserve, is in use, so
+     * that any request would be shed. Callers can check this before doing work
+     * to read a request.
+     *
+     * @return True if the controller is full.
+     */
+    public boolean isSaturated() {
+        return inflight.get() >= limit.getLimit();
+    }
+
+    /**
+     * Gets the current concurrency limit.
+     *
+     * @return The limit.
+     */
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    /**
+     * Gets the number of admitted requests still running.
+     *
+     * @return The in-flight request count.
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * Gets the number of requests admitted so far.
+     *
+     * @return The admitted request count.
+     */
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    /**
+     * Gets the number of requests shed so far.
+     *
+     * @return The rejected request count.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Counts a request shed before it could ask for a permit.
+     */
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * A place taken by an admitted request.
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        /**
+         * Frees the place when the request completes, and reports its latency to
+         * the limit. Only the first call has an effect.
+         *
+         * @param dropped True if the request failed because the bot was
+         *                overloaded.
+         */
+        public void release(boolean dropped) {
+            if (released.compareAndSet(false, true)) {
+                int running = inflight.getAndDecrement();
+                limit.onSample(System.nanoTime() - startNanos, running, dropped);
+            }
+        }
+    }
+}
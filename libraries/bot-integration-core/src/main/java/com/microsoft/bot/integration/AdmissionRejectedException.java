@@ -0,0 +1,23 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.integration;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown when an {@link AdmissionController} sheds a request because the bot is
+ * at its concurrency limit. HTTP layers report it as 503 Service Unavailable.
+ */
+public class AdmissionRejectedException extends RejectedExecutionException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Construct with a message.
+     *
+     * @param message The message.
+     */
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
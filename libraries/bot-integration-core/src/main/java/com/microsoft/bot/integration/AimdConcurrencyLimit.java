@@ -0,0 +1,120 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.integration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ConcurrencyLimit} that adapts to latency with additive increase and
+ * multiplicative decrease (AIMD).
+ *
+ * <p>
+ * While requests complete within the latency threshold and the limit is at
+ * least half used, the limit grows by one per request. A request slower than
+ * the threshold, or one dropped because the bot was overloaded, multiplies the
+ * limit by the backoff ratio. The limit settles just below the concurrency at
+ * which latency starts to climb.
+ * </p>
+ */
+public class AimdConcurrencyLimit implements ConcurrencyLimit {
+    /**
+     * The default starting limit.
+     */
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+    /**
+     * The default maximum limit.
+     */
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+
+    /**
+     * The default factor the limit is multiplied by on backoff.
+     */
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    /**
+     * The default latency above which the limit backs off.
+     */
+    public static final long DEFAULT_LATENCY_THRESHOLD_MILLIS = 5000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private volatile int limit;
+
+    /**
+     * Creates a limit with the default settings.
+     */
+    public AimdConcurrencyLimit() {
+        this(DEFAULT_INITIAL_LIMIT, 1, DEFAULT_MAX_LIMIT, DEFAULT_BACKOFF_RATIO, DEFAULT_LATENCY_THRESHOLD_MILLIS);
+    }
+
+    /**
+     * Creates a limit.
+     *
+     * @param withInitialLimit            The starting limit.
+     * @param withMinLimit                The lowest the limit can go.
+     * @param withMaxLimit                The highest the limit can go.
+     * @param withBackoffRatio            The factor the limit is multiplied by on
+     *                                    backoff, between 0 and 1.
+     * @param withLatencyThresholdMillis  The latency above which the limit backs
+     *                                    off.
+     */
+    public AimdConcurrencyLimit(
+        int withInitialLimit,
+        int withMinLimit,
+        int withMaxLimit,
+        double withBackoffRatio,
+        long withLatencyThresholdMillis
+    ) {
+        if (withMinLimit < 1 || withMaxLimit < withMinLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= minLimit <= maxLimit");
+        }
+        if (withInitialLimit < withMinLimit || withInitialLimit > withMaxLimit) {
+            throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+        }
+        if (withBackoffRatio <= 0 || withBackoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        if (withLatencyThresholdMillis <= 0) {
+            throw new IllegalArgumentException("latencyThresholdMillis must be positive");
+        }
+
+        limit = withInitialLimit;
+        minLimit = withMinLimit;
+        maxLimit = withMaxLimit;
+        backoffRatio = withBackoffRatio;
+        latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(withLatencyThresholdMillis);
+    }
+
+    /**
+     * Gets the current limit.
+     *
+     * @return The number of requests that can run at once.
+     */
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Grows the limit after a fast request that used it, or backs off after a
+     * slow or dropped one.
+     *
+     * @param latencyNanos The time the request took, in nanoseconds.
+     * @param inflight     The number of requests running when it completed.
+     * @param dropped      True if the request failed because the bot was
+     *                     overloaded.
+     */
+    @Override
+    public synchronized void onSample(long latencyNanos, int inflight, boolean dropped) {
+        int current = limit;
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, (int) (current * backoffRatio));
+        } else if (inflight * 2 >= current) {
+            limit = Math.min(maxLimit, current + 1);
+        }
+    }
+}
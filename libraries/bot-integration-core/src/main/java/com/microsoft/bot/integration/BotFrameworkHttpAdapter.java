@@ -6,19 +6,32 @@ package com.microsoft.bot.integration;
 import com.microsoft.bot.builder.Bot;
 import com.microsoft.bot.builder.BotFrameworkAdapter;
 import com.microsoft.bot.builder.InvokeResponse;
+import com.microsoft.bot.connector.Async;
 import com.microsoft.bot.connector.authentication.ChannelProvider;
 import com.microsoft.bot.connector.authentication.ChannelValidation;
+import com.microsoft.bot.connector.authentication.ClaimsIdentity;
 import com.microsoft.bot.connector.authentication.CredentialProvider;
 import com.microsoft.bot.connector.authentication.GovernmentChannelValidation;
 import com.microsoft.bot.schema.Activity;
+import com.microsoft.bot.schema.ActivityTypes;
+import com.microsoft.bot.schema.DeliveryModes;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.InputStream;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 /**
  * A BotFrameworkAdapter that receives incoming Activities via HTTP.
  */
 public class BotFrameworkHttpAdapter extends BotFrameworkAdapter {
+    /**
+     * Limits the requests processed at once, or null to admit every request.
+     */
+    private volatile AdmissionController admissionController;
+
     /**
      * Construct with a Configuration. This will create a CredentialProvider and
      * ChannelProvider based on configuration values.
@@ -41,6 +54,8 @@ public class BotFrameworkHttpAdapter extends BotFrameworkAdapter {
             ChannelValidation.setOpenIdMetaDataUrl(openIdEndPoint);
             GovernmentChannelValidation.setOpenIdMetaDataUrl(openIdEndPoint);
         }
+
+        admissionController = AdmissionController.fromConfiguration(withConfiguration);
     }
 
     /**
@@ -62,13 +77,110 @@ public class BotFrameworkHttpAdapter extends BotFrameworkAdapter {
      * @param authHeader The Authorization header from the http request.
      * @param activity   The received Activity.
      * @param bot        A Bot.
-     * @return A CompletableFuture.
+     * @return A CompletableFuture, which completes exceptionally with an
+     *         {@link AdmissionRejectedException} if the request is shed.
      */
     public CompletableFuture<InvokeResponse> processIncomingActivity(
         String authHeader,
         Activity activity,
         Bot bot
     ) {
-        return processActivity(authHeader, activity, bot::onTurn);
+        return admit(activity, () -> processActivity(authHeader, activity, bot::onTurn));
+    }
+
+    /**
+     * Processes an incoming Activity whose Authorization header was already
+     * authenticated with {@link #authenticateHeader(String)}. Only the checks
+     * that need the activity are run, so the token is not verified again.
+     *
+     * @param identity   The identity from authenticateHeader.
+     * @param authHeader The Authorization header from the http request.
+     * @param activity   The received Activity.
+     * @param bot        A Bot.
+     * @return A CompletableFuture, which completes exceptionally with an
+     *         {@link AdmissionRejectedException} if the request is shed.
+     */
+    CompletableFuture<InvokeResponse> processIncomingActivity(
+        ClaimsIdentity identity,
+        String authHeader,
+        Activity activity,
+        Bot bot
+    ) {
+        return admit(activity, () -> authenticateActivity(identity, authHeader, activity)
+            .thenCompose(authenticated -> processActivity(authenticated, activity, bot::onTurn)));
+    }
+
+    /**
+     * Processes an Activity once the admission controller, if any, admits it.
+     *
+     * @param activity The received Activity.
+     * @param process  Processes the Activity.
+     * @return A CompletableFuture, which completes exceptionally with an
+     *         {@link AdmissionRejectedException} if the request is shed.
+     */
+    private CompletableFuture<InvokeResponse> admit(
+        Activity activity,
+        Supplier<CompletableFuture<InvokeResponse>> process
+    ) {
+        AdmissionController admission = admissionController;
+        if (admission == null || activity == null) {
+            return process.get();
+        }
+
+        // the caller of an invoke or ExpectReplies activity waits for the answer
+        boolean priority = activity.isType(ActivityTypes.INVOKE)
+            || DeliveryModes.fromString(activity.getDeliveryMode()) == DeliveryModes.EXPECT_REPLIES;
+        AdmissionController.Permit permit = admission.tryAcquire(priority);
+        if (permit == null) {
+            return Async.completeExceptionally(new AdmissionRejectedException(
+                String.format("The bot is at its limit of %d concurrent requests", admission.getLimit())
+            ));
+        }
+
+        return Async.tryCompletable(process::get).whenComplete((result, exception) -> {
+            Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+            permit.release(cause instanceof RejectedExecutionException);
+        });
+    }
+
+    /**
+     * Gets the admission controller that limits the requests processed at once.
+     *
+     * @return The admission controller, or null if every request is admitted.
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * Sets the admission controller that limits the requests processed at once.
+     * When constructed with a Configuration, the adapter reads it with
+     * {@link AdmissionController#fromConfiguration(Configuration)}.
+     *
+     * @param withAdmissionController The admission controller, or null to admit
+     *                                every request.
+     */
+    public void setAdmissionController(AdmissionController withAdmissionController) {
+        admissionController = withAdmissionController;
+    }
+
+    /**
+     * Authenticates a request from its Authorization header, then reads and
+     * processes its Activity, without blocking a thread. This suits servers with
+     * a small number of event loop threads, such as Spring WebFlux.
+     *
+     * @param authHeader The Authorization header from the http request.
+     * @param body       Supplies the request body once it has been received. It
+     *                   is not called if authentication fails.
+     * @param bot        A Bot.
+     * @return A CompletableFuture.
+     * @see ActivityIngestion
+     */
+    public CompletableFuture<InvokeResponse> processIncomingActivity(
+        String authHeader,
+        Supplier<CompletableFuture<InputStream>> body,
+        Bot bot
+    ) {
+        return new ActivityIngestion(this).processIncomingActivity(authHeader, body, bot);
     }
 }
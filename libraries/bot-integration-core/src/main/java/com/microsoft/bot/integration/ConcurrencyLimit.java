@@ -0,0 +1,31 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.integration;
+
+/**
+ * The number of requests an {@link AdmissionController} lets run at once.
+ *
+ * <p>
+ * Implementations may adapt the limit to the latency of completed requests.
+ * </p>
+ */
+public interface ConcurrencyLimit {
+    /**
+     * Gets the current limit.
+     *
+     * @return The number of requests that can run at once.
+     */
+    int getLimit();
+
+    /**
+     * Records a completed request.
+     *
+     * @param latencyNanos The time the request took, in nanoseconds.
+     * @param inflight     The number of requests running when it completed,
+     *                     including itself.
+     * @param dropped      True if the request failed because the bot was
+     *                     overloaded.
+     */
+    void onSample(long latencyNanos, int inflight, boolean dropped);
+}
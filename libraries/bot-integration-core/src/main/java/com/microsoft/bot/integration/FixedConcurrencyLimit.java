@@ -0,0 +1,45 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.integration;
+
+/**
+ * A {@link ConcurrencyLimit} that does not change.
+ */
+public class FixedConcurrencyLimit implements ConcurrencyLimit {
+    private final int limit;
+
+    /**
+     * Creates a fixed limit.
+     *
+     * @param withLimit The number of requests that can run at once.
+     */
+    public FixedConcurrencyLimit(int withLimit) {
+        if (withLimit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        limit = withLimit;
+    }
+
+    /**
+     * Gets the limit.
+     *
+     * @return The number of requests that can run at once.
+     */
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Ignores the sample; the limit is fixed.
+     *
+     * @param latencyNanos The time the request took, in nanoseconds.
+     * @param inflight     The number of requests running when it completed.
+     * @param dropped      True if the request failed because the bot was
+     *                     overloaded.
+     */
+    @Override
+    public void onSample(long latencyNanos, int inflight, boolean dropped) {
+    }
+}
@@ -0,0 +1,117 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.integration;
+
+import com.microsoft.bot.builder.Bot;
+import com.microsoft.bot.connector.authentication.AuthenticationException;
+import com.microsoft.bot.connector.authentication.SimpleChannelProvider;
+import com.microsoft.bot.connector.authentication.SimpleCredentialProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ActivityIngestionTests {
+    private static final Bot BOT = turnContext -> {
+        Assert.fail("The bot should not be called");
+        return CompletableFuture.completedFuture(null);
+    };
+
+    @Test
+    public void ActivityIngestion_RejectsMissingAuthWithoutReadingBody() {
+        ActivityIngestion ingestion = new ActivityIngestion(authenticatedAdapter());
+        TrackedStream body = new TrackedStream("{}");
+
+        assertFailsWith(AuthenticationException.class, ingestion.processIncomingActivity("", body, BOT));
+        Assert.assertFalse(body.read.get());
+    }
+
+    @Test
+    public void ActivityIngestion_RejectsInvalidAuthWithoutReadingBody() {
+        ActivityIngestion ingestion = new ActivityIngestion(authenticatedAdapter());
+        TrackedStream body = new TrackedStream("{}");
+
+        assertFailsWith(
+            AuthenticationException.class,
+            ingestion.processIncomingActivity("Basic not-a-token", body, BOT)
+        );
+        Assert.assertFalse(body.read.get());
+    }
+
+    @Test
+    public void ActivityIngestion_RejectsInvalidAuthWithoutRequestingBody() {
+        ActivityIngestion ingestion = new ActivityIngestion(authenticatedAdapter());
+        AtomicBoolean requested = new AtomicBoolean();
+
+        assertFailsWith(AuthenticationException.class, ingestion.processIncomingActivity("", () -> {
+            requested.set(true);
+            return CompletableFuture.completedFuture(new TrackedStream("{}"));
+        }, BOT));
+        Assert.assertFalse(requested.get());
+    }
+
+    @Test
+    public void ActivityIngestion_FailsMalformedBodyWithIOException() {
+        ActivityIngestion ingestion = new ActivityIngestion(anonymousAdapter());
+
+        assertFailsWith(
+            IOException.class,
+            ingestion.processIncomingActivity("", new TrackedStream("{not json"), BOT)
+        );
+        assertFailsWith(
+            IOException.class,
+            ingestion.processIncomingActivity(
+                "", () -> CompletableFuture.completedFuture(new TrackedStream("{not json")), BOT
+            )
+        );
+    }
+
+    private static BotFrameworkHttpAdapter authenticatedAdapter() {
+        return new BotFrameworkHttpAdapter(
+            new SimpleCredentialProvider("appId", "password"), new SimpleChannelProvider()
+        );
+    }
+
+    private static BotFrameworkHttpAdapter anonymousAdapter() {
+        return new BotFrameworkHttpAdapter(new SimpleCredentialProvider(), new SimpleChannelProvider());
+    }
+
+    private static void assertFailsWith(Class<? extends Throwable> expected, CompletableFuture<?> result) {
+        try {
+            result.join();
+            Assert.fail("Should have thrown");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause().toString(), expected.isInstance(e.getCause()));
+        }
+    }
+
+    /**
+     * A request body that records whether it was read.
+     */
+    private static class TrackedStream extends ByteArrayInputStream {
+        private final AtomicBoolean read = new AtomicBoolean();
+
+        TrackedStream(String body) {
+            super(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public synchronized int read() {
+            read.set(true);
+            return super.read();
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            read.set(true);
+            return super.read(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.integration;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+public class AdmissionControllerTests {
+    @Test
+    public void AdmissionController_ReservesRoomForPriorityRequests() {
+        AdmissionController admission = new AdmissionController(new FixedConcurrencyLimit(10), 0.2);
+
+        AdmissionController.Permit[] permits = new AdmissionController.Permit[8];
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = admission.tryAcquire(false);
+            Assert.assertNotNull(permits[i]);
+        }
+
+        // ordinary requests are shed once only the reserve is left
+        Assert.assertNull(admission.tryAcquire(false));
+        AdmissionController.Permit invoke = admission.tryAcquire(true);
+        Assert.assertNotNull(invoke);
+        Assert.assertNotNull(admission.tryAcquire(true));
+        Assert.assertNull(admission.tryAcquire(true));
+        Assert.assertTrue(admission.isSaturated());
+        Assert.assertEquals(2, admission.getRejected());
+
+        invoke.release(false);
+        invoke.release(false);
+        Assert.assertEquals(9, admission.getInflight());
+        Assert.assertFalse(admission.isSaturated());
+    }
+
+    @Test
+    public void AimdConcurrencyLimit_GrowsAndBacksOff() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(10, 2, 12, 0.5, 100);
+        long fast = TimeUnit.MILLISECONDS.toNanos(10);
+        long slow = TimeUnit.MILLISECONDS.toNanos(200);
+
+        // an underused limit does not grow
+        limit.onSample(fast, 1, false);
+        Assert.assertEquals(10, limit.getLimit());
+
+        limit.onSample(fast, 10, false);
+        limit.onSample(fast, 10, false);
+        limit.onSample(fast, 10, false);
+        Assert.assertEquals(12, limit.getLimit());
+
+        limit.onSample(slow, 10, false);
+        Assert.assertEquals(6, limit.getLimit());
+        limit.onSample(fast, 6, true);
+        Assert.assertEquals(3, limit.getLimit());
+        limit.onSample(fast, 3, true);
+        Assert.assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void AdmissionController_ReadsConfiguration() {
+        Properties properties = new Properties();
+        Configuration configuration = new Configuration() {
+            @Override
+            public String getProperty(String key) {
+                return properties.getProperty(key);
+            }
+
+            @Override
+            public Properties getProperties() {
+                return properties;
+            }
+        };
+        Assert.assertNull(AdmissionController.fromConfiguration(configuration));
+
+        properties.setProperty(AdmissionController.MAX_CONCURRENCY_KEY, "50");
+        Assert.assertEquals(50, AdmissionController.fromConfiguration(configuration).getLimit());
+
+        properties.setProperty(AdmissionController.ADAPTIVE_KEY, "true");
+        AdmissionController adaptive = AdmissionController.fromConfiguration(configuration);
+        Assert.assertEquals(50, adaptive.getLimit());
+    }
+}
@@ -4,20 +4,25 @@
 package com.microsoft.bot.integration.spring;
 
 import com.microsoft.bot.builder.Bot;
+import com.microsoft.bot.builder.InvokeResponse;
 import com.microsoft.bot.connector.authentication.AuthenticationException;
+import com.microsoft.bot.integration.ActivityIngestion;
+import com.microsoft.bot.integration.AdmissionRejectedException;
 import com.microsoft.bot.integration.BotFrameworkHttpAdapter;
-import com.microsoft.bot.schema.Activity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This is the default controller that will receive incoming Channel Activity
@@ -28,9 +33,20 @@ import java.util.concurrent.CompletionException;
  * controller should do so by using the @Import({BotController.class})
  * annotation. See any of the samples Application class for an example.
  * </p>
+ *
+ * <p>
+ * The request is authenticated from its headers before the body is read, see
+ * {@link ActivityIngestion}. When the adapter has an admission controller,
+ * requests over its limit get 503 Service Unavailable with a Retry-After header.
+ * </p>
  */
 @RestController
 public class BotController {
+    /**
+     * The Retry-After value, in seconds, of a request that was shed or rejected.
+     */
+    private static final String RETRY_AFTER_SECONDS = "1";
+
     /**
      * The slf4j Logger to use. Note that slf4j is configured by providing Log4j
      * dependencies in the POM, and corresponding Log4j configuration in the
@@ -39,10 +55,11 @@ public class BotController {
     private Logger logger = LoggerFactory.getLogger(BotController.class);
 
     /**
-     * The BotFrameworkHttpAdapter to use. Note is is provided by dependency
-     * injection via the constructor.
+     * Authenticates requests and reads their Activities with the
+     * BotFrameworkHttpAdapter, which is provided by dependency injection via the
+     * constructor.
      */
-    private final BotFrameworkHttpAdapter adapter;
+    private final ActivityIngestion ingestion;
 
     /**
      * The BotFrameworkHttpAdapter to use. Note is is provided by dependency
@@ -64,47 +81,79 @@ public class BotController {
      * @param withBot     The Bot to use.
      */
     public BotController(BotFrameworkHttpAdapter withAdapter, Bot withBot) {
-        adapter = withAdapter;
+        ingestion = new ActivityIngestion(withAdapter);
         bot = withBot;
     }
 
     /**
      * This will receive incoming Channel Activities.
      *
-     * @param activity   The incoming Activity.
+     * @param body       The incoming request body.
      * @param authHeader The incoming Authorization header.
      * @return The request response.
      */
     @PostMapping("/api/messages")
     public CompletableFuture<ResponseEntity<Object>> incoming(
-        @RequestBody Activity activity,
+        InputStream body,
         @RequestHeader(value = "Authorization", defaultValue = "") String authHeader
     ) {
 
-        return adapter.processIncomingActivity(authHeader, activity, bot)
+        return ingestion.processIncomingActivity(authHeader, body, bot)
+            .handle((result, exception) -> createResponse(result, exception, logger));
+    }
 
-            .handle((result, exception) -> {
-                if (exception == null) {
-                    if (result != null) {
-                        return new ResponseEntity<>(
-                            result.getBody(),
-                            HttpStatus.valueOf(result.getStatus())
-                        );
-                    }
-                    return new ResponseEntity<>(HttpStatus.ACCEPTED);
-                }
+    /**
+     * Creates the response to a request from the result of processing it.
+     *
+     * <p>
+     * A request shed by admission control gets 503 and one rejected because its
+     * conversation has too many turns waiting gets 429, both with a Retry-After
+     * header, without logging an error.
+     * </p>
+     *
+     * @param result    The InvokeResponse, or null if there is no response body.
+     * @param exception The exception processing failed with, or null.
+     * @param logger    The Logger to report the exception to.
+     * @return The request response.
+     */
+    static ResponseEntity<Object> createResponse(InvokeResponse result, Throwable exception, Logger logger) {
+        if (exception == null) {
+            if (result != null) {
+                return new ResponseEntity<>(
+                    result.getBody(),
+                    HttpStatus.valueOf(result.getStatus())
+                );
+            }
+            return new ResponseEntity<>(HttpStatus.ACCEPTED);
+        }
+
+        Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+        if (cause instanceof AdmissionRejectedException) {
+            logger.debug("Request shed: {}", cause.getMessage());
+            return retryLater(HttpStatus.SERVICE_UNAVAILABLE);
+        } else if (cause instanceof RejectedExecutionException) {
+            logger.debug("Request rejected: {}", cause.getMessage());
+            return retryLater(HttpStatus.TOO_MANY_REQUESTS);
+        }
 
-                logger.error("Exception handling message", exception);
+        logger.error("Exception handling message", exception);
+
+        if (exception instanceof CompletionException) {
+            if (cause instanceof AuthenticationException) {
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            } else if (cause instanceof IOException) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            } else {
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        } else {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
-                if (exception instanceof CompletionException) {
-                    if (exception.getCause() instanceof AuthenticationException) {
-                        return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
-                    } else {
-                        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-                    }
-                } else {
-                    return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-                }
-            });
+    private static ResponseEntity<Object> retryLater(HttpStatus status) {
+        return ResponseEntity.status(status)
+            .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+            .build();
     }
 }
@@ -0,0 +1,99 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.integration.spring;
+
+import com.microsoft.bot.builder.Bot;
+import com.microsoft.bot.integration.BotFrameworkHttpAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A controller for Spring WebFlux applications that receives incoming Channel
+ * Activity messages without blocking.
+ *
+ * <p>
+ * This is the WebFlux counterpart of {@link BotController}; import one or the
+ * other with the @Import annotation, not both. The Authorization header is
+ * authenticated before the body is subscribed to, so the body of a request
+ * that fails is never read. The body is parsed and the bot runs on the SDK
+ * executor rather than on the event loop thread that delivered the body, so a
+ * few event loop threads can serve many concurrent requests even when the bot
+ * blocks. The application must depend on spring-boot-starter-webflux.
+ * </p>
+ */
+@RestController
+public class ReactiveBotController {
+    /**
+     * The slf4j Logger to use.
+     */
+    private Logger logger = LoggerFactory.getLogger(ReactiveBotController.class);
+
+    /**
+     * The BotFrameworkHttpAdapter to use. Note is is provided by dependency
+     * injection via the constructor.
+     */
+    private final BotFrameworkHttpAdapter adapter;
+
+    /**
+     * The Bot to use. Note is is provided by dependency injection via the
+     * constructor.
+     */
+    private final Bot bot;
+
+    /**
+     * Spring will use this constructor for creation.
+     *
+     * @see BotDependencyConfiguration
+     *
+     * @param withAdapter The BotFrameworkHttpAdapter to use.
+     * @param withBot     The Bot to use.
+     */
+    public ReactiveBotController(BotFrameworkHttpAdapter withAdapter, Bot withBot) {
+        adapter = withAdapter;
+        bot = withBot;
+    }
+
+    /**
+     * This will receive incoming Channel Activities.
+     *
+     * @param body       The incoming request body.
+     * @param authHeader The incoming Authorization header.
+     * @return The request response.
+     */
+    @PostMapping("/api/messages")
+    public Mono<ResponseEntity<Object>> incoming(
+        @RequestBody(required = false) Flux<DataBuffer> body,
+        @RequestHeader(value = "Authorization", defaultValue = "") String authHeader
+    ) {
+        return Mono.fromFuture(
+            adapter.processIncomingActivity(authHeader, () -> readBody(body), bot)
+                .handle((result, exception) -> BotController.createResponse(result, exception, logger))
+        );
+    }
+
+    private static CompletableFuture<InputStream> readBody(Flux<DataBuffer> body) {
+        if (body == null) {
+            return CompletableFuture.completedFuture(new ByteArrayInputStream(new byte[0]));
+        }
+
+        // the stream releases the joined buffer when it is closed
+        return DataBufferUtils.join(body)
+            .map(buffer -> buffer.asInputStream(true))
+            .defaultIfEmpty(new ByteArrayInputStream(new byte[0]))
+            .toFuture();
+    }
+}
@@ -0,0 +1,37 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.integration.spring;
+
+import com.microsoft.bot.connector.authentication.AuthenticationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+
+public class BotControllerTests {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BotControllerTests.class);
+
+    @Test
+    public void BotController_MapsMalformedBodyToBadRequest() {
+        Assertions.assertEquals(
+            HttpStatus.BAD_REQUEST,
+            BotController.createResponse(null, new CompletionException(new IOException("malformed")), LOGGER)
+                .getStatusCode()
+        );
+    }
+
+    @Test
+    public void BotController_MapsAuthenticationFailureToUnauthorized() {
+        Assertions.assertEquals(
+            HttpStatus.UNAUTHORIZED,
+            BotController.createResponse(
+                null, new CompletionException(new AuthenticationException("no token")), LOGGER
+            ).getStatusCode()
+        );
+    }
+}
@@ -207,6 +207,12 @@ public class Activity {
      */
     private HashMap<String, JsonNode> properties = new HashMap<>();
 
+    /**
+     * The snapshots that share this activity, or null if there are none. They
+     * are copied before the activity changes.
+     */
+    private transient volatile List<ActivitySnapshot> snapshots;
+
     /**
      * Default constructor. Normally this wouldn't be used as the ActivityType is
      * normally required.
@@ -356,60 +362,130 @@ public class Activity {
      * @return new cloned activity
      */
     public static Activity clone(Activity activity) {
-        Activity clone = new Activity(activity.getType()) {
-            {
-                setId(activity.getId());
-                setTimestamp(activity.getTimestamp());
-                setLocalTimestamp(activity.getLocalTimestamp());
-                setLocalTimeZone(activity.getLocalTimezone());
-                setChannelData(activity.getChannelData());
-                setFrom(ChannelAccount.clone(activity.getFrom()));
-                setRecipient(ChannelAccount.clone(activity.getRecipient()));
-                setConversation(ConversationAccount.clone(activity.getConversation()));
-                setChannelId(activity.getChannelId());
-                setServiceUrl(activity.getServiceUrl());
-                setChannelId(activity.getChannelId());
-                setEntities(Entity.cloneList(activity.getEntities()));
-                setReplyToId(activity.getReplyToId());
-                setSpeak(activity.getSpeak());
-                setText(activity.getText());
-                setInputHint(activity.getInputHint());
-                setSummary(activity.getSummary());
-                setSuggestedActions(SuggestedActions.clone(activity.getSuggestedActions()));
-                setAttachments(Attachment.cloneList(activity.getAttachments()));
-                setAction(activity.getAction());
-                setLabel(activity.getLabel());
-                setValueType(activity.getValueType());
-                setValue(activity.getValue());
-                setName(activity.getName());
-                setRelatesTo(ConversationReference.clone(activity.getRelatesTo()));
-                setCode(activity.getCode());
-                setExpiration(activity.getExpiration());
-                setImportance(activity.getImportance());
-                setDeliveryMode(activity.getDeliveryMode());
-                setTextHighlights(activity.getTextHighlights());
-                setCallerId(activity.getCallerId());
-                setHistoryDisclosed(activity.getHistoryDisclosed());
-                setLocale(activity.getLocale());
-                setReactionsAdded(MessageReaction.cloneList(activity.getReactionsAdded()));
-                setReactionsRemoved(MessageReaction.cloneList(activity.getReactionsRemoved()));
-                setExpiration(activity.getExpiration());
-                setMembersAdded(ChannelAccount.cloneList(activity.getMembersAdded()));
-                setMembersRemoved(ChannelAccount.cloneList(activity.getMembersRemoved()));
-                setTextFormat(activity.getTextFormat());
-                setAttachmentLayout(activity.getAttachmentLayout());
-                setTopicName(activity.getTopicName());
-                if (activity.getListenFor() != null) {
-                    setListenFor(new ArrayList<>(activity.getListenFor()));
-                }
-            }
-        };
+        return copy(activity, true);
+    }
+
+    /**
+     * Copies the fields of an activity into a new one, sharing the accounts,
+     * lists and other nested objects of the original. Changing a field of the
+     * copy does not change the original, but changing a nested object does.
+     *
+     * @param activity The activity to copy.
+     * @return A shallow copy of the activity.
+     */
+    static Activity shallowCopy(Activity activity) {
+        return copy(activity, false);
+    }
+
+    private static Activity copy(Activity activity, boolean deep) {
+        Activity copy = new Activity(activity.getType());
+        copy.setId(activity.getId());
+        copy.setTimestamp(activity.getTimestamp());
+        copy.setLocalTimestamp(activity.getLocalTimestamp());
+        copy.setLocalTimeZone(activity.getLocalTimezone());
+        copy.setChannelData(activity.getChannelData());
+        copy.setFrom(deep ? ChannelAccount.clone(activity.getFrom()) : activity.getFrom());
+        copy.setRecipient(deep ? ChannelAccount.clone(activity.getRecipient()) : activity.getRecipient());
+        copy.setConversation(
+            deep ? ConversationAccount.clone(activity.getConversation()) : activity.getConversation()
+        );
+        copy.setChannelId(activity.getChannelId());
+        copy.setServiceUrl(activity.getServiceUrl());
+        copy.setEntities(deep ? Entity.cloneList(activity.getEntities()) : activity.getEntities());
+        copy.setReplyToId(activity.getReplyToId());
+        copy.setSpeak(activity.getSpeak());
+        copy.setText(activity.getText());
+        copy.setInputHint(activity.getInputHint());
+        copy.setSummary(activity.getSummary());
+        copy.setSuggestedActions(
+            deep ? SuggestedActions.clone(activity.getSuggestedActions()) : activity.getSuggestedActions()
+        );
+        copy.setAttachments(deep ? Attachment.cloneList(activity.getAttachments()) : activity.getAttachments());
+        copy.setAction(activity.getAction());
+        copy.setLabel(activity.getLabel());
+        copy.setValueType(activity.getValueType());
+        copy.setValue(activity.getValue());
+        copy.setName(activity.getName());
+        copy.setRelatesTo(deep ? ConversationReference.clone(activity.getRelatesTo()) : activity.getRelatesTo());
+        copy.setCode(activity.getCode());
+        copy.setExpiration(activity.getExpiration());
+        copy.setImportance(activity.getImportance());
+        copy.setDeliveryMode(activity.getDeliveryMode());
+        copy.setTextHighlights(activity.getTextHighlights());
+        copy.setCallerId(activity.getCallerId());
+        copy.setHistoryDisclosed(activity.getHistoryDisclosed());
+        copy.setLocale(activity.getLocale());
+        copy.setReactionsAdded(
+            deep ? MessageReaction.cloneList(activity.getReactionsAdded()) : activity.getReactionsAdded()
+        );
+        copy.setReactionsRemoved(
+            deep ? MessageReaction.cloneList(activity.getReactionsRemoved()) : activity.getReactionsRemoved()
+        );
+        copy.setMembersAdded(deep ? ChannelAccount.cloneList(activity.getMembersAdded()) : activity.getMembersAdded());
+        copy.setMembersRemoved(
+            deep ? ChannelAccount.cloneList(activity.getMembersRemoved()) : activity.getMembersRemoved()
+        );
+        copy.setTextFormat(activity.getTextFormat());
+        copy.setAttachmentLayout(activity.getAttachmentLayout());
+        copy.setTopicName(activity.getTopicName());
+        if (activity.getListenFor() != null) {
+            copy.setListenFor(deep ? new ArrayList<>(activity.getListenFor()) : activity.getListenFor());
+        }
 
         for (Map.Entry<String, JsonNode> entry : activity.getProperties().entrySet()) {
-            clone.setProperties(entry.getKey(), entry.getValue());
+            copy.setProperties(entry.getKey(), entry.getValue());
+        }
+
+        return copy;
+    }
+
+    /**
+     * Registers a snapshot that is copied before the next change to this
+     * activity.
+     *
+     * @param snapshot The snapshot.
+     */
+    synchronized void addSnapshot(ActivitySnapshot snapshot) {
+        if (snapshots == null) {
+            snapshots = new ArrayList<>(1);
         }
+        snapshots.add(snapshot);
+    }
+
+    /**
+     * Stops copying a snapshot before changes.
+     *
+     * @param snapshot The snapshot.
+     */
+    synchronized void removeSnapshot(ActivitySnapshot snapshot) {
+        if (snapshots != null) {
+            snapshots.remove(snapshot);
+            if (snapshots.isEmpty()) {
+                snapshots = null;
+            }
+        }
+    }
 
-        return clone;
+    /**
+     * Called by every setter before it changes the activity. Copies the activity
+     * for the snapshots that still share it.
+     */
+    private void beforeChange() {
+        if (snapshots == null) {
+            return;
+        }
+
+        List<ActivitySnapshot> pending;
+        synchronized (this) {
+            pending = snapshots;
+            snapshots = null;
+        }
+
+        if (pending != null) {
+            for (ActivitySnapshot snapshot : pending) {
+                snapshot.copyBeforeChange();
+            }
+        }
     }
 
     /**
@@ -427,6 +503,7 @@ public class Activity {
      * @param withType The type of the Activity.
      */
     public void setType(String withType) {
+        beforeChange();
         this.type = withType;
     }
 
@@ -455,6 +532,7 @@ public class Activity {
      * @param withId The activity ID.
      */
     public void setId(String withId) {
+        beforeChange();
         this.id = withId;
     }
 
@@ -475,6 +553,7 @@ public class Activity {
      * @param withTimestamp The UTC timestamp of the activity.
      */
     public void setTimestamp(OffsetDateTime withTimestamp) {
+        beforeChange();
         this.timestamp = withTimestamp;
     }
 
@@ -495,6 +574,7 @@ public class Activity {
      * @param withLocalTimestamp The local timestamp of the activity.
      */
     public void setLocalTimestamp(OffsetDateTime withLocalTimestamp) {
+        beforeChange();
         this.localTimestamp = withLocalTimestamp;
     }
 
@@ -515,6 +595,7 @@ public class Activity {
      * @param withLocalTimezone The local timezone.
      */
     public void setLocalTimeZone(String withLocalTimezone) {
+        beforeChange();
         this.localTimezone = withLocalTimezone;
     }
 
@@ -539,6 +620,7 @@ public class Activity {
      * @param withCallerId The caller id.
      */
     public void setCallerId(String withCallerId) {
+        beforeChange();
         this.callerId = withCallerId;
     }
 
@@ -559,6 +641,7 @@ public class Activity {
      * @param withServiceUrl The service URL of the Activity.
      */
     public void setServiceUrl(String withServiceUrl) {
+        beforeChange();
         this.serviceUrl = withServiceUrl;
     }
 
@@ -577,6 +660,7 @@ public class Activity {
      * @param withChannelId The channel ID.
      */
     public void setChannelId(String withChannelId) {
+        beforeChange();
         this.channelId = withChannelId;
     }
 
@@ -595,6 +679,7 @@ public class Activity {
      * @param withFrom The {@link ChannelAccount} of the sender.
      */
     public void setFrom(ChannelAccount withFrom) {
+        beforeChange();
         this.from = withFrom;
     }
 
@@ -613,6 +698,7 @@ public class Activity {
      * @param withConversation The {@link ConversationAccount}.
      */
     public void setConversation(ConversationAccount withConversation) {
+        beforeChange();
         this.conversation = withConversation;
     }
 
@@ -631,6 +717,7 @@ public class Activity {
      * @param withRecipient The {@link ChannelAccount} of the recipient.
      */
     public void setRecipient(ChannelAccount withRecipient) {
+        beforeChange();
         this.recipient = withRecipient;
     }
 
@@ -650,6 +737,7 @@ public class Activity {
      * @param withTextFormat The TextFormatTypes type.
      */
     public void setTextFormat(TextFormatTypes withTextFormat) {
+        beforeChange();
         this.textFormat = withTextFormat;
     }
 
@@ -668,6 +756,7 @@ public class Activity {
      * @param withAttachmentLayout The attachment type.
      */
     public void setAttachmentLayout(AttachmentLayoutTypes withAttachmentLayout) {
+        beforeChange();
         this.attachmentLayout = withAttachmentLayout;
     }
 
@@ -686,6 +775,7 @@ public class Activity {
      * @param withReactionsAdded A List of {@link MessageReaction}.
      */
     public void setReactionsAdded(List<MessageReaction> withReactionsAdded) {
+        beforeChange();
         this.reactionsAdded = withReactionsAdded;
     }
 
@@ -704,6 +794,7 @@ public class Activity {
      * @param withReactionsRemoved A List of {@link MessageReaction}.
      */
     public void setReactionsRemoved(List<MessageReaction> withReactionsRemoved) {
+        beforeChange();
         this.reactionsRemoved = withReactionsRemoved;
     }
 
@@ -732,6 +823,7 @@ public class Activity {
      * @param withLocale The content locale.
      */
     public void setLocale(String withLocale) {
+        beforeChange();
         this.locale = withLocale;
     }
 
@@ -750,6 +842,7 @@ public class Activity {
      * @param withText The text content.
      */
     public void setText(String withText) {
+        beforeChange();
         this.text = withText;
     }
 
@@ -768,6 +861,7 @@ public class Activity {
      * @param withSpeak The SSML text to speak.
      */
     public void setSpeak(String withSpeak) {
+        beforeChange();
         this.speak = withSpeak;
     }
 
@@ -788,6 +882,7 @@ public class Activity {
      * @param withInputHint The input hint for the activity.
      */
     public void setInputHint(InputHints withInputHint) {
+        beforeChange();
         this.inputHint = withInputHint;
     }
 
@@ -806,6 +901,7 @@ public class Activity {
      * @param withSummary The summary text.
      */
     public void setSummary(String withSummary) {
+        beforeChange();
         this.summary = withSummary;
     }
 
@@ -824,6 +920,7 @@ public class Activity {
      * @param withSuggestedActions The SuggestedActions for the Activity.
      */
     public void setSuggestedActions(SuggestedActions withSuggestedActions) {
+        beforeChange();
         this.suggestedActions = withSuggestedActions;
     }
 
@@ -842,6 +939,7 @@ public class Activity {
      * @param withAttachments A List of {@link Attachment}.
      */
     public void setAttachments(List<Attachment> withAttachments) {
+        beforeChange();
         this.attachments = withAttachments;
     }
 
@@ -851,6 +949,7 @@ public class Activity {
      * @param withAttachment The Attachment object.
      */
     public void setAttachment(Attachment withAttachment) {
+        beforeChange();
         setAttachments(Collections.singletonList(withAttachment));
     }
 
@@ -887,6 +986,7 @@ public class Activity {
      * @see Entity
      */
     public void setEntities(List<Entity> withEntities) {
+        beforeChange();
         this.entities = withEntities;
     }
 
@@ -897,6 +997,7 @@ public class Activity {
      * @see Entity
      */
     public void setMentions(List<Mention> withMentions) {
+        beforeChange();
         List<Entity> converted = withMentions.stream()
             .filter(entity -> entity.getType().equalsIgnoreCase("mention"))
             .map(entity -> Entity.getAs(entity, Entity.class))
@@ -919,6 +1020,7 @@ public class Activity {
      * @param withChannelData Channel specific data as a JsonNode.
      */
     public void setChannelData(Object withChannelData) {
+        beforeChange();
         this.channelData = withChannelData;
     }
 
@@ -937,6 +1039,7 @@ public class Activity {
      * @param withReplyToId The reply to ID.
      */
     public void setReplyToId(String withReplyToId) {
+        beforeChange();
         this.replyToId = withReplyToId;
     }
 
@@ -957,6 +1060,7 @@ public class Activity {
      * @param withCode The endOfConversation code.
      */
     public void setCode(EndOfConversationCodes withCode) {
+        beforeChange();
         this.code = withCode;
     }
 
@@ -977,6 +1081,7 @@ public class Activity {
      * @param withExpiration The activity expiration.
      */
     public void setExpiration(LocalDateTime withExpiration) {
+        beforeChange();
         this.expiration = withExpiration;
     }
 
@@ -995,6 +1100,7 @@ public class Activity {
      * @param withImportance The activity importance.
      */
     public void setImportance(String withImportance) {
+        beforeChange();
         this.importance = withImportance;
     }
 
@@ -1019,6 +1125,7 @@ public class Activity {
      * @param withDeliveryMode The delivery mode hint.
      */
     public void setDeliveryMode(String withDeliveryMode) {
+        beforeChange();
         this.deliveryMode = withDeliveryMode;
     }
 
@@ -1039,6 +1146,7 @@ public class Activity {
      * @param withListenFor List of phrases to listen for.
      */
     public void setListenFor(List<String> withListenFor) {
+        beforeChange();
         this.listenFor = withListenFor;
     }
 
@@ -1059,6 +1167,7 @@ public class Activity {
      * @param withTextHighlights List of {@link TextHighlight}.
      */
     public void setTextHighlights(List<TextHighlight> withTextHighlights) {
+        beforeChange();
         this.textHighlights = withTextHighlights;
     }
 
@@ -1082,6 +1191,7 @@ public class Activity {
      */
     @JsonAnySetter
     public void setProperties(String key, JsonNode withValue) {
+        beforeChange();
         this.properties.put(key, withValue);
     }
 
@@ -1100,6 +1210,7 @@ public class Activity {
      * @param withTopicName The topic name.
      */
     public void setTopicName(String withTopicName) {
+        beforeChange();
         this.topicName = withTopicName;
     }
 
@@ -1118,6 +1229,7 @@ public class Activity {
      * @param withHistoryDisclosed True if the history is disclosed.
      */
     public void setHistoryDisclosed(boolean withHistoryDisclosed) {
+        beforeChange();
         this.historyDisclosed = withHistoryDisclosed;
     }
 
@@ -1136,6 +1248,7 @@ public class Activity {
      * @param withMembersAdded List of {@link ChannelAccount} of added members.
      */
     public void setMembersAdded(List<ChannelAccount> withMembersAdded) {
+        beforeChange();
         this.membersAdded = withMembersAdded;
     }
 
@@ -1154,6 +1267,7 @@ public class Activity {
      * @param withMembersRemoved List of {@link ChannelAccount} of removed members.
      */
     public void setMembersRemoved(List<ChannelAccount> withMembersRemoved) {
+        beforeChange();
         this.membersRemoved = withMembersRemoved;
     }
 
@@ -1172,6 +1286,7 @@ public class Activity {
      * @param withLabel The activity label.
      */
     public void setLabel(String withLabel) {
+        beforeChange();
         this.label = withLabel;
     }
 
@@ -1190,6 +1305,7 @@ public class Activity {
      * @param withValueType The type of Activity value.
      */
     public void setValueType(String withValueType) {
+        beforeChange();
         this.valueType = withValueType;
     }
 
@@ -1208,6 +1324,7 @@ public class Activity {
      * @param withValue The Activity value.
      */
     public void setValue(Object withValue) {
+        beforeChange();
         this.value = withValue;
     }
 
@@ -1226,6 +1343,7 @@ public class Activity {
      * @param withName The Activity name.
      */
     public void setName(String withName) {
+        beforeChange();
         this.name = withName;
     }
 
@@ -1244,6 +1362,7 @@ public class Activity {
      * @param withRelatesTo The conversation reference.
      */
     public void setRelatesTo(ConversationReference withRelatesTo) {
+        beforeChange();
         this.relatesTo = withRelatesTo;
     }
 
@@ -1264,6 +1383,7 @@ public class Activity {
      * @param withAction Recipient action.
      */
     public void setAction(String withAction) {
+        beforeChange();
         this.action = withAction;
     }
 
@@ -0,0 +1,96 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.bot.schema;
+
+/**
+ * A copy-on-write snapshot of an {@link Activity}.
+ *
+ * <p>
+ * Taking a snapshot does not copy the activity. The snapshot shares the
+ * activity until one of its setters is called, and only then is the activity
+ * deep cloned, before the change is made. An activity that is never changed
+ * is never deep cloned: {@link #get()} returns a shallow copy of it instead.
+ * This suits middleware such as transcript logging that must record activities
+ * as they were, but that rarely sees them change afterwards.
+ * </p>
+ *
+ * <p>
+ * Only changes made through the setters of the activity are detected. Changing
+ * a nested object in place, such as the account returned by
+ * {@link Activity#getFrom()} or the map returned by
+ * {@link Activity#getProperties()}, changes the snapshot too.
+ * </p>
+ */
+public final class ActivitySnapshot {
+    private final Activity activity;
+    private volatile Activity copy;
+
+    private ActivitySnapshot(Activity withActivity) {
+        activity = withActivity;
+    }
+
+    /**
+     * Takes a snapshot of an activity.
+     *
+     * @param activity The activity.
+     * @return The snapshot.
+     */
+    public static ActivitySnapshot of(Activity activity) {
+        if (activity == null) {
+            throw new IllegalArgumentException("activity cannot be null");
+        }
+
+        ActivitySnapshot snapshot = new ActivitySnapshot(activity);
+        activity.addSnapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Gets whether the activity has changed since the snapshot was taken, so
+     * that the snapshot holds its own deep clone.
+     *
+     * @return True if the activity was cloned.
+     */
+    public boolean isCopied() {
+        return copy != null;
+    }
+
+    /**
+     * Gets the activity as it was when the snapshot was taken, and stops
+     * tracking changes to it. The fields of the returned activity can be set
+     * without changing the original, but the nested objects may be shared with
+     * it, so replace them rather than changing them in place. Call this once.
+     *
+     * @return The activity as it was.
+     */
+    public Activity get() {
+        Activity copied = copy;
+        if (copied != null) {
+            return copied;
+        }
+
+        activity.removeSnapshot(this);
+
+        // the activity may have changed between the first check and the removal
+        copied = copy;
+        return copied != null ? copied : Activity.shallowCopy(activity);
+    }
+
+    /**
+     * Stops tracking changes to the activity without copying it, for a snapshot
+     * that is no longer needed.
+     */
+    public void release() {
+        activity.removeSnapshot(this);
+    }
+
+    /**
+     * Clones the activity before it changes. Called by the activity.
+     */
+    void copyBeforeChange() {
+        if (copy == null) {
+            copy = Activity.clone(activity);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
@@ -85,6 +86,18 @@ public final class Serialization {
         }
     }
 
+    /**
+     * Gets a reader for a type that uses the shared serialization settings.
+     * Readers are immutable and thread safe, so keep one for repeated reads
+     * rather than getting a new one each time.
+     *
+     * @param type The type to read.
+     * @return An ObjectReader for the type.
+     */
+    public static ObjectReader getReader(Class<?> type) {
+        return objectMapper.readerFor(type);
+    }
+
     /**
      * @param <T> The Type of the Class
      * @param src The source JsonNode
@@ -540,4 +540,38 @@ public class ActivityTest {
             Assert.assertTrue(activity.isFromStreamingConnection());
         });
     }
+
+    @Test
+    public void Snapshot_CopiesBeforeChange() {
+        Activity activity = createActivity();
+        ActivitySnapshot snapshot = ActivitySnapshot.of(activity);
+        Assert.assertFalse(snapshot.isCopied());
+
+        activity.setText("changed");
+        Assert.assertTrue(snapshot.isCopied());
+
+        Activity logged = snapshot.get();
+        Assert.assertNotSame(activity, logged);
+        Assert.assertEquals("changed", activity.getText());
+        Assert.assertNotEquals("changed", logged.getText());
+        Assert.assertNotSame(activity.getFrom(), logged.getFrom());
+    }
+
+    @Test
+    public void Snapshot_UnchangedIsNotCloned() {
+        Activity activity = createActivity();
+        ActivitySnapshot snapshot = ActivitySnapshot.of(activity);
+
+        Activity logged = snapshot.get();
+        Assert.assertFalse(snapshot.isCopied());
+        Assert.assertNotSame(activity, logged);
+        Assert.assertEquals(activity.getText(), logged.getText());
+        Assert.assertSame(activity.getFrom(), logged.getFrom());
+
+        // the snapshot no longer tracks the activity, and the copy is independent
+        logged.setText("logged");
+        activity.setText("changed");
+        Assert.assertFalse(snapshot.isCopied());
+        Assert.assertEquals("logged", logged.getText());
+    }
 }
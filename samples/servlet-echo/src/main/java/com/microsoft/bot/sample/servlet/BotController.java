@@ -12,7 +12,7 @@ import javax.servlet.annotation.WebServlet;
  *
  * @see EchoBot
  */
-@WebServlet(name = "echo", urlPatterns = "/api/messages")
+@WebServlet(name = "echo", urlPatterns = "/api/messages", asyncSupported = true)
 public class BotController extends ControllerBase {
     private static final long serialVersionUID = 1L;
 
@@ -3,19 +3,17 @@
 
 package com.microsoft.bot.sample.servlet;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microsoft.bot.builder.Bot;
 import com.microsoft.bot.connector.authentication.AuthenticationException;
+import com.microsoft.bot.integration.ActivityIngestion;
 import com.microsoft.bot.integration.BotFrameworkHttpAdapter;
 import com.microsoft.bot.integration.Configuration;
-import com.microsoft.bot.schema.Activity;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.InputStream;
 
 /**
  * The super class for a Servlet based Bot controller.
@@ -26,7 +24,7 @@ import java.io.InputStream;
  * </p>
  */
 public abstract class ControllerBase extends ServletWithBotConfiguration {
-    private ObjectMapper objectMapper;
+    private ActivityIngestion ingestion;
     private BotFrameworkHttpAdapter adapter;
     private Bot bot;
 
@@ -35,10 +33,8 @@ public abstract class ControllerBase extends ServletWithBotConfiguration {
      */
     @Override
     public void init() {
-        objectMapper = new ObjectMapper()
-            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-            .findAndRegisterModules();
         createControllerDependencies();
+        ingestion = new ActivityIngestion(adapter);
     }
 
     /**
@@ -52,7 +48,10 @@ public abstract class ControllerBase extends ServletWithBotConfiguration {
     }
 
     /**
-     * Receives the incoming Channel message.
+     * Receives the incoming Channel message. The request is processed
+     * asynchronously: the servlet thread returns once processing has started,
+     * and the response is completed when the activity has been processed. The
+     * servlet must be registered with async support.
      *
      * @param request  The incoming http request.
      * @param response The http response.
@@ -60,34 +59,31 @@ public abstract class ControllerBase extends ServletWithBotConfiguration {
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) {
         try {
-            Activity activity = getActivity(request);
+            AsyncContext asyncContext = request.startAsync();
+
+            // the Authorization header is checked before the body is read
             String authHeader = request.getHeader("Authorization");
 
-            adapter.processIncomingActivity(
-                authHeader, activity, turnContext -> bot.onTurn(turnContext)
-            ).handle((result, exception) -> {
+            ingestion.processIncomingActivity(
+                authHeader, request.getInputStream(), turnContext -> bot.onTurn(turnContext)
+            ).whenComplete((result, exception) -> {
                 if (exception == null) {
                     response.setStatus(HttpServletResponse.SC_ACCEPTED);
-                    return null;
-                }
-
-                if (exception.getCause() instanceof AuthenticationException) {
+                } else if (exception.getCause() instanceof AuthenticationException) {
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                } else if (exception.getCause() instanceof IOException) {
+                    response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 } else {
                     response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                 }
 
-                return null;
+                asyncContext.complete();
             });
         } catch (Exception ex) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-        }
-    }
-
-    // Creates an Activity object from the request
-    private Activity getActivity(HttpServletRequest request) throws IOException {
-        try (InputStream is = request.getInputStream()) {
-            return objectMapper.readValue(is, Activity.class);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().complete();
+            }
         }
     }
 }